@@ -186,7 +186,8 @@ public class AionContractDetailsImpl extends AbstractContractDetails<IDataWord>
     }
 
     /**
-     * Returns an rlp encoding of this AionContractDetailsImpl object.
+     * Returns an rlp encoding of this AionContractDetailsImpl object. Once a data source is set the
+     * storage trie is moved to it, so the encoding only holds the storage root and the code.
      *
      * @return an rlp encoding of this.
      */
@@ -194,6 +195,12 @@ public class AionContractDetailsImpl extends AbstractContractDetails<IDataWord>
     public byte[] getEncoded() {
         if (rlpEncoded == null) {
 
+            // switch from in-memory to external storage
+            if (!externalStorage && dataSource != null) {
+                externalStorage = true;
+                storageTrie.getCache().setDB(getExternalStorageDataSource());
+            }
+
             byte[] rlpAddress = RLP.encodeElement(address.toBytes());
             byte[] rlpIsExternalStorage = RLP.encodeByte((byte) (externalStorage ? 1 : 0));
             byte[] rlpStorageRoot = RLP.encodeElement(externalStorage ? storageTrie.getRootHash() : EMPTY_BYTE_ARRAY);
@@ -40,8 +40,9 @@ import org.aion.base.type.IPowBlockHeader;
 import org.aion.base.util.ByteUtil;
 import org.aion.base.util.Utils;
 import org.aion.crypto.HashUtil;
-import org.aion.rlp.RLP;
 import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPView;
+import org.aion.rlp.RLPWriter;
 import org.aion.mcf.types.AbstractBlockHeader;
 import org.aion.zero.exceptions.HeaderStructureException;
 import org.json.JSONObject;
@@ -59,6 +60,9 @@ public class A0BlockHeader extends AbstractBlockHeader implements IPowBlockHeade
             RPL_BH_EXTRADATA = 9, RPL_BH_NRG_CONSUMED = 10, RPL_BH_NRG_LIMIT = 11,
             RPL_BH_TIMESTAMP = 12, RPL_BH_NONCE = 13, RPL_BH_SOLUTION = 14;
 
+    /** Enough for the encoding of a header with its 1408 byte equihash solution. */
+    private static final int ENCODED_SIZE_HINT = 2048;
+
     private byte[] mineHashBytes;
 
     //TODO: Update this
@@ -82,18 +86,21 @@ public class A0BlockHeader extends AbstractBlockHeader implements IPowBlockHeade
     }
 
     public A0BlockHeader(byte[] encoded) {
-        this((RLPList) RLP.decode2(encoded).get(0));
+        this(RLPView.wrap(encoded));
     }
 
     public A0BlockHeader(RLPList rlpHeader) {
+        this(RLPView.wrap(rlpHeader.getRLPData()));
+    }
+
+    public A0BlockHeader(RLPView rlpHeader) {
 
         // Version
         byte[] versionBytes = rlpHeader.get(RPL_BH_VERSION).getRLPData();
         this.version = versionBytes.length == 1 ? versionBytes[0] : 1;
 
         // Number
-        byte[] nrBytes = rlpHeader.get(RPL_BH_NUMBER).getRLPData();
-        this.number = nrBytes == null ? 0 : (new BigInteger(1, nrBytes)).longValue();
+        this.number = rlpHeader.get(RPL_BH_NUMBER).asLong();
 
         // ParentHash
         this.parentHash = rlpHeader.get(RPL_BH_PARENTHASH).getRLPData();
@@ -128,19 +135,15 @@ public class A0BlockHeader extends AbstractBlockHeader implements IPowBlockHeade
         this.extraData = rlpHeader.get(RPL_BH_EXTRADATA).getRLPData();
 
         // Energy Consumed
-        byte[] energyConsumedBytes = rlpHeader.get(RPL_BH_NRG_CONSUMED).getRLPData();
-        this.energyConsumed = energyConsumedBytes == null ? 0 : (new BigInteger(1, energyConsumedBytes).longValue());
+        this.energyConsumed = rlpHeader.get(RPL_BH_NRG_CONSUMED).asLong();
 
         // Energy Limit
-        byte[] energyLimitBytes = rlpHeader.get(RPL_BH_NRG_LIMIT).getRLPData();
-        this.energyLimit = energyLimitBytes == null ? 0 : (new BigInteger(1, energyLimitBytes).longValue());
+        this.energyLimit = rlpHeader.get(RPL_BH_NRG_LIMIT).asLong();
 
         // Timestamp
-        byte[] tsBytes = rlpHeader.get(RPL_BH_TIMESTAMP).getRLPData();
-
         // TODO: not a huge concern, but how should we handle possible
         // overflows?
-        this.timestamp = tsBytes == null ? 0 : (new BigInteger(1, tsBytes)).longValue();
+        this.timestamp = rlpHeader.get(RPL_BH_TIMESTAMP).asLong();
 
         // Nonce
         this.nonce = rlpHeader.get(RPL_BH_NONCE).getRLPData();
@@ -247,41 +250,50 @@ public class A0BlockHeader extends AbstractBlockHeader implements IPowBlockHeade
 
     public byte[] getEncoded(boolean withNonce) {
 
-        byte[] versionBytes = {this.version};
-
-        byte[] RLPversion = RLP.encodeElement(versionBytes);
-        byte[] number = RLP.encodeBigInteger(BigInteger.valueOf(this.number));
-        byte[] parentHash = RLP.encodeElement(this.parentHash);
-        byte[] coinbase = RLP.encodeElement(this.coinbase.toBytes());
-        byte[] stateRoot = RLP.encodeElement(this.stateRoot);
-
         if (txTrieRoot == null) {
             this.txTrieRoot = EMPTY_TRIE_HASH;
         }
-        byte[] txTrieRoot = RLP.encodeElement(this.txTrieRoot);
-
         if (receiptTrieRoot == null) {
             this.receiptTrieRoot = EMPTY_TRIE_HASH;
         }
-        byte[] receiptTrieRoot = RLP.encodeElement(this.receiptTrieRoot);
-        byte[] logsBloom = RLP.encodeElement(this.logsBloom);
-        byte[] difficulty = RLP.encodeElement(this.difficulty);
-        byte[] extraData = RLP.encodeElement(this.extraData);
-        byte[] energyConsumed = RLP.encodeBigInteger(BigInteger.valueOf(this.energyConsumed));
-        byte[] energyLimit = RLP.encodeBigInteger(BigInteger.valueOf(this.energyLimit));
 
-        byte[] timestamp = RLP.encodeBigInteger(BigInteger.valueOf(this.timestamp));
-
-        byte[] solution = RLP.encodeElement(this.solution);
+        RLPWriter writer = new RLPWriter(ENCODED_SIZE_HINT);
+        writer.startList();
 
         if (withNonce) {
-            byte[] nonce = RLP.encodeElement(this.nonce);
-            return RLP.encodeList(RLPversion, number, parentHash, coinbase, stateRoot, txTrieRoot, receiptTrieRoot, logsBloom, difficulty,
-                                  extraData, energyConsumed, energyLimit, timestamp, nonce, solution);
+            writer.writeElement(new byte[] {this.version})
+                    .writeUnsignedLong(this.number)
+                    .writeElement(this.parentHash)
+                    .writeElement(this.coinbase.toBytes())
+                    .writeElement(this.stateRoot)
+                    .writeElement(this.txTrieRoot)
+                    .writeElement(this.receiptTrieRoot)
+                    .writeElement(this.logsBloom)
+                    .writeElement(this.difficulty)
+                    .writeElement(this.extraData)
+                    .writeUnsignedLong(this.energyConsumed)
+                    .writeUnsignedLong(this.energyLimit)
+                    .writeUnsignedLong(this.timestamp)
+                    .writeElement(this.nonce)
+                    .writeElement(this.solution);
         } else {
-            return RLP.encodeList(RLPversion, parentHash, coinbase, stateRoot, txTrieRoot, receiptTrieRoot, logsBloom, difficulty,
-                    number, timestamp, extraData, solution, energyConsumed, energyLimit);
-        }
+            writer.writeElement(new byte[] {this.version})
+                    .writeElement(this.parentHash)
+                    .writeElement(this.coinbase.toBytes())
+                    .writeElement(this.stateRoot)
+                    .writeElement(this.txTrieRoot)
+                    .writeElement(this.receiptTrieRoot)
+                    .writeElement(this.logsBloom)
+                    .writeElement(this.difficulty)
+                    .writeUnsignedLong(this.number)
+                    .writeUnsignedLong(this.timestamp)
+                    .writeElement(this.extraData)
+                    .writeElement(this.solution)
+                    .writeUnsignedLong(this.energyConsumed)
+                    .writeUnsignedLong(this.energyLimit);
+        }
+
+        return writer.endList().toByteArray();
     }
 
     public String toString() {
@@ -382,7 +394,11 @@ public class A0BlockHeader extends AbstractBlockHeader implements IPowBlockHeade
     }
 
     public static A0BlockHeader fromRLP(byte[] rawData, boolean isUnsafe) throws Exception {
-        return fromRLP((RLPList) RLP.decode2(rawData).get(0), isUnsafe);
+        return fromRLP(RLPView.wrap(rawData), isUnsafe);
+    }
+
+    public static A0BlockHeader fromRLP(RLPList rlpHeader, boolean isUnsafe) throws Exception {
+        return fromRLP(RLPView.wrap(rlpHeader.getRLPData()), isUnsafe);
     }
 
     /**
@@ -392,7 +408,7 @@ public class A0BlockHeader extends AbstractBlockHeader implements IPowBlockHeade
      * @param isUnsafe
      * @return
      */
-    public static A0BlockHeader fromRLP(RLPList rlpHeader, boolean isUnsafe) throws Exception {
+    public static A0BlockHeader fromRLP(RLPView rlpHeader, boolean isUnsafe) throws Exception {
         Builder builder = new Builder();
         if (isUnsafe) {
             builder.fromUnsafeSource();
@@ -40,8 +40,8 @@ import org.aion.crypto.ISignature;
 import org.aion.crypto.SignatureFac;
 import org.aion.mcf.vm.Constants;
 import org.aion.mcf.vm.types.DataWord;
-import org.aion.rlp.RLP;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPView;
+import org.aion.rlp.RLPWriter;
 import org.aion.mcf.types.AbstractTransaction;
 
 /**
@@ -120,23 +120,16 @@ public class AionTransaction extends AbstractTransaction {
 
     public void rlpParse() {
 
-        RLPList decodedTxList = RLP.decode2(rlpEncoded);
-        RLPList tx = (RLPList) decodedTxList.get(0);
+        RLPView tx = RLPView.wrap(rlpEncoded);
 
         this.nonce = tx.get(RLP_TX_NONCE).getRLPData();
         this.value = tx.get(RLP_TX_VALUE).getRLPData();
         this.data = tx.get(RLP_TX_DATA).getRLPData();
-
-        if (tx.get(RLP_TX_TO).getRLPData() == null) {
-            this.to = null;
-        } else {
-            this.to = Address.wrap(tx.get(RLP_TX_TO).getRLPData());
-        }
-
+        this.to = Address.wrap(tx.get(RLP_TX_TO).getRLPData());
         this.timeStamp = tx.get(RLP_TX_TIMESTAMP).getRLPData();
-        this.nrg = new BigInteger(1, tx.get(RLP_TX_NRG).getRLPData()).longValue();
-        this.nrgPrice = new BigInteger(1, tx.get(RLP_TX_NRGPRICE).getRLPData()).longValue();
-        this.type = new BigInteger(1, tx.get(RLP_TX_TYPE).getRLPData()).byteValue();
+        this.nrg = tx.get(RLP_TX_NRG).asLong();
+        this.nrgPrice = tx.get(RLP_TX_NRGPRICE).asLong();
+        this.type = (byte) tx.get(RLP_TX_TYPE).asLong();
 
         byte[] sigs = tx.get(RLP_TX_SIG).getRLPData();
         if (sigs != null) {
@@ -312,6 +305,16 @@ public class AionTransaction extends AbstractTransaction {
         }
     }
 
+    /**
+     * Sets the sender recovered from the signature of another instance of this transaction, so
+     * this instance does not recover it again.
+     *
+     * @param from the sender of a transaction with the same hash
+     */
+    public synchronized void setFrom(Address from) {
+        this.from = from;
+    }
+
     public void sign(ECKey key) throws MissingPrivateKeyException {
         this.timeStamp = ByteUtil.longToBytes(TimeInstant.now().toEpochMicro());
         this.signature = key.sign(this.getRawHash());
@@ -356,23 +359,10 @@ public class AionTransaction extends AbstractTransaction {
             return rlpRaw;
         }
 
-        byte[] nonce = RLP.encodeElement(this.nonce);
-
-        byte[] to;
-        if (this.to == null) {
-            to = RLP.encodeElement(null);
-        } else {
-            to = RLP.encodeElement(this.to.toBytes());
-        }
-
-        byte[] value = RLP.encodeElement(this.value);
-        byte[] data = RLP.encodeElement(this.data);
-        byte[] timeStamp = RLP.encodeElement(this.timeStamp);
-        byte[] nrg = RLP.encodeLong(this.nrg);
-        byte[] nrgPrice = RLP.encodeLong(this.nrgPrice);
-        byte[] type = RLP.encodeByte(this.type);
-
-        rlpRaw = RLP.encodeList(nonce, to, value, data, timeStamp, nrg, nrgPrice, type);
+        RLPWriter writer = new RLPWriter(encodedSizeHint());
+        writer.startList();
+        writeFields(writer);
+        rlpRaw = writer.endList().toByteArray();
         return rlpRaw;
     }
 
@@ -382,36 +372,38 @@ public class AionTransaction extends AbstractTransaction {
             return rlpEncoded;
         }
 
-        byte[] nonce = RLP.encodeElement(this.nonce);
-
-        byte[] to;
-        if (this.to == null) {
-            to = RLP.encodeElement(null);
-        } else {
-            to = RLP.encodeElement(this.to.toBytes());
-        }
-
-        byte[] value = RLP.encodeElement(this.value);
-        byte[] data = RLP.encodeElement(this.data);
-        byte[] timeStamp = RLP.encodeElement(this.timeStamp);
-        byte[] nrg = RLP.encodeLong(this.nrg);
-        byte[] nrgPrice = RLP.encodeLong(this.nrgPrice);
-        byte[] type = RLP.encodeByte(this.type);
-
-        byte[] sigs;
-
         if (signature == null) {
             LOG.error("Encoded transaction has no signature!");
             return null;
         }
 
-        sigs = RLP.encodeElement(signature.toBytes());
-        this.rlpEncoded = RLP.encodeList(nonce, to, value, data, timeStamp, nrg, nrgPrice, type, sigs);
+        RLPWriter writer = new RLPWriter(encodedSizeHint());
+        writer.startList();
+        writeFields(writer);
+        writer.writeElement(signature.toBytes());
+        this.rlpEncoded = writer.endList().toByteArray();
         this.hash = this.getHash();
 
         return rlpEncoded;
     }
 
+    /** Writes the fields shared by the encodings with and without the signature. */
+    private void writeFields(RLPWriter writer) {
+        writer.writeElement(this.nonce)
+                .writeElement(this.to == null ? null : this.to.toBytes())
+                .writeElement(this.value)
+                .writeElement(this.data)
+                .writeElement(this.timeStamp)
+                .writeLong(this.nrg)
+                .writeLong(this.nrgPrice)
+                .writeByte(this.type);
+    }
+
+    /** Room for the fixed size fields and the signature on top of the call data. */
+    private int encodedSizeHint() {
+        return 256 + (this.data == null ? 0 : this.data.length);
+    }
+
     @Override
     public int hashCode() {
 
@@ -34,5 +34,64 @@
  ******************************************************************************/
 package org.aion.base.db;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.base.util.ByteUtil;
+
 public interface IByteArrayKeyValueStore extends IKeyValueStore<byte[], byte[]> {
+
+    /**
+     * Retrieves the values of several keys at once, letting the data store read them together
+     * instead of one lookup at a time.
+     *
+     * @param keys the keys to retrieve
+     * @return the stored values by key, without the keys that have no value
+     * @throws RuntimeException if the data store is closed
+     * @throws IllegalArgumentException if the collection contains a null key
+     */
+    Map<ByteArrayWrapper, byte[]> getAll(Collection<byte[]> keys);
+
+    /**
+     * Returns the entries with keys in the range [{@code from}, {@code to}) in ascending order of
+     * the unsigned lexicographic comparison of the keys. At most {@code limit} entries are
+     * returned, so larger ranges are read page by page, continuing after the last returned key.
+     *
+     * @param from the smallest key included in the range
+     * @param to the key ending the range, excluded, or {@code null} for no upper bound
+     * @param limit the maximum number of entries to return
+     * @return the entries of the range, at most {@code limit} of them
+     * @throws RuntimeException if the data store is closed
+     * @throws IllegalArgumentException if {@code from} is null or the limit is not positive
+     */
+    List<Map.Entry<byte[], byte[]>> getRange(byte[] from, byte[] to, int limit);
+
+    /**
+     * Returns the entries whose keys start with the given prefix, in the order and with the
+     * bound of {@link #getRange(byte[], byte[], int)}.
+     *
+     * @param prefix the prefix of the keys
+     * @param limit the maximum number of entries to return
+     * @return the entries with the given prefix, at most {@code limit} of them
+     */
+    default List<Map.Entry<byte[], byte[]>> getByPrefix(byte[] prefix, int limit) {
+        byte[] end = Arrays.copyOf(prefix, prefix.length);
+        // the incremented prefix is the first key after the ones starting with the prefix,
+        // unless all its bytes overflow
+        boolean bounded = prefix.length > 0 && ByteUtil.increment(end);
+        return getRange(prefix, bounded ? end : null, limit);
+    }
+
+    /**
+     * Returns the smallest key that follows the given one, used to continue a range after its
+     * last returned key.
+     *
+     * @param key the last key read
+     * @return the first possible key after it
+     */
+    static byte[] nextKey(byte[] key) {
+        return ByteUtil.appendByte(key, (byte) 0);
+    }
 }
@@ -34,6 +34,8 @@
  ******************************************************************************/
 package org.aion.base.db;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -195,4 +197,14 @@ public interface IDatabase {
      *             if the data store is closed
      */
     long approximateSize();
+
+    /**
+     * Returns implementation specific counters, such as cache hits and memory usage, meant for
+     * monitoring. Implementations without such counters return an empty map.
+     *
+     * @return the counters by name
+     */
+    default Map<String, Long> getStatistics() {
+        return Collections.emptyMap();
+    }
 }
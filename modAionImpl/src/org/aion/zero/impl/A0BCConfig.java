@@ -63,4 +63,16 @@ public interface A0BCConfig {
      * Retrieves the selected energy strategy algorithm
      */
     AbstractEnergyStrategyLimit getEnergyLimitStrategy();
+
+    /**
+     * Retrieves the first block number whose receipts no longer carry the intermediate
+     * state root after each transaction, {@link Long#MAX_VALUE} when never
+     */
+    long getDeferredStateRootBlock();
+
+    /**
+     * Retrieves the number of threads executing the transactions of an imported block, 1 when they
+     * run sequentially
+     */
+    int getExecutionThreads();
 }
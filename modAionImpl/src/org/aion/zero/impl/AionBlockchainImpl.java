@@ -20,7 +20,6 @@
 package org.aion.zero.impl;
 
 import static java.lang.Math.max;
-import static java.lang.Runtime.getRuntime;
 import static java.math.BigInteger.ZERO;
 import static java.util.Collections.emptyList;
 import static org.aion.base.util.BIUtil.isMoreThan;
@@ -72,6 +71,7 @@ import org.aion.mcf.valid.ParentBlockHeaderValidator;
 import org.aion.mcf.vm.types.Bloom;
 import org.aion.rlp.RLP;
 import org.aion.zero.impl.vm.AionExecutorProvider;
+import org.aion.zero.impl.vm.ParallelTransactionExecutor;
 import org.aion.vm.TransactionExecutor;
 import org.aion.zero.exceptions.HeaderStructureException;
 import org.aion.zero.impl.blockchain.ChainConfiguration;
@@ -81,6 +81,8 @@ import org.aion.zero.impl.core.energy.AbstractEnergyStrategyLimit;
 import org.aion.zero.impl.core.energy.EnergyStrategies;
 import org.aion.zero.impl.db.AionBlockStore;
 import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.db.BloomBitsIndex;
+import org.aion.zero.impl.db.StatePrefetcher;
 import org.aion.zero.impl.sync.SyncMgr;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.impl.types.AionBlockSummary;
@@ -121,8 +123,14 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
     private AionRepositoryImpl repository;
     private IRepositoryCache track;
+
+    /** Executes the transactions of imported blocks in parallel, null when disabled. */
+    private final ParallelTransactionExecutor parallelExecutor;
+    /** Loads the state used by imported blocks ahead of their execution. */
+    private final StatePrefetcher statePrefetcher;
     private TransactionStore<AionTransaction, AionTxReceipt, org.aion.zero.impl.types.AionTxInfo>
             transactionStore;
+    private BloomBitsIndex bloomBitsIndex;
     private AionBlock bestBlock;
 
     private static final Logger LOGGER_VM = AionLoggerFactory.getLogger(LogEnum.VM.toString());
@@ -208,6 +216,16 @@ public class AionBlockchainImpl implements IAionBlockchain {
                         cfgAion.getConsensus().getEnergyStrategy(),
                         config);
             }
+
+            @Override
+            public long getDeferredStateRootBlock() {
+                return cfgAion.getConsensus().getDeferredStateRoot();
+            }
+
+            @Override
+            public int getExecutionThreads() {
+                return cfgAion.getTx().getExecThreads();
+            }
         };
     }
 
@@ -234,6 +252,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
         this.blockHeaderValidator = this.chainConfiguration.createBlockHeaderValidator();
 
         this.transactionStore = this.repository.getTransactionStore();
+        this.bloomBitsIndex = this.repository.getBloomBitsIndex();
 
         this.minerCoinbase = this.config.getMinerCoinbase();
 
@@ -256,6 +275,11 @@ public class AionBlockchainImpl implements IAionBlockchain {
                     this.chainConfiguration.getConstants().getMaximumExtraDataSize());
         }
         this.energyLimitStrategy = config.getEnergyLimitStrategy();
+
+        int threads = config.getExecutionThreads();
+        this.parallelExecutor =
+                threads > 1 ? new ParallelTransactionExecutor(threads, LOGGER_VM) : null;
+        this.statePrefetcher = new StatePrefetcher(repository, Math.max(2, threads), LOG);
     }
 
     /**
@@ -400,9 +424,9 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
         long endNumber = blockNumber + qty - 1;
 
-        IAionBlock block = getBlockByNumber(endNumber);
+        byte[] endHash = getBlockStore().getBlockHashByNumber(endNumber);
 
-        List<byte[]> hashes = getBlockStore().getListHashesEndWith(block.getHash(), qty);
+        List<byte[]> hashes = getBlockStore().getListHashesEndWith(endHash, qty);
 
         // asc order of hashes is required in the response
         Collections.reverse(hashes);
@@ -479,7 +503,11 @@ public class AionBlockchainImpl implements IAionBlockchain {
             // main branch become this branch
             // cause we proved that total difficulty
             // is greater
+            long forkNumber = bloomBitsIndex == null ? -1 : findForkNumber(block);
             getBlockStore().reBranch(block);
+            if (bloomBitsIndex != null) {
+                bloomBitsIndex.rollback(forkNumber);
+            }
 
             // The main repository rebranch
             this.repository = savedState.savedRepo;
@@ -497,6 +525,26 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return summary;
     }
 
+    /**
+     * Walks the branch of the given block back to the first block that is not on the main chain.
+     * Must run before the block store re-branches.
+     *
+     * @return the number of the first main chain block the re-branch replaces
+     */
+    private long findForkNumber(final AionBlock block) {
+        IAionBlock line = block;
+        while (true) {
+            IAionBlock parent = getBlockStore().getBlockByHash(line.getParentHash());
+            if (parent == null
+                    || Arrays.equals(
+                            getBlockStore().getBlockHashByNumber(parent.getNumber()),
+                            parent.getHash())) {
+                return line.getNumber();
+            }
+            line = parent;
+        }
+    }
+
     private AtomicLong bestBlockNumber = new AtomicLong(0L);
 
     /**
@@ -868,11 +916,6 @@ public class AionBlockchainImpl implements IAionBlockchain {
         transactionStore.flush();
     }
 
-    @SuppressWarnings("unused")
-    private boolean needFlushByMemory(double maxMemoryPercents) {
-        return getRuntime().freeMemory() < (getRuntime().totalMemory() * (1 - maxMemoryPercents));
-    }
-
     private static byte[] calcReceiptsTrie(List<AionTxReceipt> receipts) {
         Trie receiptsTrie = new TrieImpl(null);
 
@@ -952,13 +995,18 @@ public class AionBlockchainImpl implements IAionBlockchain {
         if (!block.isGenesis()) {
             isValid = isValid(block.getHeader());
 
-            // Sanity checks
-            String trieHash = toHexString(block.getTxTrieRoot());
-            String trieListHash = toHexString(calcTxTrie(block.getTransactionsList()));
+            // Sanity checks, already done for blocks assembled from the network
+            if (!block.isTxTrieVerified()) {
+                String trieHash = toHexString(block.getTxTrieRoot());
+                String trieListHash = toHexString(calcTxTrie(block.getTransactionsList()));
 
-            if (!trieHash.equals(trieListHash)) {
-                LOG.warn("Block's given Trie Hash doesn't match: {} != {}", trieHash, trieListHash);
-                return false;
+                if (!trieHash.equals(trieListHash)) {
+                    LOG.warn(
+                            "Block's given Trie Hash doesn't match: {} != {}",
+                            trieHash,
+                            trieListHash);
+                    return false;
+                }
             }
 
             List<AionTransaction> txs = block.getTransactionsList();
@@ -973,9 +1021,11 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
                 Map<Address, BigInteger> nonceCache = new HashMap<>();
 
-                if (txs.parallelStream().anyMatch(tx -> !TXValidator.isValid(tx))) {
-                    LOG.error("Some transactions in the block are invalid");
-                    return false;
+                for (boolean valid : TXValidator.isValid(txs)) {
+                    if (!valid) {
+                        LOG.error("Some transactions in the block are invalid");
+                        return false;
+                    }
                 }
 
                 for (AionTransaction tx : txs) {
@@ -1008,6 +1058,19 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return isValid;
     }
 
+    /**
+     * Starts loading the state used by the transactions of the given blocks, which are about to
+     * be imported, on top of the current best block.
+     *
+     * @param blocks the blocks to prefetch the state for
+     */
+    public void prefetchState(List<AionBlock> blocks) {
+        byte[] root = getBestBlock().getStateRoot();
+        for (AionBlock block : blocks) {
+            statePrefetcher.prefetch(block, root);
+        }
+    }
+
     public static Set<ByteArrayWrapper> getAncestors(
             IBlockStorePow<IAionBlock, A0BlockHeader> blockStore,
             IAionBlock testedBlock,
@@ -1053,6 +1116,8 @@ public class AionBlockchainImpl implements IAionBlockchain {
         List<AionTxExecSummary> summaries = new ArrayList<>();
         List<AionTransaction> transactions = new ArrayList<>();
 
+        boolean deferRoot = isStateRootDeferred(block);
+
         long energyRemaining = block.getNrgLimit();
         for (AionTransaction tx : block.getTransactionsList()) {
             TransactionExecutor executor =
@@ -1061,10 +1126,11 @@ public class AionBlockchainImpl implements IAionBlockchain {
             AionTxExecSummary summary = executor.execute();
 
             if (!summary.isRejected()) {
-                track.flush();
-
                 AionTxReceipt receipt = summary.getReceipt();
-                receipt.setPostTxState(repository.getRoot());
+                if (!deferRoot) {
+                    track.flush();
+                    receipt.setPostTxState(repository.getRoot());
+                }
                 receipt.setTransaction(tx);
 
                 // otherwise, assuming we don't have timeouts, add the
@@ -1088,23 +1154,44 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
     private AionBlockSummary applyBlock(IAionBlock block) {
         long saveTime = System.nanoTime();
+        statePrefetcher.executing(block);
 
         List<AionTxReceipt> receipts = new ArrayList<>();
         List<AionTxExecSummary> summaries = new ArrayList<>();
 
-        for (AionTransaction tx : block.getTransactionsList()) {
-            TransactionExecutor executor = new TransactionExecutor(tx, block, track, LOGGER_VM);
-            executor.setExecutorProvider(AionExecutorProvider.getInstance());
-            AionTxExecSummary summary = executor.execute();
+        boolean deferRoot = isStateRootDeferred(block);
+
+        if (parallelExecutor != null && block.getTransactionsList().size() > 1) {
+            summaries.addAll(
+                    parallelExecutor.execute(
+                            block,
+                            track,
+                            summary -> {
+                                AionTxReceipt receipt = summary.getReceipt();
+                                if (!deferRoot) {
+                                    track.flush();
+                                    receipt.setPostTxState(repository.getRoot());
+                                }
+                                receipts.add(receipt);
+                            }));
+        } else {
+            for (AionTransaction tx : block.getTransactionsList()) {
+                TransactionExecutor executor = new TransactionExecutor(tx, block, track, LOGGER_VM);
+                executor.setExecutorProvider(AionExecutorProvider.getInstance());
+                AionTxExecSummary summary = executor.execute();
 
-            track.flush();
-            AionTxReceipt receipt = summary.getReceipt();
-            receipt.setPostTxState(repository.getRoot());
-            receipts.add(receipt);
+                AionTxReceipt receipt = summary.getReceipt();
+                if (!deferRoot) {
+                    track.flush();
+                    receipt.setPostTxState(repository.getRoot());
+                }
+                receipts.add(receipt);
 
-            summaries.add(summary);
+                summaries.add(summary);
+            }
         }
         Map<Address, BigInteger> rewards = addReward(block, summaries);
+        statePrefetcher.executed(block);
 
         long totalTime = System.nanoTime() - saveTime;
         chainStats.addBlockExecTime(totalTime);
@@ -1112,6 +1199,15 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return new AionBlockSummary(block, rewards, receipts, summaries);
     }
 
+    /**
+     * From {@link A0BCConfig#getDeferredStateRootBlock()} on the receipts leave the post-tx state
+     * empty, so the changes of the whole block stay in the track and the world state is only
+     * hashed once for the block's state root instead of after every transaction.
+     */
+    private boolean isStateRootDeferred(IAionBlock block) {
+        return block.getNumber() >= config.getDeferredStateRootBlock();
+    }
+
     /**
      * Add reward to block- and every uncle coinbase assuming the entire block is valid.
      *
@@ -1162,6 +1258,10 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
         repository.commitBlock(block.getHeader());
 
+        if (!fork && bloomBitsIndex != null) {
+            bloomBitsIndex.onBestBlock(block.getNumber());
+        }
+
         if (LOG.isDebugEnabled())
             LOG.debug(
                     "Block saved: number: {}, hash: {}, TD: {}",
@@ -1184,6 +1284,11 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return transactionStore;
     }
 
+    @Override
+    public BloomBitsIndex getBloomBitsIndex() {
+        return bloomBitsIndex;
+    }
+
     @Override
     public synchronized void setBestBlock(AionBlock block) {
         bestBlock = block;
@@ -1198,6 +1303,10 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
     @Override
     public synchronized void close() {
+        statePrefetcher.shutdown();
+        if (parallelExecutor != null) {
+            parallelExecutor.shutdown();
+        }
         getBlockStore().close();
     }
 
@@ -1258,10 +1367,10 @@ public class AionBlockchainImpl implements IAionBlockchain {
     public List<A0BlockHeader> getListOfHeadersStartFrom(long blockNumber, int limit) {
 
         // identifying block we'll move from
-        IAionBlock startBlock = getBlockByNumber(blockNumber);
+        byte[] startHash = getBlockStore().getBlockHashByNumber(blockNumber);
 
         // if nothing found on main chain, return empty array
-        if (startBlock == null) {
+        if (startHash == null) {
             return emptyList();
         }
 
@@ -1314,13 +1423,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
         startNumber = blockNumber + qty - 1;
 
-        IAionBlock block = getBlockByNumber(startNumber);
-
-        if (block == null) {
-            return null;
-        }
-
-        return block.getHash();
+        return getBlockStore().getBlockHashByNumber(startNumber);
     }
 
     // NOTE: Functionality removed because not used and untested
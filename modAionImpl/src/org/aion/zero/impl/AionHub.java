@@ -171,7 +171,8 @@ public class AionHub {
             cfgNetP2p.getPort(), this.cfg.getNet().getNodes(), cfgNetP2p.getDiscover(),
             cfgNetP2p.getMaxTempNodes(),
             cfgNetP2p.getMaxActiveNodes(),
-            cfgNetP2p.getBootlistSyncOnly(), cfgNetP2p.getErrorTolerance());
+            cfgNetP2p.getBootlistSyncOnly(), cfgNetP2p.getErrorTolerance(),
+            cfgNetP2p.getSelectorThreads());
 
         this.syncMgr = SyncMgr.inst();
         this.syncMgr.init(this.p2pMgr, this.eventMgr, this.cfg.getSync().getBlocksQueueMax(),
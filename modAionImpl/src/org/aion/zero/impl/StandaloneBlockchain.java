@@ -37,6 +37,7 @@ import org.aion.crypto.ECKeyFac;
 import org.aion.crypto.HashUtil;
 import org.aion.db.impl.DBVendor;
 import org.aion.db.impl.DatabaseFactory;
+import org.aion.evtmgr.IEventMgr;
 import org.aion.mcf.config.CfgPrune;
 import org.aion.mcf.core.AccountState;
 import org.aion.mcf.core.ImportResult;
@@ -127,6 +128,8 @@ public class StandaloneBlockchain extends AionBlockchainImpl {
 
     public static class Builder {
         private A0BCConfig a0Config;
+        private long deferredStateRoot = Long.MAX_VALUE;
+        private int executionThreads = 1;
 
         // note that this parameter is usually not injected into the blockchain
         // it remains here so we can replace the default validator
@@ -136,6 +139,8 @@ public class StandaloneBlockchain extends AionBlockchainImpl {
 
         private IRepositoryConfig repoConfig;
 
+        private IEventMgr eventManager;
+
         public static final int INITIAL_ACC_LEN = 10;
         public static final BigInteger DEFAULT_BALANCE =
                 new BigInteger("1000000000000000000000000");
@@ -185,6 +190,21 @@ public class StandaloneBlockchain extends AionBlockchainImpl {
             return this;
         }
 
+        public Builder withDeferredStateRoot(long number) {
+            this.deferredStateRoot = number;
+            return this;
+        }
+
+        public Builder withExecutionThreads(int threads) {
+            this.executionThreads = threads;
+            return this;
+        }
+
+        public Builder withEventManager(IEventMgr eventManager) {
+            this.eventManager = eventManager;
+            return this;
+        }
+
         public Builder withChainConfig(ChainConfiguration chainConfig) {
             if (this.validatorType != null) {
                 throw new IllegalArgumentException("cannot set chainConfig after setting type");
@@ -264,6 +284,16 @@ public class StandaloneBlockchain extends AionBlockchainImpl {
                                                     .getEnergyDivisorLimitLong(),
                                             10_000_000L);
                                 }
+
+                                @Override
+                                public long getDeferredStateRootBlock() {
+                                    return deferredStateRoot;
+                                }
+
+                                @Override
+                                public int getExecutionThreads() {
+                                    return executionThreads;
+                                }
                             }
                             : this.a0Config;
 
@@ -307,6 +337,9 @@ public class StandaloneBlockchain extends AionBlockchainImpl {
 
             StandaloneBlockchain bc =
                     new StandaloneBlockchain(this.a0Config, this.configuration, this.repoConfig);
+            if (this.eventManager != null) {
+                bc.setEventManager(this.eventManager);
+            }
 
             AionGenesis.Builder genesisBuilder = new AionGenesis.Builder();
             for (Map.Entry<ByteArrayWrapper, AccountState> acc : this.initialState.entrySet()) {
@@ -23,14 +23,17 @@
 
 package org.aion.zero.impl.blockchain;
 
+import com.google.common.annotations.VisibleForTesting;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.ServiceLoader;
 import java.util.Set;
@@ -41,10 +44,11 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.aion.base.Constant;
-import org.aion.base.db.IRepository;
 import org.aion.base.db.IRepositoryCache;
 import org.aion.base.type.Address;
 import org.aion.base.util.ByteUtil;
@@ -107,19 +111,42 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
 
     private static final int MAX_VALIDATED_PENDING_TXS = 8192;
 
+    private static final String TXPOOL_IMPL = "org.aion.txpool.zero.TxPoolA0";
+
     private final int MAX_TXCACHE_FLUSH_SIZE = MAX_VALIDATED_PENDING_TXS >> 2;
 
+    // number of locks the admissions are striped over by sender address
+    private static final int SENDER_STRIPES = 64;
+
+    // passes re-executing transactions that ran out of pool order before rebuilding from scratch
+    private static final int MAX_REORDER_ROUNDS = 3;
+
+    /**
+     * Shared by the admissions and the readers of the pending transactions, held exclusively
+     * while the pending state moves to a new best block or the buffered and backed up
+     * transactions are flushed.
+     */
+    private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock[] senderLocks = new ReentrantLock[SENDER_STRIPES];
+
+    // the pending state executes one transaction at a time
+    private final ReentrantLock executeLock = new ReentrantLock();
+
     private IAionBlockchain blockchain;
 
     private TransactionStore<AionTransaction, AionTxReceipt, AionTxInfo> transactionStore;
 
-    private IRepository repository;
+    private AionRepositoryImpl repository;
 
     private ITxPool<AionTransaction> txPool;
 
     private IEventMgr evtMgr = null;
 
-    private IRepositoryCache pendingState;
+    private PendingStateCache pendingState;
+
+    // set when the pending state must be rebuilt from scratch on the next update
+    private boolean rebuildPendingState = false;
 
     private AtomicReference<AionBlock> best;
 
@@ -135,7 +162,7 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
 
     private boolean isSeed;
 
-    private boolean loadPendingTx;
+    private volatile boolean loadPendingTx;
 
     private boolean poolBackUp;
 
@@ -145,7 +172,10 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
 
     private ScheduledExecutorService ex;
 
-    private boolean closeToNetworkBest = false;
+    private volatile boolean closeToNetworkBest = false;
+
+    // false for a pending state created for tests, which is not part of a running kernel
+    private boolean broadcastTxs = true;
 
     private static long NRGPRICE_MIN = 10_000_000_000L;  // 10 PLAT  (10 * 10 ^ -9 AION)
     private static long NRGPRICE_MAX = 9_000_000_000_000_000_000L;  //  9 AION
@@ -158,8 +188,17 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         }
     }
 
-    private synchronized void processTxBuffer() {
-        if (!txBuffer.isEmpty()) {
+    private void processTxBuffer() {
+        stateLock.writeLock().lock();
+        try {
+            processTxBufferImpl();
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    private void processTxBufferImpl() {
+        if (bufferEnable && !txBuffer.isEmpty()) {
             List<AionTransaction> txs = new ArrayList<>();
             try {
                 for (AionTxExecSummary s : txBuffer) {
@@ -191,7 +230,7 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
                     if (LOGGER_TX.isDebugEnabled()) {
                         LOGGER_TX.debug("processTxBuffer tx#{}", txs.size());
                     }
-                    AionImpl.inst().broadcastTransactions(txs);
+                    broadcast(txs);
                 }
             } catch (Throwable e) {
                 LOGGER_TX.error("processTxBuffer throw {}", e.toString());
@@ -246,7 +285,16 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         }
     }
 
-    private synchronized void backupPendingTx() {
+    private void backupPendingTx() {
+        stateLock.writeLock().lock();
+        try {
+            backupPendingTxImpl();
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    private void backupPendingTxImpl() {
 
         if (!backupPendingPoolAdd.isEmpty()) {
             repository.addTxBatch(backupPendingPoolAdd, true);
@@ -285,10 +333,29 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         return Holder.INSTANCE;
     }
 
-    private AionPendingStateImpl(AionRepositoryImpl repository) {
-        this.repository = repository;
+    /**
+     * Creates a pending state on top of the best block of the given chain, with a pool of its own
+     * rather than the shared pool module. Transactions are admitted without the tx buffer and are
+     * not broadcast. The chain must have an event manager.
+     */
+    @SuppressWarnings("unchecked")
+    public static AionPendingStateImpl createForTesting(AionBlockchainImpl blockchain) {
+        AionPendingStateImpl ps = new AionPendingStateImpl(blockchain.getRepository(), false);
+        try {
+            ps.txPool = (ITxPool<AionTransaction>) Class.forName(TXPOOL_IMPL)
+                .getDeclaredConstructor(Properties.class).newInstance(txPoolConfig());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("can not create the tx pool", e);
+        }
 
-        this.isSeed = CfgAion.inst().getConsensus().isSeed();
+        ps.broadcastTxs = false;
+        ps.init(blockchain, false);
+        ps.processBest(blockchain.getBestBlock(), Collections.emptyList());
+        return ps;
+    }
+
+    private AionPendingStateImpl(AionRepositoryImpl repository) {
+        this(repository, CfgAion.inst().getConsensus().isSeed());
 
         if (!isSeed) {
 
@@ -299,17 +366,9 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
                 throw e;
             }
 
-            Properties prop = new Properties();
-
-            prop.put(TxPoolModule.MODULENAME, "org.aion.txpool.zero.TxPoolA0");
-            // The BlockEnergyLimit will be updated when the best block found.
-            prop.put(ITxPool.PROP_BLOCK_NRG_LIMIT,
-                String.valueOf(CfgAion.inst().getConsensus().getEnergyStrategy().getUpperBound()));
-            prop.put(ITxPool.PROP_BLOCK_SIZE_LIMIT, String.valueOf(Constant.MAX_BLK_SIZE));
-            prop.put(ITxPool.PROP_TX_TIMEOUT, "86400");
             TxPoolModule txPoolModule;
             try {
-                txPoolModule = TxPoolModule.getSingleton(prop);
+                txPoolModule = TxPoolModule.getSingleton(txPoolConfig());
                 //noinspection unchecked
                 this.txPool = (ITxPool<AionTransaction>) txPoolModule.getTxPool();
             } catch (Throwable e) {
@@ -321,7 +380,33 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         }
     }
 
+    private AionPendingStateImpl(AionRepositoryImpl repository, boolean isSeed) {
+        this.repository = repository;
+
+        for (int i = 0; i < SENDER_STRIPES; i++) {
+            senderLocks[i] = new ReentrantLock();
+        }
+
+        this.isSeed = isSeed;
+    }
+
+    private static Properties txPoolConfig() {
+        Properties prop = new Properties();
+
+        prop.put(TxPoolModule.MODULENAME, TXPOOL_IMPL);
+        // The BlockEnergyLimit will be updated when the best block found.
+        prop.put(ITxPool.PROP_BLOCK_NRG_LIMIT,
+            String.valueOf(CfgAion.inst().getConsensus().getEnergyStrategy().getUpperBound()));
+        prop.put(ITxPool.PROP_BLOCK_SIZE_LIMIT, String.valueOf(Constant.MAX_BLK_SIZE));
+        prop.put(ITxPool.PROP_TX_TIMEOUT, "86400");
+        return prop;
+    }
+
     public void init(final AionBlockchainImpl blockchain) {
+        init(blockchain, CfgAion.inst().getTx().getBuffer());
+    }
+
+    private void init(final AionBlockchainImpl blockchain, boolean bufferEnable) {
         if (!this.isSeed) {
             this.blockchain = blockchain;
             this.best = new AtomicReference<>();
@@ -331,7 +416,7 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
             this.poolBackUp = CfgAion.inst().getTx().getPoolBackup();
             this.pendingTxCache = new PendingTxCache(CfgAion.inst().getTx().getCacheMax(),
                 poolBackUp);
-            this.pendingState = repository.startTracking();
+            this.pendingState = new PendingStateCache(repository);
 
             this.dumpPool = CfgAion.inst().getTx().getPoolDump();
 
@@ -346,9 +431,9 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
             }
 
             if (poolBackUp) {
-                this.backupPendingPoolAdd = new HashMap<>();
-                this.backupPendingCacheAdd = new HashMap<>();
-                this.backupPendingPoolRemove = new HashSet<>();
+                this.backupPendingPoolAdd = Collections.synchronizedMap(new HashMap<>());
+                this.backupPendingCacheAdd = Collections.synchronizedMap(new HashMap<>());
+                this.backupPendingPoolRemove = Collections.synchronizedSet(new HashSet<>());
 
                 regTxEvents();
                 IHandler txHandler = this.evtMgr.getHandler(IHandler.TYPE.TX0.getValue());
@@ -357,7 +442,7 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
                 }
             }
 
-            this.bufferEnable = CfgAion.inst().getTx().getBuffer();
+            this.bufferEnable = bufferEnable;
             if (bufferEnable) {
                 LOGGER_TX.info("TxBuf enable!");
                 this.ex = Executors.newSingleThreadScheduledExecutor();
@@ -401,9 +486,14 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
     }
 
     @Override
-    public synchronized IRepositoryCache<?, ?, ?> getRepository() {
+    public IRepositoryCache<?, ?, ?> getRepository() {
         // Todo : no class use this method.
-        return pendingState;
+        stateLock.readLock().lock();
+        try {
+            return pendingState;
+        } finally {
+            stateLock.readLock().unlock();
+        }
     }
 
     public int getPendingTxSize() {
@@ -411,12 +501,26 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
     }
 
     @Override
-    public synchronized List<AionTransaction> getPendingTransactions() {
-        return isSeed ? new ArrayList<>() : this.txPool.snapshot();
+    public List<AionTransaction> getPendingTransactions() {
+        if (isSeed) {
+            return new ArrayList<>();
+        }
 
+        stateLock.readLock().lock();
+        try {
+            return this.txPool.snapshot();
+        } finally {
+            stateLock.readLock().unlock();
+        }
     }
 
-    public synchronized AionBlock getBestBlock() {
+    /** @return every pooled transaction, in the order the pending state executes them */
+    @VisibleForTesting
+    List<AionTransaction> getPooledTransactions() {
+        return this.txPool.snapshotAll();
+    }
+
+    public AionBlock getBestBlock() {
         best.set(blockchain.getBestBlock());
         return best.get();
     }
@@ -426,113 +530,47 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
      * libAion uses to work with timers
      */
     @Override
-    public synchronized List<AionTransaction> addPendingTransaction(AionTransaction tx) {
+    public List<AionTransaction> addPendingTransaction(AionTransaction tx) {
 
         return addPendingTransactions(Collections.singletonList(tx));
     }
 
+    /**
+     * Admits the transactions into the pending state. The checks needing no state run first,
+     * outside any lock. The transactions are then admitted sender by sender under a lock striped
+     * by sender address, since nonces are ordered per account, so concurrent submitters only wait
+     * on each other for the same sender or while executing against the pending state.
+     */
     @Override
-    public synchronized List<AionTransaction> addPendingTransactions(
+    public List<AionTransaction> addPendingTransactions(
         List<AionTransaction> transactions) {
 
+        // checks the signatures as one batch, the per transaction checks below hit the cache
+        boolean[] valid = TXValidator.isValid(transactions);
+
         if ((isSeed || !closeToNetworkBest) && !loadPendingTx) {
             return seedProcess(transactions);
         } else {
+            Map<Address, List<AionTransaction>> bySender = groupBySender(transactions, valid);
+
             List<AionTransaction> newPending = new ArrayList<>();
             List<AionTransaction> newLargeNonceTx = new ArrayList<>();
 
-            for (AionTransaction tx : transactions) {
-                BigInteger txNonce = tx.getNonceBI();
-                BigInteger bestPSNonce = bestPendingStateNonce(tx.getFrom());
-
-                int cmp = txNonce.compareTo(bestPSNonce);
-
-                if (cmp > 0) {
-                    if (!isInTxCache(tx.getFrom(), tx.getNonceBI())) {
-                        newLargeNonceTx.add(tx);
-                        addToTxCache(tx);
-
-                        if (poolBackUp) {
-                            backupPendingCacheAdd.put(tx.getHash(), tx.getEncoded());
-                        }
-
-                        if (LOGGER_TX.isTraceEnabled()) {
-                            LOGGER_TX.trace(
-                                "addPendingTransactions addToCache due to largeNonce: from = {}, nonce = {}",
-                                tx.getFrom(), txNonce);
-                        }
-                    }
-                } else if (cmp == 0) {
-                    if (txPool.size() > MAX_VALIDATED_PENDING_TXS) {
-
-                        if (!isInTxCache(tx.getFrom(), tx.getNonceBI())) {
-                            newLargeNonceTx.add(tx);
-                            addToTxCache(tx);
-
-                            if (poolBackUp) {
-                                backupPendingCacheAdd.put(tx.getHash(), tx.getEncoded());
-                            }
-
-                            if (LOGGER_TX.isTraceEnabled()) {
-                                LOGGER_TX.trace(
-                                    "addPendingTransactions addToCache due to poolMax: from = {}, nonce = {}",
-                                    tx.getFrom(), txNonce);
-                            }
-                        }
-
-                        continue;
-                    }
-
-                    // TODO: need to implement better cache return Strategy
-                    Map<BigInteger, AionTransaction> cache = pendingTxCache.geCacheTx(tx.getFrom());
-
-                    int limit = 0;
-                    Set<Address> addr = pendingTxCache.getCacheTxAccount();
-                    if (!addr.isEmpty()) {
-                        limit = MAX_TXCACHE_FLUSH_SIZE / addr.size();
-
-                        if (limit == 0) {
-                            limit = 1;
-                        }
-                    }
-
-                    if (LOGGER_TX.isTraceEnabled()) {
-                        LOGGER_TX.trace("addPendingTransactions from cache: from {}, size {}",
-                            tx.getFrom(), cache.size());
-                    }
-
-                    do {
-                        if (addPendingTransactionImpl(tx, txNonce)) {
-                            newPending.add(tx);
-
-                            if (poolBackUp) {
-                                backupPendingPoolAdd.put(tx.getHash(), tx.getEncoded());
-                            }
-                        } else {
-                            break;
-                        }
-
-                        if (LOGGER_TX.isTraceEnabled()) {
-                            LOGGER_TX.trace("cache: from {}, nonce {}", tx.getFrom(),
-                                txNonce.toString());
-                        }
-
-                        txNonce = txNonce.add(BigInteger.ONE);
-                    } while (cache != null &&
-                        (tx = cache.get(txNonce)) != null &&
-                        (limit-- > 0) &&
-                        (txBuffer == null ? txPool.size() : txPool.size() + txBuffer.size())
-                            < MAX_VALIDATED_PENDING_TXS);
-                } else if (bestRepoNonce(tx.getFrom()).compareTo(txNonce) < 1) {
-                    // repay Tx
-                    if (addPendingTransactionImpl(tx, txNonce)) {
-                        newPending.add(tx);
-
-                        if (poolBackUp) {
-                            backupPendingPoolAdd.put(tx.getHash(), tx.getEncoded());
+            stateLock.readLock().lock();
+            try {
+                for (Map.Entry<Address, List<AionTransaction>> e : bySender.entrySet()) {
+                    ReentrantLock lock = senderLock(e.getKey());
+                    lock.lock();
+                    try {
+                        for (AionTransaction tx : e.getValue()) {
+                            admit(tx, newPending, newLargeNonceTx);
                         }
+                    } finally {
+                        lock.unlock();
                     }
                 }
+            } finally {
+                stateLock.readLock().unlock();
             }
 
             if (LOGGER_TX.isTraceEnabled()) {
@@ -553,11 +591,11 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
             if (!loadPendingTx) {
                 if (bufferEnable) {
                     if (!newLargeNonceTx.isEmpty()) {
-                        AionImpl.inst().broadcastTransactions(newLargeNonceTx);
+                        broadcast(newLargeNonceTx);
                     }
                 } else {
                     if (!newPending.isEmpty() || !newLargeNonceTx.isEmpty()) {
-                        AionImpl.inst().broadcastTransactions(
+                        broadcast(
                             Stream.concat(newPending.stream(), newLargeNonceTx.stream())
                                 .collect(Collectors.toList()));
                     }
@@ -568,6 +606,134 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         }
     }
 
+    /**
+     * Drops the transactions failing the checks that need no state and groups the others by
+     * sender, keeping their order.
+     *
+     * @param valid the signature validity of each transaction, in list order
+     */
+    private Map<Address, List<AionTransaction>> groupBySender(
+        List<AionTransaction> transactions, boolean[] valid) {
+
+        Map<Address, List<AionTransaction>> bySender = new LinkedHashMap<>();
+        for (int i = 0; i < valid.length; i++) {
+            AionTransaction tx = transactions.get(i);
+            if (!valid[i]) {
+                LOGGER_TX.error("invalid Tx [{}]", tx.toString());
+                fireDroppedTx(tx, "INVALID_TX");
+            } else if (inValidTxNrgPrice(tx)) {
+                LOGGER_TX.error("invalid Tx Nrg price [{}]", tx.toString());
+                fireDroppedTx(tx, "INVALID_TX_NRG_PRICE");
+            } else {
+                bySender.computeIfAbsent(tx.getFrom(), k -> new ArrayList<>()).add(tx);
+            }
+        }
+        return bySender;
+    }
+
+    private ReentrantLock senderLock(Address addr) {
+        return senderLocks[(addr.hashCode() & Integer.MAX_VALUE) % SENDER_STRIPES];
+    }
+
+    /**
+     * Admits a transaction into the pool, or into the cache when its nonce is ahead of the
+     * pending state. The caller holds the lock of the sender.
+     */
+    private void admit(AionTransaction tx, List<AionTransaction> newPending,
+        List<AionTransaction> newLargeNonceTx) {
+        BigInteger txNonce = tx.getNonceBI();
+        BigInteger bestPSNonce = bestPendingStateNonce(tx.getFrom());
+
+        int cmp = txNonce.compareTo(bestPSNonce);
+
+        if (cmp > 0) {
+            if (!isInTxCache(tx.getFrom(), tx.getNonceBI())) {
+                newLargeNonceTx.add(tx);
+                addToTxCache(tx);
+
+                if (poolBackUp) {
+                    backupPendingCacheAdd.put(tx.getHash(), tx.getEncoded());
+                }
+
+                if (LOGGER_TX.isTraceEnabled()) {
+                    LOGGER_TX.trace(
+                        "addPendingTransactions addToCache due to largeNonce: from = {}, nonce = {}",
+                        tx.getFrom(), txNonce);
+                }
+            }
+        } else if (cmp == 0) {
+            if (txPool.size() > MAX_VALIDATED_PENDING_TXS) {
+
+                if (!isInTxCache(tx.getFrom(), tx.getNonceBI())) {
+                    newLargeNonceTx.add(tx);
+                    addToTxCache(tx);
+
+                    if (poolBackUp) {
+                        backupPendingCacheAdd.put(tx.getHash(), tx.getEncoded());
+                    }
+
+                    if (LOGGER_TX.isTraceEnabled()) {
+                        LOGGER_TX.trace(
+                            "addPendingTransactions addToCache due to poolMax: from = {}, nonce = {}",
+                            tx.getFrom(), txNonce);
+                    }
+                }
+
+                return;
+            }
+
+            // TODO: need to implement better cache return Strategy
+            Map<BigInteger, AionTransaction> cache = pendingTxCache.geCacheTx(tx.getFrom());
+
+            int limit = 0;
+            Set<Address> addr = pendingTxCache.getCacheTxAccount();
+            if (!addr.isEmpty()) {
+                limit = MAX_TXCACHE_FLUSH_SIZE / addr.size();
+
+                if (limit == 0) {
+                    limit = 1;
+                }
+            }
+
+            if (LOGGER_TX.isTraceEnabled()) {
+                LOGGER_TX.trace("addPendingTransactions from cache: from {}, size {}",
+                    tx.getFrom(), cache.size());
+            }
+
+            do {
+                if (addPendingTransactionImpl(tx, txNonce)) {
+                    newPending.add(tx);
+
+                    if (poolBackUp) {
+                        backupPendingPoolAdd.put(tx.getHash(), tx.getEncoded());
+                    }
+                } else {
+                    break;
+                }
+
+                if (LOGGER_TX.isTraceEnabled()) {
+                    LOGGER_TX.trace("cache: from {}, nonce {}", tx.getFrom(),
+                        txNonce.toString());
+                }
+
+                txNonce = txNonce.add(BigInteger.ONE);
+            } while (cache != null &&
+                (tx = cache.get(txNonce)) != null &&
+                (limit-- > 0) &&
+                (txBuffer == null ? txPool.size() : txPool.size() + txBuffer.size())
+                    < MAX_VALIDATED_PENDING_TXS);
+        } else if (bestRepoNonce(tx.getFrom()).compareTo(txNonce) < 1) {
+            // repay Tx
+            if (addPendingTransactionImpl(tx, txNonce)) {
+                newPending.add(tx);
+
+                if (poolBackUp) {
+                    backupPendingPoolAdd.put(tx.getHash(), tx.getEncoded());
+                }
+            }
+        }
+    }
+
     private List<AionTransaction> seedProcess(List<AionTransaction> transactions) {
         List<AionTransaction> newTx = new ArrayList<>();
         for (AionTransaction tx : transactions) {
@@ -580,12 +746,18 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         }
 
         if (!newTx.isEmpty()) {
-            AionImpl.inst().broadcastTransactions(newTx);
+            broadcast(newTx);
         }
 
         return newTx;
     }
 
+    private void broadcast(List<AionTransaction> txs) {
+        if (broadcastTxs) {
+            AionImpl.inst().broadcastTransactions(txs);
+        }
+    }
+
     private boolean inPool(BigInteger txNonce, Address from) {
         return (this.txPool.bestPoolNonce(from).compareTo(txNonce) > -1);
     }
@@ -732,13 +904,23 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
     }
 
     @Override
-    public synchronized void processBest(AionBlock newBlock, List receipts) {
+    public void processBest(AionBlock newBlock, List receipts) {
 
         if (isSeed) {
             // seed mode doesn't need to update the pendingState
             return;
         }
 
+        stateLock.writeLock().lock();
+        try {
+            processBestImpl(newBlock, receipts);
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    private void processBestImpl(AionBlock newBlock, List receipts) {
+
         if (best.get() != null && !best.get().isParentOf(newBlock)) {
 
             // need to switch the state to another fork
@@ -765,8 +947,8 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
                 rollback = blockchain.getBlockByHash(rollback.getParentHash());
             }
 
-            // rollback the state snapshot to the ancestor
-            pendingState = repository.getSnapshotTo(commonAncestor.getStateRoot()).startTracking();
+            // the pending state is rebuilt on top of the new best
+            rebuildPendingState = true;
 
             // next process blocks from new fork
             IAionBlock main = newBlock;
@@ -938,40 +1120,91 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         return info;
     }
 
+    /**
+     * Brings the pending state on top of the repository. Only the pooled transactions depending
+     * on accounts changed since the previous update are executed again, the others keep their
+     * results. Everything is executed again after a re-branch.
+     *
+     * <p>The transactions executed again run after the kept ones. When one of them turns out to
+     * share an account with a kept transaction ordered behind it, both are invalidated and run
+     * again in pool order, so the result matches executing the whole pool in order. Should that
+     * keep happening, the pending state is rebuilt from scratch.
+     */
     @SuppressWarnings("UnusedReturnValue")
     private List<AionTransaction> updateState(IAionBlock block) {
-
-        pendingState = repository.startTracking();
+        long start = System.nanoTime();
 
         processTxBuffer();
         List<AionTransaction> pendingTxl = this.txPool.snapshotAll();
-        List<AionTransaction> rtn = new ArrayList<>();
-        if (LOGGER_TX.isInfoEnabled()) {
-            LOGGER_TX.info("updateState - snapshotAll tx[{}]", pendingTxl.size());
-        }
-        for (AionTransaction tx : pendingTxl) {
-            if (LOGGER_TX.isTraceEnabled()) {
-                LOGGER_TX.trace("updateState - loop: " + tx.toString());
-            }
 
-            AionTxExecSummary txSum = executeTx(tx, false);
-            AionTxReceipt receipt = txSum.getReceipt();
-            receipt.setTransaction(tx);
+        Optional<Set<Address>> changed = repository.drainChangedAccounts();
+        int stale;
+        if (rebuildPendingState || !changed.isPresent()) {
+            pendingState = new PendingStateCache(repository);
+            rebuildPendingState = false;
+            stale = -1;
+        } else {
+            stale = pendingState.invalidate(changed.get(), pendingTxl).size();
+        }
+        int reused = pendingState.size();
+
+        int executed = 0;
+        int rounds = 0;
+        List<AionTransaction> rtn = pendingTxl;
+        while (true) {
+            List<AionTransaction> valid = new ArrayList<>();
+            for (AionTransaction tx : rtn) {
+                if (pendingState.getReceipt(tx) != null) {
+                    valid.add(tx);
+                    continue;
+                }
 
-            if (txSum.isRejected()) {
-                if (LOGGER_TX.isDebugEnabled()) {
-                    LOGGER_TX.debug("Invalid transaction in txpool: {}", tx);
+                if (LOGGER_TX.isTraceEnabled()) {
+                    LOGGER_TX.trace("updateState - loop: " + tx.toString());
                 }
-                txPool.remove(Collections.singletonList(tx));
 
-                if (poolBackUp) {
-                    backupPendingPoolRemove.add(tx.getHash().clone());
+                AionTxExecSummary txSum = executeTx(tx, false);
+                executed++;
+
+                if (txSum.isRejected()) {
+                    if (LOGGER_TX.isDebugEnabled()) {
+                        LOGGER_TX.debug("Invalid transaction in txpool: {}", tx);
+                    }
+                    txPool.remove(Collections.singletonList(tx));
+
+                    if (poolBackUp) {
+                        backupPendingPoolRemove.add(tx.getHash().clone());
+                    }
+                    AionTxReceipt receipt = txSum.getReceipt();
+                    receipt.setTransaction(tx);
+                    fireTxUpdate(receipt, PendingTransactionState.DROPPED, block);
+                } else {
+                    valid.add(tx);
                 }
-                fireTxUpdate(receipt, PendingTransactionState.DROPPED, block);
-            } else {
-                fireTxUpdate(receipt, PendingTransactionState.PENDING, block);
-                rtn.add(tx);
             }
+            rtn = valid;
+
+            if (pendingState.invalidate(Collections.emptySet(), rtn).isEmpty()) {
+                break;
+            }
+            if (++rounds == MAX_REORDER_ROUNDS) {
+                // executing everything in pool order leaves nothing out of order
+                pendingState = new PendingStateCache(repository);
+            }
+        }
+
+        for (AionTransaction tx : rtn) {
+            fireTxUpdate(pendingState.getReceipt(tx), PendingTransactionState.PENDING, block);
+        }
+
+        if (LOGGER_TX.isInfoEnabled()) {
+            LOGGER_TX.info(
+                    "updateState - tx[{}] executed[{}] reused[{}] staleAccounts[{}] in {} ms",
+                    pendingTxl.size(),
+                    executed,
+                    reused,
+                    stale < 0 ? "all" : stale,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
         }
 
         return rtn;
@@ -992,20 +1225,47 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
             LOGGER_TX.trace("executeTx: {}", Hex.toHexString(tx.getHash()));
         }
 
-        TransactionExecutor txExe = new TransactionExecutor(tx, bestBlk, pendingState,
-            LOGGER_VM);
+        //noinspection unchecked
+        TransactionExecutor txExe = new TransactionExecutor(tx, bestBlk,
+            (IRepositoryCache) pendingState, LOGGER_VM);
         txExe.setExecutorProvider(AionExecutorProvider.getInstance());
+        // the coinbase is only known once the transaction is sealed, crediting the fee to the
+        // current best's miner would make every pending transaction depend on that account
+        txExe.setBypassFee();
 
         if (inPool) {
             txExe.setBypassNonce();
         }
 
-        return txExe.execute();
+        executeLock.lock();
+        try {
+            pendingState.startRecording();
+            AionTxExecSummary txSum = txExe.execute();
+            Set<Address> accounts = pendingState.stopRecording();
+
+            if (!txSum.isRejected()) {
+                AionTxReceipt receipt = txSum.getReceipt();
+                receipt.setTransaction(tx);
+                pendingState.remember(tx, accounts, receipt);
+            }
+            return txSum;
+        } finally {
+            executeLock.unlock();
+        }
     }
 
     @Override
-    public synchronized BigInteger bestPendingStateNonce(Address addr) {
-        return isSeed ? BigInteger.ZERO : this.pendingState.getNonce(addr);
+    public BigInteger bestPendingStateNonce(Address addr) {
+        if (isSeed) {
+            return BigInteger.ZERO;
+        }
+
+        stateLock.readLock().lock();
+        try {
+            return this.pendingState.getNonce(addr);
+        } finally {
+            stateLock.readLock().unlock();
+        }
     }
 
     private BigInteger bestRepoNonce(Address addr) {
@@ -1032,7 +1292,16 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
     }
 
     @Override
-    public synchronized void DumpPool() {
+    public void DumpPool() {
+        stateLock.writeLock().lock();
+        try {
+            dumpPoolImpl();
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    private void dumpPoolImpl() {
         List<AionTransaction> txn = txPool.snapshotAll();
         Set<Address> addrs = new HashSet<>();
         LOGGER_TX.info("");
@@ -0,0 +1,254 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.zero.impl.blockchain;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.aion.base.db.IContractDetails;
+import org.aion.base.db.IRepository;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.base.vm.IDataWord;
+import org.aion.mcf.core.AccountState;
+import org.aion.zero.db.AionRepositoryCache;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxReceipt;
+
+/**
+ * The pending state, a tracking cache over the repository holding the effects of the pooled
+ * transactions. It records the accounts every transaction accessed while executing, so that a
+ * new block only requires re-executing the transactions that depend on what the block changed.
+ *
+ * <p>Every access reaching this cache is recorded, including the loads of the nested caches used
+ * by the executor, which keeps the recorded set a superset of what the execution read or wrote.
+ *
+ * <p>Results are kept in the order the transactions were executed, which differs from the pool
+ * order once transactions are added or executed again. Wherever two executions sharing an account
+ * ran out of the pool order, both are dropped by {@link #invalidate(Set, Collection)}, so the state
+ * matches executing the pool in order.
+ */
+class PendingStateCache extends AionRepositoryCache {
+
+    /** Execution result of a pooled transaction whose effects are held by this cache. */
+    private static final class Execution {
+        private final Set<Address> accounts;
+        private final AionTxReceipt receipt;
+
+        private Execution(Set<Address> accounts, AionTxReceipt receipt) {
+            this.accounts = accounts;
+            this.receipt = receipt;
+        }
+    }
+
+    // in execution order
+    private final Map<ByteArrayWrapper, Execution> executions = new LinkedHashMap<>();
+
+    // accounts accessed since startRecording(), null when not recording
+    private Set<Address> recorded;
+
+    // only the accesses of the executing thread are recorded, not the concurrent nonce reads
+    private volatile Thread recorder;
+
+    PendingStateCache(IRepository trackedRepository) {
+        super(trackedRepository);
+    }
+
+    /** Starts collecting the accounts accessed through this cache. */
+    void startRecording() {
+        recorded = new HashSet<>();
+        recorder = Thread.currentThread();
+    }
+
+    /** @return the accounts accessed since {@link #startRecording()} */
+    Set<Address> stopRecording() {
+        Set<Address> accounts = recorded == null ? Collections.emptySet() : recorded;
+        recorded = null;
+        recorder = null;
+        return accounts;
+    }
+
+    private void record(Address address) {
+        if (recorder == Thread.currentThread()) {
+            recorded.add(address);
+        }
+    }
+
+    /**
+     * Remembers the result of a transaction whose effects were applied to this cache.
+     *
+     * @param tx the executed transaction
+     * @param accounts the accounts accessed by the execution
+     * @param receipt the execution receipt
+     */
+    void remember(AionTransaction tx, Set<Address> accounts, AionTxReceipt receipt) {
+        ByteArrayWrapper hash = ByteArrayWrapper.wrap(tx.getHash());
+        executions.remove(hash);
+        executions.put(hash, new Execution(accounts, receipt));
+    }
+
+    /** @return the receipt of the still valid execution of the transaction, or {@code null} */
+    AionTxReceipt getReceipt(AionTransaction tx) {
+        Execution execution = executions.get(ByteArrayWrapper.wrap(tx.getHash()));
+        return execution == null ? null : execution.receipt;
+    }
+
+    /** @return the number of transactions with a still valid execution */
+    int size() {
+        return executions.size();
+    }
+
+    /**
+     * Drops the cached state of the changed accounts together with the results of every
+     * transaction depending on them. The results of the transactions no longer pooled are
+     * dropped too, since their effects must be undone, and so are the results of transactions
+     * executed after a transaction ordered behind them that shares an account. Dependencies are
+     * followed transitively: undoing a transaction makes every account it accessed stale.
+     *
+     * @param changed the accounts changed in the tracked repository
+     * @param pooled the transactions still pooled, in pool order
+     * @return the accounts whose cached state was dropped
+     */
+    Set<Address> invalidate(Set<Address> changed, Collection<AionTransaction> pooled) {
+        Set<Address> stale = new HashSet<>(changed);
+
+        Map<ByteArrayWrapper, Integer> positions = new HashMap<>();
+        for (AionTransaction tx : pooled) {
+            ByteArrayWrapper hash = ByteArrayWrapper.wrap(tx.getHash());
+            positions.put(hash, positions.size());
+            if (!executions.containsKey(hash)) {
+                // never executed here, its sender's transactions must run again in nonce order
+                stale.add(tx.getFrom());
+            }
+        }
+
+        // per account, the last pool position of the executions so far that accessed it
+        Map<Address, Integer> accessed = new HashMap<>();
+        Iterator<Map.Entry<ByteArrayWrapper, Execution>> it = executions.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<ByteArrayWrapper, Execution> e = it.next();
+            Set<Address> accounts = e.getValue().accounts;
+            Integer position = positions.get(e.getKey());
+            if (position == null) {
+                stale.addAll(accounts);
+                it.remove();
+                continue;
+            }
+
+            for (Address address : accounts) {
+                Integer last = accessed.get(address);
+                if (last != null && last > position) {
+                    // ran after a transaction ordered behind it
+                    stale.addAll(accounts);
+                }
+                accessed.merge(address, position, Math::max);
+            }
+        }
+
+        boolean grown = true;
+        while (grown) {
+            grown = false;
+            it = executions.entrySet().iterator();
+            while (it.hasNext()) {
+                Set<Address> accounts = it.next().getValue().accounts;
+                if (!Collections.disjoint(accounts, stale)) {
+                    grown |= stale.addAll(accounts);
+                    it.remove();
+                }
+            }
+        }
+
+        fullyWriteLock();
+        try {
+            for (Address address : stale) {
+                cachedAccounts.remove(address);
+                cachedDetails.remove(address);
+            }
+        } finally {
+            fullyWriteUnlock();
+        }
+
+        return stale;
+    }
+
+    @Override
+    public AccountState createAccount(Address address) {
+        record(address);
+        return super.createAccount(address);
+    }
+
+    @Override
+    public AccountState getAccountState(Address address) {
+        record(address);
+        return super.getAccountState(address);
+    }
+
+    @Override
+    public boolean hasAccountState(Address address) {
+        record(address);
+        return super.hasAccountState(address);
+    }
+
+    @Override
+    public IContractDetails<IDataWord> getContractDetails(Address address) {
+        record(address);
+        return super.getContractDetails(address);
+    }
+
+    @Override
+    public boolean hasContractDetails(Address address) {
+        record(address);
+        return super.hasContractDetails(address);
+    }
+
+    @Override
+    public void loadAccountState(
+            Address address,
+            Map<Address, AccountState> accounts,
+            Map<Address, IContractDetails<IDataWord>> details) {
+        record(address);
+        super.loadAccountState(address, accounts, details);
+    }
+
+    @Override
+    public void updateBatch(
+            Map<Address, AccountState> accounts,
+            Map<Address, IContractDetails<IDataWord>> details) {
+        if (recorded != null) {
+            recorded.addAll(accounts.keySet());
+            recorded.addAll(details.keySet());
+        }
+        super.updateBatch(accounts, details);
+    }
+}
@@ -35,6 +35,10 @@ import java.math.BigInteger;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Holds the transactions whose nonce is ahead of the pending state. The cache is shared by the
+ * concurrent admissions of every sender, its accesses synchronize on the cache.
+ */
 public class PendingTxCache {
 
     private Map<Address, TreeMap<BigInteger, AionTransaction>> cacheTxMap;
@@ -85,7 +89,7 @@ public class PendingTxCache {
         return (currentSize.get() + txSize) > CacheMax;
     }
 
-    void addCacheTx(AionTransaction tx) {
+    synchronized void addCacheTx(AionTransaction tx) {
         if (tx == null) {
             throw new NullPointerException();
         }
@@ -209,7 +213,7 @@ public class PendingTxCache {
             cachedAccountSize.put(from, (cachedAccountSize.get(from) - txSize));
     }
 
-    public List<AionTransaction> flush(Map<Address, BigInteger> nonceMap) {
+    public synchronized List<AionTransaction> flush(Map<Address, BigInteger> nonceMap) {
         if (nonceMap == null) {
             throw new NullPointerException();
         }
@@ -275,11 +279,11 @@ public class PendingTxCache {
         return timeMap.values().isEmpty() ? new ArrayList<>() : new ArrayList<>(timeMap.values());
     }
 
-    public boolean isInCache(Address addr, BigInteger nonce) {
+    public synchronized boolean isInCache(Address addr, BigInteger nonce) {
         return this.cacheTxMap.get(addr) != null && (this.cacheTxMap.get(addr).get(nonce) != null);
     }
 
-    Set<Address> getCacheTxAccount() {
+    synchronized Set<Address> getCacheTxAccount() {
         Set<Address> acc = new HashSet<>();
         for (Map.Entry<Address, TreeMap<BigInteger, AionTransaction>> e : this.cacheTxMap.entrySet()) {
             if (!e.getValue().isEmpty()) {
@@ -290,7 +294,7 @@ public class PendingTxCache {
         return acc;
     }
 
-    Map<BigInteger, AionTransaction> geCacheTx(Address from) {
+    synchronized Map<BigInteger, AionTransaction> geCacheTx(Address from) {
         if (from == null) {
             throw new NullPointerException();
         }
@@ -304,7 +308,7 @@ public class PendingTxCache {
         return currentSize.get();
     }
 
-    public int cacheTxSize() {
+    public synchronized int cacheTxSize() {
         AtomicInteger size = new AtomicInteger();
         cacheTxMap.forEach((key, value) -> size.addAndGet(value.size()));
         return size.get();
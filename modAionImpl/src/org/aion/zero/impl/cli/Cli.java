@@ -225,6 +225,11 @@ public class Cli {
                 case "--db-compact":
                     RecoveryUtils.dbCompact();
                     break;
+                case "--db-split-headers":
+                    System.out.println("Moving block headers to the header database.");
+                    RecoveryUtils.splitHeaders();
+                    System.out.println("Finished moving block headers.");
+                    break;
                 case "--dump-blocks":
                     long count = 10L;
 
@@ -299,6 +304,9 @@ public class Cli {
         System.out.println(
             "  -r [block_number]                             revert db up to specific block number");
         System.out.println();
+        System.out.println(
+            "  --db-split-headers                            store headers of old blocks apart from their bodies");
+        System.out.println();
         System.out.println("  -v                                            show version");
     }
 
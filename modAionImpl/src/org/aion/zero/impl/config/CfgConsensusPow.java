@@ -53,6 +53,7 @@ public final class CfgConsensusPow extends CfgConsensus {
         this.extraData = "AION";
         this.cfgEnergyStrategy = new CfgEnergyStrategy();
         this.seed = false;
+        this.deferredStateRoot = Long.MAX_VALUE;
     }
 
     private boolean mining;
@@ -65,6 +66,9 @@ public final class CfgConsensusPow extends CfgConsensus {
 
     protected String extraData;
 
+    // first block whose receipts leave out the post-tx state root
+    private long deferredStateRoot;
+
     public void fromXML(final XMLStreamReader sr) throws XMLStreamException {
         loop: while (sr.hasNext()) {
             int eventType = sr.next();
@@ -90,6 +94,9 @@ public final class CfgConsensusPow extends CfgConsensus {
                         case "nrg-strategy":
                             this.cfgEnergyStrategy.fromXML(sr);
                             break;
+                        case "deferred-state-root":
+                            this.deferredStateRoot = Long.parseLong(Cfg.readValue(sr));
+                            break;
                         default:
                             Cfg.skipElement(sr);
                             break;
@@ -138,6 +145,13 @@ public final class CfgConsensusPow extends CfgConsensus {
             xmlWriter.writeCharacters("\r\n\t\t");
             xmlWriter.writeEndElement();
 
+            if (this.deferredStateRoot != Long.MAX_VALUE) {
+                xmlWriter.writeCharacters("\r\n\t\t");
+                xmlWriter.writeStartElement("deferred-state-root");
+                xmlWriter.writeCharacters(this.deferredStateRoot + "");
+                xmlWriter.writeEndElement();
+            }
+
             xmlWriter.writeCharacters("\r\n\t");
             xmlWriter.writeEndElement();
             xml = strWriter.toString();
@@ -181,6 +195,14 @@ public final class CfgConsensusPow extends CfgConsensus {
         return this.cfgEnergyStrategy;
     }
 
+    /**
+     * @return first block number from which receipts are built without the intermediate state
+     *     root, every node on the network has to agree on it since it changes the receipt trie
+     */
+    public long getDeferredStateRoot() {
+        return this.deferredStateRoot;
+    }
+
     public boolean isSeed() {
         return seed;
     }
@@ -25,6 +25,7 @@ import java.util.List;
 import org.aion.base.db.IRepository;
 import org.aion.mcf.core.IBlockchain;
 import org.aion.zero.impl.BlockContext;
+import org.aion.zero.impl.db.BloomBitsIndex;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.impl.types.AionTxInfo;
 import org.aion.zero.types.A0BlockHeader;
@@ -45,6 +46,9 @@ public interface IAionBlockchain
 
     AionBlock getBlockByNumber(long num);
 
+    /** @return the log bloom index of the main chain, null if there is none */
+    BloomBitsIndex getBloomBitsIndex();
+
     /**
      * Recovery functionality for rebuilding the world state.
      *
@@ -34,6 +34,7 @@ import org.aion.mcf.ds.Serializer;
 import org.aion.rlp.RLP;
 import org.aion.rlp.RLPElement;
 import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPView;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.types.A0BlockHeader;
 import org.aion.zero.types.IAionBlock;
@@ -45,6 +46,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -59,34 +61,107 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
     protected ReadWriteLock lock = new ReentrantReadWriteLock();
 
     private DataSourceArray<List<BlockInfo>> index;
-    private ObjectDataSource<AionBlock> blocks;
+
+    /*
+     * Headers and bodies are kept apart so that header queries never decode transactions. Blocks
+     * written before the split have no entry in the header database and their whole encoding in
+     * the block database; they stay readable and are converted by splitHeaders().
+     */
+    private IByteArrayKeyValueDatabase headers;
+    private IByteArrayKeyValueDatabase blocks;
 
     private boolean checkIntegrity = true;
 
-    public AionBlockStore(IByteArrayKeyValueDatabase index, IByteArrayKeyValueDatabase blocks) {
-        init(index, blocks);
+    public AionBlockStore(IByteArrayKeyValueDatabase index,
+                          IByteArrayKeyValueDatabase headers,
+                          IByteArrayKeyValueDatabase blocks) {
+        init(index, headers, blocks);
     }
 
-    public AionBlockStore(IByteArrayKeyValueDatabase index, IByteArrayKeyValueDatabase blocks, boolean checkIntegrity) {
-        this(index, blocks);
+    public AionBlockStore(IByteArrayKeyValueDatabase index,
+                          IByteArrayKeyValueDatabase headers,
+                          IByteArrayKeyValueDatabase blocks,
+                          boolean checkIntegrity) {
+        this(index, headers, blocks);
         this.checkIntegrity = checkIntegrity;
     }
 
-    private void init(IByteArrayKeyValueDatabase index, IByteArrayKeyValueDatabase blocks) {
+    private void init(IByteArrayKeyValueDatabase index,
+                      IByteArrayKeyValueDatabase headers,
+                      IByteArrayKeyValueDatabase blocks) {
 
         this.index = new DataSourceArray<>(new ObjectDataSource<>(index, BLOCK_INFO_SERIALIZER));
+        this.headers = headers;
+        this.blocks = blocks;
+    }
 
-        this.blocks = new ObjectDataSource<>(blocks, new Serializer<AionBlock, byte[]>() {
-            @Override
-            public byte[] serialize(AionBlock block) {
-                return block.getEncoded();
-            }
+    /**
+     * @implNote The method calling this method must handle the locking.
+     */
+    private AionBlock getBlock(byte[] hash) {
+        Optional<byte[]> data = blocks.get(hash);
+        if (!data.isPresent()) {
+            return null;
+        }
 
-            @Override
-            public AionBlock deserialize(byte[] bytes) {
-                return new AionBlock(bytes);
-            }
-        });
+        Optional<byte[]> header = headers.get(hash);
+        if (header.isPresent()) {
+            return AionBlock.createBlockFromStorage(new A0BlockHeader(header.get()), data.get());
+        } else if (isLegacyBlock(data.get())) {
+            // stored before the split
+            return new AionBlock(data.get());
+        } else {
+            // the header of a split block is missing
+            return null;
+        }
+    }
+
+    /**
+     * A block stored before the split is the whole [header, transactions] list, while a body is
+     * the [transactions] list alone.
+     */
+    private static boolean isLegacyBlock(byte[] data) {
+        return RLPView.wrap(data).size() == 2;
+    }
+
+    /**
+     * @implNote The method calling this method must handle the locking.
+     */
+    private A0BlockHeader getHeader(byte[] hash) {
+        Optional<byte[]> header = headers.get(hash);
+        if (header.isPresent()) {
+            return new A0BlockHeader(header.get());
+        }
+
+        // stored before the split
+        Optional<byte[]> data = blocks.get(hash);
+        return data.filter(AionBlockStore::isLegacyBlock)
+                .map(bytes -> new AionBlock(bytes).getHeader())
+                .orElse(null);
+    }
+
+    /**
+     * @implNote The method calling this method must handle the locking.
+     */
+    private void putBlock(AionBlock block) {
+        // the header goes first, a body without header would be read as a whole block
+        headers.put(block.getHash(), block.getHeader().getEncoded());
+        blocks.put(block.getHash(), block.getEncodedBody());
+    }
+
+    /**
+     * @implNote The method calling this method must handle the locking.
+     */
+    private void deleteBlock(byte[] hash) {
+        blocks.delete(hash);
+        headers.delete(hash);
+    }
+
+    private static void commit(IByteArrayKeyValueDatabase db) {
+        // for write-back type cache only
+        if (!db.isAutoCommitEnabled()) {
+            db.commit();
+        }
     }
 
     public AionBlock getBestBlock() {
@@ -140,7 +215,8 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
     public void flush() {
         lock.writeLock().lock();
         try {
-            blocks.flush();
+            commit(headers);
+            commit(blocks);
             index.flush();
         } finally {
             lock.writeLock().unlock();
@@ -178,7 +254,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
 
         blockInfos.add(blockInfo);
 
-        blocks.put(block.getHash(), block);
+        putBlock(block);
         index.set(block.getNumber(), blockInfos);
     }
 
@@ -197,7 +273,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
             for (BlockInfo blockInfo : blockInfos) {
 
                 byte[] hash = blockInfo.getHash();
-                AionBlock block = blocks.get(hash);
+                AionBlock block = getBlock(hash);
 
                 result.add(Map.entry(block, Map.entry(blockInfo.getCummDifficulty(), blockInfo.mainChain)));
             }
@@ -227,7 +303,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
             for (BlockInfo blockInfo : blockInfos) {
                 if (blockInfo.isMainChain()) {
                     byte[] hash = blockInfo.getHash();
-                    return blocks.get(hash);
+                    return getBlock(hash);
                 }
             }
 
@@ -252,7 +328,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
             for (BlockInfo blockInfo : blockInfos) {
                 if (blockInfo.isMainChain()) {
                     byte[] hash = blockInfo.getHash();
-                    return Map.entry(blocks.get(hash), blockInfo.getCummDifficulty());
+                    return Map.entry(getBlock(hash), blockInfo.getCummDifficulty());
                 }
             }
 
@@ -266,7 +342,28 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
     public AionBlock getBlockByHash(byte[] hash) {
         lock.readLock().lock();
         try {
-            return blocks.get(hash);
+            return getBlock(hash);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public A0BlockHeader getHeaderByHash(byte[] hash) {
+        lock.readLock().lock();
+        try {
+            return getHeader(hash);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public A0BlockHeader getHeaderByNumber(long number) {
+        lock.readLock().lock();
+        try {
+            byte[] hash = getBlockHashByNumber(number);
+            return hash == null ? null : getHeader(hash);
         } finally {
             lock.readLock().unlock();
         }
@@ -274,7 +371,14 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
 
     @Override
     public boolean isBlockExist(byte[] hash) {
-        return getBlockByHash(hash) != null;
+        lock.readLock().lock();
+        try {
+            Optional<byte[]> data = blocks.get(hash);
+            return data.isPresent()
+                    && (headers.get(hash).isPresent() || isLegacyBlock(data.get()));
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     @Override
@@ -282,12 +386,12 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         lock.readLock().lock();
 
         try {
-            IAionBlock block = this.getBlockByHash(hash);
-            if (block == null) {
+            A0BlockHeader header = getHeader(hash);
+            if (header == null) {
                 return ZERO;
             }
 
-            Long level = block.getNumber();
+            Long level = header.getNumber();
             List<BlockInfo> blockInfos = index.get(level.longValue());
             if (blockInfos == null){
                 return ZERO;
@@ -350,11 +454,11 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         lock.readLock().lock();
 
         try {
-            List<AionBlock> blocks = getListBlocksEndWith(hash, number);
-            List<byte[]> hashes = new ArrayList<>(blocks.size());
+            List<A0BlockHeader> headers = getListHeadersEndWithInner(hash, number);
+            List<byte[]> hashes = new ArrayList<>(headers.size());
 
-            for (IAionBlock b : blocks) {
-                hashes.add(b.getHash());
+            for (A0BlockHeader h : headers) {
+                hashes.add(h.getHash());
             }
 
             return hashes;
@@ -367,19 +471,35 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
     public List<A0BlockHeader> getListHeadersEndWith(byte[] hash, long qty) {
         lock.readLock().lock();
         try {
-            List<AionBlock> blocks = getListBlocksEndWith(hash, qty);
-            List<A0BlockHeader> headers = new ArrayList<>(blocks.size());
-
-            for (IAionBlock b : blocks) {
-                headers.add(b.getHeader());
-            }
-
-            return headers;
+            return getListHeadersEndWithInner(hash, qty);
         } finally {
             lock.readLock().unlock();
         }
     }
 
+    /**
+     * @implNote The method calling this method must handle the locking.
+     */
+    private List<A0BlockHeader> getListHeadersEndWithInner(byte[] hash, long qty) {
+        A0BlockHeader header = getHeader(hash);
+
+        if (header == null) {
+            return new ArrayList<>();
+        }
+
+        List<A0BlockHeader> headers = new ArrayList<>((int) qty);
+
+        for (int i = 0; i < qty; ++i) {
+            headers.add(header);
+            header = getHeader(header.getParentHash());
+            if (header == null) {
+                break;
+            }
+        }
+
+        return headers;
+    }
+
     @Override
     public List<AionBlock> getListBlocksEndWith(byte[] hash, long qty) {
         lock.readLock().lock();
@@ -395,7 +515,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
      */
     private List<AionBlock> getListBlocksEndWithInner(byte[] hash, long qty) {
         // locks acquired by calling method
-        AionBlock block = this.blocks.get(hash);
+        AionBlock block = getBlock(hash);
 
         if (block == null) {
             return new ArrayList<>();
@@ -405,7 +525,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
 
         for (int i = 0; i < qty; ++i) {
             blocks.add(block);
-            block = this.blocks.get(block.getParentHash());
+            block = getBlock(block.getParentHash());
             if (block == null) {
                 break;
             }
@@ -419,12 +539,12 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         lock.writeLock().lock();
 
         try {
-            IAionBlock bestBlock = getBestBlock();
+            A0BlockHeader bestBlock = getBestBlock().getHeader();
 
             long currentLevel = Math.max(bestBlock.getNumber(), forkBlock.getNumber());
 
             // 1. First ensure that you are one the save level
-            IAionBlock forkLine = forkBlock;
+            A0BlockHeader forkLine = forkBlock.getHeader();
             if (forkBlock.getNumber() > bestBlock.getNumber()) {
 
                 while (currentLevel > bestBlock.getNumber()) {
@@ -436,12 +556,12 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
                     } else {
                         LOG.error("Null block information found at " + currentLevel + " when data should exist.");
                     }
-                    forkLine = getBlockByHash(forkLine.getParentHash());
+                    forkLine = getHeader(forkLine.getParentHash());
                     --currentLevel;
                 }
             }
 
-            IAionBlock bestLine = bestBlock;
+            A0BlockHeader bestLine = bestBlock;
             if (bestBlock.getNumber() > forkBlock.getNumber()) {
 
                 while (currentLevel > forkBlock.getNumber()) {
@@ -454,7 +574,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
                     } else {
                         LOG.error("Null block information found at " + currentLevel + " when data should exist.");
                     }
-                    bestLine = getBlockByHash(bestLine.getParentHash());
+                    bestLine = getHeader(bestLine.getParentHash());
                     --currentLevel;
                 }
             }
@@ -469,7 +589,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
     /**
      * @implNote The method calling this method must handle the locking.
      */
-    private void loopBackToCommonBlock(IAionBlock bestLine, IAionBlock forkLine) {
+    private void loopBackToCommonBlock(A0BlockHeader bestLine, A0BlockHeader forkLine) {
         long currentLevel = bestLine.getNumber();
 
         if (forkLine.getNumber() != currentLevel) {
@@ -477,7 +597,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
             return;
         }
 
-        while (!bestLine.isEqual(forkLine)) {
+        while (!Arrays.equals(bestLine.getHash(), forkLine.getHash())) {
 
             List<BlockInfo> levelBlocks = getBlockInfoForLevel(currentLevel);
             BlockInfo bestInfo = getBlockInfoForHash(levelBlocks, bestLine.getHash());
@@ -496,8 +616,8 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
                 LOG.error("Null block information found at " + currentLevel + " when information should exist.");
             }
 
-            bestLine = getBlockByHash(bestLine.getParentHash());
-            forkLine = getBlockByHash(forkLine.getParentHash());
+            bestLine = getHeader(bestLine.getParentHash());
+            forkLine = getHeader(forkLine.getParentHash());
 
             --currentLevel;
         }
@@ -527,11 +647,11 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
                 // remove all the blocks at that level
                 List<BlockInfo> currentLevelBlocks = getBlockInfoForLevel(currentLevel);
                 if (currentLevelBlocks == null || currentLevelBlocks.size() == 0) {
-                    blocks.delete(bestLine.getHash());
+                    deleteBlock(bestLine.getHash());
                     LOG.error("Null block information found at " + currentLevel + " when information should exist.");
                 } else {
                     for (BlockInfo bk_info : currentLevelBlocks) {
-                        blocks.delete(bk_info.getHash());
+                        deleteBlock(bk_info.getHash());
                     }
                 }
 
@@ -581,8 +701,8 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
                     }
 
                     // 2. Loop back on each level until common block
-                    IAionBlock forkLine = getBlockByHash(maxTDInfo.getHash());
-                    loopBackToCommonBlock(bestLine, forkLine);
+                    A0BlockHeader forkLine = getHeader(maxTDInfo.getHash());
+                    loopBackToCommonBlock(bestLine.getHeader(), forkLine);
                 }
             }
         } finally {
@@ -650,7 +770,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
 
         // deleting incorrect parallel blocks
         for (BlockInfo wrongBlock : levelBlocks) {
-            blocks.delete(wrongBlock.getHash());
+            deleteBlock(wrongBlock.getHash());
         }
 
         // set new block info with total difficulty = block difficulty
@@ -1070,13 +1190,60 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         CORRECT
     }
 
+    /**
+     * Converts the blocks indexed on any chain that are still stored as a single encoding to the
+     * split header and body layout. Blocks that are already split are skipped, so an interrupted
+     * run can simply be started again.
+     *
+     * @return the number of converted blocks
+     */
+    public long splitHeaders() {
+        lock.writeLock().lock();
+
+        try {
+            long converted = 0;
+            long size = index.size();
+
+            for (long level = 0; level < size; level++) {
+                List<BlockInfo> infos = getBlockInfoForLevel(level);
+                if (infos == null) {
+                    continue;
+                }
+
+                for (BlockInfo bi : infos) {
+                    if (headers.get(bi.getHash()).isPresent()) {
+                        continue;
+                    }
+                    Optional<byte[]> data = blocks.get(bi.getHash());
+                    if (data.isPresent() && isLegacyBlock(data.get())) {
+                        putBlock(new AionBlock(data.get()));
+                        converted++;
+                    }
+                }
+
+                if ((level + 1) % 10_000 == 0) {
+                    commit(headers);
+                    commit(blocks);
+                    LOG.info("Split headers up to level {} of {}, {} blocks converted.", level, size - 1, converted);
+                }
+            }
+
+            commit(headers);
+            commit(blocks);
+            return converted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
     public IntegrityCheckResult indexIntegrityCheck() {
         if (index.size() > 0) {
             LOG_CONS.info("Checking the integrity of the total difficulty information...");
 
             // check each block's total difficulty till genesis
             boolean correct = true;
-            AionBlock block = getBestBlock();
+            // only headers are needed, so the walk never decodes transactions
+            A0BlockHeader block = getBestBlock().getHeader();
             long start, round, time;
             start = round = System.currentTimeMillis();
             long bestBlockNumber = block.getNumber();
@@ -1088,7 +1255,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
 
                 if (!correct) {
                     LOG_CONS.info("Total difficulty for block hash: {} number: {} is {}.",
-                                  block.getShortHash(),
+                                  shortHash(block.getHash()),
                                   block.getNumber(),
                                   "NOT OK");
                 } else {
@@ -1111,7 +1278,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
                 }
 
                 // check parent next
-                block = getBlockByHash(block.getParentHash());
+                block = getHeader(block.getParentHash());
             }
 
             // check correct TD for genesis block
@@ -1119,7 +1286,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
                 correct = getTotalDifficultyForHash(block.getHash()).equals(block.getDifficultyBI());
                 if (!correct) {
                     LOG_CONS.info("Total difficulty for block hash: {} number: {} is {}.",
-                                  block.getShortHash(),
+                                  shortHash(block.getHash()),
                                   block.getNumber(),
                                   "NOT OK");
                 } else {
@@ -1139,10 +1306,10 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
                 }
 
                 for (BlockInfo bi : infos) {
-                    block = getBlockByHash(bi.getHash());
+                    block = getHeader(bi.getHash());
                     bi.setCummDifficulty(block.getDifficultyBI());
                     LOG_CONS.info("Correcting total difficulty for block hash: {} number: {} to {}.",
-                                  block.getShortHash(),
+                                  shortHash(block.getHash()),
                                   block.getNumber(),
                                   bi.getCummDifficulty());
                 }
@@ -1161,11 +1328,11 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
                     }
 
                     for (BlockInfo bi : infos) {
-                        block = getBlockByHash(bi.getHash());
+                        block = getHeader(bi.getHash());
                         bi.setCummDifficulty(block.getDifficultyBI()
                                                      .add(getTotalDifficultyForHash(block.getParentHash())));
                         LOG_CONS.info("Correcting total difficulty for block hash: {} number: {} to {}.",
-                                      block.getShortHash(),
+                                      shortHash(block.getHash()),
                                       block.getNumber(),
                                       bi.getCummDifficulty());
                     }
@@ -1193,6 +1360,11 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         } catch (Exception e) {
             LOG.error("Not able to close the index database:", e);
         } finally {
+            try {
+                headers.close();
+            } catch (Exception e) {
+                LOG.error("Not able to close the headers database:", e);
+            }
             try {
                 blocks.close();
             } catch (Exception e) {
@@ -33,10 +33,15 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.db.IByteArrayKeyValueStore;
 import org.aion.base.db.IContractDetails;
 import org.aion.base.db.IRepository;
 import org.aion.base.db.IRepositoryCache;
@@ -50,6 +55,7 @@ import org.aion.mcf.db.ContractDetailsCacheImpl;
 import org.aion.mcf.db.TransactionStore;
 import org.aion.mcf.trie.SecureTrie;
 import org.aion.mcf.trie.Trie;
+import org.aion.mcf.trie.TrieImpl;
 import org.aion.zero.db.AionRepositoryCache;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.types.AionBlock;
@@ -64,6 +70,40 @@ public class AionRepositoryImpl
 
     private TransactionStore<AionTransaction, AionTxReceipt, AionTxInfo> transactionStore;
 
+    private BloomBitsIndex bloomBitsIndex;
+
+    /** Set on views created by {@link #getReadView(byte[])}, which reject every change. */
+    private boolean readOnly = false;
+
+    /** The view handed out by {@link #getBestReadView(A0BlockHeader)}. */
+    private final AtomicReference<BestView> bestView = new AtomicReference<>();
+
+    private static final int SCAN_PAGE_SIZE = 1024;
+
+    private static final int RECENT_STORAGE_CONTRACTS = 1024;
+    private static final int RECENT_STORAGE_KEYS = 64;
+
+    /**
+     * The storage keys the last flushed transactions accessed per contract, shared with the
+     * snapshots. Used to load storage ahead of execution, see {@link StatePrefetcher}.
+     */
+    private Map<Address, IDataWord[]> recentStorageKeys =
+            Collections.synchronizedMap(
+                    new LinkedHashMap<>(RECENT_STORAGE_CONTRACTS, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<Address, IDataWord[]> e) {
+                            return size() > RECENT_STORAGE_CONTRACTS;
+                        }
+                    });
+
+    private static final int MAX_CHANGED_ACCOUNTS = 65536;
+
+    /**
+     * Accounts written since the last {@link #drainChangedAccounts()}, or {@code null} when the
+     * world state was moved to another root or too many accounts changed to track them.
+     */
+    private Set<Address> changedAccounts = null;
+
     /**
      * used by getSnapShotTo
      *
@@ -126,7 +166,12 @@ public class AionRepositoryImpl
                             transactionDatabase, AionTransactionStoreSerializer.serializer);
 
             // Setup block store.
-            this.blockStore = new AionBlockStore(indexDatabase, blockDatabase, checkIntegrity);
+            this.blockStore =
+                    new AionBlockStore(
+                            indexDatabase, headerDatabase, blockDatabase, checkIntegrity);
+
+            // Setup log bloom index.
+            this.bloomBitsIndex = new BloomBitsIndex(bloomBitsDatabase, blockStore);
 
             // Setup world trie.
             worldState = createStateTrie();
@@ -140,14 +185,22 @@ public class AionRepositoryImpl
         return this.transactionStore;
     }
 
+    /** @implNote The bloom bits index is not locked within the repository implementation. */
+    public BloomBitsIndex getBloomBitsIndex() {
+        return this.bloomBitsIndex;
+    }
+
     private Trie createStateTrie() {
-        return new SecureTrie(stateDSPrune).withPruningEnabled(pruneEnabled);
+        return new SecureTrie(stateDSPrune)
+                .withPruningEnabled(pruneEnabled)
+                .withCacheLimits(trieCacheSize, trieFlushSize);
     }
 
     @Override
     public void updateBatch(
             Map<Address, AccountState> stateCache,
             Map<Address, IContractDetails<IDataWord>> detailsCache) {
+        checkWritable();
         rwLock.writeLock().lock();
 
         try {
@@ -157,6 +210,7 @@ public class AionRepositoryImpl
                 IContractDetails<IDataWord> contractDetails = detailsCache.get(address);
 
                 if (accountState.isDeleted()) {
+                    recordChange(address);
                     // TODO-A: batch operations here
                     try {
                         worldState.delete(address.toBytes());
@@ -172,6 +226,7 @@ public class AionRepositoryImpl
                         // TODO: issue above will be solved with the conversion to a
                         // ContractState class
                         if (accountState.isDirty()) {
+                            recordChange(address);
                             updateAccountState(address, accountState);
 
                             if (LOG.isTraceEnabled()) {
@@ -204,6 +259,7 @@ public class AionRepositoryImpl
 
                     contractDetails = contractDetailsCache.origContract;
 
+                    recordChange(address);
                     updateContractDetails(address, contractDetails);
 
                     if (!Arrays.equals(accountState.getCodeHash(), EMPTY_TRIE_HASH)) {
@@ -223,6 +279,14 @@ public class AionRepositoryImpl
                 }
             }
 
+            for (Map.Entry<Address, IContractDetails<IDataWord>> entry : detailsCache.entrySet()) {
+                if (entry.getValue() instanceof ContractDetailsCacheImpl) {
+                    rememberStorageKeys(
+                            entry.getKey(),
+                            ((ContractDetailsCacheImpl) entry.getValue()).getStorageKeys());
+                }
+            }
+
             LOG.trace("updated: detailsCache.size: {}", detailsCache.size());
             stateCache.clear();
             detailsCache.clear();
@@ -231,6 +295,80 @@ public class AionRepositoryImpl
         }
     }
 
+    /** @implNote The method calling this method must hold the write lock. */
+    private void recordChange(Address address) {
+        if (changedAccounts != null) {
+            changedAccounts.add(address);
+            if (changedAccounts.size() > MAX_CHANGED_ACCOUNTS) {
+                changedAccounts = null;
+            }
+        }
+    }
+
+    /** @implNote The method calling this method must hold the write lock. */
+    private void recordRootChange(byte[] root) {
+        if (!Arrays.equals(root, worldState.getRootHash())) {
+            changedAccounts = null;
+        }
+    }
+
+    /**
+     * Returns the accounts written to the world state since the previous call, so that state
+     * derived from this repository can be refreshed only where needed.
+     *
+     * @return the changed accounts, or empty when they are unknown because the state moved to
+     *     another root, too many accounts changed or this is the first call
+     */
+    public Optional<Set<Address>> drainChangedAccounts() {
+        rwLock.writeLock().lock();
+        try {
+            Optional<Set<Address>> changed = Optional.ofNullable(changedAccounts);
+            changedAccounts = new HashSet<>();
+            return changed;
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    private void rememberStorageKeys(Address address, Set<IDataWord> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        recentStorageKeys.put(
+                address,
+                keys.stream()
+                        .limit(RECENT_STORAGE_KEYS)
+                        .map(IDataWord::copy)
+                        .toArray(IDataWord[]::new));
+    }
+
+    /**
+     * Returns the storage keys of the given contract accessed by the most recently flushed
+     * transactions that used it.
+     *
+     * @param address the contract address
+     * @return the recently accessed keys, empty when none are known
+     */
+    public List<IDataWord> getRecentStorageKeys(Address address) {
+        IDataWord[] recent = recentStorageKeys.get(address);
+        return (recent == null) ? Collections.emptyList() : Arrays.asList(recent);
+    }
+
+    /**
+     * Adds the world state trie nodes the given read view loaded to the trie cache of this
+     * repository, so the import finds them without reading the database.
+     *
+     * @param view a read view of this repository
+     */
+    void putWorldStateNodes(AionRepositoryImpl view) {
+        ((TrieImpl) worldState).getCache().putClean(((TrieImpl) view.worldState).getCache());
+    }
+
+    /** @return the nanoseconds the world state trie spent reading nodes from the database */
+    long getWorldStateLoadTime() {
+        return ((TrieImpl) worldState).getCache().getLoadTime();
+    }
+
     /** @implNote The method calling this method must handle the locking. */
     private void updateContractDetails(
             final Address address, final IContractDetails<IDataWord> contractDetails) {
@@ -240,6 +378,7 @@ public class AionRepositoryImpl
 
     @Override
     public void flush() {
+        checkWritable();
         LOG.debug("------ FLUSH ON " + this.toString());
         rwLock.writeLock().lock();
         try {
@@ -296,8 +435,10 @@ public class AionRepositoryImpl
 
     @Override
     public void syncToRoot(final byte[] root) {
+        checkWritable();
         rwLock.writeLock().lock();
         try {
+            recordRootChange(root);
             worldState.setRoot(root);
         } finally {
             rwLock.writeLock().unlock();
@@ -337,39 +478,42 @@ public class AionRepositoryImpl
     @Override
     public List<byte[]> getPoolTx() {
 
-        List<byte[]> rtn = new ArrayList<>();
         rwLock.readLock().lock();
         try {
-            Set<byte[]> keySet = txPoolDatabase.keys();
-            for (byte[] b : keySet) {
-                if (txPoolDatabase.get(b).isPresent()) {
-                    rtn.add(txPoolDatabase.get(b).get());
-                }
-            }
+            return getAllValues(txPoolDatabase);
         } finally {
             rwLock.readLock().unlock();
         }
-
-        return rtn;
     }
 
     @Override
     public List<byte[]> getCacheTx() {
 
-        List<byte[]> rtn = new ArrayList<>();
         rwLock.readLock().lock();
         try {
-            Set<byte[]> keySet = pendingTxCacheDatabase.keys();
-            for (byte[] b : keySet) {
-                if (pendingTxCacheDatabase.get(b).isPresent()) {
-                    rtn.add(pendingTxCacheDatabase.get(b).get());
-                }
-            }
+            return getAllValues(pendingTxCacheDatabase);
         } finally {
             rwLock.readLock().unlock();
         }
+    }
+
+    /** Reads the values of the database in pages ordered by key. */
+    private static List<byte[]> getAllValues(IByteArrayKeyValueDatabase db) {
+        List<byte[]> values = new ArrayList<>();
+
+        byte[] from = EMPTY_BYTE_ARRAY;
+        List<Map.Entry<byte[], byte[]>> page;
+        do {
+            page = db.getRange(from, null, SCAN_PAGE_SIZE);
+            for (Map.Entry<byte[], byte[]> entry : page) {
+                values.add(entry.getValue());
+            }
+            if (!page.isEmpty()) {
+                from = IByteArrayKeyValueStore.nextKey(page.get(page.size() - 1).getKey());
+            }
+        } while (page.size() == SCAN_PAGE_SIZE);
 
-        return rtn;
+        return values;
     }
 
     @Override
@@ -416,23 +560,16 @@ public class AionRepositoryImpl
         rwLock.readLock().lock();
 
         try {
-            IContractDetails<IDataWord> details;
-
             // That part is important cause if we have
             // to sync details storage according the trie root
             // saved in the account
             AccountState accountState = getAccountState(address);
             byte[] storageRoot = EMPTY_TRIE_HASH;
             if (accountState != null) {
-                storageRoot = getAccountState(address).getStateRoot();
+                storageRoot = accountState.getStateRoot();
             }
 
-            details = detailsDS.get(address.toBytes());
-
-            if (details != null) {
-                details = details.getSnapshotTo(storageRoot);
-            }
-            return details;
+            return detailsDS.get(address.toBytes(), storageRoot);
         } finally {
             rwLock.readLock().unlock();
         }
@@ -511,8 +648,10 @@ public class AionRepositoryImpl
     }
 
     public void setRoot(byte[] root) {
+        checkWritable();
         rwLock.writeLock().lock();
         try {
+            recordRootChange(root);
             worldState.setRoot(root);
         } finally {
             rwLock.writeLock().unlock();
@@ -524,11 +663,11 @@ public class AionRepositoryImpl
     }
 
     public void commitBlock(A0BlockHeader blockHeader) {
+        checkWritable();
         rwLock.writeLock().lock();
 
         try {
             worldState.sync();
-            detailsDS.syncLargeStorage();
 
             if (pruneEnabled) {
                 if (blockHeader.getNumber() % archiveRate == 0 && stateDSPrune.isArchiveEnabled()) {
@@ -575,37 +714,100 @@ public class AionRepositoryImpl
         return worldState;
     }
 
+    /**
+     * @implNote The snapshot has its own trie over the state database and lock, so neither
+     *     creating it nor reading from it waits for an import or flush holding this repository's
+     *     write lock. Trie nodes are addressed by their hash and synced to the database in {@link
+     *     #commitBlock(A0BlockHeader)} before a block becomes the best block, so the state of any
+     *     stored block can be read until it is pruned.
+     */
     @Override
     public IRepository getSnapshotTo(byte[] root) {
-        rwLock.readLock().lock();
+        AionRepositoryImpl repo = new AionRepositoryImpl();
+        repo.blockStore = blockStore;
+        repo.cfg = cfg;
+        repo.stateDatabase = this.stateDatabase;
+        repo.stateWithArchive = this.stateWithArchive;
+        repo.stateDSPrune = this.stateDSPrune;
+
+        // pruning config
+        repo.pruneEnabled = this.pruneEnabled;
+        repo.pruneBlockCount = this.pruneBlockCount;
+        repo.archiveRate = this.archiveRate;
+        repo.trieCacheSize = this.trieCacheSize;
+
+        repo.detailsDS = this.detailsDS;
+        repo.recentStorageKeys = this.recentStorageKeys;
+        repo.isSnapshot = true;
+
+        repo.worldState = repo.createStateTrie();
+        repo.worldState.setRoot(root);
+
+        return repo;
+    }
 
-        try {
-            AionRepositoryImpl repo = new AionRepositoryImpl();
-            repo.blockStore = blockStore;
-            repo.cfg = cfg;
-            repo.stateDatabase = this.stateDatabase;
-            repo.stateWithArchive = this.stateWithArchive;
-            repo.stateDSPrune = this.stateDSPrune;
+    /**
+     * Returns an immutable view of the state at the given root, for readers outside the import
+     * such as the API. Like {@link #getSnapshotTo(byte[])} it takes none of this repository's
+     * locks, and any attempt to change the state through it fails.
+     *
+     * @param root the state root the view is pinned to
+     * @return the read view
+     */
+    public IRepository getReadView(byte[] root) {
+        AionRepositoryImpl view = (AionRepositoryImpl) getSnapshotTo(root);
+        view.readOnly = true;
+        return view;
+    }
 
-            // pruning config
-            repo.pruneEnabled = this.pruneEnabled;
-            repo.pruneBlockCount = this.pruneBlockCount;
-            repo.archiveRate = this.archiveRate;
+    /**
+     * Returns the read view of the state at the given best block. Callers asking for the same
+     * block share one view, so its trie cache stays warm between API calls. A newer block
+     * replaces the view. The new view reuses the trie cache of the old one, because trie nodes are
+     * addressed by their hash.
+     *
+     * @param best the header of the best block
+     * @return the read view pinned to the state root of the block
+     */
+    public IRepository getBestReadView(A0BlockHeader best) {
+        BestView current = bestView.get();
+        if (current != null && Arrays.equals(current.root, best.getStateRoot())) {
+            return current.view;
+        }
 
-            repo.detailsDS = this.detailsDS;
-            repo.isSnapshot = true;
+        AionRepositoryImpl view = (AionRepositoryImpl) getReadView(best.getStateRoot());
+        if (current != null) {
+            ((TrieImpl) view.worldState).setCache(((TrieImpl) current.view.worldState).getCache());
+        }
 
-            repo.worldState = repo.createStateTrie();
-            repo.worldState.setRoot(root);
+        // a caller that read the best block before it changed must not replace a newer view
+        BestView next = new BestView(best.getNumber(), best.getStateRoot(), view);
+        bestView.accumulateAndGet(
+                next, (prev, cand) -> prev == null || cand.number >= prev.number ? cand : prev);
+        return view;
+    }
 
-            return repo;
-        } finally {
-            rwLock.readLock().unlock();
+    private static final class BestView {
+        private final long number;
+        private final byte[] root;
+        private final AionRepositoryImpl view;
+
+        private BestView(long number, byte[] root, AionRepositoryImpl view) {
+            this.number = number;
+            this.root = root;
+            this.view = view;
+        }
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("The read view of the state can't be changed.");
         }
     }
 
     @Override
     public void addTxBatch(Map<byte[], byte[]> pendingTx, boolean isPool) {
+        checkWritable();
 
         if (pendingTx.isEmpty()) {
             return;
@@ -625,6 +827,7 @@ public class AionRepositoryImpl
 
     @Override
     public void removeTxBatch(Set<byte[]> clearTxSet, boolean isPool) {
+        checkWritable();
 
         if (clearTxSet.isEmpty()) {
             return;
@@ -645,6 +848,11 @@ public class AionRepositoryImpl
     /** This function cannot for any reason fail, otherwise we may have dangling file IO locks */
     @Override
     public void close() {
+        if (readOnly) {
+            // the databases belong to the repository the view was taken from
+            return;
+        }
+
         rwLock.writeLock().lock();
         try {
             try {
@@ -717,6 +925,20 @@ public class AionRepositoryImpl
                 LOGGEN.error(
                         "Exception occurred while closing the pendingTxCacheDatabase store.", e);
             }
+
+            try {
+                if (bloomBitsIndex != null) {
+                    bloomBitsIndex.close();
+                    bloomBitsIndex = null;
+                }
+                if (bloomBitsDatabase != null) {
+                    bloomBitsDatabase.close();
+                    LOGGEN.info("Bloom bits database closed.");
+                    bloomBitsDatabase = null;
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while closing the bloom bits database.", e);
+            }
         } finally {
             rwLock.writeLock().unlock();
         }
@@ -752,11 +974,21 @@ public class AionRepositoryImpl
         return this.detailsDatabase;
     }
 
+    /** For testing. */
+    public IByteArrayKeyValueDatabase getStorageDatabase() {
+        return this.storageDatabase;
+    }
+
     /** For testing. */
     public IByteArrayKeyValueDatabase getBlockDatabase() {
         return this.blockDatabase;
     }
 
+    /** For testing. */
+    public IByteArrayKeyValueDatabase getHeaderDatabase() {
+        return this.headerDatabase;
+    }
+
     /** For testing. */
     public IByteArrayKeyValueDatabase getIndexDatabase() {
         return this.indexDatabase;
@@ -773,8 +1005,25 @@ public class AionRepositoryImpl
                 + '}';
     }
 
+    /** @return the counters of each database that reports any, keyed by database name */
+    public Map<String, Map<String, Long>> getDatabaseStatistics() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+
+        if (databaseGroup != null) {
+            for (IByteArrayKeyValueDatabase db : databaseGroup) {
+                Map<String, Long> dbStats = db.getStatistics();
+                if (!dbStats.isEmpty()) {
+                    stats.put(db.getName().orElse(db.toString()), dbStats);
+                }
+            }
+        }
+
+        return stats;
+    }
+
     @Override
     public void compact() {
+        checkWritable();
         rwLock.writeLock().lock();
         try {
             if (databaseGroup != null) {
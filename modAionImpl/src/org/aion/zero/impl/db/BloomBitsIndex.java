@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.zero.impl.db;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.mcf.vm.types.Bloom;
+import org.aion.zero.impl.types.AionBlock;
+import org.slf4j.Logger;
+
+/**
+ * Rotated index of the main chain log blooms. The chain is cut into sections of {@link
+ * #SECTION_SIZE} blocks and for every section each of the 2048 bloom bits is stored as a bit
+ * vector over the blocks of the section, so a filter only reads the vectors of the bits it has
+ * set instead of every block in the range.
+ *
+ * <p>Sections are built in the background once their last block is {@link #CONFIRMATIONS} deep
+ * in the main chain and are dropped again by {@link #rollback(long)} if a re-branch reaches
+ * into them. Vectors without any bit set are not stored.
+ */
+public class BloomBitsIndex {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    public static final int SECTION_SIZE = 4096;
+    public static final int CONFIRMATIONS = 256;
+
+    static final int BLOOM_BITS = 256 * 8;
+
+    private static final byte[] SECTIONS_KEY = "sections".getBytes();
+
+    private final IByteArrayKeyValueDatabase db;
+    private final LongFunction<byte[]> blooms;
+    private final int sectionSize;
+    private final int confirmations;
+
+    private final ExecutorService builder =
+            Executors.newSingleThreadExecutor(
+                    r -> {
+                        Thread t = new Thread(r, "bloom-bits");
+                        t.setDaemon(true);
+                        t.setPriority(Thread.MIN_PRIORITY);
+                        return t;
+                    });
+    private final AtomicBoolean building = new AtomicBoolean(false);
+
+    // number of sections stored, guarded by this
+    private long sections;
+    // bumped on every rollback so a section built against the old chain is not written
+    private long generation;
+
+    public BloomBitsIndex(IByteArrayKeyValueDatabase db, AionBlockStore blockStore) {
+        this(
+                db,
+                number -> {
+                    AionBlock block = blockStore.getChainBlockByNumber(number);
+                    return block == null ? null : block.getLogBloom();
+                },
+                SECTION_SIZE,
+                CONFIRMATIONS);
+    }
+
+    BloomBitsIndex(
+            IByteArrayKeyValueDatabase db,
+            LongFunction<byte[]> blooms,
+            int sectionSize,
+            int confirmations) {
+        this.db = db;
+        this.blooms = blooms;
+        this.sectionSize = sectionSize;
+        this.confirmations = confirmations;
+
+        Optional<byte[]> stored = db.get(SECTIONS_KEY);
+        this.sections = stored.map(b -> ByteBuffer.wrap(b).getLong()).orElse(0L);
+    }
+
+    /** @return the first block number not covered by the index */
+    public synchronized long getIndexedEnd() {
+        return sections * sectionSize;
+    }
+
+    /**
+     * Called when the main chain grows; schedules the build of every section that became deep
+     * enough. Cheap enough for the import path, the work is done on the index thread.
+     *
+     * @param bestNumber number of the new best block
+     */
+    public void onBestBlock(long bestNumber) {
+        if (bestNumber < getIndexedEnd() + sectionSize - 1 + confirmations) {
+            return;
+        }
+
+        if (building.compareAndSet(false, true)) {
+            builder.execute(
+                    () -> {
+                        try {
+                            buildUpTo(bestNumber);
+                        } catch (Exception e) {
+                            LOG.error("bloom-bits section build failed.", e);
+                        } finally {
+                            building.set(false);
+                        }
+                    });
+        }
+    }
+
+    /** Builds, on the calling thread, every section that is deep enough below bestNumber. */
+    void buildUpTo(long bestNumber) {
+        while (true) {
+            long section;
+            long gen;
+            synchronized (this) {
+                section = sections;
+                gen = generation;
+            }
+
+            long first = section * sectionSize;
+            if (bestNumber < first + sectionSize - 1 + confirmations) {
+                return;
+            }
+
+            byte[][] vectors = new byte[BLOOM_BITS][];
+            for (int i = 0; i < sectionSize; i++) {
+                byte[] bloom = blooms.apply(first + i);
+                if (bloom == null) {
+                    LOG.warn("bloom-bits missing main chain block {}.", first + i);
+                    return;
+                }
+                addBloom(vectors, bloom, i);
+            }
+
+            synchronized (this) {
+                if (gen != generation || section != sections) {
+                    // re-branched meanwhile, start over from the new end
+                    continue;
+                }
+
+                Map<byte[], byte[]> batch = new HashMap<>();
+                for (int bit = 0; bit < BLOOM_BITS; bit++) {
+                    if (vectors[bit] != null) {
+                        batch.put(key(bit, section), vectors[bit]);
+                    }
+                }
+                batch.put(SECTIONS_KEY, ByteBuffer.allocate(8).putLong(section + 1).array());
+                db.putBatch(batch);
+                sections = section + 1;
+            }
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("bloom-bits section {} indexed up to block {}.", section,
+                        first + sectionSize - 1);
+            }
+        }
+    }
+
+    private void addBloom(byte[][] vectors, byte[] bloom, int offset) {
+        for (int i = 0; i < bloom.length; i++) {
+            if (bloom[i] == 0) {
+                continue;
+            }
+            for (int b = 0; b < 8; b++) {
+                if ((bloom[i] & (1 << b)) != 0) {
+                    int bit = i * 8 + b;
+                    if (vectors[bit] == null) {
+                        vectors[bit] = new byte[sectionSize / 8];
+                    }
+                    vectors[bit][offset >>> 3] |= (byte) (0x80 >>> (offset & 7));
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops every section holding a block at or above the given number, used when a re-branch
+     * replaces main chain blocks. Must be called after the block store re-branched, also when no
+     * stored section is dropped, so a section build that read part of the old chain is discarded.
+     *
+     * @param fromNumber first block number that changed
+     */
+    public synchronized void rollback(long fromNumber) {
+        generation++;
+
+        long section = Math.max(0, fromNumber) / sectionSize;
+        if (section >= sections) {
+            return;
+        }
+
+        List<byte[]> keys = new ArrayList<>();
+        for (long s = section; s < sections; s++) {
+            for (int bit = 0; bit < BLOOM_BITS; bit++) {
+                keys.add(key(bit, s));
+            }
+        }
+        db.deleteBatch(keys);
+        db.put(SECTIONS_KEY, ByteBuffer.allocate(8).putLong(section).array());
+
+        LOG.info("bloom-bits rolled back to section {} for re-branch at block {}.", section,
+                fromNumber);
+        sections = section;
+    }
+
+    /**
+     * Walks the indexed part of [from, to] and reports the blocks whose bloom may match. Only
+     * blocks that have all bits of at least one bloom of every group set are candidates, an
+     * empty bloom matches anything.
+     *
+     * @param filterBlooms groups of blooms, all groups must match, any bloom of a group
+     * @param from first block number
+     * @param to last block number
+     * @param candidate called in ascending order, return false to stop
+     * @return the first number not looked at, blocks from there up to {@code to} need a full scan
+     */
+    public long match(Bloom[][] filterBlooms, long from, long to, LongPredicate candidate) {
+        long end = Math.min(to + 1, getIndexedEnd());
+        long number = Math.max(0, from);
+
+        while (number < end) {
+            long section = number / sectionSize;
+            byte[] vector = matchSection(filterBlooms, section);
+
+            long first = section * sectionSize;
+            long last = Math.min(end, first + sectionSize);
+            for (; number < last; number++) {
+                int i = (int) (number - first);
+                if ((vector[i >>> 3] & (0x80 >>> (i & 7))) != 0 && !candidate.test(number)) {
+                    return to + 1;
+                }
+            }
+        }
+
+        return Math.max(number, from);
+    }
+
+    private byte[] matchSection(Bloom[][] filterBlooms, long section) {
+        Map<Integer, byte[]> loaded = new HashMap<>();
+        byte[] result = ones();
+
+        for (Bloom[] group : filterBlooms) {
+            byte[] groupVector = new byte[sectionSize / 8];
+            for (Bloom bloom : group) {
+                byte[] bloomVector = ones();
+                byte[] data = bloom.getData();
+                for (int i = 0; i < data.length; i++) {
+                    for (int b = 0; b < 8; b++) {
+                        if ((data[i] & (1 << b)) != 0) {
+                            and(bloomVector, loaded.computeIfAbsent(i * 8 + b,
+                                    bit -> db.get(key(bit, section)).orElse(null)));
+                        }
+                    }
+                }
+                or(groupVector, bloomVector);
+            }
+            and(result, groupVector);
+        }
+
+        return result;
+    }
+
+    private byte[] ones() {
+        byte[] v = new byte[sectionSize / 8];
+        Arrays.fill(v, (byte) 0xff);
+        return v;
+    }
+
+    private static void and(byte[] acc, byte[] v) {
+        if (v == null) {
+            Arrays.fill(acc, (byte) 0);
+            return;
+        }
+        for (int i = 0; i < acc.length; i++) {
+            acc[i] &= v[i];
+        }
+    }
+
+    private static void or(byte[] acc, byte[] v) {
+        for (int i = 0; i < acc.length; i++) {
+            acc[i] |= v[i];
+        }
+    }
+
+    private static byte[] key(int bit, long section) {
+        return ByteBuffer.allocate(10).putShort((short) bit).putLong(section).array();
+    }
+
+    public void close() {
+        builder.shutdownNow();
+    }
+}
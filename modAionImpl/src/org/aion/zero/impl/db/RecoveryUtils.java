@@ -124,6 +124,30 @@ public class RecoveryUtils {
         repository.close();
     }
 
+    /** Used by the CLI call. */
+    public static void splitHeaders() {
+        // ensure mining is disabled
+        CfgAion cfg = CfgAion.inst();
+        cfg.dbFromXML();
+        cfg.getConsensus().setMining(false);
+
+        cfg.getDb().setHeapCacheEnabled(false);
+
+        Map<String, String> cfgLog = new HashMap<>();
+        cfgLog.put("DB", "INFO");
+        cfgLog.put("GEN", "INFO");
+
+        AionLoggerFactory.init(cfgLog);
+
+        // get the current blockchain
+        AionRepositoryImpl repository = AionRepositoryImpl.inst();
+
+        long converted = repository.getBlockStore().splitHeaders();
+        System.out.println(converted + " blocks converted.");
+
+        repository.close();
+    }
+
     /** Used by the CLI call. */
     public static void dumpBlocks(long count) {
         // ensure mining is disabled
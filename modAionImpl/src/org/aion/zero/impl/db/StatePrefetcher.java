@@ -0,0 +1,229 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.zero.impl.db;
+
+import static org.aion.crypto.HashUtil.EMPTY_DATA_HASH;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.aion.base.db.IContractDetails;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.base.vm.IDataWord;
+import org.aion.mcf.core.AccountState;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.IAionBlock;
+import org.slf4j.Logger;
+
+/**
+ * Loads the state a block's transactions are going to use before the block is executed.
+ *
+ * <p>For every transaction the accounts of the sender and recipient are read, and for contracts
+ * also their details and the storage keys the contract's recent transactions accessed. The reads
+ * go through read views of the repository on background threads, so they take none of the locks
+ * held during execution. The world state trie nodes a view loaded are then added to the trie cache
+ * of the repository, while contract details and their storage are already shared with it through
+ * the decoded details of the details store.
+ *
+ * <p>The time the execution of each block spends reading world state trie nodes from the database
+ * is accumulated, which together with the time spent prefetching shows how much of the waiting on
+ * the databases the prefetching takes off the import.
+ */
+public final class StatePrefetcher {
+
+    /** Prefetches never consumed, e.g. of invalid blocks, are dropped above this count. */
+    private static final int MAX_PENDING = 256;
+
+    private final AionRepositoryImpl repository;
+    private final Logger logger;
+
+    private final ThreadPoolExecutor workers;
+    private final Map<ByteArrayWrapper, Future<?>> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong blocks = new AtomicLong();
+    private final AtomicLong waitTime = new AtomicLong();
+    private final AtomicLong accounts = new AtomicLong();
+    private final AtomicLong storageKeys = new AtomicLong();
+    private final AtomicLong readTime = new AtomicLong();
+
+    // load time of the world state when the current block's execution began, import thread only
+    private long executionLoadTime;
+
+    public StatePrefetcher(AionRepositoryImpl repository, int threads, Logger logger) {
+        this.repository = repository;
+        this.logger = logger;
+
+        AtomicInteger cnt = new AtomicInteger(0);
+        this.workers =
+                new ThreadPoolExecutor(
+                        threads,
+                        threads,
+                        30,
+                        TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(),
+                        r -> {
+                            Thread t = new Thread(r, "state-prefetch-" + cnt.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        });
+        // idle chains, e.g. in tests, keep no threads around
+        this.workers.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Starts loading the state used by the transactions of the given block.
+     *
+     * @param block the block about to be executed
+     * @param root the state root the block is expected to be executed on
+     */
+    public void prefetch(IAionBlock block, byte[] root) {
+        List<AionTransaction> txs = block.getTransactionsList();
+        if (txs.isEmpty()) {
+            return;
+        }
+
+        if (pending.size() >= MAX_PENDING) {
+            pending.values().removeIf(Future::isDone);
+            if (pending.size() >= MAX_PENDING) {
+                return;
+            }
+        }
+
+        ByteArrayWrapper hash = ByteArrayWrapper.wrap(block.getHash());
+        if (pending.containsKey(hash)) {
+            return;
+        }
+
+        try {
+            pending.put(hash, workers.submit(() -> load(txs, root)));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Skipped prefetching the state of block {}.", block.getShortHash());
+        }
+    }
+
+    /**
+     * Records the execution of the given block starting. Its prefetch, if still loading, goes on
+     * and hands its nodes over once done.
+     *
+     * @param block the block being executed
+     */
+    public void executing(IAionBlock block) {
+        pending.remove(ByteArrayWrapper.wrap(block.getHash()));
+        executionLoadTime = repository.getWorldStateLoadTime();
+    }
+
+    /**
+     * Records the execution of the given block ending, accounting the time it spent reading world
+     * state trie nodes from the database.
+     *
+     * @param block the executed block
+     */
+    public void executed(IAionBlock block) {
+        blocks.incrementAndGet();
+        waitTime.addAndGet(repository.getWorldStateLoadTime() - executionLoadTime);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug(
+                    "<state-prefetch blocks={} wait-time={} ms accounts={} storage-keys={}"
+                            + " read-time={} ms>",
+                    blocks.get(),
+                    TimeUnit.NANOSECONDS.toMillis(waitTime.get()),
+                    accounts.get(),
+                    storageKeys.get(),
+                    TimeUnit.NANOSECONDS.toMillis(readTime.get()));
+        }
+    }
+
+    private void load(List<AionTransaction> txs, byte[] root) {
+        long start = System.nanoTime();
+        try {
+            AionRepositoryImpl view = (AionRepositoryImpl) repository.getReadView(root);
+            Set<Address> loaded = new HashSet<>();
+            for (AionTransaction tx : txs) {
+                load(view, tx.getFrom(), loaded);
+                load(view, tx.getTo(), loaded);
+            }
+            repository.putWorldStateNodes(view);
+        } catch (RuntimeException e) {
+            // the root may have been pruned meanwhile, the execution reads what it needs anyway
+            logger.debug("State prefetch failed: {}", e.toString());
+        } finally {
+            readTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private void load(AionRepositoryImpl view, Address address, Set<Address> loaded) {
+        if (address == null || !loaded.add(address)) {
+            return;
+        }
+
+        AccountState state = view.getAccountState(address);
+        accounts.incrementAndGet();
+        if (state == null || Arrays.equals(state.getCodeHash(), EMPTY_DATA_HASH)) {
+            return;
+        }
+
+        IContractDetails<IDataWord> details = view.getContractDetails(address);
+        List<IDataWord> keys = repository.getRecentStorageKeys(address);
+        if (details != null && !keys.isEmpty()) {
+            details.getStorage(keys);
+            storageKeys.addAndGet(keys.size());
+        }
+    }
+
+    /** @return the number of executed blocks */
+    public long getBlocks() {
+        return blocks.get();
+    }
+
+    /** @return the nanoseconds the execution of blocks spent reading world state trie nodes */
+    public long getWaitTime() {
+        return waitTime.get();
+    }
+
+    /** @return the nanoseconds the workers spent reading state */
+    public long getReadTime() {
+        return readTime.get();
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
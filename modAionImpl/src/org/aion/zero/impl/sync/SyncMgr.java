@@ -72,6 +72,9 @@ public final class SyncMgr {
     // interval - show status
     private static final int INTERVAL_SHOW_STATUS = 10000;
 
+    // batches validated ahead of the import thread
+    private static final int VALIDATED_QUEUE_MAX = 8;
+
     private final static Logger log = AionLoggerFactory.getLogger(LogEnum.SYNC.name());
     private final NetworkStatus networkStatus = new NetworkStatus();
     // peer syncing states
@@ -80,8 +83,11 @@ public final class SyncMgr {
     private final BlockingQueue<HeadersWrapper> downloadedHeaders = new LinkedBlockingQueue<>();
     // store the headers whose bodies have been requested from corresponding peer
     private final ConcurrentHashMap<Integer, HeadersWrapper> headersWithBodiesRequested = new ConcurrentHashMap<>();
-    // store the downloaded blocks that are ready to import
+    // store the downloaded blocks that are waiting for stateless validation
     private final BlockingQueue<BlocksWrapper> downloadedBlocks = new LinkedBlockingQueue<>();
+    // store the validated blocks that are ready to import
+    private final BlockingQueue<BlocksWrapper> validatedBlocks =
+        new LinkedBlockingQueue<>(VALIDATED_QUEUE_MAX);
     // store the hashes of blocks which have been successfully imported
     private final Map<ByteArrayWrapper, Object> importedBlockHashes = Collections
         .synchronizedMap(new LRUMap<>(4096));
@@ -101,7 +107,20 @@ public final class SyncMgr {
         }
     });
 
+    // checks signatures of the downloaded batches
+    private ExecutorService validators = Executors.newFixedThreadPool(
+        Math.max(1, Runtime.getRuntime().availableProcessors() >> 1), new ThreadFactory() {
+
+            private AtomicInteger cnt = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r, "sync-vw-" + cnt.incrementAndGet());
+            }
+        });
+
     private Thread syncGb = null;
+    private Thread syncVb = null;
     private Thread syncIb = null;
     private Thread syncGs = null;
     private Thread syncSs = null;
@@ -188,10 +207,17 @@ public final class SyncMgr {
                                               this.peerStates,
                                               log), "sync-gb");
         syncGb.start();
+        syncVb = new Thread(new TaskValidateBlocks(this.start,
+                                                   this.downloadedBlocks,
+                                                   this.validatedBlocks,
+                                                   this.validators,
+                                                   statics,
+                                                   log), "sync-vb");
+        syncVb.start();
         syncIb = new Thread(new TaskImportBlocks(this.chain,
                                                  this.start,
                                                  statics,
-                                                 this.downloadedBlocks,
+                                                 this.validatedBlocks,
                                                  this.importedBlockHashes,
                                                  this.peerStates,
                                                  log), "sync-ib");
@@ -202,7 +228,7 @@ public final class SyncMgr {
         if (_showStatus) {
             syncSs = new Thread(
                 new TaskShowStatus(this.start, INTERVAL_SHOW_STATUS, this.chain, this.networkStatus,
-                    statics, _printReport, _reportFolder,
+                    statics, this.downloadedBlocks, this.validatedBlocks, _printReport, _reportFolder,
                     AionLoggerFactory.getLogger(LogEnum.P2P.name())), "sync-ss");
             syncSs.start();
         }
@@ -217,7 +243,7 @@ public final class SyncMgr {
     }
 
     private void getHeaders(BigInteger _selfTd) {
-        if (downloadedBlocks.size() > blocksQueueMax) {
+        if (downloadedBlocks.size() + validatedBlocks.size() > blocksQueueMax) {
             if (queueFull.compareAndSet(false, true)) {
                 log.debug("Downloaded blocks queue is full. Stop requesting headers");
             }
@@ -352,7 +378,9 @@ public final class SyncMgr {
         workers.shutdown();
 
         interruptAndWait(syncGb, 10000);
+        interruptAndWait(syncVb, 10000);
         interruptAndWait(syncIb, 10000);
+        validators.shutdownNow();
         interruptAndWait(syncGs, 10000);
         interruptAndWait(syncSs, 10000);
     }
@@ -41,6 +41,10 @@ final class SyncStatics {
 
     private double avgBlocksPerSec;
 
+    private long validatedBlocks;
+
+    private long validationMs;
+
     SyncStatics(long _startBlock){
         this.start = System.currentTimeMillis();
         this.startBlock = _startBlock;
@@ -54,4 +58,20 @@ final class SyncStatics {
     synchronized double getAvgBlocksPerSec(){
         return this.avgBlocksPerSec;
     }
+
+    /**
+     * @param _blocks int blocks passed by the validation stage
+     * @param _ms long time spent on them
+     */
+    synchronized void addValidated(int _blocks, long _ms){
+        this.validatedBlocks += _blocks;
+        this.validationMs += _ms;
+    }
+
+    /**
+     * @return double average blocks per second through the validation stage while busy
+     */
+    synchronized double getAvgValidatedPerSec(){
+        return this.validationMs == 0 ? 0 : (double) this.validatedBlocks * 1000 / this.validationMs;
+    }
 }
@@ -42,7 +42,8 @@ import org.aion.zero.impl.types.AionBlock;
 import org.slf4j.Logger;
 
 /**
- * handle process of importing blocks to repo
+ * handle process of importing blocks to repo, the batches arrive through {@link
+ * TaskValidateBlocks} so only the state dependent checks and the execution are left here
  *
  * <p>TODO: targeted send
  *
@@ -54,7 +55,7 @@ final class TaskImportBlocks implements Runnable {
 
     private final AtomicBoolean start;
 
-    private final BlockingQueue<BlocksWrapper> downloadedBlocks;
+    private final BlockingQueue<BlocksWrapper> validatedBlocks;
 
     private final SyncStatics statis;
 
@@ -68,14 +69,14 @@ final class TaskImportBlocks implements Runnable {
             final AionBlockchainImpl _chain,
             final AtomicBoolean _start,
             final SyncStatics _statis,
-            final BlockingQueue<BlocksWrapper> downloadedBlocks,
+            final BlockingQueue<BlocksWrapper> validatedBlocks,
             final Map<ByteArrayWrapper, Object> importedBlockHashes,
             final Map<Integer, PeerState> peerStates,
             final Logger log) {
         this.chain = _chain;
         this.start = _start;
         this.statis = _statis;
-        this.downloadedBlocks = downloadedBlocks;
+        this.validatedBlocks = validatedBlocks;
         this.importedBlockHashes = importedBlockHashes;
         this.peerStates = peerStates;
         this.log = log;
@@ -88,7 +89,7 @@ final class TaskImportBlocks implements Runnable {
 
             BlocksWrapper bw;
             try {
-                bw = downloadedBlocks.take();
+                bw = validatedBlocks.take();
             } catch (InterruptedException ex) {
                 return;
             }
@@ -105,6 +106,9 @@ final class TaskImportBlocks implements Runnable {
                 continue;
             }
 
+            // load the state of the batch while the blocks are checked and executed in order
+            chain.prefetchState(batch);
+
             ImportResult importResult = ImportResult.IMPORTED_NOT_BEST;
 
             // importing last block in batch to see if we can skip batch
@@ -22,13 +22,16 @@
  */
 package org.aion.zero.impl.sync;
 
+import com.google.common.cache.CacheStats;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.base.util.Hex;
 import org.aion.zero.impl.AionBlockchainImpl;
 import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.impl.valid.TXValidator;
 import org.slf4j.Logger;
 
 /**
@@ -48,6 +51,10 @@ final class TaskShowStatus implements Runnable {
 
     private final SyncStatics statics;
 
+    private final BlockingQueue<BlocksWrapper> downloadedBlocks;
+
+    private final BlockingQueue<BlocksWrapper> validatedBlocks;
+
     private final boolean printReport;
     private final String reportFolder;
 
@@ -55,12 +62,15 @@ final class TaskShowStatus implements Runnable {
 
     TaskShowStatus(final AtomicBoolean _start, int _interval, final AionBlockchainImpl _chain,
         final NetworkStatus _networkStatus, final SyncStatics _statics,
-        final boolean _printReport, final String _reportFolder, final Logger _log) {
+        final BlockingQueue<BlocksWrapper> _downloadedBlocks,
+        final BlockingQueue<BlocksWrapper> _validatedBlocks, final boolean _printReport, final String _reportFolder, final Logger _log) {
         this.start = _start;
         this.interval = _interval;
         this.chain = _chain;
         this.networkStatus = _networkStatus;
         this.statics = _statics;
+        this.downloadedBlocks = _downloadedBlocks;
+        this.validatedBlocks = _validatedBlocks;
         this.printReport = _printReport;
         this.reportFolder = _reportFolder;
         this.p2pLOG = _log;
@@ -72,6 +82,8 @@ final class TaskShowStatus implements Runnable {
         while (this.start.get()) {
             AionBlock selfBest = this.chain.getBestBlock();
             String selfTd = selfBest.getCumulativeDifficulty().toString(10);
+            // misses beyond the loads waited on another thread checking the same transaction
+            CacheStats txValid = TXValidator.getCacheStats();
 
             String status =
                 "sync-status avg-import=" + String.format("%.2f", this.statics.getAvgBlocksPerSec())
@@ -81,7 +93,13 @@ final class TaskShowStatus implements Runnable {
                     + " b-num=" + selfBest.getNumber() + "/" + this.networkStatus
                     .getTargetBestBlockNumber() //
                     + " b-hash=" + Hex.toHexString(this.chain.getBestBlockHash()) //
-                    + "/" + this.networkStatus.getTargetBestBlockHash() + "";
+                    + "/" + this.networkStatus.getTargetBestBlockHash() //
+                    + " queue-validate=" + this.downloadedBlocks.size() //
+                    + " queue-import=" + this.validatedBlocks.size() //
+                    + " avg-validate=" + String.format("%.2f", this.statics.getAvgValidatedPerSec())
+                    + " b/s" //
+                    + " tx-valid-hit=" + String.format("%.2f", txValid.hitRate()) //
+                    + " tx-valid-wait=" + (txValid.missCount() - txValid.loadCount());
 
             p2pLOG.info(status);
 
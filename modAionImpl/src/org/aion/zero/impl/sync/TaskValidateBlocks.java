@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ * This file is part of the aion network project.
+ *
+ * The aion network project is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * The aion network project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the aion network project source files.
+ * If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ * Aion foundation.
+ */
+
+package org.aion.zero.impl.sync;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.impl.valid.TXValidator;
+import org.aion.zero.types.AionTransaction;
+import org.slf4j.Logger;
+
+/**
+ * Stage between download and import: runs the checks that need no state, transaction
+ * signatures and sender recovery, for a whole batch on the worker pool so the import thread only
+ * finds cached results. Batches leave in the order they came in; a batch is cut before the first
+ * block holding an invalid transaction since none of its successors can be imported either.
+ *
+ * <p>Headers are checked by {@link SyncMgr#validateAndAddHeaders} and the tx trie root when the
+ * body is assembled, so neither is repeated here.
+ */
+final class TaskValidateBlocks implements Runnable {
+
+    private final AtomicBoolean start;
+
+    private final BlockingQueue<BlocksWrapper> downloadedBlocks;
+
+    private final BlockingQueue<BlocksWrapper> validatedBlocks;
+
+    private final ExecutorService workers;
+
+    private final SyncStatics statis;
+
+    private final Logger log;
+
+    TaskValidateBlocks(
+            final AtomicBoolean _start,
+            final BlockingQueue<BlocksWrapper> _downloadedBlocks,
+            final BlockingQueue<BlocksWrapper> _validatedBlocks,
+            final ExecutorService _workers,
+            final SyncStatics _statis,
+            final Logger _log) {
+        this.start = _start;
+        this.downloadedBlocks = _downloadedBlocks;
+        this.validatedBlocks = _validatedBlocks;
+        this.workers = _workers;
+        this.statis = _statis;
+        this.log = _log;
+    }
+
+    @Override
+    public void run() {
+        while (start.get()) {
+            try {
+                BlocksWrapper bw = downloadedBlocks.take();
+
+                long t1 = System.currentTimeMillis();
+                List<AionBlock> blocks = validate(bw.getBlocks());
+                statis.addValidated(blocks.size(), System.currentTimeMillis() - t1);
+
+                if (blocks.size() < bw.getBlocks().size()) {
+                    log.warn(
+                            "<invalid-block-txs node={} num={}> dropping the rest of the batch.",
+                            bw.getDisplayId(),
+                            bw.getBlocks().get(blocks.size()).getNumber());
+                    bw = new BlocksWrapper(bw.getNodeIdHash(), bw.getDisplayId(), blocks);
+                }
+
+                // blocks when the importer is behind, which holds the download back too
+                validatedBlocks.put(bw);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param _blocks List
+     * @return List the leading blocks whose transactions are all valid
+     */
+    private List<AionBlock> validate(final List<AionBlock> _blocks) throws InterruptedException {
+        List<Callable<Boolean>> tasks = new ArrayList<>(_blocks.size());
+        for (AionBlock b : _blocks) {
+            tasks.add(() -> isValid(b));
+        }
+
+        List<Future<Boolean>> results = workers.invokeAll(tasks);
+
+        int valid = 0;
+        for (Future<Boolean> result : results) {
+            try {
+                if (!result.get()) {
+                    break;
+                }
+            } catch (ExecutionException e) {
+                log.error("<validate-block throw> {}", e.getCause().toString());
+                break;
+            }
+            valid++;
+        }
+
+        return valid == _blocks.size() ? _blocks : new ArrayList<>(_blocks.subList(0, valid));
+    }
+
+    private static boolean isValid(AionBlock _block) {
+        for (AionTransaction tx : _block.getTransactionsList()) {
+            // the sender is recovered and kept on the tx for the import to use
+            if (!TXValidator.isValid(tx) || tx.getFrom() == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
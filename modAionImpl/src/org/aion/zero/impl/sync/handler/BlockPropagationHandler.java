@@ -165,7 +165,7 @@ public class BlockPropagationHandler {
                      _displayId,
                      block.getShortHash(),
                      block.getNumber(),
-                     block.getTransactionsList().size(),
+                     block.getTransactionCount(),
                      result);
         } else {
             result = this.blockchain.tryToConnect(block);
@@ -174,7 +174,7 @@ public class BlockPropagationHandler {
                      _displayId,
                      block.getShortHash(),
                      block.getNumber(),
-                     block.getTransactionsList().size(),
+                     block.getTransactionCount(),
                      result,
                      t2 - t1);
         }
@@ -35,6 +35,7 @@
 
 package org.aion.zero.impl.sync.handler;
 
+import java.nio.ByteBuffer;
 import org.aion.base.util.ByteUtil;
 import org.aion.p2p.Ctrl;
 import org.aion.p2p.Handler;
@@ -69,14 +70,19 @@ public final class BroadcastNewBlockHandler extends Handler {
     public void receive(int _nodeIdHashcode, String _displayId, final byte[] _msgBytes) {
         if (_msgBytes == null)
             return;
-        byte[] rawdata = BroadcastNewBlock.decode(_msgBytes);
+        receive(_nodeIdHashcode, _displayId, ByteBuffer.wrap(_msgBytes));
+    }
+
+    @Override
+    public void receive(int _nodeIdHashcode, String _displayId, final ByteBuffer _msg) {
+        byte[] rawdata = BroadcastNewBlock.decode(_msg);
         if (rawdata == null) {
             p2pMgr.errCheck(_nodeIdHashcode, _displayId);
             log.error("<new-block-handler decode-error, from {} len: {}>",
                     _displayId,
-                    _msgBytes.length);
+                    _msg.remaining());
             if (log.isTraceEnabled()) {
-                log.trace("new-block-handler dump: {}", ByteUtil.toHexString(_msgBytes));
+                log.trace("new-block-handler dump: {}", ByteUtil.toHexString(toArray(_msg)));
             }
             return;
         }
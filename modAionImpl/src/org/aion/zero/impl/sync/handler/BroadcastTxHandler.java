@@ -48,6 +48,7 @@ import org.aion.zero.impl.valid.TXValidator;
 import org.aion.zero.types.AionTransaction;
 import org.slf4j.Logger;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executors;
@@ -112,18 +113,25 @@ public final class BroadcastTxHandler extends Handler {
 
     @Override
     public final void receive(int _nodeIdHashcode, String _displayId, final byte[] _msgBytes) {
+        if (_msgBytes == null)
+            return;
+        receive(_nodeIdHashcode, _displayId, ByteBuffer.wrap(_msgBytes));
+    }
+
+    @Override
+    public final void receive(int _nodeIdHashcode, String _displayId, final ByteBuffer _msg) {
         if(isSyncOnlyNode)
             return;
 
-        if (_msgBytes == null || _msgBytes.length == 0)
+        if (!_msg.hasRemaining())
             return;
 
-        List<byte[]> broadCastTx = BroadcastTx.decode(_msgBytes);
+        List<byte[]> broadCastTx = BroadcastTx.decode(_msg);
 
         if (broadCastTx == null) {
-            log.error("<BroadcastTxHandler decode-error unable to decode tx-list from {}, len: {]>", _displayId, _msgBytes.length);
+            log.error("<BroadcastTxHandler decode-error unable to decode tx-list from {}, len: {]>", _displayId, _msg.remaining());
             if (log.isTraceEnabled()) {
-                log.trace("BroadcastTxHandler dump: {}", ByteUtil.toHexString(_msgBytes));
+                log.trace("BroadcastTxHandler dump: {}", ByteUtil.toHexString(toArray(_msg)));
             }
             return;
         } else if (broadCastTx.isEmpty()) {
@@ -45,6 +45,7 @@ import org.aion.zero.impl.sync.SyncMgr;
 import org.aion.zero.impl.sync.msg.ResBlocksBodies;
 import org.slf4j.Logger;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -70,13 +71,18 @@ public final class ResBlocksBodiesHandler extends Handler {
 
     @Override
     public void receive(int _nodeIdHashcode, String _displayId, final byte[] _msgBytes) {
-        ResBlocksBodies resBlocksBodies = ResBlocksBodies.decode(_msgBytes);
+        receive(_nodeIdHashcode, _displayId, ByteBuffer.wrap(_msgBytes));
+    }
+
+    @Override
+    public void receive(int _nodeIdHashcode, String _displayId, final ByteBuffer _msg) {
+        ResBlocksBodies resBlocksBodies = ResBlocksBodies.decode(_msg);
         List<byte[]> bodies = resBlocksBodies.getBlocksBodies();
         if(bodies == null) {
-            log.error("<res-bodies decoder-error from {}, len: {]>", _displayId, _msgBytes.length);
+            log.error("<res-bodies decoder-error from {}, len: {]>", _displayId, _msg.remaining());
             p2pMgr.errCheck(_nodeIdHashcode, _displayId);
             if (log.isTraceEnabled()) {
-                log.trace("res-bodies dump: {}", ByteUtil.toHexString(_msgBytes));
+                log.trace("res-bodies dump: {}", ByteUtil.toHexString(toArray(_msg)));
             }
 
         } else {
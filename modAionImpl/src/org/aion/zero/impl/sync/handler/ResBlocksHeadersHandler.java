@@ -46,6 +46,7 @@ import org.aion.zero.impl.sync.msg.ResBlocksHeaders;
 import org.aion.zero.types.A0BlockHeader;
 import org.slf4j.Logger;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -71,9 +72,16 @@ public final class ResBlocksHeadersHandler extends Handler {
 
     @Override
     public void receive(int _nodeIdHashcode, String _displayId, final byte[] _msgBytes) {
-        if(_msgBytes == null || _msgBytes.length == 0)
+        if(_msgBytes == null)
             return;
-        ResBlocksHeaders resHeaders = ResBlocksHeaders.decode(_msgBytes);
+        receive(_nodeIdHashcode, _displayId, ByteBuffer.wrap(_msgBytes));
+    }
+
+    @Override
+    public void receive(int _nodeIdHashcode, String _displayId, final ByteBuffer _msg) {
+        if(!_msg.hasRemaining())
+            return;
+        ResBlocksHeaders resHeaders = ResBlocksHeaders.decode(_msg);
         if(resHeaders != null) {
             List<A0BlockHeader> headers = resHeaders.getHeaders();
             if(headers != null && headers.size() > 0){
@@ -93,12 +101,12 @@ public final class ResBlocksHeadersHandler extends Handler {
             //p2pMgr.errCheck(_nodeIdHashcode, _displayId);
             this.log.error(
                     "<res-headers decode-error msg-bytes={} node={}>",
-                    _msgBytes.length,
+                    _msg.remaining(),
                     _displayId
             );
 
             if (this.log.isTraceEnabled()) {
-                this.log.trace("res-headers decode-error dump: {}", ByteUtil.toHexString(_msgBytes));
+                this.log.trace("res-headers decode-error dump: {}", ByteUtil.toHexString(toArray(_msg)));
             }
         }
     }
@@ -35,12 +35,13 @@
 
 package org.aion.zero.impl.sync.msg;
 
+import java.nio.ByteBuffer;
 import org.aion.zero.impl.sync.Act;
 import org.aion.base.type.IBlock;
 import org.aion.p2p.Ctrl;
 import org.aion.p2p.Msg;
 import org.aion.p2p.Ver;
-import org.aion.rlp.RLP;
+import org.aion.rlp.RLPView;
 
 /**
  * @author chris
@@ -61,7 +62,15 @@ public final class BroadcastNewBlock extends Msg {
     }
 
     public static byte[] decode(final byte[] _msgBytes) {
-        return RLP.decode2OneItem(_msgBytes, 0).getRLPData();
+        return RLPView.wrap(_msgBytes).getRLPData();
+    }
+
+    /**
+     * @param _msg ByteBuffer message body, its position is not changed
+     * @return byte[] copy of the encoded block
+     */
+    public static byte[] decode(final ByteBuffer _msg) {
+        return RLPView.wrap(_msg).getRLPData();
     }
 
 }
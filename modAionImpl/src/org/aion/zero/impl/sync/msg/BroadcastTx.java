@@ -35,15 +35,15 @@
 
 package org.aion.zero.impl.sync.msg;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import org.aion.base.type.ITransaction;
 import org.aion.p2p.Ctrl;
 import org.aion.p2p.Msg;
 import org.aion.p2p.Ver;
-import org.aion.rlp.RLP;
-import org.aion.rlp.RLPElement;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPView;
+import org.aion.rlp.RLPWriter;
 import org.aion.zero.impl.sync.Act;
 
 /** @author chris */
@@ -61,22 +61,35 @@ public final class BroadcastTx extends Msg {
      */
     @Override
     public byte[] encode() {
-        List<byte[]> encodedTx = new ArrayList<>();
+        RLPWriter writer = new RLPWriter();
+        writer.startList();
         for (ITransaction tx : txl) {
-            encodedTx.add(tx.getEncoded());
+            writer.writeEncoded(tx.getEncoded());
         }
-
-        return RLP.encodeList(encodedTx.toArray(new byte[encodedTx.size()][]));
+        return writer.endList().toByteArray();
     }
 
     /* return the encodedData of the Transaction list, the caller function need to cast the return byte[] array
      */
     public static List<byte[]> decode(final byte[] _msgBytes) {
-        RLPList paramsList = (RLPList) RLP.decode2(_msgBytes).get(0);
-        List<byte[]> txl = new ArrayList<>();
-        for (RLPElement aParamsList : paramsList) {
-            RLPList rlpData = ((RLPList) aParamsList);
-            txl.add(rlpData.getRLPData());
+        return decode(RLPView.wrap(_msgBytes));
+    }
+
+    /**
+     * Decodes the message straight from the buffer it was received in, copying out only the
+     * encoded transactions.
+     *
+     * @param _msg ByteBuffer message body, its position is not changed
+     * @return List the encoded transactions
+     */
+    public static List<byte[]> decode(final ByteBuffer _msg) {
+        return decode(RLPView.wrap(_msg));
+    }
+
+    private static List<byte[]> decode(final RLPView paramsList) {
+        List<byte[]> txl = new ArrayList<>(paramsList.size());
+        for (int i = 0; i < paramsList.size(); i++) {
+            txl.add(paramsList.getList(i).getEncoded());
         }
         return txl;
     }
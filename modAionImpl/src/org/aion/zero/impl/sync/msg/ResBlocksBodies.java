@@ -35,15 +35,15 @@
 
 package org.aion.zero.impl.sync.msg;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import org.aion.p2p.Ctrl;
 import org.aion.p2p.Msg;
 import org.aion.p2p.Ver;
-import org.aion.rlp.RLPElement;
+import org.aion.rlp.RLPView;
+import org.aion.rlp.RLPWriter;
 import org.aion.zero.impl.sync.Act;
-import org.aion.rlp.RLP;
-import org.aion.rlp.RLPList;
 
 /**
  *
@@ -61,11 +61,24 @@ public final class ResBlocksBodies extends Msg {
     }
 
     public static ResBlocksBodies decode(final byte[] _msgBytes) {
-        RLPList paramsList = (RLPList) RLP.decode2(_msgBytes).get(0);
-        List<byte[]> blocksBodies = new ArrayList<>();
-        for (RLPElement aParamsList : paramsList) {
-            RLPList rlpData = ((RLPList) aParamsList);
-            blocksBodies.add(rlpData.getRLPData());
+        return decode(RLPView.wrap(_msgBytes));
+    }
+
+    /**
+     * Decodes the message straight from the buffer it was received in, copying out only the
+     * bodies.
+     *
+     * @param _msg ByteBuffer message body, its position is not changed
+     * @return ResBlocksBodies
+     */
+    public static ResBlocksBodies decode(final ByteBuffer _msg) {
+        return decode(RLPView.wrap(_msg));
+    }
+
+    private static ResBlocksBodies decode(final RLPView paramsList) {
+        List<byte[]> blocksBodies = new ArrayList<>(paramsList.size());
+        for (int i = 0; i < paramsList.size(); i++) {
+            blocksBodies.add(paramsList.getList(i).getEncoded());
         }
         return new ResBlocksBodies(blocksBodies);
     }
@@ -76,6 +89,16 @@ public final class ResBlocksBodies extends Msg {
 
     @Override
     public byte[] encode() {
-        return RLP.encodeList(this.blocksBodies.toArray(new byte[this.blocksBodies.size()][]));
+        int size = 0;
+        for (byte[] body : this.blocksBodies) {
+            size += body.length;
+        }
+
+        RLPWriter writer = new RLPWriter(size + 8);
+        writer.startList();
+        for (byte[] body : this.blocksBodies) {
+            writer.writeEncoded(body);
+        }
+        return writer.endList().toByteArray();
     }
 }
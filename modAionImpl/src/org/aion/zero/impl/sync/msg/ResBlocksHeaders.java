@@ -35,15 +35,15 @@
 
 package org.aion.zero.impl.sync.msg;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import org.aion.p2p.Ctrl;
 import org.aion.p2p.Msg;
 import org.aion.p2p.Ver;
-import org.aion.rlp.RLPElement;
+import org.aion.rlp.RLPView;
+import org.aion.rlp.RLPWriter;
 import org.aion.zero.impl.sync.Act;
-import org.aion.rlp.RLP;
-import org.aion.rlp.RLPList;
 import org.aion.zero.types.A0BlockHeader;
 
 /**
@@ -61,15 +61,25 @@ public final class ResBlocksHeaders extends Msg {
     }
 
     public static ResBlocksHeaders decode(final byte[] _msgBytes) {
-        if (_msgBytes == null || _msgBytes.length == 0)
+        return _msgBytes == null ? null : decode(ByteBuffer.wrap(_msgBytes));
+    }
+
+    /**
+     * Decodes the message straight from the buffer it was received in, the headers copy out
+     * their fields.
+     *
+     * @param _msg ByteBuffer message body, its position is not changed
+     * @return ResBlocksHeaders, null if the message is empty or malformed
+     */
+    public static ResBlocksHeaders decode(final ByteBuffer _msg) {
+        if (_msg == null || !_msg.hasRemaining())
             return null;
         else {
             try {
-                RLPList list = (RLPList) RLP.decode2(_msgBytes).get(0);
-                List<A0BlockHeader> blockHeaders = new ArrayList<>();
-                for (RLPElement aList : list) {
-                    RLPList rlpData = ((RLPList) aList);
-                    blockHeaders.add(A0BlockHeader.fromRLP(rlpData, true));
+                RLPView list = RLPView.wrap(_msg);
+                List<A0BlockHeader> blockHeaders = new ArrayList<>(list.size());
+                for (int i = 0; i < list.size(); i++) {
+                    blockHeaders.add(A0BlockHeader.fromRLP(list.getList(i), true));
                 }
                 return new ResBlocksHeaders(blockHeaders);
             } catch (Exception ex) {
@@ -84,12 +94,12 @@ public final class ResBlocksHeaders extends Msg {
 
     @Override
     public byte[] encode() {
-        List<byte[]> tempList = new ArrayList<>();
+        RLPWriter writer = new RLPWriter(this.blockHeaders.size() * 2048);
+        writer.startList();
         for (A0BlockHeader blockHeader : this.blockHeaders) {
-            tempList.add(blockHeader.getEncoded());
+            writer.writeEncoded(blockHeader.getEncoded());
         }
-        byte[][] bytesArray = tempList.toArray(new byte[tempList.size()][]);
-        return RLP.encodeList(bytesArray);
+        return writer.endList().toByteArray();
     }
 
 }
@@ -25,14 +25,14 @@ package org.aion.zero.impl.types;
 import org.aion.base.type.Address;
 import org.aion.base.util.ByteUtil;
 import org.aion.base.util.Hex;
+import org.aion.crypto.HashUtil;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.mcf.trie.Trie;
 import org.aion.mcf.trie.TrieImpl;
 import org.aion.mcf.types.AbstractBlock;
 import org.aion.rlp.RLP;
-import org.aion.rlp.RLPElement;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPView;
 import org.aion.zero.exceptions.HeaderStructureException;
 import org.aion.zero.types.A0BlockHeader;
 import org.aion.zero.types.AionTransaction;
@@ -40,6 +40,7 @@ import org.aion.zero.types.IAionBlock;
 import org.slf4j.Logger;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -55,7 +56,14 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
     private byte[] rlpEncoded;
     private volatile boolean parsed = false;
 
-    private Trie txsState;
+    /**
+     * The encoded transactions of a decoded block, indexed by offset, until the transaction
+     * objects are first asked for. Cleared once {@link #transactionsList} holds them.
+     */
+    private volatile RLPView encodedTxs;
+
+    // set once the tx list was checked against the header's tx trie root
+    private boolean txTrieVerified = false;
 
     private BigInteger td = null;
 
@@ -150,16 +158,13 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
             if (this.parsed)
                 return;
             
-            RLPList params = RLP.decode2(rlpEncoded);
-            RLPList block = (RLPList) params.get(0);
+            RLPView block = RLPView.wrap(rlpEncoded);
 
             // Parse Header
-            RLPList header = (RLPList) block.get(0);
-            this.header = new A0BlockHeader(header);
+            this.header = new A0BlockHeader(block.getList(0));
 
-            // Parse Transactions
-            RLPList txTransactions = (RLPList) block.get(1);
-            this.parseTxs(this.header.getTxTrieRoot(), txTransactions);
+            // Transactions are decoded on first access and checked against the tx trie on import
+            this.encodedTxs = index(block.getList(1));
 
             this.parsed = true;
         }
@@ -268,9 +273,44 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
 
     public List<AionTransaction> getTransactionsList() {
         parseRLP();
+        if (encodedTxs != null) {
+            decodeTxs();
+        }
         return transactionsList;
     }
 
+    /** @return the number of transactions, without decoding them */
+    public int getTransactionCount() {
+        parseRLP();
+        RLPView txs = encodedTxs;
+        return txs != null ? txs.size() : transactionsList.size();
+    }
+
+    /** @return the hashes of the transactions in block order, without decoding them */
+    public List<byte[]> getTransactionHashes() {
+        parseRLP();
+        RLPView txs = encodedTxs;
+        List<byte[]> hashes;
+        if (txs != null) {
+            hashes = new ArrayList<>(txs.size());
+            for (int i = 0; i < txs.size(); i++) {
+                hashes.add(HashUtil.h256(txs.get(i).getEncoded()));
+            }
+        } else {
+            hashes = new ArrayList<>(transactionsList.size());
+            for (AionTransaction tx : transactionsList) {
+                hashes.add(tx.getHash());
+            }
+        }
+        return hashes;
+    }
+
+    @Override
+    public byte[] getTransactionsEncoded() {
+        RLPView txs = encodedTxs;
+        return txs != null ? txs.getEncoded() : super.getTransactionsEncoded();
+    }
+
     /**
      * Facilitates the "finalization" of the block, after processing the
      * necessary transactions. This will be called during block creation and is
@@ -308,7 +348,8 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
         this.getHeader().setEnergyConsumed(energyUsed);
 
         this.transactionsList = txs;
-        this.txsState = null; // wipe the txsState after setting
+        this.encodedTxs = null;
+        this.txTrieVerified = false;
     }
 
     @Override
@@ -355,21 +396,37 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
         return toStringBuff.toString();
     }
 
-    private void parseTxs(RLPList txTransactions) {
+    /**
+     * Indexes the offsets of the encoded transactions before the view is published, so that
+     * readers on other threads only ever see a fully built index.
+     */
+    private static RLPView index(RLPView txs) {
+        txs.size();
+        return txs;
+    }
+
+    private synchronized void decodeTxs() {
+        RLPView txs = encodedTxs;
+        if (txs == null) {
+            return;
+        }
 
-        this.txsState = new TrieImpl(null);
-        for (int i = 0; i < txTransactions.size(); i++) {
-            RLPElement transactionRaw = txTransactions.get(i);
-            this.transactionsList.add(new AionTransaction(transactionRaw.getRLPData()));
-            this.txsState.update(RLP.encodeInt(i), transactionRaw.getRLPData());
+        List<AionTransaction> decoded = new ArrayList<>(txs.size());
+        for (int i = 0; i < txs.size(); i++) {
+            decoded.add(new AionTransaction(txs.get(i).getEncoded()));
         }
+
+        this.transactionsList = new CopyOnWriteArrayList<>(decoded);
+        this.encodedTxs = null;
     }
 
-    private boolean parseTxs(byte[] expectedRoot, RLPList txTransactions) {
+    private boolean matchesTxTrie(byte[] expectedRoot, RLPView txs) {
+        Trie txsState = new TrieImpl(null);
+        for (int i = 0; i < txs.size(); i++) {
+            txsState.update(RLP.encodeInt(i), txs.get(i).getEncoded());
+        }
 
-        parseTxs(txTransactions);
-        String calculatedRoot = Hex.toHexString(txsState.getRootHash());
-        if (!calculatedRoot.equals(Hex.toHexString(expectedRoot))) {
+        if (!Arrays.equals(txsState.getRootHash(), expectedRoot)) {
             LOG.debug("Transactions trie root validation failed for block #{}", this.header.getNumber());
             return false;
         }
@@ -377,6 +434,15 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
         return true;
     }
 
+    /**
+     * @return true when the transactions were already matched against the tx trie root while
+     *     decoding, so the import does not need to rebuild the trie
+     */
+    public boolean isTxTrieVerified() {
+        parseRLP();
+        return this.txTrieVerified;
+    }
+
     public boolean isGenesis() {
         return this.header.isGenesis();
     }
@@ -412,7 +478,7 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
     @Override
     public String getShortDescr() {
         return "#" + getNumber() + " (" + Hex.toHexString(getHash()).substring(0, 6) + " <~ "
-                + Hex.toHexString(getParentHash()).substring(0, 6) + ") Txs:" + getTransactionsList().size();
+                + Hex.toHexString(getParentHash()).substring(0, 6) + ") Txs:" + getTransactionCount();
     }
 
     @Override
@@ -435,12 +501,27 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
         block.header = header;
         block.parsed = true;
 
-        RLPList items = (RLPList) RLP.decode2(body).get(0);
-        RLPList transactions = (RLPList) items.get(0);
+        RLPView transactions = index(RLPView.wrap(body).getList(0));
 
-        if (!block.parseTxs(header.getTxTrieRoot(), transactions)) {
+        if (!block.matchesTxTrie(header.getTxTrieRoot(), transactions)) {
             return null;
         }
+        block.encodedTxs = transactions;
+        block.txTrieVerified = true;
+
+        return block;
+    }
+
+    /**
+     * Assembles a block from the header and body databases; the content was validated before it
+     * was stored, so the tx trie is not checked again.
+     */
+    public static AionBlock createBlockFromStorage(A0BlockHeader header, byte[] body) {
+        AionBlock block = new AionBlock();
+        block.header = header;
+        block.parsed = true;
+
+        block.encodedTxs = index(RLPView.wrap(body).getList(0));
 
         return block;
     }
@@ -24,6 +24,11 @@
 
 package org.aion.zero.impl.valid;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.aion.base.type.Address;
 import org.aion.base.type.Hash256;
 import org.aion.base.util.ByteArrayWrapper;
 import org.aion.crypto.ISignature;
@@ -31,12 +36,13 @@ import org.aion.crypto.SignatureFac;
 import org.aion.mcf.vm.types.DataWord;
 import org.aion.zero.types.AionTransaction;
 import org.aion.log.LogEnum;
-import org.apache.commons.collections4.map.LRUMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collections;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 
 import static org.aion.mcf.valid.TxNrgRule.isValidNrgContractCreate;
 import static org.aion.mcf.valid.TxNrgRule.isValidNrgTx;
@@ -45,24 +51,121 @@ public class TXValidator {
 
     private static final Logger LOG = LoggerFactory.getLogger(LogEnum.TX.name());
 
-    private static final Map<ByteArrayWrapper, Boolean> cache = Collections.synchronizedMap(new LRUMap<>(128 * 1024));
+    /**
+     * Validation results by transaction hash, holding the recovered sender of valid transactions
+     * and nothing for invalid ones. The cache is split into segments locked independently, and
+     * reads take no lock at all. A hit hands the remembered sender to the transaction, so another
+     * instance of it, e.g. decoded from a block after being pooled, skips the recovery.
+     */
+    private static final Cache<ByteArrayWrapper, Optional<Address>> cache =
+            CacheBuilder.newBuilder()
+                    .maximumSize(128 * 1024)
+                    .concurrencyLevel(Math.max(4, Runtime.getRuntime().availableProcessors()))
+                    .recordStats()
+                    .build();
 
     public static boolean isValid(AionTransaction tx) {
-        Boolean valid = cache.get(ByteArrayWrapper.wrap(tx.getHash()));
-        if (valid != null) {
-            return valid;
-        } else {
-            valid = isValid0(tx);
-            cache.put(ByteArrayWrapper.wrap(tx.getHash()), valid);
-            return valid;
+        ByteArrayWrapper key = ByteArrayWrapper.wrap(tx.getHash());
+        try {
+            // concurrent callers for the same transaction wait for a single check
+            Optional<Address> sender = cache.get(key, () -> validity(tx, isValid0(tx)));
+            sender.ifPresent(tx::setFrom);
+            return sender.isPresent();
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            LOG.error("tx validation failed!", e);
+            return false;
         }
     }
 
+    /**
+     * Validates a list of transactions. The signatures of the transactions not found in the cache
+     * are verified together as one batch.
+     *
+     * @return the validity of each transaction, in list order
+     */
+    public static boolean[] isValid(List<AionTransaction> txs) {
+        boolean[] valid = new boolean[txs.size()];
+
+        List<Integer> unchecked = new ArrayList<>();
+        List<byte[]> hashes = new ArrayList<>();
+        List<ISignature> sigs = new ArrayList<>();
+        for (int i = 0; i < valid.length; i++) {
+            AionTransaction tx = txs.get(i);
+            Optional<Address> cached = cache.getIfPresent(ByteArrayWrapper.wrap(tx.getHash()));
+            if (cached != null) {
+                cached.ifPresent(tx::setFrom);
+                valid[i] = cached.isPresent();
+                continue;
+            }
+
+            if (!isValidFields(tx)) {
+                cache.put(ByteArrayWrapper.wrap(tx.getHash()), Optional.empty());
+                continue;
+            }
+
+            byte[] hash = tx.getRawHash();
+            ISignature sig = tx.getSignature();
+            if (!isValidSignatureInput(hash, sig)) {
+                cache.put(ByteArrayWrapper.wrap(tx.getHash()), Optional.empty());
+                continue;
+            }
+
+            unchecked.add(i);
+            hashes.add(hash);
+            sigs.add(sig);
+        }
+
+        if (!unchecked.isEmpty()) {
+            boolean[] verified = SignatureFac.verify(hashes, sigs);
+            for (int j = 0; j < verified.length; j++) {
+                int i = unchecked.get(j);
+                AionTransaction tx = txs.get(i);
+                Optional<Address> sender = validity(tx, verified[j]);
+                valid[i] = sender.isPresent();
+                cache.put(ByteArrayWrapper.wrap(tx.getHash()), sender);
+            }
+        }
+        return valid;
+    }
+
+    /** A transaction whose sender cannot be recovered is not valid either. */
+    private static Optional<Address> validity(AionTransaction tx, boolean valid) {
+        return valid ? Optional.ofNullable(tx.getFrom()) : Optional.empty();
+    }
+
     public static boolean isInCache(ByteArrayWrapper hash) {
-        return cache.get(hash) != null;
+        return cache.getIfPresent(hash) != null;
+    }
+
+    /**
+     * Returns the hit, miss, load and eviction counts of the validity cache. Misses beyond the
+     * number of loads were callers that waited on another thread checking the same transaction.
+     */
+    public static CacheStats getCacheStats() {
+        return cache.stats();
     }
 
     public static boolean isValid0(AionTransaction tx) {
+        if (!isValidFields(tx)) {
+            return false;
+        }
+
+        byte[] hash = tx.getRawHash();
+        ISignature sig = tx.getSignature();
+        if (!isValidSignatureInput(hash, sig)) {
+            return false;
+        }
+
+        try {
+            return SignatureFac.verify(hash, sig);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return false;
+        }
+    }
+
+    /** Checks the transaction fields other than the signature. */
+    private static boolean isValidFields(AionTransaction tx) {
         byte[] check = tx.getNonce();
         if (check == null || check.length > DataWord.BYTES) {
             LOG.error("invalid tx nonce!");
@@ -106,23 +209,20 @@ public class TXValidator {
             return false;
         }
 
-        byte[] hash = tx.getRawHash();
+        return true;
+    }
+
+    private static boolean isValidSignatureInput(byte[] hash, ISignature sig) {
         if (hash == null || hash.length != Hash256.BYTES) {
             LOG.error("invalid tx raw hash!");
             return false;
         }
 
-        ISignature sig = tx.getSignature();
         if (sig == null) {
             LOG.error("invalid tx signature!");
             return false;
         }
 
-        try {
-            return SignatureFac.verify(hash, sig);
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            return false;
-        }
+        return true;
     }
 }
\ No newline at end of file
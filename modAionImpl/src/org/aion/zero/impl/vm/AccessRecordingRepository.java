@@ -0,0 +1,262 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.zero.impl.vm;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.aion.base.db.IContractDetails;
+import org.aion.base.db.IRepository;
+import org.aion.base.db.IRepositoryCache;
+import org.aion.base.type.Address;
+import org.aion.base.vm.IDataWord;
+import org.aion.mcf.core.AccountState;
+import org.aion.mcf.db.IBlockStoreBase;
+import org.aion.zero.db.AionRepositoryCache;
+
+/**
+ * Passes reads and writes through to a tracked repository, recording the accounts each one
+ * touches. A transaction executed on a cache over this repository reaches the tracked state only
+ * through here, so the recorded accounts cover everything the transaction depends on and changes.
+ */
+final class AccessRecordingRepository
+        implements IRepository<AccountState, IDataWord, IBlockStoreBase<?, ?>> {
+
+    private final IRepositoryCache<AccountState, IDataWord, IBlockStoreBase<?, ?>> repository;
+
+    private final Set<Address> reads = new HashSet<>();
+    private final Set<Address> writes = new HashSet<>();
+
+    AccessRecordingRepository(
+            IRepositoryCache<AccountState, IDataWord, IBlockStoreBase<?, ?>> repository) {
+        this.repository = repository;
+    }
+
+    /** The accounts read from the tracked repository. */
+    Set<Address> getReads() {
+        return reads;
+    }
+
+    /** The accounts written to the tracked repository. */
+    Set<Address> getWrites() {
+        return writes;
+    }
+
+    private synchronized void read(Address address) {
+        reads.add(address);
+    }
+
+    @Override
+    public boolean hasAccountState(Address address) {
+        read(address);
+        return repository.hasAccountState(address);
+    }
+
+    @Override
+    public void loadAccountState(
+            Address address,
+            Map<Address, AccountState> accounts,
+            Map<Address, IContractDetails<IDataWord>> details) {
+        read(address);
+        repository.loadAccountState(address, accounts, details);
+    }
+
+    @Override
+    public AccountState getAccountState(Address address) {
+        read(address);
+        return repository.getAccountState(address);
+    }
+
+    @Override
+    public BigInteger getBalance(Address address) {
+        read(address);
+        return repository.getBalance(address);
+    }
+
+    @Override
+    public BigInteger getNonce(Address address) {
+        read(address);
+        return repository.getNonce(address);
+    }
+
+    @Override
+    public boolean hasContractDetails(Address address) {
+        read(address);
+        return repository.hasContractDetails(address);
+    }
+
+    @Override
+    public IContractDetails<IDataWord> getContractDetails(Address address) {
+        read(address);
+        return repository.getContractDetails(address);
+    }
+
+    @Override
+    public byte[] getCode(Address address) {
+        read(address);
+        return repository.getCode(address);
+    }
+
+    @Override
+    public Map<IDataWord, IDataWord> getStorage(Address address, Collection<IDataWord> keys) {
+        read(address);
+        return repository.getStorage(address, keys);
+    }
+
+    @Override
+    public IDataWord getStorageValue(Address address, IDataWord key) {
+        read(address);
+        return repository.getStorageValue(address, key);
+    }
+
+    @Override
+    public synchronized void updateBatch(
+            Map<Address, AccountState> accounts,
+            Map<Address, IContractDetails<IDataWord>> details) {
+        writes.addAll(accounts.keySet());
+        writes.addAll(details.keySet());
+        repository.updateBatch(accounts, details);
+    }
+
+    /**
+     * Returns the cache a transaction runs on. Creating an account there replaces whatever state
+     * it had without reading it, so accounts created by the transaction, directly or in a nested
+     * cache, are recorded as read too.
+     */
+    @Override
+    public IRepositoryCache startTracking() {
+        return new AionRepositoryCache(this) {
+            @Override
+            public AccountState createAccount(Address address) {
+                read(address);
+                return super.createAccount(address);
+            }
+
+            @Override
+            public void updateBatch(
+                    Map<Address, AccountState> accounts,
+                    Map<Address, IContractDetails<IDataWord>> details) {
+                accounts.keySet().forEach(AccessRecordingRepository.this::read);
+                details.keySet().forEach(AccessRecordingRepository.this::read);
+                super.updateBatch(accounts, details);
+            }
+        };
+    }
+
+    @Override
+    public List<byte[]> getPoolTx() {
+        return repository.getPoolTx();
+    }
+
+    @Override
+    public List<byte[]> getCacheTx() {
+        return repository.getCacheTx();
+    }
+
+    @Override
+    public void flush() {
+        throw new UnsupportedOperationException(
+                "The recording repository holds no state, flush the tracked repository instead.");
+    }
+
+    @Override
+    public void rollback() {
+        throw new UnsupportedOperationException(
+                "The recording repository holds no state, roll back the tracked repository instead.");
+    }
+
+    @Override
+    public boolean isClosed() {
+        return repository.isClosed();
+    }
+
+    @Override
+    public void close() {
+        throw new UnsupportedOperationException(
+                "The recording repository cannot be closed.");
+    }
+
+    @Override
+    public void compact() {
+        throw new UnsupportedOperationException(
+                "The recording repository cannot be compacted.");
+    }
+
+    @Override
+    public boolean isValidRoot(byte[] root) {
+        return repository.isValidRoot(root);
+    }
+
+    @Override
+    public boolean isIndexed(byte[] hash, long level) {
+        return repository.isIndexed(hash, level);
+    }
+
+    @Override
+    public byte[] getRoot() {
+        throw new UnsupportedOperationException(
+                "The recording repository cannot return the root.");
+    }
+
+    @Override
+    public void syncToRoot(byte[] root) {
+        throw new UnsupportedOperationException(
+                "The recording repository cannot sync to root.");
+    }
+
+    @Override
+    public IRepository getSnapshotTo(byte[] root) {
+        return repository.getSnapshotTo(root);
+    }
+
+    @Override
+    public boolean isSnapshot() {
+        return repository.isSnapshot();
+    }
+
+    @Override
+    public IBlockStoreBase<?, ?> getBlockStore() {
+        return repository.getBlockStore();
+    }
+
+    @Override
+    public void addTxBatch(Map<byte[], byte[]> pendingTx, boolean isPool) {
+        throw new UnsupportedOperationException(
+                "addTxBatch should be called on the tracked repository.");
+    }
+
+    @Override
+    public void removeTxBatch(Set<byte[]> pendingTx, boolean isPool) {
+        throw new UnsupportedOperationException(
+                "removeTxBatch should be called on the tracked repository.");
+    }
+}
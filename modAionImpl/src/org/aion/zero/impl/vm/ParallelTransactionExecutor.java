@@ -0,0 +1,202 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.zero.impl.vm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.aion.base.db.IRepositoryCache;
+import org.aion.base.type.Address;
+import org.aion.vm.TransactionExecutor;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxExecSummary;
+import org.aion.zero.types.IAionBlock;
+import org.slf4j.Logger;
+
+/**
+ * Executes the transactions of a block speculatively in parallel and commits them in block order.
+ *
+ * <p>Every transaction first runs on its own cache over the block's track, recording the accounts
+ * it reads. Committing then walks the block in order: a transaction that read an account written
+ * by an earlier one of the block, or the coinbase collecting the fees, is executed again on top of
+ * the committed state; any other speculation is flushed into the track as it is. The outcome is
+ * therefore the same as executing the block sequentially.
+ */
+public final class ParallelTransactionExecutor {
+
+    private final Logger logger;
+
+    private final ExecutorService workers;
+
+    public ParallelTransactionExecutor(int threads, Logger logger) {
+        this.logger = logger;
+        this.workers =
+                Executors.newFixedThreadPool(
+                        threads,
+                        new ThreadFactory() {
+
+                            private AtomicInteger cnt = new AtomicInteger(0);
+
+                            @Override
+                            public Thread newThread(Runnable r) {
+                                Thread t = new Thread(r, "tx-exec-" + cnt.incrementAndGet());
+                                t.setDaemon(true);
+                                return t;
+                            }
+                        });
+    }
+
+    /** The outcome of executing a single transaction on its own cache. */
+    private static final class Execution {
+        private final AccessRecordingRepository recorder;
+        private final IRepositoryCache view;
+        private final AionTxExecSummary summary;
+
+        private Execution(
+                AccessRecordingRepository recorder,
+                IRepositoryCache view,
+                AionTxExecSummary summary) {
+            this.recorder = recorder;
+            this.view = view;
+            this.summary = summary;
+        }
+    }
+
+    /**
+     * Executes the block's transactions on the given track.
+     *
+     * @param block the block whose transactions are executed
+     * @param track the repository receiving the changes of the block
+     * @param committed called with each summary right after its changes reached the track
+     * @return the execution summaries in block order
+     */
+    @SuppressWarnings("unchecked")
+    public List<AionTxExecSummary> execute(
+            IAionBlock block, IRepositoryCache track, Consumer<AionTxExecSummary> committed) {
+        List<AionTransaction> txs = block.getTransactionsList();
+
+        List<Callable<Execution>> tasks = new ArrayList<>(txs.size());
+        for (AionTransaction tx : txs) {
+            tasks.add(() -> run(tx, block, track, true));
+        }
+
+        List<Future<Execution>> speculations;
+        try {
+            speculations = workers.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while executing the block transactions.", e);
+        }
+
+        Address coinbase = block.getCoinbase();
+        Set<Address> written = new HashSet<>();
+        List<AionTxExecSummary> summaries = new ArrayList<>(txs.size());
+        int repeated = 0;
+
+        for (int i = 0; i < txs.size(); i++) {
+            Execution execution = speculated(speculations.get(i));
+
+            if (execution == null
+                    || execution.recorder.getReads().contains(coinbase)
+                    || !Collections.disjoint(execution.recorder.getReads(), written)) {
+                execution = run(txs.get(i), block, track, false);
+                execution.view.flush();
+                repeated++;
+            } else {
+                execution.view.flush();
+                if (!execution.summary.isRejected()) {
+                    track.addBalance(coinbase, execution.summary.getFee());
+                }
+            }
+
+            written.addAll(execution.recorder.getWrites());
+
+            summaries.add(execution.summary);
+            committed.accept(execution.summary);
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug(
+                    "Executed {} transactions of block {} in parallel, {} repeated after a conflict.",
+                    txs.size(),
+                    block.getNumber(),
+                    repeated);
+        }
+        return summaries;
+    }
+
+    /**
+     * Runs the transaction on a new cache over the track. Speculative runs leave out the fee, which
+     * is only paid to the coinbase once the transaction is committed.
+     */
+    private Execution run(
+            AionTransaction tx, IAionBlock block, IRepositoryCache track, boolean speculative) {
+        AccessRecordingRepository recorder = new AccessRecordingRepository(track);
+        IRepositoryCache view = recorder.startTracking();
+
+        TransactionExecutor executor =
+                new TransactionExecutor(tx, block, view, false, block.getNrgLimit(), logger);
+        executor.setExecutorProvider(AionExecutorProvider.getInstance());
+        if (speculative) {
+            executor.setBypassFee();
+            executor.setConcurrent();
+        }
+        return new Execution(recorder, view, executor.execute());
+    }
+
+    /** Stops the worker threads. */
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /** Returns the speculative execution, or null when it failed and must be repeated. */
+    private Execution speculated(Future<Execution> speculation) {
+        try {
+            return speculation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while executing the block transactions.", e);
+        } catch (ExecutionException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Speculative transaction execution failed, repeating it.", e.getCause());
+            }
+            return null;
+        }
+    }
+}
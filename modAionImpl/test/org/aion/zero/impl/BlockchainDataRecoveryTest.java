@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
 import org.aion.base.util.ByteUtil;
 import org.aion.base.util.Hex;
@@ -348,6 +349,21 @@ public class BlockchainDataRecoveryTest {
 
     @Test
     public void testRecoverWorldState_wDeletedBlock() {
+        recoverWorldStateWithMissingBlock(
+                (repo, hash) -> {
+                    repo.getBlockDatabase().delete(hash);
+                    repo.getHeaderDatabase().delete(hash);
+                });
+    }
+
+    /** The body is still stored, but without its header the block can't be read. */
+    @Test
+    public void testRecoverWorldState_wDeletedHeader() {
+        recoverWorldStateWithMissingBlock((repo, hash) -> repo.getHeaderDatabase().delete(hash));
+    }
+
+    private void recoverWorldStateWithMissingBlock(
+            BiConsumer<AionRepositoryImpl, byte[]> deleteBlock) {
         // build a blockchain with a few blocks
         StandaloneBlockchain.Builder builder = new StandaloneBlockchain.Builder();
         StandaloneBlockchain.Bundle bundle =
@@ -379,7 +395,9 @@ public class BlockchainDataRecoveryTest {
 
         // delete middle block from db
         AionBlock middle = chain.getBlockByNumber(NUMBER_OF_BLOCKS / 2);
-        repo.getBlockDatabase().delete(middle.getHash());
+        deleteBlock.accept(repo, middle.getHash());
+        assertThat(repo.getBlockStore().getBlockByHash(middle.getHash())).isNull();
+        assertThat(repo.getBlockStore().isBlockExist(middle.getHash())).isFalse();
 
         // delete some world state root entries from the database
         TrieImpl trie = (TrieImpl) repo.getWorldState();
@@ -1139,6 +1157,7 @@ public class BlockchainDataRecoveryTest {
         // delete middle block from db
         AionBlock middle = chain.getBlockByNumber(NUMBER_OF_BLOCKS / 2);
         repo.getBlockDatabase().delete(middle.getHash());
+        repo.getHeaderDatabase().delete(middle.getHash());
 
         // delete index entries from the database
         IByteArrayKeyValueDatabase indexDatabase = repo.getIndexDatabase();
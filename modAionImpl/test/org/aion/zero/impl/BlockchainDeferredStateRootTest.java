@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.zero.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteUtil;
+import org.aion.crypto.ECKey;
+import org.aion.mcf.core.ImportResult;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxReceipt;
+import org.junit.Test;
+
+public class BlockchainDeferredStateRootTest {
+
+    private static final Address RECEIPT_ADDR =
+            Address.wrap("CAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFE");
+
+    private static StandaloneBlockchain.Bundle build(List<ECKey> keys, long deferredStateRoot) {
+        StandaloneBlockchain.Builder builder =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDeferredStateRoot(deferredStateRoot);
+        return keys == null
+                ? builder.withDefaultAccounts().build()
+                : builder.withDefaultAccounts(keys).build();
+    }
+
+    private static List<AionTransaction> transfers(ECKey key, int firstNonce, int count) {
+        List<AionTransaction> txs = new ArrayList<>();
+        for (int i = firstNonce; i < firstNonce + count; i++) {
+            AionTransaction tx =
+                    new AionTransaction(
+                            ByteUtil.intToBytes(i),
+                            RECEIPT_ADDR,
+                            BigInteger.valueOf(i + 1).toByteArray(),
+                            ByteUtil.EMPTY_BYTE_ARRAY,
+                            21000L,
+                            10_000_000_000L);
+            tx.sign(key);
+            txs.add(tx);
+        }
+        return txs;
+    }
+
+    @Test
+    public void testSameStateRoot() {
+        StandaloneBlockchain.Bundle normal = build(null, Long.MAX_VALUE);
+        StandaloneBlockchain.Bundle deferred = build(normal.privateKeys, 0);
+
+        List<AionTransaction> txs = transfers(normal.privateKeys.get(0), 0, 10);
+
+        AionBlock normalBlock = normal.bc.createNewBlock(normal.bc.getBestBlock(), txs, true);
+        AionBlock deferredBlock =
+                deferred.bc.createNewBlock(deferred.bc.getBestBlock(), txs, true);
+
+        assertThat(normal.bc.tryToConnect(normalBlock)).isEqualTo(ImportResult.IMPORTED_BEST);
+        assertThat(deferred.bc.tryToConnect(deferredBlock))
+                .isEqualTo(ImportResult.IMPORTED_BEST);
+
+        assertThat(deferredBlock.getStateRoot()).isEqualTo(normalBlock.getStateRoot());
+        assertThat(deferredBlock.getReceiptsRoot()).isNotEqualTo(normalBlock.getReceiptsRoot());
+
+        for (AionTransaction tx : txs) {
+            AionTxReceipt normalReceipt =
+                    normal.bc.getTransactionInfo(tx.getHash()).getReceipt();
+            AionTxReceipt deferredReceipt =
+                    deferred.bc.getTransactionInfo(tx.getHash()).getReceipt();
+
+            assertThat(normalReceipt.getPostTxState()).isNotEmpty();
+            assertThat(deferredReceipt.getPostTxState()).isEmpty();
+            assertThat(deferredReceipt.getEnergyUsed()).isEqualTo(normalReceipt.getEnergyUsed());
+        }
+    }
+
+    @Test
+    public void testImportAcrossActivation() {
+        StandaloneBlockchain.Bundle miner = build(null, 2);
+        StandaloneBlockchain.Bundle follower = build(miner.privateKeys, 2);
+        StandaloneBlockchain.Bundle legacy = build(miner.privateKeys, Long.MAX_VALUE);
+
+        ECKey key = miner.privateKeys.get(0);
+        AionBlock first =
+                miner.bc.createNewBlock(miner.bc.getBestBlock(), transfers(key, 0, 3), true);
+        assertThat(miner.bc.tryToConnect(first)).isEqualTo(ImportResult.IMPORTED_BEST);
+
+        AionBlock second =
+                miner.bc.createNewBlock(miner.bc.getBestBlock(), transfers(key, 3, 3), true);
+        assertThat(miner.bc.tryToConnect(second)).isEqualTo(ImportResult.IMPORTED_BEST);
+
+        // both blocks replay on a node with the same activation
+        assertThat(follower.bc.tryToConnect(first)).isEqualTo(ImportResult.IMPORTED_BEST);
+        assertThat(follower.bc.tryToConnect(second)).isEqualTo(ImportResult.IMPORTED_BEST);
+
+        // a node without it only agrees up to the activation block
+        assertThat(legacy.bc.tryToConnect(first)).isEqualTo(ImportResult.IMPORTED_BEST);
+        assertThat(legacy.bc.tryToConnect(second)).isEqualTo(ImportResult.INVALID_BLOCK);
+    }
+}
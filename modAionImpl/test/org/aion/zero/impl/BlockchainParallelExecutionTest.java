@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.zero.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+import org.aion.base.db.IRepositoryCache;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteUtil;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.mcf.core.ImportResult;
+import org.aion.vm.TransactionExecutor;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.impl.vm.AionExecutorProvider;
+import org.aion.zero.impl.vm.ParallelTransactionExecutor;
+import org.aion.zero.types.A0BlockHeader;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxExecSummary;
+import org.aion.zero.types.AionTxReceipt;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+public class BlockchainParallelExecutionTest {
+
+    private static final Address SHARED_ADDR =
+            Address.wrap("CAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFE");
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.VM.name());
+
+    /**
+     * A counter with a mapping: {@code 549262ba} stores the counter under its current value and
+     * increments it, {@code 61bc221a} returns it and any other call reverts.
+     */
+    private static final byte[] COUNTER_CODE =
+            ByteUtil.hexStringToBytes(
+                    "0x605060405260006001600050909055341561001a5760006000fd5b61001f565b6101688061002e6000396000f30060506040526000356c01000000000000000000000000900463ffffffff16806331e658a514610049578063549262ba1461008957806361bc221a1461009f57610043565b60006000fd5b34156100555760006000fd5b610073600480808060100135903590916020019091929050506100c9565b6040518082815260100191505060405180910390f35b34156100955760006000fd5b61009d6100eb565b005b34156100ab5760006000fd5b6100b3610133565b6040518082815260100191505060405180910390f35b6000600050602052818160005260105260306000209050600091509150505481565b6001600060005060006001600050546000825281601001526020019081526010016000209050600050819090905550600160008181505480929190600101919050909055505b565b600160005054815600a165627a7a72305820c615f3373321aa7e9c05d9a69e49508147861fb2a54f2945fbbaa7d851125fe80029");
+
+    private static final byte[] INCREMENT = ByteUtil.hexStringToBytes("549262ba");
+    private static final byte[] COUNTER = ByteUtil.hexStringToBytes("61bc221a");
+    private static final byte[] UNKNOWN = ByteUtil.hexStringToBytes("deadbeef");
+
+    private static final long NRG_PRICE = 10_000_000_000L;
+
+    private static StandaloneBlockchain.Bundle build(
+            List<ECKey> keys, int threads, long deferredStateRoot) {
+        StandaloneBlockchain.Builder builder =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withExecutionThreads(threads)
+                        .withDeferredStateRoot(deferredStateRoot);
+        return keys == null
+                ? builder.withDefaultAccounts().build()
+                : builder.withDefaultAccounts(keys).build();
+    }
+
+    private static AionTransaction transfer(
+            List<ECKey> keys, int[] nonces, int from, Address to, long value) {
+        return sign(keys.get(from), nonces[from]++, to, value, ByteUtil.EMPTY_BYTE_ARRAY, 21000L);
+    }
+
+    private static AionTransaction deploy(List<ECKey> keys, int[] nonces, int from) {
+        return sign(keys.get(from), nonces[from]++, null, 0, COUNTER_CODE, 1_000_000L);
+    }
+
+    private static AionTransaction call(
+            List<ECKey> keys, int[] nonces, int from, Address contract, byte[] data, long nrg) {
+        return sign(keys.get(from), nonces[from]++, contract, 0, data, nrg);
+    }
+
+    private static AionTransaction sign(
+            ECKey key, int nonce, Address to, long value, byte[] data, long nrg) {
+        AionTransaction tx =
+                new AionTransaction(
+                        ByteUtil.intToBytes(nonce),
+                        to,
+                        BigInteger.valueOf(value).toByteArray(),
+                        data,
+                        nrg,
+                        NRG_PRICE);
+        tx.sign(key);
+        return tx;
+    }
+
+    private static Address address(List<ECKey> keys, int index) {
+        return Address.wrap(keys.get(index).getAddress());
+    }
+
+    /**
+     * Independent transfers mixed with ones sharing a sender, a recipient, paying the coinbase and
+     * spending funds received earlier in the same block.
+     */
+    private static List<AionTransaction> block(List<ECKey> keys, int[] nonces) {
+        List<AionTransaction> txs = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            txs.add(transfer(keys, nonces, i, address(keys, i + 4), i + 1));
+        }
+        txs.add(transfer(keys, nonces, 0, SHARED_ADDR, 10));
+        txs.add(transfer(keys, nonces, 1, SHARED_ADDR, 20));
+        txs.add(transfer(keys, nonces, 2, Address.ZERO_ADDRESS(), 30));
+        txs.add(transfer(keys, nonces, 4, address(keys, 8), 40));
+        txs.add(transfer(keys, nonces, 9, address(keys, 3), 50));
+        return txs;
+    }
+
+    /**
+     * Imports the blocks made of the given transactions on a chain executing them sequentially and
+     * on one executing them in parallel, comparing the state root and receipts after each block.
+     */
+    private static void assertSameImport(
+            long deferredStateRoot,
+            int blocks,
+            BiFunction<List<ECKey>, int[], List<AionTransaction>> nextBlock) {
+        StandaloneBlockchain.Bundle sequential = build(null, 1, deferredStateRoot);
+        StandaloneBlockchain.Bundle parallel = build(sequential.privateKeys, 4, deferredStateRoot);
+
+        try {
+            int[] nonces = new int[sequential.privateKeys.size()];
+            for (int round = 0; round < blocks; round++) {
+                List<AionTransaction> txs = nextBlock.apply(sequential.privateKeys, nonces);
+                AionBlock block =
+                        sequential.bc.createNewBlock(sequential.bc.getBestBlock(), txs, true);
+                assertThat(block.getTransactionsList()).hasSize(txs.size());
+
+                assertThat(sequential.bc.tryToConnect(block))
+                        .isEqualTo(ImportResult.IMPORTED_BEST);
+                assertThat(parallel.bc.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+                assertThat(parallel.bc.getRepository().getRoot())
+                        .isEqualTo(sequential.bc.getRepository().getRoot());
+
+                for (AionTransaction tx : txs) {
+                    AionTxReceipt expected =
+                            sequential.bc.getTransactionInfo(tx.getHash()).getReceipt();
+                    AionTxReceipt actual =
+                            parallel.bc.getTransactionInfo(tx.getHash()).getReceipt();
+                    assertThat(actual.getEncoded()).isEqualTo(expected.getEncoded());
+                }
+            }
+        } finally {
+            sequential.bc.close();
+            parallel.bc.close();
+        }
+    }
+
+    /**
+     * Executes the transactions in a block with the given coinbase, once sequentially and once on
+     * the parallel executor, each over the genesis state of its own chain. Unlike an import this
+     * also covers transactions that are rejected, which never make it into a block.
+     *
+     * @return the summaries of the parallel execution
+     */
+    private static List<AionTxExecSummary> assertSameExecution(
+            BiFunction<List<ECKey>, Address, List<AionTransaction>> transactions,
+            boolean coinbaseIsSender) {
+        StandaloneBlockchain.Bundle sequential = build(null, 1, Long.MAX_VALUE);
+        StandaloneBlockchain.Bundle parallel = build(sequential.privateKeys, 1, Long.MAX_VALUE);
+        ParallelTransactionExecutor executor = new ParallelTransactionExecutor(4, LOG);
+
+        try {
+            Address coinbase =
+                    coinbaseIsSender ? address(sequential.privateKeys, 0) : SHARED_ADDR;
+            AionBlock block =
+                    withTransactions(
+                            sequential.bc.createNewBlock(
+                                    sequential.bc.getBestBlock(), Collections.emptyList(), true),
+                            coinbase,
+                            transactions.apply(sequential.privateKeys, coinbase));
+
+            IRepositoryCache sequentialTrack = sequential.bc.getRepository().startTracking();
+            List<AionTxReceipt> expected = new ArrayList<>();
+            for (AionTransaction tx : block.getTransactionsList()) {
+                TransactionExecutor txExecutor =
+                        new TransactionExecutor(tx, block, sequentialTrack, LOG);
+                txExecutor.setExecutorProvider(AionExecutorProvider.getInstance());
+                expected.add(txExecutor.execute().getReceipt());
+            }
+            sequentialTrack.flush();
+
+            IRepositoryCache parallelTrack = parallel.bc.getRepository().startTracking();
+            List<AionTxExecSummary> summaries =
+                    executor.execute(block, parallelTrack, summary -> {});
+            parallelTrack.flush();
+
+            assertThat(parallel.bc.getRepository().getRoot())
+                    .isEqualTo(sequential.bc.getRepository().getRoot());
+            assertThat(summaries).hasSize(expected.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertThat(summaries.get(i).getReceipt().getEncoded())
+                        .isEqualTo(expected.get(i).getEncoded());
+            }
+            return summaries;
+        } finally {
+            executor.shutdown();
+            sequential.bc.close();
+            parallel.bc.close();
+        }
+    }
+
+    private static AionBlock withTransactions(
+            AionBlock template, Address coinbase, List<AionTransaction> txs) {
+        A0BlockHeader header = template.getHeader();
+        return new AionBlock(
+                header.getParentHash(),
+                coinbase,
+                header.getLogsBloom(),
+                header.getDifficulty(),
+                header.getNumber(),
+                header.getTimestamp(),
+                header.getExtraData(),
+                header.getNonce(),
+                header.getReceiptsRoot(),
+                header.getTxTrieRoot(),
+                header.getStateRoot(),
+                txs,
+                header.getSolution(),
+                header.getEnergyConsumed(),
+                header.getEnergyLimit());
+    }
+
+    @Test
+    public void testSameStateAsSequential() {
+        assertSameImport(Long.MAX_VALUE, 3, BlockchainParallelExecutionTest::block);
+    }
+
+    @Test
+    public void testSameStateAsSequentialWithDeferredRoot() {
+        assertSameImport(0, 3, BlockchainParallelExecutionTest::block);
+    }
+
+    @Test
+    public void testContractCreation() {
+        assertSameImport(
+                Long.MAX_VALUE,
+                2,
+                (keys, nonces) -> {
+                    List<AionTransaction> txs = new ArrayList<>();
+                    AionTransaction created = deploy(keys, nonces, 0);
+                    txs.add(created);
+                    txs.add(deploy(keys, nonces, 1));
+                    // funds the address the next deployment of sender 2 creates
+                    AionTransaction next = deploy(keys, new int[] {0, 0, nonces[2] + 1}, 2);
+                    txs.add(transfer(keys, nonces, 3, next.getContractAddress(), 5));
+                    txs.add(transfer(keys, nonces, 4, created.getContractAddress(), 0));
+                    txs.add(deploy(keys, nonces, 2));
+                    txs.add(deploy(keys, nonces, 2));
+                    return txs;
+                });
+    }
+
+    @Test
+    public void testContractCallsSharingStorage() {
+        Address[] contract = new Address[1];
+        assertSameImport(
+                Long.MAX_VALUE,
+                3,
+                (keys, nonces) -> {
+                    List<AionTransaction> txs = new ArrayList<>();
+                    if (contract[0] == null) {
+                        AionTransaction created = deploy(keys, nonces, 0);
+                        contract[0] = created.getContractAddress();
+                        txs.add(created);
+                    }
+                    for (int i = 0; i < 5; i++) {
+                        txs.add(call(keys, nonces, i, contract[0], INCREMENT, 200_000L));
+                        txs.add(call(keys, nonces, 5 + i, contract[0], COUNTER, 200_000L));
+                    }
+                    return txs;
+                });
+    }
+
+    @Test
+    public void testRevertedAndOutOfEnergyCalls() {
+        Address[] contract = new Address[1];
+        assertSameImport(
+                Long.MAX_VALUE,
+                2,
+                (keys, nonces) -> {
+                    List<AionTransaction> txs = new ArrayList<>();
+                    if (contract[0] == null) {
+                        AionTransaction created = deploy(keys, nonces, 0);
+                        contract[0] = created.getContractAddress();
+                        txs.add(created);
+                        txs.add(transfer(keys, nonces, 1, SHARED_ADDR, 1));
+                        return txs;
+                    }
+                    txs.add(call(keys, nonces, 0, contract[0], INCREMENT, 200_000L));
+                    txs.add(call(keys, nonces, 1, contract[0], UNKNOWN, 200_000L));
+                    txs.add(call(keys, nonces, 2, contract[0], INCREMENT, 22_000L));
+                    txs.add(call(keys, nonces, 3, contract[0], INCREMENT, 200_000L));
+                    txs.add(call(keys, nonces, 1, contract[0], COUNTER, 200_000L));
+                    return txs;
+                });
+    }
+
+    @Test
+    public void testRejectedTransactions() {
+        ECKey unfunded = ECKeyFac.inst().create();
+        List<AionTxExecSummary> summaries =
+                assertSameExecution(
+                        (keys, coinbase) -> {
+                            int[] nonces = new int[keys.size()];
+                            List<AionTransaction> txs = new ArrayList<>();
+                            txs.add(transfer(keys, nonces, 0, address(keys, 1), 10));
+                            // skips a nonce
+                            txs.add(
+                                    sign(
+                                            keys.get(1),
+                                            1,
+                                            address(keys, 2),
+                                            10,
+                                            ByteUtil.EMPTY_BYTE_ARRAY,
+                                            21000L));
+                            txs.add(
+                                    sign(
+                                            unfunded,
+                                            0,
+                                            address(keys, 2),
+                                            10,
+                                            ByteUtil.EMPTY_BYTE_ARRAY,
+                                            21000L));
+                            txs.add(transfer(keys, nonces, 1, address(keys, 2), 20));
+                            txs.add(transfer(keys, nonces, 2, address(keys, 0), 30));
+                            return txs;
+                        },
+                        false);
+
+        assertThat(summaries.get(0).isRejected()).isFalse();
+        assertThat(summaries.get(1).isRejected()).isTrue();
+        assertThat(summaries.get(2).isRejected()).isTrue();
+        assertThat(summaries.get(3).isRejected()).isFalse();
+    }
+
+    @Test
+    public void testCoinbaseSendsAndReceives() {
+        assertSameExecution(
+                (keys, coinbase) -> {
+                    int[] nonces = new int[keys.size()];
+                    List<AionTransaction> txs = new ArrayList<>();
+                    txs.add(transfer(keys, nonces, 1, coinbase, 10));
+                    txs.add(transfer(keys, nonces, 0, address(keys, 2), 20));
+                    txs.add(transfer(keys, nonces, 3, address(keys, 4), 30));
+                    txs.add(transfer(keys, nonces, 2, coinbase, 40));
+                    txs.add(transfer(keys, nonces, 0, address(keys, 5), 50));
+                    txs.add(transfer(keys, nonces, 5, coinbase, 60));
+                    return txs;
+                },
+                true);
+    }
+}
@@ -0,0 +1,143 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.zero.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteUtil;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.evtmgr.IEventMgr;
+import org.aion.evtmgr.impl.mgr.EventMgrA0;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.zero.impl.blockchain.AionPendingStateImpl;
+import org.aion.zero.types.AionTransaction;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+/**
+ * Admission of signed transfers through {@link AionPendingStateImpl#addPendingTransactions} by 1
+ * to 8 submitting threads, each submitting the transactions of its own senders.
+ */
+@Ignore
+public class PendingStateBenchmarkTest {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.TX.name());
+
+    private static final Address TO =
+            Address.wrap("0000000000000000000000000000000000000000000000000000000000000001");
+
+    private static final int ACCOUNTS = 500;
+    private static final int TX_PER_ACCOUNT = 10;
+
+    @Test
+    public void benchmarkConcurrentAdmission() throws Exception {
+        List<ECKey> keys = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            keys.add(ECKeyFac.inst().create());
+        }
+
+        List<List<AionTransaction>> txsBySender = new ArrayList<>();
+        for (ECKey key : keys) {
+            List<AionTransaction> txs = new ArrayList<>();
+            for (int n = 0; n < TX_PER_ACCOUNT; n++) {
+                AionTransaction tx =
+                        new AionTransaction(
+                                BigInteger.valueOf(n).toByteArray(),
+                                TO,
+                                BigInteger.ONE.toByteArray(),
+                                ByteUtil.EMPTY_BYTE_ARRAY,
+                                21_000L,
+                                10_000_000_000L);
+                tx.sign(key);
+                txs.add(tx);
+            }
+            txsBySender.add(txs);
+        }
+
+        for (int threads = 1; threads <= 8; threads <<= 1) {
+            StandaloneBlockchain bc =
+                    new StandaloneBlockchain.Builder()
+                            .withValidatorConfiguration("simple")
+                            .withDefaultAccounts(keys)
+                            .build()
+                            .bc;
+            IEventMgr evtMgr = new EventMgrA0(new Properties());
+            evtMgr.start();
+            bc.setEventManager(evtMgr);
+            AionPendingStateImpl pendingState = AionPendingStateImpl.createForTesting(bc);
+
+            ExecutorService submitters = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                long start = System.nanoTime();
+                for (int t = 0; t < threads; t++) {
+                    int first = t;
+                    int step = threads;
+                    futures.add(
+                            submitters.submit(
+                                    () -> {
+                                        for (int a = first; a < ACCOUNTS; a += step) {
+                                            pendingState.addPendingTransactions(
+                                                    txsBySender.get(a));
+                                        }
+                                    }));
+                }
+                for (Future<?> f : futures) {
+                    f.get();
+                }
+                long elapsed = System.nanoTime() - start;
+
+                assertThat(pendingState.getPendingTxSize()).isEqualTo(ACCOUNTS * TX_PER_ACCOUNT);
+                LOG.info(
+                        "threads[{}] admitted {} tx in {} ms, {} tx/sec",
+                        threads,
+                        pendingState.getPendingTxSize(),
+                        TimeUnit.NANOSECONDS.toMillis(elapsed),
+                        pendingState.getPendingTxSize() * TimeUnit.SECONDS.toNanos(1) / elapsed);
+            } finally {
+                submitters.shutdown();
+                pendingState.shutDown();
+                evtMgr.shutDown();
+                bc.close();
+            }
+        }
+    }
+}
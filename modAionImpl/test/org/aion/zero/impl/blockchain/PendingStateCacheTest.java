@@ -0,0 +1,193 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.zero.impl.blockchain;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.aion.base.db.IRepositoryCache;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteUtil;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.mcf.config.CfgPrune;
+import org.aion.zero.impl.MockRepositoryConfig;
+import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxReceipt;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PendingStateCacheTest {
+
+    private static final BigInteger FUNDS = BigInteger.valueOf(1_000_000L);
+
+    private AionRepositoryImpl repository;
+    private PendingStateCache cache;
+
+    private ECKey keyA, keyC, keyD;
+    private Address a, b, c, d, e;
+
+    @Before
+    public void setup() {
+        repository = AionRepositoryImpl.createForTesting(new MockRepositoryConfig(new CfgPrune(false)));
+
+        keyA = ECKeyFac.inst().create();
+        keyC = ECKeyFac.inst().create();
+        keyD = ECKeyFac.inst().create();
+        a = Address.wrap(keyA.getAddress());
+        b = Address.wrap(ECKeyFac.inst().create().getAddress());
+        c = Address.wrap(keyC.getAddress());
+        d = Address.wrap(keyD.getAddress());
+        e = Address.wrap(ECKeyFac.inst().create().getAddress());
+
+        IRepositoryCache track = repository.startTracking();
+        for (Address address : Arrays.asList(a, b, c, d, e)) {
+            track.addBalance(address, FUNDS);
+        }
+        track.flush();
+
+        cache = new PendingStateCache(repository);
+    }
+
+    private AionTransaction transfer(ECKey from, Address to, int nonce) {
+        AionTransaction tx =
+                new AionTransaction(
+                        ByteUtil.intToBytes(nonce),
+                        to,
+                        BigInteger.ONE.toByteArray(),
+                        ByteUtil.EMPTY_BYTE_ARRAY,
+                        21000L,
+                        10_000_000_000L);
+        tx.sign(from);
+        return tx;
+    }
+
+    /** Applies a value transfer to the pending state the way the executor would. */
+    private void execute(AionTransaction tx) {
+        cache.startRecording();
+        cache.incrementNonce(tx.getFrom());
+        cache.addBalance(tx.getFrom(), BigInteger.ONE.negate());
+        cache.addBalance(tx.getTo(), BigInteger.ONE);
+        Set<Address> accounts = cache.stopRecording();
+
+        AionTxReceipt receipt = new AionTxReceipt();
+        receipt.setTransaction(tx);
+        cache.remember(tx, accounts, receipt);
+    }
+
+    @Test
+    public void testRecordsAccessedAccounts() {
+        cache.startRecording();
+        cache.getBalance(a);
+        cache.addBalance(b, BigInteger.ONE);
+        cache.startTracking().getNonce(c);
+
+        assertThat(cache.stopRecording()).containsExactly(a, b, c);
+        assertThat(cache.stopRecording()).isEmpty();
+    }
+
+    @Test
+    public void testKeepsIndependentResults() {
+        AionTransaction txA = transfer(keyA, b, 0);
+        AionTransaction txC = transfer(keyC, d, 0);
+        execute(txA);
+        execute(txC);
+
+        Set<Address> stale =
+                cache.invalidate(Collections.singleton(b), Arrays.asList(txA, txC));
+
+        assertThat(stale).containsExactly(a, b);
+        assertThat(cache.getReceipt(txA)).isNull();
+        assertThat(cache.getReceipt(txC)).isNotNull();
+        assertThat(cache.size()).isEqualTo(1);
+
+        // dropped accounts are read again from the repository
+        assertThat(cache.getBalance(a)).isEqualTo(FUNDS);
+        assertThat(cache.getBalance(b)).isEqualTo(FUNDS);
+        assertThat(cache.getBalance(c)).isEqualTo(FUNDS.subtract(BigInteger.ONE));
+        assertThat(cache.getBalance(d)).isEqualTo(FUNDS.add(BigInteger.ONE));
+    }
+
+    @Test
+    public void testUndoesTransactionsLeavingThePool() {
+        AionTransaction txC = transfer(keyC, d, 0);
+        AionTransaction txD = transfer(keyD, e, 0);
+        AionTransaction txA = transfer(keyA, b, 0);
+        execute(txC);
+        execute(txD);
+        execute(txA);
+
+        // txC was included in a block, txD shares an account with it
+        List<AionTransaction> pooled = Arrays.asList(txD, txA);
+        Set<Address> stale = cache.invalidate(Collections.singleton(c), pooled);
+
+        assertThat(stale).containsExactly(c, d, e);
+        assertThat(cache.getReceipt(txD)).isNull();
+        assertThat(cache.getReceipt(txA)).isNotNull();
+        assertThat(cache.getBalance(d)).isEqualTo(FUNDS);
+    }
+
+    @Test
+    public void testReexecutesSendersOfUnknownTransactions() {
+        AionTransaction first = transfer(keyA, b, 0);
+        AionTransaction second = transfer(keyA, b, 1);
+        execute(second);
+
+        Set<Address> stale =
+                cache.invalidate(Collections.emptySet(), Arrays.asList(first, second));
+
+        assertThat(stale).containsExactly(a, b);
+        assertThat(cache.size()).isEqualTo(0);
+        assertThat(cache.getNonce(a)).isEqualTo(BigInteger.ZERO);
+    }
+
+    @Test
+    public void testDropsResultsRunOutOfPoolOrder() {
+        AionTransaction txC = transfer(keyC, b, 0);
+        AionTransaction txD = transfer(keyD, e, 0);
+        AionTransaction txA = transfer(keyA, b, 0);
+        execute(txC);
+        execute(txD);
+        execute(txA);
+
+        // txA is ordered before txC, which ran first and shares an account with it
+        Set<Address> stale =
+                cache.invalidate(Collections.emptySet(), Arrays.asList(txA, txC, txD));
+
+        assertThat(stale).containsExactly(a, b, c);
+        assertThat(cache.getReceipt(txA)).isNull();
+        assertThat(cache.getReceipt(txC)).isNull();
+        assertThat(cache.getReceipt(txD)).isNotNull();
+    }
+}
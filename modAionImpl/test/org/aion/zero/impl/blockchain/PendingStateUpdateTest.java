@@ -0,0 +1,251 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.zero.impl.blockchain;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import org.aion.base.db.IRepositoryCache;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteUtil;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.evtmgr.impl.mgr.EventMgrA0;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.mcf.core.ImportResult;
+import org.aion.vm.TransactionExecutor;
+import org.aion.zero.impl.StandaloneBlockchain;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.impl.vm.AionExecutorProvider;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxExecSummary;
+import org.aion.zero.types.AionTxReceipt;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+/**
+ * Checks the pending state {@link AionPendingStateImpl} keeps up to date from block to block
+ * against executing the whole pool in order on a new {@link PendingStateCache}.
+ */
+public class PendingStateUpdateTest {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.VM.name());
+
+    private static final long NRG = 21_000L;
+    private static final long NRG_PRICE = 10_000_000_000L;
+
+    private StandaloneBlockchain bc;
+    private AionPendingStateImpl ps;
+    private List<ECKey> keys;
+
+    private final Map<Address, Long> nonces = new HashMap<>();
+    private final Set<Address> accounts = new LinkedHashSet<>();
+
+    @Before
+    public void setup() {
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        // never started, the test moves the pending state to new blocks itself
+                        .withEventManager(new EventMgrA0(new Properties()))
+                        .build();
+        bc = bundle.bc;
+        keys = bundle.privateKeys;
+
+        ps = AionPendingStateImpl.createForTesting(bc);
+    }
+
+    @After
+    public void shutdown() {
+        ps.shutDown();
+        bc.close();
+    }
+
+    private AionTransaction transfer(ECKey from, Address to, long value, long nrgPrice) {
+        Address sender = Address.wrap(from.getAddress());
+        long nonce = nonces.getOrDefault(sender, 0L);
+        nonces.put(sender, nonce + 1);
+        accounts.add(sender);
+        accounts.add(to);
+
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.valueOf(nonce).toByteArray(),
+                        to,
+                        BigInteger.valueOf(value).toByteArray(),
+                        ByteUtil.EMPTY_BYTE_ARRAY,
+                        NRG,
+                        nrgPrice);
+        tx.sign(from);
+        return tx;
+    }
+
+    private void importBlock(List<AionTransaction> txs) {
+        AionBlock block = bc.createNewBlock(bc.getBestBlock(), txs, true);
+        assertThat(block.getTransactionsList()).hasSize(txs.size());
+        assertThat(bc.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+        ps.processBest(block, null);
+    }
+
+    /** Compares the pending state with executing the pool in order on the best block's state. */
+    @SuppressWarnings("unchecked")
+    private void assertMatchesRebuild() {
+        PendingStateCache updated = (PendingStateCache) ps.getRepository();
+        PendingStateCache rebuilt = new PendingStateCache(bc.getRepository());
+
+        List<AionTransaction> pooled = ps.getPooledTransactions();
+        assertThat(updated.size()).isEqualTo(pooled.size());
+        for (AionTransaction tx : pooled) {
+            TransactionExecutor executor =
+                    new TransactionExecutor(
+                            tx, ps.getBestBlock(), (IRepositoryCache) rebuilt, LOG);
+            executor.setExecutorProvider(AionExecutorProvider.getInstance());
+            executor.setBypassFee();
+            AionTxExecSummary summary = executor.execute();
+            assertThat(summary.isRejected()).isFalse();
+
+            AionTxReceipt receipt = updated.getReceipt(tx);
+            assertThat(receipt).isNotNull();
+            assertThat(receipt.isSuccessful()).isEqualTo(summary.getReceipt().isSuccessful());
+            assertThat(receipt.getEnergyUsed()).isEqualTo(summary.getReceipt().getEnergyUsed());
+        }
+
+        for (Address address : accounts) {
+            assertThat(updated.getNonce(address)).isEqualTo(rebuilt.getNonce(address));
+            assertThat(updated.getBalance(address)).isEqualTo(rebuilt.getBalance(address));
+        }
+    }
+
+    @Test
+    public void testUpdateMatchesRebuild() {
+        Random r = new Random(7);
+        List<ECKey> pooledSenders = keys.subList(0, 6);
+        List<ECKey> blockSenders = keys.subList(6, keys.size());
+        Address outsider = Address.wrap(ECKeyFac.inst().create().getAddress());
+
+        // the transactions of each pooled sender not yet in a block, in nonce order
+        Map<ECKey, List<AionTransaction>> pending = new HashMap<>();
+        for (ECKey key : pooledSenders) {
+            pending.put(key, new ArrayList<>());
+        }
+
+        for (int round = 0; round < 8; round++) {
+            List<AionTransaction> added = new ArrayList<>();
+            for (ECKey key : pooledSenders) {
+                for (int i = 0; i < 2; i++) {
+                    ECKey to = pooledSenders.get(r.nextInt(pooledSenders.size()));
+                    AionTransaction tx =
+                            transfer(
+                                    key,
+                                    r.nextBoolean() ? outsider : Address.wrap(to.getAddress()),
+                                    1 + r.nextInt(1000),
+                                    NRG_PRICE + r.nextInt(1000));
+                    added.add(tx);
+                    pending.get(key).add(tx);
+                }
+            }
+            ps.addPendingTransactions(added);
+
+            // the block pays some pooled senders and includes the oldest transactions of one
+            List<AionTransaction> txs = new ArrayList<>();
+            for (ECKey key : blockSenders) {
+                if (r.nextBoolean()) {
+                    ECKey to = pooledSenders.get(r.nextInt(pooledSenders.size()));
+                    txs.add(
+                            transfer(
+                                    key,
+                                    Address.wrap(to.getAddress()),
+                                    1 + r.nextInt(1000),
+                                    NRG_PRICE));
+                }
+            }
+            List<AionTransaction> oldest =
+                    pending.get(pooledSenders.get(r.nextInt(pooledSenders.size())));
+            for (int i = 0; i < 1 + r.nextInt(2); i++) {
+                txs.add(oldest.remove(0));
+            }
+
+            importBlock(txs);
+            assertMatchesRebuild();
+        }
+    }
+
+    @Test
+    public void testReexecutesTransactionsRunOutOfPoolOrder() {
+        // each poor account only affords its transfer with the funds one of the rich sends it
+        Map<AionTransaction, AionTransaction> spentFunds = new HashMap<>();
+        Address to = Address.wrap(ECKeyFac.inst().create().getAddress());
+        long cost = NRG * NRG_PRICE + 1;
+
+        List<AionTransaction> misordered;
+        int i = 0;
+        do {
+            ECKey poor = ECKeyFac.inst().create();
+            ECKey rich = keys.get(i++ % keys.size());
+            AionTransaction funding =
+                    transfer(rich, Address.wrap(poor.getAddress()), cost, NRG_PRICE);
+            AionTransaction spending = transfer(poor, to, 1, NRG_PRICE);
+            ps.addPendingTransactions(List.of(funding));
+            ps.addPendingTransactions(List.of(spending));
+            spentFunds.put(spending, funding);
+
+            misordered = new ArrayList<>();
+            List<AionTransaction> pooled = ps.getPooledTransactions();
+            for (Map.Entry<AionTransaction, AionTransaction> e : spentFunds.entrySet()) {
+                if (pooled.indexOf(e.getKey()) < pooled.indexOf(e.getValue())) {
+                    misordered.add(e.getKey());
+                }
+            }
+        } while (misordered.size() < 3);
+        assertThat(ps.getPendingTxSize()).isEqualTo(2 * spentFunds.size());
+
+        // the block changes none of the pooled accounts
+        importBlock(Collections.emptyList());
+
+        // ordered before their funds, the transfers no longer pay for themselves
+        List<AionTransaction> pooled = ps.getPooledTransactions();
+        for (AionTransaction spending : spentFunds.keySet()) {
+            assertThat(pooled.contains(spending)).isEqualTo(!misordered.contains(spending));
+        }
+        assertMatchesRebuild();
+    }
+}
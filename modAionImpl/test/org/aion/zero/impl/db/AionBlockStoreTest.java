@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteUtil;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.mcf.ds.DataSourceArray;
+import org.aion.mcf.ds.ObjectDataSource;
+import org.aion.zero.impl.StandaloneBlockchain;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.A0BlockHeader;
+import org.aion.zero.types.AionTransaction;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AionBlockStoreTest {
+
+    private IByteArrayKeyValueDatabase index;
+    private IByteArrayKeyValueDatabase headers;
+    private IByteArrayKeyValueDatabase blocks;
+    private AionBlockStore store;
+
+    private List<AionBlock> chain;
+
+    @Before
+    public void setup() {
+        index = new MockDB("index");
+        index.open();
+        headers = new MockDB("header");
+        headers.open();
+        blocks = new MockDB("block");
+        blocks.open();
+        store = new AionBlockStore(index, headers, blocks);
+
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        .build();
+        StandaloneBlockchain bc = bundle.bc;
+
+        chain = new ArrayList<>();
+        chain.add(bc.getGenesis());
+        for (int i = 0; i < 3; i++) {
+            AionTransaction tx =
+                    new AionTransaction(
+                            ByteUtil.intToBytes(i),
+                            Address.ZERO_ADDRESS(),
+                            BigInteger.ONE.toByteArray(),
+                            ByteUtil.EMPTY_BYTE_ARRAY,
+                            21000L,
+                            10_000_000_000L);
+            tx.sign(bundle.privateKeys.get(0));
+
+            AionBlock block =
+                    bc.createNewBlock(bc.getBestBlock(), Collections.singletonList(tx), true);
+            bc.tryToConnect(block);
+            chain.add(block);
+        }
+    }
+
+    private void saveAll() {
+        BigInteger td = BigInteger.ZERO;
+        for (AionBlock block : chain) {
+            td = td.add(block.getDifficultyBI());
+            store.saveBlock(block, td, true);
+        }
+        store.flush();
+    }
+
+    /** Writes the blocks the way they were stored before headers were split out. */
+    private void saveAllLegacy() {
+        DataSourceArray<List<AionBlockStore.BlockInfo>> infos =
+                new DataSourceArray<>(
+                        new ObjectDataSource<>(index, AionBlockStore.BLOCK_INFO_SERIALIZER));
+        BigInteger td = BigInteger.ZERO;
+        for (AionBlock block : chain) {
+            td = td.add(block.getDifficultyBI());
+
+            AionBlockStore.BlockInfo info = new AionBlockStore.BlockInfo();
+            info.setCummDifficulty(td);
+            info.setHash(block.getHash());
+            info.setMainChain(true);
+
+            blocks.put(block.getHash(), block.getEncoded());
+            infos.set(block.getNumber(), new ArrayList<>(Collections.singletonList(info)));
+        }
+        infos.flush();
+        store = new AionBlockStore(index, headers, blocks);
+    }
+
+    private void assertChainReadable() {
+        for (AionBlock expected : chain) {
+            AionBlock block = store.getBlockByHash(expected.getHash());
+            assertThat(block.getEncoded()).isEqualTo(expected.getEncoded());
+            assertThat(block.getTransactionsList()).hasSize(expected.getTransactionsList().size());
+
+            A0BlockHeader header = store.getHeaderByNumber(expected.getNumber());
+            assertThat(header.getHash()).isEqualTo(expected.getHash());
+            assertThat(store.getHeaderByHash(expected.getHash()).getEncoded())
+                    .isEqualTo(expected.getHeader().getEncoded());
+        }
+
+        AionBlock best = chain.get(chain.size() - 1);
+        List<A0BlockHeader> list = store.getListHeadersEndWith(best.getHash(), chain.size());
+        assertThat(list).hasSize(chain.size());
+        for (int i = 0; i < list.size(); i++) {
+            assertThat(list.get(i).getHash())
+                    .isEqualTo(chain.get(chain.size() - 1 - i).getHash());
+        }
+    }
+
+    @Test
+    public void testHeadersStoredApart() {
+        saveAll();
+
+        for (AionBlock block : chain) {
+            assertThat(headers.get(block.getHash()).get())
+                    .isEqualTo(block.getHeader().getEncoded());
+            assertThat(blocks.get(block.getHash()).get()).isEqualTo(block.getEncodedBody());
+        }
+
+        assertChainReadable();
+    }
+
+    @Test
+    public void testHeaderQueriesSkipBodies() {
+        saveAll();
+
+        AionBlock best = chain.get(chain.size() - 1);
+        blocks.delete(best.getHash());
+
+        assertThat(store.getBlockByHash(best.getHash())).isNull();
+        assertThat(store.isBlockExist(best.getHash())).isFalse();
+        assertThat(store.getHeaderByHash(best.getHash()).getHash()).isEqualTo(best.getHash());
+        assertThat(store.getListHeadersEndWith(best.getHash(), chain.size())).hasSize(chain.size());
+    }
+
+    @Test
+    public void testBodyWithoutHeaderMissing() {
+        saveAll();
+
+        AionBlock best = chain.get(chain.size() - 1);
+        headers.delete(best.getHash());
+
+        // the body alone is not mistaken for a block stored before the split
+        assertThat(store.getBlockByHash(best.getHash())).isNull();
+        assertThat(store.getHeaderByHash(best.getHash())).isNull();
+        assertThat(store.isBlockExist(best.getHash())).isFalse();
+        assertThat(store.splitHeaders()).isEqualTo(0);
+    }
+
+    @Test
+    public void testLegacyBlocksReadable() {
+        saveAllLegacy();
+
+        assertThat(headers.keys()).isEmpty();
+        assertChainReadable();
+    }
+
+    @Test
+    public void testSplitHeaders() {
+        saveAllLegacy();
+
+        assertThat(store.splitHeaders()).isEqualTo(chain.size());
+
+        for (AionBlock block : chain) {
+            assertThat(headers.get(block.getHash()).get())
+                    .isEqualTo(block.getHeader().getEncoded());
+            assertThat(blocks.get(block.getHash()).get()).isEqualTo(block.getEncodedBody());
+        }
+        assertChainReadable();
+
+        // nothing left to convert
+        assertThat(store.splitHeaders()).isEqualTo(0);
+    }
+}
@@ -35,10 +35,17 @@
 package org.aion.zero.impl.db;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 
 import java.math.BigInteger;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
 import org.aion.base.db.IContractDetails;
 import org.aion.base.db.IPruneConfig;
@@ -55,6 +62,8 @@ import org.aion.mcf.core.AccountState;
 import org.aion.mcf.db.IBlockStoreBase;
 import org.aion.mcf.vm.types.DataWord;
 import org.aion.zero.db.AionContractDetailsImpl;
+import org.aion.zero.exceptions.HeaderStructureException;
+import org.aion.zero.types.A0BlockHeader;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
@@ -185,11 +194,49 @@ public class AionRepositoryImplTest {
 
         assertThat(serializedDetails.isPresent()).isEqualTo(true);
 
+        // the storage is kept in its own database
+        assertThat(repository.getStorageDatabase().isEmpty()).isFalse();
+
         AionContractDetailsImpl details = new AionContractDetailsImpl(0, 1000000);
+        details.setDataSource(repository.getStorageDatabase());
         details.decode(serializedDetails.get());
+        assertThat(details.externalStorage).isTrue();
         assertThat(details.get(new DataWord(key))).isEqualTo(new DataWord(value));
     }
 
+    @Test
+    public void testContractDetailsReadAfterUpdate() {
+        AionRepositoryImpl repository = AionRepositoryImpl.createForTesting(repoConfig);
+        Address contract = Address.wrap(ByteUtil.hexStringToBytes(value1));
+        DataWord key = new DataWord(HashUtil.blake128("hello".getBytes()));
+        DataWord first = new DataWord(HashUtil.blake128("world".getBytes()));
+        DataWord second = new DataWord(HashUtil.blake128("again".getBytes()));
+
+        IRepositoryCache track = repository.startTracking();
+        track.saveCode(contract, contract.toBytes());
+        track.addStorageRow(contract, key, first);
+        track.flush();
+        repository.flush();
+        byte[] firstRoot = repository.getRoot();
+
+        // repeated reads are served from the decoded details
+        assertThat(repository.getStorageValue(contract, key)).isEqualTo(first);
+        assertThat(repository.getContractDetails(contract).get(key)).isEqualTo(first);
+
+        track = repository.startTracking();
+        track.addStorageRow(contract, key, second);
+        track.flush();
+        repository.flush();
+
+        assertThat(repository.getStorageValue(contract, key)).isEqualTo(second);
+        assertThat(repository.getCode(contract)).isEqualTo(contract.toBytes());
+
+        // older roots still read their own storage
+        IRepository snapshot = repository.getSnapshotTo(firstRoot);
+        assertThat(snapshot.getStorageValue(contract, key)).isEqualTo(first);
+        assertThat(repository.getStorageValue(contract, key)).isEqualTo(second);
+    }
+
     /** Repo track test suite */
 
     /**
@@ -397,4 +444,146 @@ public class AionRepositoryImplTest {
         assertThat(repository.getBalance(account2)).isLessThan(snapshot.getBalance(account2));
         assertThat(repository.getBalance(account3)).isLessThan(snapshot.getBalance(account3));
     }
+
+    /** Exposes the repository lock, so a test can hold it the way a block import does. */
+    private static class LockableRepository extends AionRepositoryImpl {
+
+        LockableRepository(IRepositoryConfig repoConfig) {
+            super(repoConfig);
+        }
+
+        Lock writeLock() {
+            return rwLock.writeLock();
+        }
+    }
+
+    @Test
+    public void testReadViewIsPinnedToRoot() {
+        AionRepositoryImpl repository = AionRepositoryImpl.createForTesting(repoConfig);
+        Address account = Address.wrap(value1);
+
+        IRepositoryCache track = repository.startTracking();
+        track.addBalance(account, BigInteger.ONE);
+        track.flush();
+        repository.flush();
+
+        IRepository view = repository.getReadView(repository.getRoot());
+
+        track = repository.startTracking();
+        track.addBalance(account, BigInteger.ONE);
+        track.flush();
+
+        assertThat(repository.getBalance(account)).isEqualTo(BigInteger.TWO);
+        assertThat(view.getBalance(account)).isEqualTo(BigInteger.ONE);
+
+        IRepositoryCache viewTrack = view.startTracking();
+        viewTrack.addBalance(account, BigInteger.ONE);
+        try {
+            viewTrack.flush();
+            fail("a read view must not accept changes");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertThat(view.getBalance(account)).isEqualTo(BigInteger.ONE);
+    }
+
+    @Test
+    public void testBestReadViewIsShared() throws HeaderStructureException {
+        AionRepositoryImpl repository = AionRepositoryImpl.createForTesting(repoConfig);
+        Address account = Address.wrap(value1);
+
+        IRepositoryCache track = repository.startTracking();
+        track.addBalance(account, BigInteger.ONE);
+        track.flush();
+        repository.flush();
+        A0BlockHeader first = header(1, repository.getRoot());
+
+        IRepository view = repository.getBestReadView(first);
+        assertThat(repository.getBestReadView(first)).isSameAs(view);
+
+        track = repository.startTracking();
+        track.addBalance(account, BigInteger.ONE);
+        track.flush();
+        repository.flush();
+        A0BlockHeader second = header(2, repository.getRoot());
+
+        IRepository next = repository.getBestReadView(second);
+        assertThat(next).isNotSameAs(view);
+        assertThat(next.getBalance(account)).isEqualTo(BigInteger.TWO);
+        assertThat(view.getBalance(account)).isEqualTo(BigInteger.ONE);
+
+        // a late reader of the older block does not replace the newer view
+        repository.getBestReadView(first);
+        assertThat(repository.getBestReadView(second)).isSameAs(next);
+    }
+
+    private static A0BlockHeader header(long number, byte[] stateRoot)
+            throws HeaderStructureException {
+        return new A0BlockHeader.Builder().withNumber(number).withStateRoot(stateRoot).build();
+    }
+
+    @Test
+    public void testReadViewDoesNotWaitForWriter() throws Exception {
+        LockableRepository repository = new LockableRepository(repoConfig);
+        Address account = Address.wrap(value1);
+
+        IRepositoryCache track = repository.startTracking();
+        track.addBalance(account, BigInteger.TEN);
+        track.flush();
+        repository.flush();
+        byte[] root = repository.getRoot();
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread writer =
+                new Thread(
+                        () -> {
+                            repository.writeLock().lock();
+                            try {
+                                locked.countDown();
+                                release.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            } finally {
+                                repository.writeLock().unlock();
+                            }
+                        });
+        writer.start();
+        locked.await();
+
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            Future<BigInteger> balance =
+                    reader.submit(() -> repository.getReadView(root).getBalance(account));
+            assertThat(balance.get(10, TimeUnit.SECONDS)).isEqualTo(BigInteger.TEN);
+        } finally {
+            release.countDown();
+            writer.join();
+            reader.shutdown();
+        }
+    }
+
+    @Test
+    public void testDrainChangedAccounts() {
+        AionRepositoryImpl repository = AionRepositoryImpl.createForTesting(repoConfig);
+        byte[] originalRoot = repository.getRoot();
+
+        Address changed = Address.wrap(ByteUtil.hexStringToBytes(value1));
+        Address read = Address.wrap(ByteUtil.hexStringToBytes(value2));
+
+        // unknown before the first call
+        assertThat(repository.drainChangedAccounts().isPresent()).isFalse();
+
+        IRepositoryCache track = repository.startTracking();
+        track.addBalance(changed, BigInteger.ONE);
+        track.getBalance(read);
+        track.flush();
+
+        assertThat(repository.drainChangedAccounts().get()).containsExactly(changed);
+        assertThat(repository.drainChangedAccounts().get()).isEmpty();
+
+        // moving to another root may change anything
+        repository.syncToRoot(originalRoot);
+        assertThat(repository.drainChangedAccounts().isPresent()).isFalse();
+    }
 }
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.mcf.vm.types.Bloom;
+import org.aion.zero.impl.core.BloomFilter;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BloomBitsIndexTest {
+
+    private static final int SECTION = 64;
+    private static final int CONFIRMS = 8;
+
+    private static final byte[] TOPIC_A = "topic-a".getBytes();
+    private static final byte[] TOPIC_B = "topic-b".getBytes();
+
+    private MockDB db;
+    private Map<Long, byte[]> chain;
+    private Random random = new Random(7);
+
+    @Before
+    public void setup() {
+        db = new MockDB("bloombits");
+        db.open();
+        chain = new HashMap<>();
+        for (long n = 0; n < 300; n++) {
+            chain.put(n, randomBloom().getData());
+        }
+    }
+
+    private Bloom randomBloom() {
+        Bloom bloom = new Bloom();
+        int r = random.nextInt(10);
+        if (r == 0) {
+            bloom.or(BloomFilter.create(TOPIC_A));
+        } else if (r == 1) {
+            bloom.or(BloomFilter.create(TOPIC_B));
+        } else if (r == 2) {
+            bloom.or(BloomFilter.create(TOPIC_A));
+            bloom.or(BloomFilter.create(TOPIC_B));
+        }
+        return bloom;
+    }
+
+    private BloomBitsIndex index() {
+        return new BloomBitsIndex(db, chain::get, SECTION, CONFIRMS);
+    }
+
+    private List<Long> expected(Bloom[][] filter, long from, long to) {
+        List<Long> numbers = new ArrayList<>();
+        for (long n = from; n <= to; n++) {
+            Bloom block = new Bloom(chain.get(n));
+            boolean all = true;
+            for (Bloom[] group : filter) {
+                boolean any = false;
+                for (Bloom bloom : group) {
+                    any |= block.matches(bloom);
+                }
+                all &= any;
+            }
+            if (all) {
+                numbers.add(n);
+            }
+        }
+        return numbers;
+    }
+
+    @Test
+    public void testBuildOnlyConfirmedSections() {
+        BloomBitsIndex index = index();
+        assertThat(index.getIndexedEnd()).isEqualTo(0L);
+
+        index.buildUpTo(SECTION - 1 + CONFIRMS - 1);
+        assertThat(index.getIndexedEnd()).isEqualTo(0L);
+
+        index.buildUpTo(299);
+        assertThat(index.getIndexedEnd()).isEqualTo(4L * SECTION);
+
+        // survives a restart
+        assertThat(index().getIndexedEnd()).isEqualTo(4L * SECTION);
+    }
+
+    @Test
+    public void testMatch() {
+        BloomBitsIndex index = index();
+        index.buildUpTo(299);
+
+        Bloom[][] filter = {{BloomFilter.create(TOPIC_A)}};
+        List<Long> found = new ArrayList<>();
+        long next = index.match(filter, 10, 299, found::add);
+
+        assertThat(next).isEqualTo(256L);
+        assertThat(found).containsExactlyElementsIn(expected(filter, 10, 255)).inOrder();
+        assertThat(found).isNotEmpty();
+
+        // both topics, either of two in the second group
+        filter =
+                new Bloom[][] {
+                    {BloomFilter.create(TOPIC_A)},
+                    {BloomFilter.create(TOPIC_B), BloomFilter.create("c".getBytes())}
+                };
+        found.clear();
+        index.match(filter, 0, 100, found::add);
+        assertThat(found).containsExactlyElementsIn(expected(filter, 0, 100)).inOrder();
+
+        // empty blooms match everything
+        found.clear();
+        index.match(new Bloom[][] {{new Bloom()}}, 0, 63, found::add);
+        assertThat(found).hasSize(64);
+    }
+
+    @Test
+    public void testMatchStops() {
+        BloomBitsIndex index = index();
+        index.buildUpTo(299);
+
+        List<Long> found = new ArrayList<>();
+        long next =
+                index.match(
+                        new Bloom[][] {{new Bloom()}},
+                        0,
+                        200,
+                        n -> {
+                            found.add(n);
+                            return found.size() < 3;
+                        });
+
+        assertThat(found).hasSize(3);
+        assertThat(next).isEqualTo(201L);
+    }
+
+    @Test
+    public void testMatchOutsideIndex() {
+        BloomBitsIndex index = index();
+        index.buildUpTo(299);
+
+        List<Long> found = new ArrayList<>();
+        assertThat(index.match(new Bloom[][] {{new Bloom()}}, 270, 299, found::add))
+                .isEqualTo(270L);
+        assertThat(found).isEmpty();
+    }
+
+    @Test
+    public void testRollback() {
+        BloomBitsIndex index = index();
+        index.buildUpTo(299);
+
+        // replace the main chain from block 130 on
+        for (long n = 130; n < 300; n++) {
+            chain.put(n, randomBloom().getData());
+        }
+        index.rollback(130);
+        assertThat(index.getIndexedEnd()).isEqualTo(2L * SECTION);
+
+        index.buildUpTo(299);
+        assertThat(index.getIndexedEnd()).isEqualTo(4L * SECTION);
+
+        Bloom[][] filter = {{BloomFilter.create(TOPIC_B)}};
+        List<Long> found = new ArrayList<>();
+        index.match(filter, 0, 255, found::add);
+        assertThat(found).containsExactlyElementsIn(expected(filter, 0, 255)).inOrder();
+
+        // nothing to drop above the index
+        index.rollback(500);
+        assertThat(index.getIndexedEnd()).isEqualTo(4L * SECTION);
+    }
+
+    @Test
+    public void testRollbackDuringSectionBuild() throws InterruptedException {
+        BloomBitsIndex built = index();
+        built.buildUpTo(3L * SECTION - 1 + CONFIRMS);
+        assertThat(built.getIndexedEnd()).isEqualTo(3L * SECTION);
+
+        // the build of the section from 192 stops half way, at block 240
+        CountDownLatch reached = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BloomBitsIndex index =
+                new BloomBitsIndex(
+                        db,
+                        n -> {
+                            if (n == 240 && reached.getCount() > 0) {
+                                reached.countDown();
+                                try {
+                                    release.await();
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                            }
+                            return chain.get(n);
+                        },
+                        SECTION,
+                        CONFIRMS);
+
+        Thread builder = new Thread(() -> index.buildUpTo(299));
+        builder.start();
+        assertThat(reached.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // re-branch inside the section being built, above the stored ones
+        for (long n = 220; n < 300; n++) {
+            chain.put(n, randomBloom().getData());
+        }
+        index.rollback(220);
+        assertThat(index.getIndexedEnd()).isEqualTo(3L * SECTION);
+
+        release.countDown();
+        builder.join(10_000);
+        assertThat(index.getIndexedEnd()).isEqualTo(4L * SECTION);
+
+        Bloom[][] filter = {{BloomFilter.create(TOPIC_A)}};
+        List<Long> found = new ArrayList<>();
+        index.match(filter, 3L * SECTION, 299, found::add);
+        assertThat(found)
+                .containsExactlyElementsIn(expected(filter, 3L * SECTION, 4L * SECTION - 1))
+                .inOrder();
+    }
+}
@@ -0,0 +1,194 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import org.aion.base.db.IRepositoryCache;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteUtil;
+import org.aion.base.vm.IDataWord;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.HashUtil;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.mcf.trie.TrieImpl;
+import org.aion.mcf.vm.types.DataWord;
+import org.aion.zero.impl.StandaloneBlockchain;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.AionTransaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StatePrefetcherTest {
+
+    private static final Address CONTRACT =
+            Address.wrap("a0c0c0c0c0c0c0c0c0c0c0c0c0c0c0c0c0c0c0c0c0c0c0c0c0c0c0c0c0c0c0c0");
+
+    private StandaloneBlockchain bc;
+    private ECKey key;
+    private AionRepositoryImpl repository;
+    private StatePrefetcher prefetcher;
+
+    @Before
+    public void setup() {
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        .build();
+        bc = bundle.bc;
+        key = bundle.privateKeys.get(0);
+        repository = bc.getRepository();
+        prefetcher =
+                new StatePrefetcher(
+                        repository, 2, AionLoggerFactory.getLogger(LogEnum.DB.name()));
+    }
+
+    @After
+    public void shutdown() {
+        prefetcher.shutdown();
+    }
+
+    private AionBlock createBlock(Address to, int count) {
+        List<AionTransaction> txs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            AionTransaction tx =
+                    new AionTransaction(
+                            ByteUtil.intToBytes(i),
+                            to,
+                            BigInteger.ONE.toByteArray(),
+                            ByteUtil.EMPTY_BYTE_ARRAY,
+                            21000L,
+                            10_000_000_000L);
+            tx.sign(key);
+            txs.add(tx);
+        }
+        return bc.createNewBlock(bc.getBestBlock(), txs, true);
+    }
+
+    private void awaitLoaded() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (prefetcher.getReadTime() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // the read time is recorded after the last read
+        Thread.sleep(50);
+    }
+
+    @Test
+    public void testRecentStorageKeys() {
+        IDataWord written = new DataWord(1);
+        IDataWord read = new DataWord(2);
+
+        IRepositoryCache track = repository.startTracking();
+        track.createAccount(CONTRACT);
+        track.saveCode(CONTRACT, new byte[] {1, 2, 3});
+        track.addStorageRow(CONTRACT, written, new DataWord(42));
+        track.flush();
+
+        assertThat(repository.getRecentStorageKeys(CONTRACT)).containsExactly(written);
+
+        track = repository.startTracking();
+        track.getStorageValue(CONTRACT, read);
+        track.flush();
+
+        assertThat(repository.getRecentStorageKeys(CONTRACT)).containsExactly(read);
+        assertThat(repository.getRecentStorageKeys(Address.ZERO_ADDRESS())).isEmpty();
+
+        // the snapshots share the keys
+        assertThat(((AionRepositoryImpl) repository.getSnapshotTo(repository.getRoot()))
+                        .getRecentStorageKeys(CONTRACT))
+                .containsExactly(read);
+    }
+
+    /** Drops the world state nodes cached by the import so far. */
+    private void clearWorldStateCache() {
+        ((TrieImpl) repository.getWorldState()).getCache().commit(true);
+    }
+
+    @Test
+    public void testPrefetchWarmsWorldState() throws InterruptedException {
+        AionBlock block = createBlock(Address.ZERO_ADDRESS(), 3);
+        clearWorldStateCache();
+
+        prefetcher.prefetch(block, bc.getBestBlock().getStateRoot());
+        awaitLoaded();
+        assertThat(prefetcher.getReadTime()).isGreaterThan(0L);
+
+        // the execution reads the accounts without going to the database
+        long loadTime = repository.getWorldStateLoadTime();
+        prefetcher.executing(block);
+        assertThat(repository.getAccountState(Address.wrap(key.getAddress()))).isNotNull();
+        repository.getAccountState(Address.ZERO_ADDRESS());
+        prefetcher.executed(block);
+
+        assertThat(repository.getWorldStateLoadTime()).isEqualTo(loadTime);
+        assertThat(prefetcher.getBlocks()).isEqualTo(1);
+        assertThat(prefetcher.getWaitTime()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testExecutionWaitTimeAccounted() {
+        AionBlock block = createBlock(Address.ZERO_ADDRESS(), 1);
+        clearWorldStateCache();
+
+        prefetcher.executing(block);
+        assertThat(repository.getAccountState(Address.wrap(key.getAddress()))).isNotNull();
+        prefetcher.executed(block);
+
+        assertThat(prefetcher.getBlocks()).isEqualTo(1);
+        assertThat(prefetcher.getWaitTime()).isGreaterThan(0L);
+    }
+
+    @Test
+    public void testPrefetchOfUnknownRootIgnored() throws InterruptedException {
+        AionBlock block = createBlock(CONTRACT, 2);
+
+        prefetcher.prefetch(block, HashUtil.h256(new byte[] {1}));
+        awaitLoaded();
+        prefetcher.executing(block);
+        prefetcher.executed(block);
+
+        assertThat(prefetcher.getBlocks()).isEqualTo(1);
+    }
+
+    @Test
+    public void testImportAfterPrefetch() {
+        AionBlock block = createBlock(Address.ZERO_ADDRESS(), 2);
+
+        bc.prefetchState(List.of(block));
+        assertThat(bc.tryToConnect(block).isSuccessful()).isTrue();
+        assertThat(bc.getBestBlock().getHash()).isEqualTo(block.getHash());
+    }
+}
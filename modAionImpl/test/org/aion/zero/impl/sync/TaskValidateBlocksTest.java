@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ * This file is part of the aion network project.
+ *
+ * The aion network project is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * The aion network project is distributed in the hope that it will
+ * be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the aion network project source files.
+ * If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ * Aion foundation.
+ */
+
+package org.aion.zero.impl.sync;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteUtil;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.zero.exceptions.HeaderStructureException;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.A0BlockHeader;
+import org.aion.zero.types.AionTransaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TaskValidateBlocksTest {
+
+    private final ECKey key = ECKeyFac.inst().create();
+
+    private AtomicBoolean start;
+    private BlockingQueue<BlocksWrapper> downloaded;
+    private BlockingQueue<BlocksWrapper> validated;
+    private ExecutorService workers;
+    private Thread thread;
+
+    @Before
+    public void setup() {
+        start = new AtomicBoolean(true);
+        downloaded = new LinkedBlockingQueue<>();
+        validated = new LinkedBlockingQueue<>();
+        workers = Executors.newFixedThreadPool(2);
+        thread =
+                new Thread(
+                        new TaskValidateBlocks(
+                                start,
+                                downloaded,
+                                validated,
+                                workers,
+                                new SyncStatics(0),
+                                AionLoggerFactory.getLogger(LogEnum.SYNC.name())));
+        thread.start();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        start.set(false);
+        thread.interrupt();
+        thread.join();
+        workers.shutdownNow();
+    }
+
+    private AionTransaction tx(int nonce, boolean sign) {
+        AionTransaction tx =
+                new AionTransaction(
+                        ByteUtil.intToBytes(nonce),
+                        Address.ZERO_ADDRESS(),
+                        BigInteger.ONE.toByteArray(),
+                        ByteUtil.EMPTY_BYTE_ARRAY,
+                        21000L,
+                        10_000_000_000L);
+        if (sign) {
+            tx.sign(key);
+        }
+        return tx;
+    }
+
+    private AionBlock block(long number, AionTransaction... txs)
+            throws HeaderStructureException {
+        A0BlockHeader header = new A0BlockHeader.Builder().withNumber(number).build();
+        return new AionBlock(header, new ArrayList<>(Arrays.asList(txs)));
+    }
+
+    @Test
+    public void testValidBatchPassesInOrder() throws Exception {
+        List<AionBlock> first = Arrays.asList(block(1, tx(0, true)), block(2, tx(1, true)));
+        List<AionBlock> second = Collections.singletonList(block(3));
+
+        downloaded.put(new BlocksWrapper(1, "peer1", first));
+        downloaded.put(new BlocksWrapper(2, "peer2", second));
+
+        BlocksWrapper out = validated.poll(10, TimeUnit.SECONDS);
+        assertThat(out.getDisplayId()).isEqualTo("peer1");
+        assertThat(out.getBlocks()).isEqualTo(first);
+
+        // senders were recovered ahead of the import
+        for (AionBlock b : out.getBlocks()) {
+            assertThat(b.getTransactionsList().get(0).getFrom())
+                    .isEqualTo(Address.wrap(key.getAddress()));
+        }
+
+        out = validated.poll(10, TimeUnit.SECONDS);
+        assertThat(out.getDisplayId()).isEqualTo("peer2");
+        assertThat(out.getBlocks()).isEqualTo(second);
+    }
+
+    @Test
+    public void testBatchCutAtInvalidTransaction() throws Exception {
+        AionBlock b1 = block(1, tx(0, true));
+        AionBlock b2 = block(2, tx(1, true), tx(2, false));
+        AionBlock b3 = block(3, tx(3, true));
+
+        downloaded.put(new BlocksWrapper(1, "peer1", Arrays.asList(b1, b2, b3)));
+
+        BlocksWrapper out = validated.poll(10, TimeUnit.SECONDS);
+        assertThat(out.getNodeIdHash()).isEqualTo(1);
+        assertThat(out.getBlocks()).containsExactly(b1);
+    }
+}
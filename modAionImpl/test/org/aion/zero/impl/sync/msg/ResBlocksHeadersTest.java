@@ -38,6 +38,7 @@ import static com.google.common.truth.Truth.assertThat;
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertArrayEquals;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -112,6 +113,27 @@ public class ResBlocksHeadersTest {
         List<A0BlockHeader> bhs2 = rbhs2.getHeaders();
         assertThat(bhs2.size()).isEqualTo(m);
     }
+
+    @Test
+    public void testHeadersFromBuffer() {
+        List<A0BlockHeader> bhs1 = new ArrayList<A0BlockHeader>();
+        for(int i = 0; i < 8; i++) {
+            bhs1.add(bh1);
+        }
+        byte[] rbhsBytes = new ResBlocksHeaders(bhs1).encode();
+
+        ByteBuffer body = ByteBuffer.allocateDirect(rbhsBytes.length);
+        body.put(rbhsBytes).flip();
+        ResBlocksHeaders rbhs2 = ResBlocksHeaders.decode(body.asReadOnlyBuffer());
+
+        // the pooled buffer is reused once the handlers are done with it
+        body.clear();
+        body.put(new byte[rbhsBytes.length]);
+
+        List<A0BlockHeader> bhs2 = rbhs2.getHeaders();
+        assertThat(bhs2.size()).isEqualTo(8);
+        assertThat(bhs2.get(7).getEncoded()).isEqualTo(bh1.getEncoded());
+    }
     
 
 }
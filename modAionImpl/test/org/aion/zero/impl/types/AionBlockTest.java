@@ -0,0 +1,149 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.zero.impl.types;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteUtil;
+import org.aion.base.util.Hex;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.zero.impl.StandaloneBlockchain;
+import org.aion.zero.types.AionTransaction;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AionBlockTest {
+
+    private static final int TX_COUNT = 5;
+
+    private AionBlock block;
+
+    @Before
+    public void setup() {
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        .build();
+        StandaloneBlockchain bc = bundle.bc;
+        ECKey key = bundle.privateKeys.get(0);
+
+        List<AionTransaction> txs = new ArrayList<>();
+        for (int i = 0; i < TX_COUNT; i++) {
+            AionTransaction tx =
+                    new AionTransaction(
+                            ByteUtil.intToBytes(i),
+                            Address.wrap(ECKeyFac.inst().create().getAddress()),
+                            BigInteger.ONE.toByteArray(),
+                            ByteUtil.EMPTY_BYTE_ARRAY,
+                            21000L,
+                            10_000_000_000L);
+            tx.sign(key);
+            txs.add(tx);
+        }
+
+        block = bc.createNewBlock(bc.getBestBlock(), txs, true);
+    }
+
+    private static List<String> hashes(List<AionTransaction> txs) {
+        List<String> hashes = new ArrayList<>();
+        for (AionTransaction tx : txs) {
+            hashes.add(Hex.toHexString(tx.getHash()));
+        }
+        return hashes;
+    }
+
+    private static List<String> hex(List<byte[]> hashes) {
+        List<String> hex = new ArrayList<>();
+        for (byte[] hash : hashes) {
+            hex.add(Hex.toHexString(hash));
+        }
+        return hex;
+    }
+
+    @Test
+    public void testDecodedBlockMatchesOriginal() {
+        AionBlock decoded = new AionBlock(block.getEncoded());
+
+        assertThat(decoded.getTransactionCount()).isEqualTo(TX_COUNT);
+        assertThat(hex(decoded.getTransactionHashes()))
+                .containsExactlyElementsIn(hashes(block.getTransactionsList()))
+                .inOrder();
+        assertThat(decoded.getEncodedBody()).isEqualTo(block.getEncodedBody());
+
+        // decoding the transactions does not change what the block reports
+        assertThat(hashes(decoded.getTransactionsList()))
+                .containsExactlyElementsIn(hex(decoded.getTransactionHashes()))
+                .inOrder();
+        assertThat(decoded.getTransactionCount()).isEqualTo(TX_COUNT);
+        assertThat(decoded.getEncodedBody()).isEqualTo(block.getEncodedBody());
+        assertThat(decoded.isTxTrieVerified()).isFalse();
+    }
+
+    @Test
+    public void testBlockFromNetwork() {
+        AionBlock assembled =
+                AionBlock.createBlockFromNetwork(block.getHeader(), block.getEncodedBody());
+
+        assertThat(assembled).isNotNull();
+        assertThat(assembled.isTxTrieVerified()).isTrue();
+        assertThat(assembled.getTransactionCount()).isEqualTo(TX_COUNT);
+        assertThat(assembled.getEncoded()).isEqualTo(block.getEncoded());
+        assertThat(hashes(assembled.getTransactionsList()))
+                .containsExactlyElementsIn(hashes(block.getTransactionsList()))
+                .inOrder();
+    }
+
+    @Test
+    public void testBlockFromNetworkWithWrongTxTrie() {
+        AionBlock other = new AionBlock(block);
+        other.getHeader().setTxTrieRoot(new byte[32]);
+
+        assertThat(AionBlock.createBlockFromNetwork(other.getHeader(), block.getEncodedBody()))
+                .isNull();
+    }
+
+    @Test
+    public void testBlockFromStorage() {
+        AionBlock stored =
+                AionBlock.createBlockFromStorage(block.getHeader(), block.getEncodedBody());
+
+        assertThat(stored.getTransactionCount()).isEqualTo(TX_COUNT);
+        assertThat(hex(stored.getTransactionHashes()))
+                .containsExactlyElementsIn(hashes(block.getTransactionsList()))
+                .inOrder();
+        assertThat(stored.getEncoded()).isEqualTo(block.getEncoded());
+        assertThat(stored.getTransactionsList()).hasSize(TX_COUNT);
+    }
+}
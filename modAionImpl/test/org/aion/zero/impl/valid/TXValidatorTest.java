@@ -0,0 +1,161 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.zero.impl.valid;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.cache.CacheStats;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.zero.types.AionTransaction;
+import org.junit.Test;
+
+public class TXValidatorTest {
+
+    private static AionTransaction newTransaction(ECKey key, int nonce) {
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.valueOf(nonce).toByteArray(),
+                        Address.ZERO_ADDRESS(),
+                        BigInteger.ONE.toByteArray(),
+                        new byte[0],
+                        21000L,
+                        10_000_000_000L);
+        tx.sign(key);
+        return tx;
+    }
+
+    @Test
+    public void testBatchMatchesSingle() {
+        ECKey key = ECKeyFac.inst().create();
+        List<AionTransaction> txs = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            txs.add(newTransaction(key, i));
+        }
+
+        // re-encoded with the signature of another transaction
+        AionTransaction forged = newTransaction(key, 100);
+        AionTransaction other = newTransaction(key, 101);
+        byte[] encoded = forged.getEncoded();
+        byte[] sig = other.getSignature().toBytes();
+        System.arraycopy(sig, 0, encoded, encoded.length - sig.length, sig.length);
+        txs.set(20, new AionTransaction(encoded));
+
+        assertThat(TXValidator.isInCache(ByteArrayWrapper.wrap(txs.get(3).getHash()))).isFalse();
+
+        boolean[] valid = TXValidator.isValid(txs);
+        for (int i = 0; i < txs.size(); i++) {
+            assertThat(valid[i]).isEqualTo(i != 20);
+            assertThat(TXValidator.isValid0(txs.get(i))).isEqualTo(i != 20);
+            assertThat(TXValidator.isInCache(ByteArrayWrapper.wrap(txs.get(i).getHash())))
+                    .isTrue();
+        }
+
+        // answered from the cache this time
+        assertThat(TXValidator.isValid(txs)).isEqualTo(valid);
+        assertThat(TXValidator.isValid(txs.get(20))).isFalse();
+    }
+
+    /** A transaction decoded from its encoding, exposing whether its sender is known. */
+    private static class Decoded extends AionTransaction {
+        Decoded(byte[] encoded) {
+            super(encoded);
+        }
+
+        Address knownSender() {
+            return from;
+        }
+    }
+
+    @Test
+    public void testSenderRemembered() {
+        ECKey key = ECKeyFac.inst().create();
+        AionTransaction tx = newTransaction(key, 0);
+        AionTransaction batched = newTransaction(key, 1);
+        assertThat(TXValidator.isValid(tx)).isTrue();
+        assertThat(TXValidator.isValid(List.of(batched))).asList().containsExactly(true);
+
+        // other instances of the same transactions take the sender from the cache
+        Decoded copy = new Decoded(tx.getEncoded());
+        Decoded batchedCopy = new Decoded(batched.getEncoded());
+        assertThat(copy.knownSender()).isNull();
+
+        assertThat(TXValidator.isValid(copy)).isTrue();
+        assertThat(TXValidator.isValid(List.of(batchedCopy))).asList().containsExactly(true);
+        assertThat(copy.knownSender()).isEqualTo(Address.wrap(key.getAddress()));
+        assertThat(batchedCopy.knownSender()).isEqualTo(Address.wrap(key.getAddress()));
+    }
+
+    @Test
+    public void testConcurrentValidation() throws Exception {
+        ECKey key = ECKeyFac.inst().create();
+        List<AionTransaction> txs = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            txs.add(newTransaction(key, i));
+        }
+
+        CacheStats before = TXValidator.getCacheStats();
+
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            results.add(
+                    threads.submit(
+                            () -> {
+                                boolean all = true;
+                                for (AionTransaction tx : txs) {
+                                    all &= TXValidator.isValid(tx);
+                                }
+                                return all;
+                            }));
+        }
+        for (Future<Boolean> result : results) {
+            assertThat(result.get()).isTrue();
+        }
+        threads.shutdown();
+
+        // each transaction is checked once, every other lookup is a hit or waits on that check
+        CacheStats stats = TXValidator.getCacheStats().minus(before);
+        assertThat(stats.loadCount()).isEqualTo(txs.size());
+        assertThat(stats.requestCount()).isEqualTo(8L * txs.size());
+    }
+
+    @Test
+    public void testBatchEmpty() {
+        assertThat(TXValidator.isValid(new ArrayList<>())).isEmpty();
+    }
+}
@@ -45,6 +45,7 @@ import org.aion.api.server.types.ArgTxCall;
 import org.aion.api.server.types.Fltr;
 import org.aion.api.server.types.SyncInfo;
 import org.aion.api.server.types.TxRecpt;
+import org.aion.base.db.IRepository;
 import org.aion.base.type.Address;
 import org.aion.base.type.ITransaction;
 import org.aion.base.type.ITxReceipt;
@@ -66,6 +67,7 @@ import org.aion.zero.impl.blockchain.IAionChain;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.core.IAionBlockchain;
 import org.aion.zero.impl.db.AionBlockStore;
+import org.aion.zero.impl.db.AionRepositoryImpl;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.impl.types.AionBlockSummary;
 import org.aion.zero.impl.types.AionTxInfo;
@@ -322,7 +324,7 @@ public abstract class ApiAion extends Api {
             return -1;
         }
 
-        return pBlk.getTransactionsList().size();
+        return pBlk.getTransactionCount();
     }
 
     protected long getTransactionCountByHash(byte[] hash) {
@@ -332,7 +334,7 @@ public abstract class ApiAion extends Api {
                     "ApiAion.getTransactionByBlockNumberAndIndex - can't find the block by the block number");
             return -1;
         }
-        return pBlk.getTransactionsList().size();
+        return pBlk.getTransactionCount();
     }
 
     protected long getTransactionCount(Address addr, long blkNr) {
@@ -378,7 +380,7 @@ public abstract class ApiAion extends Api {
     }
 
     public byte[] getCode(Address addr) {
-        return this.ac.getRepository().getCode(addr);
+        return getLatestState().getCode(addr);
     }
 
     /* NOTE: only use this if you need receipts for one or small number transactions in a block.
@@ -518,19 +520,28 @@ public abstract class ApiAion extends Api {
 
     // Transaction Level
     public BigInteger getBalance(String _address) {
-        return this.ac.getRepository().getBalance(Address.wrap(_address));
+        return getLatestState().getBalance(Address.wrap(_address));
     }
 
     public BigInteger getBalance(Address _address) {
-        return this.ac.getRepository().getBalance(_address);
+        return getLatestState().getBalance(_address);
     }
 
     public BigInteger getNonce(String _address) {
-        return this.ac.getRepository().getNonce(Address.wrap(_address));
+        return getLatestState().getNonce(Address.wrap(_address));
     }
 
     public BigInteger getNonce(Address _address) {
-        return this.ac.getRepository().getNonce(_address);
+        return getLatestState().getNonce(_address);
+    }
+
+    /**
+     * @return a read view of the state at the best block, which does not wait for the repository
+     *     lock held while blocks are imported
+     */
+    protected IRepository getLatestState() {
+        return ((AionRepositoryImpl) this.ac.getRepository())
+                .getBestReadView(getBestBlock().getHeader());
     }
 
     protected byte[] sendTransaction(ArgTxCall _params) {
@@ -23,6 +23,7 @@ public abstract class RpcServer {
     protected char[] sslCertPass;
 
     protected boolean stuckThreadDetectorEnabled;
+    protected boolean webSocketEnabled;
 
     /**
      * to explicitly force any subclasses to check for null values, access to the following variables is
@@ -66,6 +67,7 @@ public abstract class RpcServer {
         ioPoolSize = builder.ioPoolSize;
         requestQueueSize = builder.requestQueueSize;
         stuckThreadDetectorEnabled = builder.stuckThreadDetectorEnabled;
+        webSocketEnabled = builder.webSocketEnabled;
     }
 
     // want to explicitly force user of this class to check for null values here.
@@ -32,6 +32,7 @@ public abstract class RpcServerBuilder<T extends RpcServerBuilder<T>> {
     Integer ioPoolSize = null;
     Integer requestQueueSize = null;
     boolean stuckThreadDetectorEnabled = false;
+    boolean webSocketEnabled = false;
 
     public T setUrl(String hostName, int port) {
         this.hostName = Objects.requireNonNull(hostName);
@@ -89,6 +90,11 @@ public abstract class RpcServerBuilder<T extends RpcServerBuilder<T>> {
         return self();
     }
 
+    public T setWebSocketEnabled(boolean x) {
+        this.webSocketEnabled = x;
+        return self();
+    }
+
     protected abstract RpcServer build();
 
     // Subclasses must override this method to return "this"
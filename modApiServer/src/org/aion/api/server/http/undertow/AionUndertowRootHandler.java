@@ -34,7 +34,7 @@ public class AionUndertowRootHandler implements HttpHandler {
     // (therefore we don't have to hold all the downstream references)
     private final HttpHandler rootHandler;
 
-    public AionUndertowRootHandler(AionUndertowRpcHandler rpcHandler,
+    public AionUndertowRootHandler(HttpHandler rpcHandler,
                                    RequestLimitingConfiguration requestLimiting,
                                    StuckThreadDetectorConfiguration stuckThreadDetector) {
         /**
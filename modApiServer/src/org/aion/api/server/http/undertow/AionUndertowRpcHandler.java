@@ -7,10 +7,26 @@ import io.undertow.util.HttpString;
 import io.undertow.util.Methods;
 import io.undertow.util.StatusCodes;
 import org.aion.api.server.rpc.RpcProcessor;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.slf4j.Logger;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 class AionUndertowRpcHandler implements HttpHandler {
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.API.name());
+
+    /**
+     * the response is written through a buffer of this many chars; once it fills, the blocking write
+     * waits on the client, which bounds the bytes in flight per request
+     */
+    private static final int RESPONSE_BUFFER_CHARS = 16 * 1024;
+
     private final boolean corsEnabled;
     private final Map<HttpString, String> corsHeaders;
     private final RpcProcessor rpcProcessor;
@@ -53,7 +69,24 @@ class AionUndertowRpcHandler implements HttpHandler {
         exchange.getRequestReceiver().receiveFullString((_exchange, body) -> {
             if (corsEnabled) addCorsHeaders(_exchange);
             _exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
-            _exchange.getResponseSender().send(rpcProcessor.process(body));
+
+            // the exchange is blocking (see AionUndertowRootHandler): the response is streamed to
+            // the client as it is serialized, chunked once it outgrows the buffers
+            Writer out = new BufferedWriter(
+                    new OutputStreamWriter(_exchange.getOutputStream(), StandardCharsets.UTF_8),
+                    RESPONSE_BUFFER_CHARS);
+            try {
+                rpcProcessor.process(body, null, out);
+                out.close();
+            } catch (IOException | RuntimeException e) {
+                // the client is gone, or the response failed after part of it was sent: drop the
+                // connection without ending the response, so the client can't take it as complete
+                LOG.debug("<rpc-server - failed to write rpc response>", e);
+                try {
+                    _exchange.getConnection().close();
+                } catch (IOException ignored) {
+                }
+            }
         });
     }
 }
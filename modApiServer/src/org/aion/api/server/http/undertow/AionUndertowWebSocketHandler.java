@@ -0,0 +1,205 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+
+package org.aion.api.server.http.undertow;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import io.undertow.websockets.WebSocketConnectionCallback;
+import io.undertow.websockets.WebSocketProtocolHandshakeHandler;
+import io.undertow.websockets.core.AbstractReceiveListener;
+import io.undertow.websockets.core.BufferedTextMessage;
+import io.undertow.websockets.core.WebSocketCallback;
+import io.undertow.websockets.core.WebSocketChannel;
+import io.undertow.websockets.core.WebSockets;
+import io.undertow.websockets.spi.WebSocketHttpExchange;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.aion.api.server.rpc.RpcError;
+import org.aion.api.server.rpc.RpcMsg;
+import org.aion.api.server.rpc.RpcProcessor;
+import org.aion.api.server.rpc.RpcSubscriptions;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.slf4j.Logger;
+
+/**
+ * Serves json-rpc over the websocket connections upgraded from the rpc port. Each text message is
+ * a request (or batch), answered on the same connection; the subscriptions installed by {@code
+ * eth_subscribe} push their notifications on it until it closes.
+ *
+ * <p>Browsers don't apply CORS to websockets, so the handshake checks the {@code Origin} header
+ * itself: a browser page may only connect when CORS is enabled and its origin allowed.
+ */
+public class AionUndertowWebSocketHandler implements WebSocketConnectionCallback {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.API.name());
+
+    /**
+     * chars a connection may have queued for sending; a client not reading them is dropped rather
+     * than having the node buffer for it without bound
+     */
+    static final long MAX_PENDING_CHARS = 8L * 1024 * 1024;
+
+    private final RpcProcessor rpcProcessor;
+    private final boolean corsEnabled;
+    private final String corsOrigin;
+
+    public AionUndertowWebSocketHandler(
+            RpcProcessor rpcProcessor, boolean corsEnabled, String corsOrigin) {
+        this.rpcProcessor = rpcProcessor;
+        this.corsEnabled = corsEnabled;
+        this.corsOrigin = corsOrigin;
+    }
+
+    /**
+     * @return a handler upgrading the websocket requests of allowed origins, and passing every
+     *     other request on to the given one
+     */
+    public HttpHandler handshake(HttpHandler next) {
+        HttpHandler handshake = new WebSocketProtocolHandshakeHandler(this, next);
+        return exchange -> {
+            String upgrade = exchange.getRequestHeaders().getFirst(Headers.UPGRADE);
+            String origin = exchange.getRequestHeaders().getFirst(Headers.ORIGIN);
+            if ("websocket".equalsIgnoreCase(upgrade) && !isAllowedOrigin(origin)) {
+                LOG.debug("<rpc-server - websocket rejected for origin {}>", origin);
+                exchange.setStatusCode(StatusCodes.FORBIDDEN);
+                exchange.setPersistent(false);
+                exchange.endExchange();
+                return;
+            }
+            handshake.handleRequest(exchange);
+        };
+    }
+
+    /** Clients outside a browser send no origin; browser pages are held to the cors origins. */
+    boolean isAllowedOrigin(String origin) {
+        if (origin == null) {
+            return true;
+        }
+        if (!corsEnabled) {
+            return false;
+        }
+        for (String allowed : corsOrigin.split(",")) {
+            allowed = allowed.trim();
+            if (allowed.equals("*") || allowed.equalsIgnoreCase(origin)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void onConnect(WebSocketHttpExchange exchange, WebSocketChannel channel) {
+        Session session = new Session(channel);
+
+        channel.addCloseTask(c -> rpcProcessor.closeSession(session));
+        channel.getReceiveSetter()
+                .set(
+                        new AbstractReceiveListener() {
+                            @Override
+                            protected void onFullTextMessage(
+                                    WebSocketChannel channel, BufferedTextMessage message) {
+                                String body = message.getData();
+                                // requests may block, keep them off the io thread
+                                channel.getWorker().execute(() -> reply(session, body));
+                            }
+                        });
+        channel.resumeReceives();
+    }
+
+    /** Answers the request on its connection, with an internal error if it could not be served. */
+    private void reply(Session session, String body) {
+        String response;
+        try {
+            response = rpcProcessor.process(body, session);
+        } catch (RuntimeException e) {
+            LOG.debug("<rpc-server - failed to process websocket request>", e);
+            response = new RpcMsg(null, RpcError.INTERNAL_ERROR).toString();
+        }
+
+        try {
+            session.send(response);
+        } catch (IllegalStateException e) {
+            LOG.debug("<rpc-server - websocket closed before the reply>");
+        }
+    }
+
+    private static final class Session implements RpcSubscriptions.Subscriber {
+        private final WebSocketChannel channel;
+        private final AtomicLong pendingChars = new AtomicLong();
+
+        private Session(WebSocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void send(String message) {
+            if (!channel.isOpen()) {
+                throw new IllegalStateException("websocket closed");
+            }
+
+            int chars = message.length();
+            long pending = pendingChars.addAndGet(chars);
+            // a single large reply still goes out when nothing else is waiting
+            if (pending > MAX_PENDING_CHARS && pending > chars) {
+                pendingChars.addAndGet(-chars);
+                LOG.debug("<rpc-server - websocket client too slow, {} chars pending>", pending);
+                close(channel);
+                throw new IllegalStateException("websocket client too slow");
+            }
+
+            WebSockets.sendText(
+                    message,
+                    channel,
+                    new WebSocketCallback<Void>() {
+                        @Override
+                        public void complete(WebSocketChannel channel, Void context) {
+                            pendingChars.addAndGet(-chars);
+                        }
+
+                        @Override
+                        public void onError(
+                                WebSocketChannel channel, Void context, Throwable throwable) {
+                            pendingChars.addAndGet(-chars);
+                            LOG.debug("<rpc-server - websocket send failed>", throwable);
+                            close(channel);
+                        }
+                    });
+        }
+
+        private static void close(WebSocketChannel channel) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
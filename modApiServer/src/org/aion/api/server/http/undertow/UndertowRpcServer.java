@@ -1,6 +1,7 @@
 package org.aion.api.server.http.undertow;
 
 import io.undertow.Undertow;
+import io.undertow.server.HttpHandler;
 import io.undertow.util.HttpString;
 import org.aion.api.server.http.RpcServer;
 import org.aion.api.server.http.RpcServerBuilder;
@@ -127,7 +128,15 @@ public class UndertowRpcServer extends RpcServer {
 
             AionUndertowRpcHandler rpcHandler = new AionUndertowRpcHandler(corsEnabled, CORS_HEADERS, rpcProcessor);
 
-            undertowBuilder.setHandler(new AionUndertowRootHandler(rpcHandler, requestLimiting, stuckThreadDetector));
+            HttpHandler requestHandler = rpcHandler;
+            if (webSocketEnabled) {
+                // websocket upgrades share the rpc port and its request limiting, all other
+                // requests go on to the rpc handler
+                requestHandler = new AionUndertowWebSocketHandler(rpcProcessor, corsEnabled, corsOrigin)
+                        .handshake(rpcHandler);
+            }
+
+            undertowBuilder.setHandler(new AionUndertowRootHandler(requestHandler, requestLimiting, stuckThreadDetector));
 
 
             server = undertowBuilder.build();
@@ -139,6 +148,7 @@ public class UndertowRpcServer extends RpcServer {
             LOG.debug("UNDERTOW RPC Server Started with Options");
             LOG.debug("----------------------------------------");
             LOG.debug("SSL: {}", sslEnabled ? "Enabled; Certificate = "+sslCertCanonicalPath : "Not Enabled");
+            LOG.debug("WebSocket: {}", webSocketEnabled ? "Enabled" : "Not Enabled");
             LOG.debug("CORS: {}", corsEnabled ? "Enabled; Allowed Origins = \""+corsOrigin+"\"" : "Not Enabled");
             LOG.debug("Worker Thread Count: {}", effectiveWorkerThreadCount);
             LOG.debug("I/O Thread Count: {}", effectiveIoThreadCount);
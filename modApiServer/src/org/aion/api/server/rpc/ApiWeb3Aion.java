@@ -72,8 +72,10 @@ import org.aion.zero.impl.blockchain.IAionChain;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.config.CfgConsensusPow;
 import org.aion.zero.impl.config.CfgEnergyStrategy;
+import org.aion.zero.impl.core.IAionBlockchain;
 import org.aion.zero.impl.db.AionBlockStore;
 import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.db.BloomBitsIndex;
 import org.aion.zero.impl.sync.PeerState;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.impl.types.AionBlockSummary;
@@ -121,6 +123,8 @@ public class ApiWeb3Aion extends ApiAion {
     private IEventMgr evtMgr;
     // doesn't need to be protected for concurrent access, since only one write in the constructor.
     private boolean isFilterEnabled;
+    private boolean isWsEnabled;
+    private final RpcSubscriptions subscriptions = new RpcSubscriptions();
 
     private boolean isSeedMode;
 
@@ -131,6 +135,10 @@ public class ApiWeb3Aion extends ApiAion {
     private final LoadingCache<String, MinerStatsView> MinerStats;
 
     protected void onBlock(AionBlockSummary cbs) {
+        if (isWsEnabled) {
+            subscriptions.onBlock(cbs);
+        }
+
         if (isFilterEnabled) {
             installedFilters
                     .keySet()
@@ -151,6 +159,10 @@ public class ApiWeb3Aion extends ApiAion {
     }
 
     protected void pendingTxReceived(ITransaction _tx) {
+        if (isWsEnabled) {
+            subscriptions.onPendingTransaction(_tx);
+        }
+
         if (isFilterEnabled) {
             // not absolutely neccessary to do eviction on installedFilters here, since we're doing
             // it already
@@ -198,16 +210,18 @@ public class ApiWeb3Aion extends ApiAion {
         templateMap = new HashMap<>();
         templateMapLock = new ReentrantReadWriteLock();
         isFilterEnabled = CfgAion.inst().getApi().getRpc().isFiltersEnabled();
+        isWsEnabled = CfgAion.inst().getApi().getRpc().isWsEnabled();
         isSeedMode = CfgAion.inst().getConsensus().isSeed();
 
         initNrgOracle(_ac);
 
-        if (isFilterEnabled) {
+        if (isFilterEnabled || isWsEnabled) {
             evtMgr = this.ac.getAionHub().getEventMgr();
 
             startES("EpWeb3");
 
-            // Fill data on block and transaction events into the filters and pending receipts
+            // Fill data on block and transaction events into the filters, pending receipts and
+            // websocket subscriptions
             IHandler blkHr = evtMgr.getHandler(IHandler.TYPE.BLOCK0.getValue());
             if (blkHr != null) {
                 blkHr.eventCallback(new EventCallback(ees, LOG));
@@ -542,7 +556,7 @@ public class ApiWeb3Aion extends ApiAion {
         AionBlock b = this.ac.getBlockchain().getBlockByHash(hash);
         if (b == null) return new RpcMsg(null, RpcError.EXECUTION_ERROR, "Block not found.");
 
-        long n = b.getTransactionsList().size();
+        long n = b.getTransactionCount();
         return new RpcMsg(TypeConverter.toJsonHex(n));
     }
 
@@ -1005,11 +1019,27 @@ public class ApiWeb3Aion extends ApiAion {
             // installation.
 
             toBlock = toBlock == null ? getBestBlock() : toBlock;
-            for (long i = fromBlock.getNumber(); i <= toBlock.getNumber(); i++) {
+            IAionBlockchain chain = this.ac.getAionHub().getBlockchain();
+
+            // the indexed part of the range only loads the blocks the bloom bits point at
+            long next = fromBlock.getNumber();
+            BloomBitsIndex bloomBits = chain.getBloomBitsIndex();
+            if (bloomBits != null) {
+                next =
+                        bloomBits.match(
+                                filter.getFilterBlooms(),
+                                next,
+                                toBlock.getNumber(),
+                                n -> {
+                                    if (filter.isFull()) return false;
+                                    filter.onBlock(chain.getBlockByNumber(n), chain);
+                                    return true;
+                                });
+            }
+
+            for (long i = next; i <= toBlock.getNumber(); i++) {
                 if (filter.isFull()) break;
-                filter.onBlock(
-                        this.ac.getBlockchain().getBlockByNumber(i),
-                        this.ac.getAionHub().getBlockchain());
+                filter.onBlock(this.ac.getBlockchain().getBlockByNumber(i), chain);
             }
         }
 
@@ -1086,16 +1116,11 @@ public class ApiWeb3Aion extends ApiAion {
                         != null);
     }
 
-    private JSONArray buildFilterResponse(Fltr filter) {
+    private StreamedJsonArray<Object> buildFilterResponse(Fltr filter) {
         Object[] events = filter.poll();
-        JSONArray response = new JSONArray();
-        for (Object event : events) {
-            if (event instanceof Evt) {
-                // put the Object we get out of the Evt object in here
-                response.put(((Evt) event).toJSON());
-            }
-        }
-        return response;
+        // the json of an event is only built as the response is written
+        return new StreamedJsonArray<>(
+                Arrays.asList(events), event -> event instanceof Evt ? ((Evt) event).toJSON() : null);
     }
 
     public RpcMsg eth_getFilterChanges(Object _params) {
@@ -1141,6 +1166,35 @@ public class ApiWeb3Aion extends ApiAion {
         return new RpcMsg(buildFilterResponse(filter));
     }
 
+    /**
+     * Installs a push subscription for a websocket connection; the notifications are sent from
+     * the event thread as the blocks and pending transactions arrive.
+     *
+     * @param _session the connection, null when called over http
+     */
+    public RpcMsg eth_subscribe(Object _params, RpcSubscriptions.Subscriber _session) {
+        if (_session == null) {
+            return new RpcMsg(null, RpcError.NOT_ALLOWED, "Subscriptions need a websocket connection.");
+        }
+        if (!isWsEnabled) {
+            return new RpcMsg(null, RpcError.NOT_ALLOWED, "Subscriptions over websocket disabled.");
+        }
+
+        return subscriptions.subscribe(_params, _session);
+    }
+
+    public RpcMsg eth_unsubscribe(Object _params, RpcSubscriptions.Subscriber _session) {
+        if (_session == null) {
+            return new RpcMsg(null, RpcError.NOT_ALLOWED, "Subscriptions need a websocket connection.");
+        }
+
+        return subscriptions.unsubscribe(_params, _session);
+    }
+
+    public void closeSession(RpcSubscriptions.Subscriber _session) {
+        subscriptions.unsubscribeAll(_session);
+    }
+
     /* -------------------------------------------------------------------------
      * personal
      */
@@ -1227,15 +1281,19 @@ public class ApiWeb3Aion extends ApiAion {
             return new RpcMsg(null, RpcError.EXECUTION_ERROR, "Blocks requested not found.");
         }
 
-        JSONArray response = new JSONArray();
-        for (Map.Entry<AionBlock, Map.Entry<BigInteger, Boolean>> block : blocks) {
-            JSONObject b =
-                    (JSONObject)
-                            Blk.AionBlockToJson(block.getKey(), block.getValue().getKey(), _fullTx);
-            b.put("mainchain", block.getValue().getValue());
-            response.put(b);
-        }
-        return new RpcMsg(response);
+        return new RpcMsg(
+                new StreamedJsonArray<>(
+                        blocks,
+                        block -> {
+                            JSONObject b =
+                                    (JSONObject)
+                                            Blk.AionBlockToJson(
+                                                    block.getKey(),
+                                                    block.getValue().getKey(),
+                                                    _fullTx);
+                            b.put("mainchain", block.getValue().getValue());
+                            return b;
+                        }));
     }
 
     /* -------------------------------------------------------------------------
@@ -1510,6 +1568,18 @@ public class ApiWeb3Aion extends ApiAion {
         return new RpcMsg(array);
     }
 
+    /** Counters reported by the databases, e.g. the RocksDB cache and bloom filter statistics. */
+    public RpcMsg priv_dbStats() {
+        Map<String, Map<String, Long>> stats =
+                ((AionRepositoryImpl) ac.getRepository()).getDatabaseStatistics();
+
+        JSONObject obj = new JSONObject();
+        for (Map.Entry<String, Map<String, Long>> db : stats.entrySet()) {
+            obj.put(db.getKey(), new JSONObject(db.getValue()));
+        }
+        return new RpcMsg(obj);
+    }
+
     public RpcMsg priv_config() {
         JSONObject obj = new JSONObject();
 
@@ -1678,8 +1748,7 @@ public class ApiWeb3Aion extends ApiAion {
         }
 
         long latestBlkNum = this.getBestBlock().getNumber();
-        AccountState accountState =
-                ((AionRepositoryImpl) this.ac.getRepository()).getAccountState(address);
+        AccountState accountState = (AccountState) getLatestState().getAccountState(address);
 
         BigInteger nonce = BigInteger.ZERO;
         BigInteger balance = BigInteger.ZERO;
@@ -1798,7 +1867,7 @@ public class ApiWeb3Aion extends ApiAion {
                                 new BigInteger(Long.toString(b.getNrgConsumed())));
                 nrgLimitAccumulator =
                         nrgLimitAccumulator.add(new BigInteger(Long.toString(b.getNrgLimit())));
-                txnCount += b.getTransactionsList().size();
+                txnCount += b.getTransactionCount();
             }
 
             BigInteger lastBlkReward =
@@ -2095,7 +2164,7 @@ public class ApiWeb3Aion extends ApiAion {
         JSONObject blk = new JSONObject();
         blk.put("timestampVal", block.getTimestamp());
         blk.put("blockNumber", block.getNumber());
-        blk.put("numTransactions", block.getTransactionsList().size());
+        blk.put("numTransactions", block.getTransactionCount());
 
         blk.put("blockHash", TypeConverter.toJsonHex(block.getHash()));
         blk.put("parentHash", TypeConverter.toJsonHex(block.getParentHash()));
@@ -2232,21 +2301,23 @@ public class ApiWeb3Aion extends ApiAion {
         // cast will cause issues after the PoW refactor goes in
         AionBlockchainImpl chain = (AionBlockchainImpl) this.ac.getAionHub().getBlockchain();
 
-        Function<AionTransaction, JSONObject> extractTxReceipt = t -> {
+        Function<AionTransaction, AionTxInfo> extractTxInfo = t -> {
             AionTxInfo info = chain.getTransactionInfoLite(t.getHash(), b.getHash());
             info.setTransaction(t);
-            return((new TxRecpt(b, info, 0L, true)).toJson());
+            return info;
         };
 
-        List<JSONObject> receipts;
+        List<AionTxInfo> receipts;
         // use the fork-join pool to parallelize receipt retrieval if necessary
         int PARALLELIZE_RECEIPT_COUNT = 20;
         if (b.getTransactionsList().size() > PARALLELIZE_RECEIPT_COUNT)
-            receipts = b.getTransactionsList().parallelStream().map(extractTxReceipt).collect(toList());
+            receipts = b.getTransactionsList().parallelStream().map(extractTxInfo).collect(toList());
         else
-            receipts = b.getTransactionsList().stream().map(extractTxReceipt).collect(toList());
+            receipts = b.getTransactionsList().stream().map(extractTxInfo).collect(toList());
 
-        return new RpcMsg(new JSONArray(receipts));
+        // the receipts json is built one at a time, as the response is written
+        return new RpcMsg(
+                new StreamedJsonArray<>(receipts, info -> new TxRecpt(b, info, 0L, true).toJson()));
     }
 
     /* -------------------------------------------------------------------------
@@ -2363,7 +2434,7 @@ public class ApiWeb3Aion extends ApiAion {
         JSONObject obj = new JSONObject();
         obj.put("blocks", bestBlock.getNumber());
         obj.put("currentblocksize", bestBlock.getEncoded().length);
-        obj.put("currentblocktx", bestBlock.getTransactionsList().size());
+        obj.put("currentblocktx", bestBlock.getTransactionCount());
         obj.put("difficulty", bestBlock.getDifficultyBI().toString(16));
         obj.put("testnet", true);
 
@@ -2685,7 +2756,11 @@ public class ApiWeb3Aion extends ApiAion {
         AionBlock b = this.ac.getBlockchain().getBlockByNumber(bn);
         if (b == null) return null;
 
-        return ac.getRepository().getSnapshotTo(b.getStateRoot());
+        AionRepositoryImpl repo = (AionRepositoryImpl) ac.getRepository();
+        if (b.getNumber() == getBestBlock().getNumber()) {
+            return repo.getBestReadView(b.getHeader());
+        }
+        return repo.getReadView(b.getStateRoot());
     }
 
     private Long parseBnOrId(String _bnOrId) {
@@ -40,6 +40,18 @@ public class RpcMethods {
         return enabledEndpoints.get(name);
     }
 
+    /**
+     * @return the method bound to the connection it is called on, or null if the method does not
+     *     need one or is not enabled
+     */
+    public RpcSessionMethod getSessionMethod(String name) {
+        return enabledEndpoints.containsKey(name) ? sessionMethods.get(name) : null;
+    }
+
+    public void closeSession(RpcSubscriptions.Subscriber session) {
+        api.closeSession(session);
+    }
+
     public void shutdown() {
         api.shutdown();
     }
@@ -71,6 +83,18 @@ public class RpcMethods {
         RpcMsg call(Object params);
     }
 
+    public interface RpcSessionMethod {
+        RpcMsg call(Object params, RpcSubscriptions.Subscriber session);
+    }
+
+    /**
+     * methods called over a websocket, enabled through the group of their http counterpart
+     */
+    private final Map<String, RpcSessionMethod> sessionMethods = Map.ofEntries(
+            Map.entry("eth_subscribe", (params, session) -> api.eth_subscribe(params, session)),
+            Map.entry("eth_unsubscribe", (params, session) -> api.eth_unsubscribe(params, session))
+    );
+
     /**
      * ops
      */
@@ -171,7 +195,9 @@ public class RpcMethods {
             Map.entry("eth_uninstallFilter", (params) -> api.eth_uninstallFilter(params)),
             Map.entry("eth_getFilterChanges", (params) -> api.eth_getFilterChanges(params)),
             Map.entry("eth_getFilterLogs", (params) -> api.eth_getFilterChanges(params)),
-            Map.entry("eth_getLogs", (params) -> api.eth_getLogs(params))
+            Map.entry("eth_getLogs", (params) -> api.eth_getLogs(params)),
+            Map.entry("eth_subscribe", (params) -> api.eth_subscribe(params, null)),
+            Map.entry("eth_unsubscribe", (params) -> api.eth_unsubscribe(params, null))
     );
 
     /**
@@ -202,6 +228,7 @@ public class RpcMethods {
             Map.entry("priv_dumpBlockByNumber", (params) -> api.priv_dumpBlockByNumber(params)),
             Map.entry("priv_shortStats", (params) -> api.priv_shortStats()),
             Map.entry("priv_config", (params) -> api.priv_config()),
+            Map.entry("priv_dbStats", (params) -> api.priv_dbStats()),
             Map.entry("priv_syncPeers", (params) -> api.priv_syncPeers())
     );
 }
@@ -1,5 +1,8 @@
 package org.aion.api.server.rpc;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import org.json.JSONObject;
 
 /**
@@ -36,6 +39,10 @@ public class RpcMsg {
         return error;
     }
 
+    public Object getId() {
+        return id;
+    }
+
     public RpcMsg setId(Object id) {
         this.id = id;
         return this;
@@ -50,23 +57,53 @@ public class RpcMsg {
         // error: This member is REQUIRED on error. This member MUST NOT exist if there was no error triggered during invocation.
         // result: This member is REQUIRED on success. This member MUST NOT exist if there was an error invoking the method.
         if (this.result == null) { // call equals on the leaf type
-            RpcError e = this.error;
-            if (e == null)
-                e = RpcError.INTERNAL_ERROR;
-
-            JSONObject error  = new JSONObject();
-            error.put("code", e.getCode());
-            error.put("message", e.getMessage());
-            error.put("data", this.errorData);
-            json.put("error", error);
+            json.put("error", errorJson());
+        } else if (this.result instanceof StreamedJsonArray) {
+            json.put("result", ((StreamedJsonArray<?>) this.result).toJSONArray());
         } else {
             json.put("result", this.result);
         }
         return json;
     }
 
+    /**
+     * Writes the message as {@link #toJson()} renders it, the result going out piece by piece
+     * rather than as one string.
+     */
+    public void write(Writer out) throws IOException {
+        out.write("{\"jsonrpc\":\"2.0\",\"id\":");
+        out.write(JSONObject.valueToString(this.id));
+        if (this.result == null) {
+            out.write(",\"error\":");
+            errorJson().write(out);
+        } else {
+            out.write(",\"result\":");
+            StreamedJsonArray.writeValue(out, this.result);
+        }
+        out.write('}');
+    }
+
+    private JSONObject errorJson() {
+        RpcError e = this.error;
+        if (e == null)
+            e = RpcError.INTERNAL_ERROR;
+
+        JSONObject error  = new JSONObject();
+        error.put("code", e.getCode());
+        error.put("message", e.getMessage());
+        error.put("data", this.errorData);
+        return error;
+    }
+
     @Override
     public String toString() {
-        return this.toJson().toString();
+        StringWriter out = new StringWriter();
+        try {
+            write(out);
+        } catch (IOException e) {
+            // not thrown by a StringWriter
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
     }
 }
\ No newline at end of file
@@ -8,6 +8,10 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
 
@@ -15,49 +19,116 @@ public class RpcProcessor {
 
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.API.name());
 
+    /**
+     * Chars of each response held back before they reach the writer; a result failing to
+     * serialize within them is replaced by an error reply
+     */
+    private static final int RESPONSE_HOLD_CHARS = 64 * 1024;
+
     private RpcMethods apiHolder;
 
     private ExecutorService executor;
-    private CompletionService<JSONObject> batchCallCompletionService;
     private final int SHUTDOWN_WAIT_SECONDS = 5;
 
     public RpcProcessor(List<String> enabled) {
         this.apiHolder = new RpcMethods(enabled);
         executor = Executors.newFixedThreadPool(Math.min(Runtime.getRuntime().availableProcessors() * 2, 4));
-        batchCallCompletionService = new ExecutorCompletionService<>(executor);
     }
 
     public String process(String _requestBody) {
-        String response = composeRpcResponse(new RpcMsg(null, RpcError.INVALID_REQUEST).toString());
+        return process(_requestBody, null);
+    }
+
+    /**
+     * @param session the websocket connection the request came on, null for http; the methods
+     *     bound to a connection, like eth_subscribe, need one
+     */
+    public String process(String _requestBody, RpcSubscriptions.Subscriber session) {
+        StringWriter out = new StringWriter();
+        try {
+            // the whole response is held, so a failing result always becomes an error reply
+            process(_requestBody, session, out, Integer.MAX_VALUE);
+        } catch (IOException e) {
+            // not thrown by a StringWriter
+            throw new IllegalStateException(e);
+        }
+
+        String response = out.toString();
+        if (LOG.isTraceEnabled())
+            LOG.trace("<rpc-server response={}>", response);
+
+        return response;
+    }
+
+    /**
+     * Writes the response as it is serialized, so a large result goes out in pieces instead of
+     * being held as a whole. The methods are all called before the first byte is written. A result
+     * that fails to serialize is answered with an internal error carrying its id, unless part of
+     * it already reached the writer.
+     *
+     * @param session the websocket connection the request came on, null for http
+     * @throws IOException if the writer fails, or a result fails after part of it was written
+     */
+    public void process(String _requestBody, RpcSubscriptions.Subscriber session, Writer out)
+            throws IOException {
+        process(_requestBody, session, out, RESPONSE_HOLD_CHARS);
+    }
+
+    private void process(
+            String _requestBody, RpcSubscriptions.Subscriber session, Writer out, int holdChars)
+            throws IOException {
+        RpcMsg response = new RpcMsg(null, RpcError.INVALID_REQUEST);
+        List<Future<RpcMsg>> batch = null;
 
         try {
             String requestBody = _requestBody.trim();
             if (!StringUtils.isEmpty(requestBody)) {
                 char firstChar = requestBody.charAt(0);
-                if (firstChar == '{')
-                    response = handleSingle(requestBody);
-                else if (firstChar == '[')
-                    response = handleBatch(requestBody);
+                if (firstChar == '{') {
+                    response = handleSingle(requestBody, session);
+                } else if (firstChar == '[') {
+                    batch = handleBatch(requestBody, session);
+                    if (batch == null)
+                        response = new RpcMsg(null, RpcError.PARSE_ERROR);
+                }
             }
         } catch (Exception e) {
             LOG.debug("<rpc-server - failed to process rpc request body>", e);
+            response = new RpcMsg(null, RpcError.INTERNAL_ERROR);
+            batch = null;
         }
 
-        return response;
+        if (batch != null)
+            writeBatch(batch, out, holdChars);
+        else
+            writeResponse(response, out, holdChars);
     }
 
-    private String composeRpcResponse(String _respBody) {
-        String respBody;
-        if (_respBody == null) {
-            respBody = new RpcMsg(null, RpcError.INTERNAL_ERROR).toString();
-        } else {
-            respBody = _respBody;
+    /**
+     * Writes one response, replacing it with an internal error reply when its result fails to
+     * serialize before any of it passed the hold.
+     */
+    static void writeResponse(RpcMsg response, Writer out, int holdChars)
+            throws IOException {
+        HeldWriter held = new HeldWriter(out, holdChars);
+        try {
+            response.write(held);
+            held.release();
+        } catch (RuntimeException e) {
+            if (held.isReleased()) {
+                throw new IOException("rpc response failed after it was partly written", e);
+            }
+            LOG.debug("<rpc-server - failed to serialize rpc response>", e);
+            new RpcMsg(null, RpcError.INTERNAL_ERROR).setId(response.getId()).write(out);
         }
+    }
 
-        return respBody;
+    /** Drops the subscriptions of a websocket connection once it closes. */
+    public void closeSession(RpcSubscriptions.Subscriber session) {
+        apiHolder.closeSession(session);
     }
 
-    private JSONObject processObject(JSONObject body) {
+    private RpcMsg processObject(JSONObject body, RpcSubscriptions.Subscriber session) {
         try {
             String method;
             Object params;
@@ -72,13 +143,13 @@ public class RpcProcessor {
                 params = body.opt("params");
             } catch (Exception e) {
                 LOG.debug("<rpc-server - invalid rpc request [0]>", e);
-                return new RpcMsg(null, RpcError.INVALID_REQUEST).toJson();
+                return new RpcMsg(null, RpcError.INVALID_REQUEST);
             }
 
             RpcMethods.RpcMethod rpc = apiHolder.get(method);
             if (rpc == null) {
                 LOG.debug("rpc-server - invalid method: {} [1]", method);
-                return new RpcMsg(null, RpcError.METHOD_NOT_FOUND).setId(id).toJson();
+                return new RpcMsg(null, RpcError.METHOD_NOT_FOUND).setId(id);
             }
 
             try {
@@ -91,98 +162,166 @@ public class RpcProcessor {
                 boolean shouldTime = LOG.isDebugEnabled();
                 Stopwatch timer = null;
                 if (shouldTime) timer = Stopwatch.createStarted();
-                RpcMsg response = rpc.call(params);
+                RpcMethods.RpcSessionMethod sessionRpc =
+                        session == null ? null : apiHolder.getSessionMethod(method);
+                RpcMsg response =
+                        sessionRpc == null ? rpc.call(params) : sessionRpc.call(params, session);
                 if (shouldTime) {
                     timer.stop();
                     LOG.debug("<request mth=[{}] rpc-process time: [{}]>", method, timer.toString());
                 }
 
-                return response.setId(id).toJson();
+                return response.setId(id);
 
             } catch (Exception e) {
                 LOG.debug("<rpc-server - internal error [2]>", e);
-                return new RpcMsg(null, RpcError.INTERNAL_ERROR).setId(id).toJson();
+                return new RpcMsg(null, RpcError.INTERNAL_ERROR).setId(id);
             }
         } catch (Exception e) {
             LOG.debug("<rpc-server - internal error [3]>", e);
         }
 
-        return new RpcMsg(null, RpcError.INTERNAL_ERROR).toJson();
+        return new RpcMsg(null, RpcError.INTERNAL_ERROR);
     }
 
     // implementing http://www.jsonrpc.org/specification#batch
-    private String handleBatch(String _reqBody) {
-        try {
-            JSONArray reqBodies;
-
-            try {
-                reqBodies = new JSONArray(_reqBody);
-                if (reqBodies.length() < 1) throw new Exception();
-            } catch (Exception e) {
-                // rpc call Batch, invalid JSON
-                // rpc call with an empty Array
-                LOG.debug("<rpc-server - rpc call parse error [4]>", e);
-                return composeRpcResponse(new RpcMsg(null, RpcError.PARSE_ERROR).toString());
-            }
+    /**
+     * @return the pending responses in request order, or null if the batch can't be parsed
+     */
+    private List<Future<RpcMsg>> handleBatch(String _reqBody, RpcSubscriptions.Subscriber session) {
+        JSONArray reqBodies;
 
-            // time batch completion
-            boolean shouldTime = LOG.isDebugEnabled();
-            Stopwatch timer = null;
-            if (shouldTime) timer = Stopwatch.createStarted();
+        try {
+            reqBodies = new JSONArray(_reqBody);
+            if (reqBodies.length() < 1) throw new Exception();
+        } catch (Exception e) {
+            // rpc call Batch, invalid JSON
+            // rpc call with an empty Array
+            LOG.debug("<rpc-server - rpc call parse error [4]>", e);
+            return null;
+        }
 
-            for(int i = 0; i < reqBodies.length(); i++) {
-                batchCallCompletionService.submit(new BatchCallTask(reqBodies.getJSONObject(i)));
-            }
+        // the futures are kept per request, concurrent batches share the executor
+        List<Future<RpcMsg>> responses = new ArrayList<>(reqBodies.length());
+        for(int i = 0; i < reqBodies.length(); i++) {
+            responses.add(executor.submit(new BatchCallTask(reqBodies.getJSONObject(i), session)));
+        }
+        return responses;
+    }
 
-            JSONArray respBodies = new JSONArray();
-            for(int i = 0; i < reqBodies.length(); i++) {
-                respBodies.put(batchCallCompletionService.take().get());
-            }
+    private void writeBatch(List<Future<RpcMsg>> responses, Writer out, int holdChars)
+            throws IOException {
+        // time batch completion
+        boolean shouldTime = LOG.isDebugEnabled();
+        Stopwatch timer = null;
+        if (shouldTime) timer = Stopwatch.createStarted();
 
-            if (shouldTime) {
-                timer.stop();
-                LOG.debug("<batch request for [{}] entities finished in [{}]>", reqBodies.length(), timer.toString());
+        out.write('[');
+        for(int i = 0; i < responses.size(); i++) {
+            RpcMsg response;
+            try {
+                response = responses.get(i).get();
+            } catch (InterruptedException | ExecutionException e) {
+                LOG.debug("<rpc-server - internal error [6]>", e);
+                response = new RpcMsg(null, RpcError.INTERNAL_ERROR);
             }
 
-            String respBody = respBodies.toString();
-
-            if (LOG.isTraceEnabled())
-                LOG.trace("<rpc-server response={}>", respBody);
-
-            return composeRpcResponse(respBody);
-
-        } catch (Exception e) {
-            LOG.debug("<rpc-server - internal error [6]>", e);
+            if (i > 0) out.write(',');
+            writeResponse(response, out, holdChars);
         }
+        out.write(']');
 
-        return composeRpcResponse(new RpcMsg(null, RpcError.INTERNAL_ERROR).toString());
+        if (shouldTime) {
+            timer.stop();
+            LOG.debug("<batch request for [{}] entities finished in [{}]>", responses.size(), timer.toString());
+        }
     }
 
-    private String handleSingle(String _reqBody) {
+    private RpcMsg handleSingle(String _reqBody, RpcSubscriptions.Subscriber session) {
         try {
             JSONObject obj = new JSONObject(_reqBody);
-            return composeRpcResponse(processObject(obj).toString());
+            return processObject(obj, session);
         } catch (Exception e) {
             // rpc call with invalid JSON
             LOG.debug("<rpc-server - rpc call parse error [7]>", e);
         }
 
-        return composeRpcResponse(new RpcMsg(null, RpcError.PARSE_ERROR).toString());
+        return new RpcMsg(null, RpcError.PARSE_ERROR);
     }
 
-    private class BatchCallTask implements Callable<JSONObject> {
+    private class BatchCallTask implements Callable<RpcMsg> {
         private JSONObject task;
-        public BatchCallTask(JSONObject task) { this.task = task; }
+        private RpcSubscriptions.Subscriber session;
+        public BatchCallTask(JSONObject task, RpcSubscriptions.Subscriber session) {
+            this.task = task;
+            this.session = session;
+        }
 
         @Override
-        public JSONObject call() {
+        public RpcMsg call() {
             try {
-                return processObject(task);
+                return processObject(task, session);
             } catch (Exception e) {
                 LOG.debug("<rpc-server - processObject failed in batch request>", e);
-                return new RpcMsg(null, RpcError.INVALID_REQUEST, "INVALID_REQUEST").toJson();
+                return new RpcMsg(null, RpcError.INVALID_REQUEST, "INVALID_REQUEST");
+            }
+        }
+    }
+
+    /** Keeps the first chars written in memory, passing them on once there are more. */
+    private static final class HeldWriter extends Writer {
+        private final Writer out;
+        private final int holdChars;
+        private final StringBuilder held = new StringBuilder();
+        private boolean released;
+
+        private HeldWriter(Writer out, int holdChars) {
+            this.out = out;
+            this.holdChars = holdChars;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            if (released) {
+                out.write(cbuf, off, len);
+                return;
+            }
+            held.append(cbuf, off, len);
+            if (held.length() > holdChars) {
+                release();
             }
         }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            if (released) {
+                out.write(str, off, len);
+                return;
+            }
+            held.append(str, off, off + len);
+            if (held.length() > holdChars) {
+                release();
+            }
+        }
+
+        /** Passes on the chars held so far; the ones written after go straight through. */
+        private void release() throws IOException {
+            released = true;
+            out.append(held);
+            held.setLength(0);
+        }
+
+        private boolean isReleased() {
+            return released;
+        }
+
+        @Override
+        public void flush() {
+            // held chars stay until released
+        }
+
+        @Override
+        public void close() {}
     }
 
     public void shutdown() {
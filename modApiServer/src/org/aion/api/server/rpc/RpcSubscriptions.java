@@ -0,0 +1,333 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+
+package org.aion.api.server.rpc;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.aion.api.server.types.ArgFltr;
+import org.aion.api.server.types.Blk;
+import org.aion.api.server.types.Evt;
+import org.aion.api.server.types.FltrLg;
+import org.aion.base.type.ITransaction;
+import org.aion.base.util.ByteUtil;
+import org.aion.base.util.TypeConverter;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.impl.types.AionBlockSummary;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+
+/**
+ * The push subscriptions of the connected websocket clients, as installed by {@code
+ * eth_subscribe}.
+ *
+ * <p>The chain events are turned into notifications once, however many clients follow them: a
+ * new head is serialized once per block, and the logs subscriptions sharing the same address and
+ * topic filter share one {@link FltrLg} evaluated once per block, its matches serialized once and
+ * fanned out to every member of the group.
+ */
+public class RpcSubscriptions {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.API.name());
+
+    /** The sink of a websocket connection. */
+    public interface Subscriber {
+        void send(String message) throws Exception;
+    }
+
+    private enum Kind {
+        NEW_HEADS("newHeads"),
+        LOGS("logs"),
+        PENDING_TX("newPendingTransactions");
+
+        private final String name;
+
+        Kind(String name) {
+            this.name = name;
+        }
+
+        static Kind fromName(String name) {
+            for (Kind k : values()) {
+                if (k.name.equals(name)) {
+                    return k;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Subscription {
+        final String id;
+        final Kind kind;
+        final Subscriber subscriber;
+        final LogGroup group;
+
+        Subscription(String id, Kind kind, Subscriber subscriber, LogGroup group) {
+            this.id = id;
+            this.kind = kind;
+            this.subscriber = subscriber;
+            this.group = group;
+        }
+    }
+
+    /** The logs subscriptions sharing one filter. */
+    private static final class LogGroup {
+        final String key;
+        final FltrLg filter;
+        final Set<Subscription> members = ConcurrentHashMap.newKeySet();
+
+        LogGroup(String key, FltrLg filter) {
+            this.key = key;
+            this.filter = filter;
+        }
+    }
+
+    private final AtomicLong index = new AtomicLong(1);
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final Set<Subscription> heads = ConcurrentHashMap.newKeySet();
+    private final Set<Subscription> pendingTxs = ConcurrentHashMap.newKeySet();
+    private final Map<String, LogGroup> logGroups = new ConcurrentHashMap<>();
+
+    public int size() {
+        return subscriptions.size();
+    }
+
+    /** The number of distinct logs filters, evaluated once per block each. */
+    int logGroupCount() {
+        return logGroups.size();
+    }
+
+    /**
+     * Installs a subscription for the given connection.
+     *
+     * @param _params {@code ["newHeads"]}, {@code ["newPendingTransactions"]} or {@code ["logs",
+     *     {"address": ..., "topics": [...]}]}
+     * @return the id of the subscription
+     */
+    public RpcMsg subscribe(Object _params, Subscriber subscriber) {
+        String _kind;
+        JSONObject _filterObj;
+        if (_params instanceof JSONArray) {
+            _kind = ((JSONArray) _params).optString(0, null);
+            _filterObj = ((JSONArray) _params).optJSONObject(1);
+        } else if (_params instanceof JSONObject) {
+            _kind = ((JSONObject) _params).optString("type", null);
+            _filterObj = ((JSONObject) _params).optJSONObject("filter");
+        } else {
+            return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid parameters");
+        }
+
+        Kind kind = Kind.fromName(_kind);
+        if (kind == null) {
+            return new RpcMsg(null, RpcError.INVALID_PARAMS, "Unsupported subscription type.");
+        }
+
+        String id = TypeConverter.toJsonHex(index.getAndIncrement());
+        switch (kind) {
+            case NEW_HEADS:
+                {
+                    Subscription sub = new Subscription(id, kind, subscriber, null);
+                    subscriptions.put(id, sub);
+                    heads.add(sub);
+                    break;
+                }
+            case PENDING_TX:
+                {
+                    Subscription sub = new Subscription(id, kind, subscriber, null);
+                    subscriptions.put(id, sub);
+                    pendingTxs.add(sub);
+                    break;
+                }
+            case LOGS:
+                {
+                    ArgFltr rf = ArgFltr.fromJSON(_filterObj == null ? new JSONObject() : _filterObj);
+                    if (rf == null) {
+                        return new RpcMsg(
+                                null, RpcError.INVALID_PARAMS, "Invalid filter object provided.");
+                    }
+                    addToGroup(id, subscriber, rf);
+                    break;
+                }
+        }
+
+        LOG.debug("<subscription: installed, type={} id={}>", kind.name, id);
+        return new RpcMsg(id);
+    }
+
+    private synchronized void addToGroup(String id, Subscriber subscriber, ArgFltr rf) {
+        String key = groupKey(rf);
+        LogGroup group =
+                logGroups.computeIfAbsent(
+                        key,
+                        k -> {
+                            FltrLg filter = new FltrLg();
+                            filter.setTopics(rf.topics);
+                            filter.setContractAddress(rf.address);
+                            return new LogGroup(k, filter);
+                        });
+        Subscription sub = new Subscription(id, Kind.LOGS, subscriber, group);
+        group.members.add(sub);
+        subscriptions.put(id, sub);
+    }
+
+    /** Identifies the filters matching the same logs, so their subscriptions share one group. */
+    private static String groupKey(ArgFltr rf) {
+        StringBuilder sb = new StringBuilder();
+        for (byte[] address : rf.address) {
+            sb.append(ByteUtil.toHexString(address)).append(',');
+        }
+        for (byte[][] topic : rf.topics) {
+            sb.append('|');
+            if (topic == null) {
+                sb.append('*');
+            } else {
+                for (byte[] t : topic) {
+                    sb.append(ByteUtil.toHexString(t)).append(',');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Removes a subscription of the given connection.
+     *
+     * @return whether the subscription existed
+     */
+    public RpcMsg unsubscribe(Object _params, Subscriber subscriber) {
+        String _id;
+        if (_params instanceof JSONArray) {
+            _id = ((JSONArray) _params).optString(0, null);
+        } else if (_params instanceof JSONObject) {
+            _id = ((JSONObject) _params).optString("id", null);
+        } else {
+            return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid parameters");
+        }
+
+        Subscription sub = _id == null ? null : subscriptions.get(_id);
+        // a connection may only cancel its own subscriptions
+        if (sub == null || sub.subscriber != subscriber) {
+            return new RpcMsg(false);
+        }
+
+        remove(sub);
+        return new RpcMsg(true);
+    }
+
+    /** Removes all the subscriptions of a connection, once it closes. */
+    public void unsubscribeAll(Subscriber subscriber) {
+        subscriptions.values().stream()
+                .filter(s -> s.subscriber == subscriber)
+                .forEach(this::remove);
+    }
+
+    private synchronized void remove(Subscription sub) {
+        if (subscriptions.remove(sub.id) == null) {
+            return;
+        }
+
+        switch (sub.kind) {
+            case NEW_HEADS:
+                heads.remove(sub);
+                break;
+            case PENDING_TX:
+                pendingTxs.remove(sub);
+                break;
+            case LOGS:
+                sub.group.members.remove(sub);
+                if (sub.group.members.isEmpty()) {
+                    logGroups.remove(sub.group.key);
+                }
+                break;
+        }
+        LOG.debug("<subscription: removed, type={} id={}>", sub.kind.name, sub.id);
+    }
+
+    public void onBlock(AionBlockSummary cbs) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+
+        if (!heads.isEmpty()) {
+            AionBlock block = (AionBlock) cbs.getBlock();
+            BigInteger td =
+                    cbs.getTotalDifficulty() != null
+                            ? cbs.getTotalDifficulty()
+                            : block.getCumulativeDifficulty();
+            String head = Blk.AionBlockOnlyToJson(block, td).toString();
+            for (Subscription sub : heads) {
+                notify(sub, head);
+            }
+        }
+
+        for (LogGroup group : logGroups.values()) {
+            // the group filter only buffers the matches of this block
+            group.filter.onBlock(cbs);
+            Object[] evts = group.filter.poll();
+            for (Object evt : evts) {
+                String log = ((Evt) evt).toJSON().toString();
+                for (Subscription sub : group.members) {
+                    notify(sub, log);
+                }
+            }
+        }
+    }
+
+    public void onPendingTransaction(ITransaction tx) {
+        if (pendingTxs.isEmpty()) {
+            return;
+        }
+
+        String hash = JSONObject.quote(TypeConverter.toJsonHex(tx.getHash()));
+        for (Subscription sub : pendingTxs) {
+            notify(sub, hash);
+        }
+    }
+
+    private void notify(Subscription sub, String result) {
+        try {
+            sub.subscriber.send(
+                    "{\"jsonrpc\":\"2.0\",\"method\":\"eth_subscription\",\"params\":{\"subscription\":\""
+                            + sub.id
+                            + "\",\"result\":"
+                            + result
+                            + "}}");
+        } catch (Exception e) {
+            // the connection is gone, its close callback may not have run yet
+            LOG.debug("<subscription: send failed, id={}>", sub.id, e);
+            remove(sub);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+
+package org.aion.api.server.rpc;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.function.Function;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * A json array result built element by element while it is written out, so a large response never
+ * exists as one {@link JSONArray} tree plus its string at once: only the element being written is
+ * held, the bytes going out through the writer as they are produced.
+ *
+ * @param <T> the source of an element, turned into its json value when written
+ */
+public final class StreamedJsonArray<T> {
+
+    private final Iterable<T> items;
+    private final Function<T, ?> toJson;
+
+    /**
+     * @param toJson maps an item to its json value; items mapped to null are left out
+     */
+    public StreamedJsonArray(Iterable<T> items, Function<T, ?> toJson) {
+        this.items = items;
+        this.toJson = toJson;
+    }
+
+    public void write(Writer out) throws IOException {
+        out.write('[');
+        boolean first = true;
+        for (T item : items) {
+            Object value = toJson.apply(item);
+            if (value == null) {
+                continue;
+            }
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            writeValue(out, value);
+        }
+        out.write(']');
+    }
+
+    /** Builds the whole array, for the callers needing the tree. */
+    public JSONArray toJSONArray() {
+        JSONArray array = new JSONArray();
+        for (T item : items) {
+            Object value = toJson.apply(item);
+            if (value != null) {
+                array.put(value);
+            }
+        }
+        return array;
+    }
+
+    /** Writes a json value without first rendering it into a string when it is a tree. */
+    static void writeValue(Writer out, Object value) throws IOException {
+        if (value instanceof StreamedJsonArray) {
+            ((StreamedJsonArray<?>) value).write(out);
+        } else if (value instanceof JSONObject) {
+            ((JSONObject) value).write(out);
+        } else if (value instanceof JSONArray) {
+            ((JSONArray) value).write(out);
+        } else {
+            out.write(JSONObject.valueToString(value));
+        }
+    }
+}
@@ -70,10 +70,10 @@ public class Blk {
         obj.put("size", new NumericalValue(block.getEncoded().length).toHexString());
 
         JSONArray jsonTxs = new JSONArray();
-        List<AionTransaction> txs = block.getTransactionsList();
-        for (int i = 0; i < txs.size(); i++) {
-            AionTransaction tx = txs.get(i);
-            if (fullTransaction) {
+        if (fullTransaction) {
+            List<AionTransaction> txs = block.getTransactionsList();
+            for (int i = 0; i < txs.size(); i++) {
+                AionTransaction tx = txs.get(i);
                 JSONObject jsonTx = new JSONObject();
                 jsonTx.put("contractAddress", (tx.getContractAddress() != null)? TypeConverter.toJsonHex(tx.getContractAddress().toString()):null);
                 jsonTx.put("hash", TypeConverter.toJsonHex(tx.getHash()));
@@ -90,8 +90,11 @@ public class Blk {
                 jsonTx.put("input", TypeConverter.toJsonHex(tx.getData()));
                 jsonTx.put("blockNumber", block.getNumber());
                 jsonTxs.put(jsonTx);
-            } else {
-                jsonTxs.put(TypeConverter.toJsonHex(tx.getHash()));
+            }
+        } else {
+            // the hashes are taken from the encoded transactions, which stay undecoded
+            for (byte[] hash : block.getTransactionHashes()) {
+                jsonTxs.put(TypeConverter.toJsonHex(hash));
             }
         }
         obj.put("transactions", jsonTxs);
@@ -125,7 +128,7 @@ public class Blk {
 
         obj.put("extraData", TypeConverter.toJsonHex(block.getExtraData()));
         obj.put("size", block.getEncoded().length);
-        obj.put("numTransactions", block.getTransactionsList().size());
+        obj.put("numTransactions", block.getTransactionCount());
 
         return obj;
     }
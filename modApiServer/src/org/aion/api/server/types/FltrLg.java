@@ -143,6 +143,14 @@ public final class FltrLg extends Fltr {
         }
     }
 
+    /**
+     * @return groups of blooms a block bloom must match, one of each group
+     */
+    public Bloom[][] getFilterBlooms() {
+        initBlooms();
+        return filterBlooms;
+    }
+
     public boolean matchBloom(Bloom blockBloom) {
         initBlooms();
         for (Bloom[] andBloom : filterBlooms) {
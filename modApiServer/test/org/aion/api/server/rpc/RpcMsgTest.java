@@ -0,0 +1,120 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+
+package org.aion.api.server.rpc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class RpcMsgTest {
+
+    private static void assertSameJson(RpcMsg msg) {
+        JSONObject written = new JSONObject(msg.toString());
+        assertThat(written.similar(msg.toJson())).isTrue();
+    }
+
+    @Test
+    public void testWriteMatchesToJson() {
+        assertSameJson(new RpcMsg("0x1").setId(1));
+        assertSameJson(new RpcMsg(true).setId("a"));
+        assertSameJson(new RpcMsg(new JSONObject().put("k", "v")).setId(2));
+        assertSameJson(new RpcMsg(new JSONArray().put(1).put("two")));
+        assertSameJson(new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid parameters").setId(3));
+        assertSameJson(new RpcMsg(null, RpcError.INTERNAL_ERROR));
+    }
+
+    @Test
+    public void testStreamedArray() {
+        List<Integer> items = Arrays.asList(1, 2, 3, 4);
+        // odd items are left out
+        StreamedJsonArray<Integer> array =
+                new StreamedJsonArray<>(
+                        items, i -> i % 2 == 0 ? new JSONObject().put("n", i) : null);
+
+        RpcMsg msg = new RpcMsg(array).setId(7);
+        assertSameJson(msg);
+
+        JSONArray result = new JSONObject(msg.toString()).getJSONArray("result");
+        assertThat(result.length()).isEqualTo(2);
+        assertThat(result.getJSONObject(0).getInt("n")).isEqualTo(2);
+        assertThat(result.getJSONObject(1).getInt("n")).isEqualTo(4);
+    }
+
+    @Test
+    public void testEmptyStreamedArray() {
+        RpcMsg msg = new RpcMsg(new StreamedJsonArray<>(List.of(), i -> i));
+        assertThat(new JSONObject(msg.toString()).getJSONArray("result").length()).isEqualTo(0);
+    }
+
+    private static RpcMsg failingAt(int failing) {
+        List<Integer> items = Arrays.asList(1, 2, 3, 4);
+        return new RpcMsg(
+                        new StreamedJsonArray<>(
+                                items,
+                                i -> {
+                                    if (i == failing) {
+                                        throw new IllegalStateException("no json for " + i);
+                                    }
+                                    return new JSONObject().put("n", i);
+                                }))
+                .setId(9);
+    }
+
+    @Test
+    public void testFailingElementBecomesError() throws IOException {
+        StringWriter out = new StringWriter();
+        RpcProcessor.writeResponse(failingAt(3), out, 1024);
+
+        JSONObject written = new JSONObject(out.toString());
+        assertThat(written.getInt("id")).isEqualTo(9);
+        assertThat(written.has("result")).isFalse();
+        assertThat(written.getJSONObject("error").getInt("code"))
+                .isEqualTo(RpcError.INTERNAL_ERROR.getCode());
+    }
+
+    @Test
+    public void testFailingElementAfterPartialWrite() {
+        StringWriter out = new StringWriter();
+        try {
+            RpcProcessor.writeResponse(failingAt(3), out, 8);
+            fail("a response failing after it was partly written can't be answered");
+        } catch (IOException e) {
+            // expected
+        }
+        assertThat(out.toString()).startsWith("{\"jsonrpc\"");
+    }
+}
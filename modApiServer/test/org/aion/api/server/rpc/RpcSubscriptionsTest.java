@@ -0,0 +1,259 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+
+package org.aion.api.server.rpc;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteUtil;
+import org.aion.base.util.TypeConverter;
+import org.aion.crypto.ECKeyFac;
+import org.aion.crypto.HashUtil;
+import org.aion.mcf.vm.types.Log;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.impl.types.AionBlockSummary;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxReceipt;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class RpcSubscriptionsTest {
+
+    private static class Sink implements RpcSubscriptions.Subscriber {
+        final List<String> received = new ArrayList<>();
+
+        @Override
+        public void send(String message) {
+            received.add(message);
+        }
+    }
+
+    private static final Address CONTRACT =
+            Address.wrap("CAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFE");
+
+    private static final byte[] TOPIC = HashUtil.h256("Event()".getBytes());
+
+    private static AionTransaction tx() {
+        return tx(Address.ZERO_ADDRESS());
+    }
+
+    private static AionTransaction tx(Address to) {
+        AionTransaction tx =
+                new AionTransaction(
+                        ByteUtil.intToBytes(0),
+                        to,
+                        ByteUtil.intToBytes(1),
+                        ByteUtil.EMPTY_BYTE_ARRAY,
+                        21000L,
+                        10_000_000_000L);
+        tx.sign(ECKeyFac.inst().create());
+        return tx;
+    }
+
+    private static String subscribe(RpcSubscriptions subs, RpcSubscriptions.Subscriber s) {
+        RpcMsg msg = subs.subscribe(new JSONArray().put("newPendingTransactions"), s);
+        assertThat(msg.getError()).isNull();
+        return (String) msg.getResult();
+    }
+
+    @Test
+    public void testPendingTransactionFanOut() {
+        RpcSubscriptions subs = new RpcSubscriptions();
+        Sink a = new Sink();
+        Sink b = new Sink();
+        String idA = subscribe(subs, a);
+        String idB = subscribe(subs, b);
+        assertThat(idA).isNotEqualTo(idB);
+
+        AionTransaction tx = tx();
+        subs.onPendingTransaction(tx);
+
+        assertThat(a.received).hasSize(1);
+        assertThat(b.received).hasSize(1);
+
+        JSONObject notification = new JSONObject(a.received.get(0));
+        assertThat(notification.getString("method")).isEqualTo("eth_subscription");
+        JSONObject params = notification.getJSONObject("params");
+        assertThat(params.getString("subscription")).isEqualTo(idA);
+        assertThat(params.getString("result")).isEqualTo(TypeConverter.toJsonHex(tx.getHash()));
+    }
+
+    @Test
+    public void testUnsubscribe() {
+        RpcSubscriptions subs = new RpcSubscriptions();
+        Sink a = new Sink();
+        Sink b = new Sink();
+        String id = subscribe(subs, a);
+
+        // only the connection owning a subscription can cancel it
+        assertThat(subs.unsubscribe(new JSONArray().put(id), b).getResult()).isEqualTo(false);
+        assertThat(subs.unsubscribe(new JSONArray().put(id), a).getResult()).isEqualTo(true);
+        assertThat(subs.size()).isEqualTo(0);
+
+        subs.onPendingTransaction(tx());
+        assertThat(a.received).isEmpty();
+    }
+
+    @Test
+    public void testUnsubscribeAll() {
+        RpcSubscriptions subs = new RpcSubscriptions();
+        Sink a = new Sink();
+        Sink b = new Sink();
+        subscribe(subs, a);
+        subscribe(subs, a);
+        subs.subscribe(new JSONArray().put("newHeads"), a);
+        subs.subscribe(new JSONArray().put("logs").put(new JSONObject()), a);
+        subscribe(subs, b);
+        assertThat(subs.size()).isEqualTo(5);
+
+        subs.unsubscribeAll(a);
+        assertThat(subs.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFailingSubscriberRemoved() {
+        RpcSubscriptions subs = new RpcSubscriptions();
+        subscribe(
+                subs,
+                m -> {
+                    throw new IllegalStateException("websocket closed");
+                });
+        assertThat(subs.size()).isEqualTo(1);
+
+        subs.onPendingTransaction(tx());
+        assertThat(subs.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testInvalidType() {
+        RpcSubscriptions subs = new RpcSubscriptions();
+        RpcMsg msg = subs.subscribe(new JSONArray().put("syncing"), new Sink());
+        assertThat(msg.getError()).isEqualTo(RpcError.INVALID_PARAMS);
+        assertThat(subs.size()).isEqualTo(0);
+    }
+
+    /** A block with one call to the contract, which logged {@code logs} events. */
+    private static AionBlockSummary blockWithLogs(int logs) {
+        AionTransaction tx = tx(CONTRACT);
+        List<Log> logInfos = new ArrayList<>();
+        for (int i = 0; i < logs; i++) {
+            logInfos.add(new Log(CONTRACT, List.of(TOPIC), ByteUtil.intToBytes(i)));
+        }
+        AionTxReceipt receipt = new AionTxReceipt();
+        receipt.setLogs(logInfos);
+        receipt.setTransaction(tx);
+
+        AionBlock block =
+                new AionBlock(
+                        new byte[32],
+                        Address.ZERO_ADDRESS(),
+                        receipt.getBloomFilter().getData(),
+                        BigInteger.ONE.toByteArray(),
+                        1,
+                        System.currentTimeMillis() / 1000,
+                        new byte[32],
+                        new byte[32],
+                        new byte[32],
+                        new byte[32],
+                        new byte[32],
+                        List.of(tx),
+                        new byte[1408],
+                        21000L,
+                        10_000_000L);
+        return new AionBlockSummary(
+                block, Collections.emptyMap(), List.of(receipt), Collections.emptyList());
+    }
+
+    @Test
+    public void testNewHeads() {
+        RpcSubscriptions subs = new RpcSubscriptions();
+        Sink a = new Sink();
+        Sink b = new Sink();
+        String id = (String) subs.subscribe(new JSONArray().put("newHeads"), a).getResult();
+        subs.subscribe(new JSONArray().put("newHeads"), b);
+
+        AionBlockSummary summary = blockWithLogs(0);
+        subs.onBlock(summary);
+
+        assertThat(a.received).hasSize(1);
+        assertThat(b.received).hasSize(1);
+        JSONObject params = new JSONObject(a.received.get(0)).getJSONObject("params");
+        assertThat(params.getString("subscription")).isEqualTo(id);
+        assertThat(params.getJSONObject("result").getString("hash"))
+                .isEqualTo(TypeConverter.toJsonHex(summary.getBlock().getHash()));
+    }
+
+    @Test
+    public void testLogsGroupFanOut() {
+        RpcSubscriptions subs = new RpcSubscriptions();
+        Sink a = new Sink();
+        Sink b = new Sink();
+        Sink other = new Sink();
+        JSONObject filter =
+                new JSONObject()
+                        .put("address", CONTRACT.toString())
+                        .put("topics", new JSONArray().put(TypeConverter.toJsonHex(TOPIC)));
+        String idA = (String) subs.subscribe(new JSONArray().put("logs").put(filter), a).getResult();
+        String idB = (String) subs.subscribe(new JSONArray().put("logs").put(filter), b).getResult();
+        JSONObject otherFilter =
+                new JSONObject().put("address", Address.ZERO_ADDRESS().toString());
+        subs.subscribe(new JSONArray().put("logs").put(otherFilter), other);
+
+        // the same filter is evaluated once for both subscriptions
+        assertThat(subs.logGroupCount()).isEqualTo(2);
+
+        subs.onBlock(blockWithLogs(2));
+
+        assertThat(a.received).hasSize(2);
+        assertThat(b.received).hasSize(2);
+        assertThat(other.received).isEmpty();
+        for (int i = 0; i < 2; i++) {
+            JSONObject paramsA = new JSONObject(a.received.get(i)).getJSONObject("params");
+            JSONObject paramsB = new JSONObject(b.received.get(i)).getJSONObject("params");
+            assertThat(paramsA.getString("subscription")).isEqualTo(idA);
+            assertThat(paramsB.getString("subscription")).isEqualTo(idB);
+            assertThat(paramsA.getJSONObject("result").similar(paramsB.getJSONObject("result")))
+                    .isTrue();
+            assertThat(paramsA.getJSONObject("result").getString("data"))
+                    .isEqualTo(TypeConverter.toJsonHex(ByteUtil.intToBytes(i)));
+        }
+
+        // the group goes once its last member leaves
+        subs.unsubscribe(new JSONArray().put(idA), a);
+        assertThat(subs.logGroupCount()).isEqualTo(2);
+        subs.unsubscribe(new JSONArray().put(idB), b);
+        assertThat(subs.logGroupCount()).isEqualTo(1);
+    }
+}
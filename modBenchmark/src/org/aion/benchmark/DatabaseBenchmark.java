@@ -0,0 +1,140 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.db.impl.DatabaseFactory;
+import org.aion.db.impl.DatabaseFactory.Props;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Point reads and writes against each embedded database driver, without the heap cache or
+ * locking wrappers. MongoDB is left out since it needs a running server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatabaseBenchmark {
+
+    private static final int KEYS = 10_000;
+    private static final int BATCH = 100;
+
+    @Param({"mockdb", "leveldb", "rocksdb", "h2"})
+    public String vendor;
+
+    private File dir;
+    private IByteArrayKeyValueDatabase db;
+    private byte[][] keys;
+    private byte[] value;
+    private Random random;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("aion-bench").toFile();
+
+        Properties props = new Properties();
+        props.setProperty(Props.DB_TYPE, vendor);
+        props.setProperty(Props.DB_NAME, "bench");
+        props.setProperty(Props.DB_PATH, dir.getAbsolutePath());
+        props.setProperty(Props.ENABLE_LOCKING, "false");
+        props.setProperty(Props.ENABLE_HEAP_CACHE, "false");
+        db = DatabaseFactory.connect(props);
+        if (db == null || !db.open()) {
+            throw new IllegalStateException("Unable to open " + vendor + " database.");
+        }
+
+        random = new Random(42);
+        keys = new byte[KEYS][];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = new byte[32];
+            random.nextBytes(keys[i]);
+        }
+        value = new byte[128];
+        random.nextBytes(value);
+
+        Map<byte[], byte[]> all = new HashMap<>();
+        for (byte[] key : keys) {
+            all.put(key, value);
+        }
+        db.putBatch(all);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        db.close();
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public Optional<byte[]> get() {
+        return db.get(keys[random.nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    public void put() {
+        db.put(keys[random.nextInt(KEYS)], value);
+    }
+
+    @Benchmark
+    public void putBatch() {
+        Map<byte[], byte[]> batch = new HashMap<>();
+        for (int i = 0; i < BATCH; i++) {
+            batch.put(keys[random.nextInt(KEYS)], value);
+        }
+        db.putBatch(batch);
+    }
+}
@@ -0,0 +1,100 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.aion.crypto.ISignature;
+import org.aion.crypto.SignatureFac;
+import org.aion.crypto.ed25519.ECKeyEd25519;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Signature checks over a 32 byte transaction hash, one at a time and in batches. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Ed25519Benchmark {
+
+    private static final int BATCH = 256;
+
+    private ECKeyEd25519 key;
+    private byte[] message;
+    private ISignature signature;
+    private List<byte[]> messages;
+    private List<ISignature> signatures;
+
+    @Setup
+    public void setup() {
+        key = new ECKeyEd25519();
+        message = new byte[32];
+        new Random(42).nextBytes(message);
+        signature = key.sign(message);
+
+        messages = new ArrayList<>(BATCH);
+        signatures = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            messages.add(message);
+            signatures.add(signature);
+        }
+    }
+
+    @Benchmark
+    public ISignature sign() {
+        return key.sign(message);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return ECKeyEd25519.verify(message, signature.getSignature(), signature.getPubkey(null));
+    }
+
+    @Benchmark
+    public boolean verifyEncoded() {
+        return SignatureFac.verify(message, signature);
+    }
+
+    @Benchmark
+    public boolean[] verifyBatch() {
+        return SignatureFac.verify(messages, signatures);
+    }
+}
@@ -0,0 +1,114 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.benchmark;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.aion.base.db.IRepositoryCache;
+import org.aion.base.type.Address;
+import org.aion.mcf.vm.types.DataWord;
+import org.aion.zero.impl.StandaloneBlockchain;
+import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pushing a tracked set of balance and storage changes down into the repository, as done at the
+ * end of each transaction and block.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryCacheBenchmark {
+
+    @Param({"100"})
+    public int accounts;
+
+    @Param({"10"})
+    public int storageRows;
+
+    private AionRepositoryImpl repository;
+    private Address[] addresses;
+    private IRepositoryCache track;
+
+    @Setup
+    public void setup() {
+        repository =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        .build()
+                        .bc
+                        .getRepository();
+
+        Random random = new Random(42);
+        addresses = new Address[accounts];
+        for (int i = 0; i < accounts; i++) {
+            byte[] address = new byte[Address.ADDRESS_LEN];
+            random.nextBytes(address);
+            addresses[i] = Address.wrap(address);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void track() {
+        track = repository.startTracking();
+        for (Address address : addresses) {
+            track.addBalance(address, BigInteger.ONE);
+            for (int j = 0; j < storageRows; j++) {
+                track.addStorageRow(address, new DataWord(j), new DataWord(j + 1));
+            }
+        }
+    }
+
+    @Benchmark
+    public void flushTrack() {
+        track.flush();
+    }
+
+    @Benchmark
+    public void flushToDatabase() {
+        track.flush();
+        repository.flush();
+    }
+}
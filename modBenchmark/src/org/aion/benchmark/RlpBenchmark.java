@@ -0,0 +1,106 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.aion.rlp.RLP;
+import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPView;
+import org.aion.rlp.RLPWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Encoding and decoding a list shaped like a transaction. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RlpBenchmark {
+
+    private static final int ELEMENTS = 8;
+
+    @Param({"32", "1024"})
+    public int elementSize;
+
+    private byte[][] elements;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        elements = new byte[ELEMENTS][];
+        for (int i = 0; i < ELEMENTS; i++) {
+            elements[i] = new byte[elementSize];
+            random.nextBytes(elements[i]);
+        }
+        encoded = encodeList();
+    }
+
+    @Benchmark
+    public byte[] encodeList() {
+        byte[][] items = new byte[ELEMENTS][];
+        for (int i = 0; i < ELEMENTS; i++) {
+            items[i] = RLP.encodeElement(elements[i]);
+        }
+        return RLP.encodeList(items);
+    }
+
+    @Benchmark
+    public byte[] writeList() {
+        RLPWriter writer = new RLPWriter();
+        writer.startList();
+        for (int i = 0; i < ELEMENTS; i++) {
+            writer.writeElement(elements[i]);
+        }
+        return writer.endList().toByteArray();
+    }
+
+    @Benchmark
+    public RLPList decodeList() {
+        return RLP.decode2(encoded);
+    }
+
+    /** Indexes the list and reads one element, the way codecs touch a single field. */
+    @Benchmark
+    public byte[] viewList() {
+        return RLPView.wrap(encoded).get(ELEMENTS - 1).getRLPData();
+    }
+}
@@ -0,0 +1,124 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.benchmark;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.aion.base.type.Address;
+import org.aion.base.type.ITransaction;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.txpool.zero.TxPoolA0;
+import org.aion.zero.types.AionTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Admission of signed transactions into the pool and selection of a block's worth of them. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TxPoolBenchmark {
+
+    private static final Address TO =
+            Address.wrap("0000000000000000000000000000000000000000000000000000000000000001");
+
+    @Param({"10"})
+    public int accounts;
+
+    @Param({"100"})
+    public int txPerAccount;
+
+    private List<ITransaction> txs;
+    private TxPoolA0<ITransaction> pool;
+    private TxPoolA0<ITransaction> filled;
+
+    @Setup
+    public void setup() {
+        ECKeyFac.setType(ECKeyFac.ECKeyType.ED25519);
+
+        txs = new ArrayList<>(accounts * txPerAccount);
+        for (int a = 0; a < accounts; a++) {
+            ECKey key = ECKeyFac.inst().create();
+            for (int n = 0; n < txPerAccount; n++) {
+                AionTransaction tx =
+                        new AionTransaction(
+                                BigInteger.valueOf(n).toByteArray(),
+                                Address.wrap(key.getAddress()),
+                                TO,
+                                BigInteger.ONE.toByteArray(),
+                                new byte[0],
+                                10000L,
+                                1L + n % 7);
+                tx.setNrgConsume(5000L);
+                tx.sign(key);
+                txs.add(tx);
+            }
+        }
+
+        filled = newPool();
+        filled.add(txs);
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyPool() {
+        pool = newPool();
+    }
+
+    private static TxPoolA0<ITransaction> newPool() {
+        Properties config = new Properties();
+        config.put("tx-timeout", "100");
+        return new TxPoolA0<>(config);
+    }
+
+    @Benchmark
+    public List<ITransaction> add() {
+        return pool.add(txs);
+    }
+
+    @Benchmark
+    public List<ITransaction> snapshot() {
+        return filled.snapshot();
+    }
+}
@@ -197,6 +197,7 @@ public class Aion {
                 rpcBuilder.setIoPoolSize(rpcCfg.getIoThreads());
                 rpcBuilder.setRequestQueueSize(rpcCfg.getRequestQueueSize());
                 rpcBuilder.setStuckThreadDetectorEnabled(rpcCfg.isStuckThreadDetectorEnabled());
+                rpcBuilder.setWebSocketEnabled(rpcCfg.isWsEnabled());
 
                 if (rpcCfg.isCorsEnabled())
                     rpcBuilder.enableCorsWithOrigin(rpcCfg.getCorsOrigin());
@@ -23,6 +23,8 @@
  ******************************************************************************/
 package org.aion.crypto;
 
+import java.util.List;
+import java.util.stream.IntStream;
 import org.aion.crypto.ecdsa.ECDSASignature;
 import org.aion.crypto.ecdsa.ECKeySecp256k1;
 import org.aion.crypto.ed25519.ECKeyEd25519;
@@ -35,6 +37,9 @@ import org.aion.crypto.ed25519.Ed25519Signature;
  */
 public class SignatureFac {
 
+    /** Below this size a batch is checked on the calling thread. */
+    private static final int PARALLEL_BATCH_SIZE = 16;
+
     /**
      * @param bytes
      * @return
@@ -79,4 +84,26 @@ public class SignatureFac {
                 throw new RuntimeException("ECKey type is not set!");
         }
     }
+
+    /**
+     * Verify a batch of signatures. Large batches are split over the common fork-join pool; each
+     * signature is still checked on its own so that the invalid ones can be told apart.
+     *
+     * @param msgs messages for signing
+     * @param sigs the signatures, one per message
+     * @return the result for each signature, in the given order
+     */
+    public static boolean[] verify(List<byte[]> msgs, List<ISignature> sigs) {
+        if (msgs.size() != sigs.size()) {
+            throw new IllegalArgumentException("Messages and signatures differ in count!");
+        }
+
+        boolean[] valid = new boolean[sigs.size()];
+        IntStream range = IntStream.range(0, valid.length);
+        if (valid.length >= PARALLEL_BATCH_SIZE) {
+            range = range.parallel();
+        }
+        range.forEach(i -> valid[i] = verify(msgs.get(i), sigs.get(i)));
+        return valid;
+    }
 }
@@ -37,6 +37,10 @@ package org.aion.crypto;
 import org.junit.AfterClass;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class SignatureTest {
@@ -70,6 +74,34 @@ public class SignatureTest {
         assertTrue(SignatureFac.verify(msgHash, SignatureFac.fromBytes(sig.toBytes())));
     }
 
+    @Test
+    public void testED25519BatchVerify() {
+        ECKeyFac.setType(ECKeyFac.ECKeyType.ED25519);
+
+        ECKey key = ECKeyFac.inst().create();
+        List<byte[]> msgs = new ArrayList<>();
+        List<ISignature> sigs = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            byte[] msgHash = HashUtil.h256(("test" + i).getBytes());
+            msgs.add(msgHash);
+            sigs.add(key.sign(msgHash));
+        }
+
+        // a tampered message and a signature over another message
+        msgs.get(7)[0] ^= 1;
+        sigs.set(31, sigs.get(30));
+
+        boolean[] valid = SignatureFac.verify(msgs, sigs);
+        assertEquals(msgs.size(), valid.length);
+        for (int i = 0; i < valid.length; i++) {
+            assertEquals(i != 7 && i != 31, valid[i]);
+        }
+
+        // small batches are checked on the calling thread
+        valid = SignatureFac.verify(msgs.subList(5, 9), sigs.subList(5, 9));
+        assertTrue(valid[0] && valid[1] && !valid[2] && valid[3]);
+    }
+
     @AfterClass
     public static void teardown() {
         ECKeyFac.setType(ECKeyFac.ECKeyType.ED25519);
@@ -127,6 +127,19 @@ public class DatabaseWithCache implements IByteArrayKeyValueDatabase {
                 // Load from the data source.
                 return database.get(keyToLoad.getData());
             }
+
+            @Override
+            public Map<ByteArrayWrapper, Optional<byte[]>> loadAll(
+                    Iterable<? extends ByteArrayWrapper> keysToLoad) {
+                List<byte[]> keys = new ArrayList<>();
+                keysToLoad.forEach(k -> keys.add(k.getData()));
+
+                // read the missing keys together and remember the ones without a value too
+                Map<ByteArrayWrapper, byte[]> values = database.getAll(keys);
+                Map<ByteArrayWrapper, Optional<byte[]>> loaded = new HashMap<>();
+                keysToLoad.forEach(k -> loaded.put(k, Optional.ofNullable(values.get(k))));
+                return loaded;
+            }
         });
     }
 
@@ -299,6 +312,11 @@ public class DatabaseWithCache implements IByteArrayKeyValueDatabase {
         return database.approximateSize();
     }
 
+    @Override
+    public Map<String, Long> getStatistics() {
+        return database.getStatistics();
+    }
+
     @Override
     public String toString() {
         return this.getClass().getSimpleName() + ":" + propertiesInfo() + " over " + this.database.toString();
@@ -403,6 +421,78 @@ public class DatabaseWithCache implements IByteArrayKeyValueDatabase {
         return v;
     }
 
+    /**
+     * Returns the values from the cache where they exist and loads the others from the database
+     * in a single multi-get.
+     */
+    @Override
+    public Map<ByteArrayWrapper, byte[]> getAll(Collection<byte[]> keys) {
+        AbstractDB.check(keys);
+
+        Map<ByteArrayWrapper, byte[]> values = new HashMap<>();
+
+        // this runtime exception should not be caught here
+        check();
+
+        List<ByteArrayWrapper> wrapped = new ArrayList<>(keys.size());
+        keys.forEach(k -> wrapped.add(ByteArrayWrapper.wrap(k)));
+
+        try {
+            this.loadingCache
+                    .getAll(wrapped)
+                    .forEach((k, v) -> v.ifPresent(value -> values.put(k, value)));
+        } catch (Exception e) {
+            LOG.error("Unable to retrieve values for the given keys.", e);
+        }
+
+        return values;
+    }
+
+    /**
+     * Returns the range from the database merged with the changes not yet committed to it.
+     */
+    @Override
+    public List<Map.Entry<byte[], byte[]>> getRange(byte[] from, byte[] to, int limit) {
+        AbstractDB.check(from);
+
+        check();
+
+        Map<ByteArrayWrapper, byte[]> dirty = new HashMap<>();
+        dirtyEntries.forEach(
+                (k, v) -> {
+                    if (AbstractDB.inRange(k.getData(), from, to)) {
+                        dirty.put(k, v);
+                    }
+                });
+
+        if (dirty.isEmpty()) {
+            return database.getRange(from, to, limit);
+        }
+
+        // every uncommitted deletion may hide one of the stored entries
+        TreeMap<byte[], byte[]> merged = new TreeMap<>(Arrays::compareUnsigned);
+        for (Map.Entry<byte[], byte[]> e : database.getRange(from, to, limit + dirty.size())) {
+            merged.put(e.getKey(), e.getValue());
+        }
+        dirty.forEach(
+                (k, v) -> {
+                    if (v == null) {
+                        merged.remove(k.getData());
+                    } else {
+                        merged.put(k.getData(), v);
+                    }
+                });
+
+        List<Map.Entry<byte[], byte[]>> entries = new ArrayList<>(Math.min(limit, merged.size()));
+        for (Map.Entry<byte[], byte[]> e : merged.entrySet()) {
+            if (entries.size() == limit) {
+                break;
+            }
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(e.getKey(), e.getValue()));
+        }
+        return entries;
+    }
+
     @Override
     public void put(byte[] k, byte[] v) {
         AbstractDB.check(k);
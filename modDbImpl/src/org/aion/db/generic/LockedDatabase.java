@@ -30,11 +30,13 @@ package org.aion.db.generic;
 
 import org.aion.base.db.IByteArrayKeyValueDatabase;
 import org.aion.base.db.PersistenceMethod;
+import org.aion.base.util.ByteArrayWrapper;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.slf4j.Logger;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -206,6 +208,19 @@ public class LockedDatabase implements IByteArrayKeyValueDatabase {
         }
     }
 
+    @Override
+    public Map<String, Long> getStatistics() {
+        // acquire read lock
+        lock.readLock().lock();
+
+        try {
+            return database.getStatistics();
+        } finally {
+            // releasing read lock
+            lock.readLock().unlock();
+        }
+    }
+
     // IKeyValueStore functionality ------------------------------------------------------------------------------------
 
     @Override
@@ -253,6 +268,36 @@ public class LockedDatabase implements IByteArrayKeyValueDatabase {
         }
     }
 
+    @Override
+    public Map<ByteArrayWrapper, byte[]> getAll(Collection<byte[]> keys) {
+        // acquire read lock
+        lock.readLock().lock();
+
+        try {
+            return database.getAll(keys);
+        } catch (Exception e) {
+            throw e;
+        } finally {
+            // releasing read lock
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Map.Entry<byte[], byte[]>> getRange(byte[] from, byte[] to, int limit) {
+        // acquire read lock
+        lock.readLock().lock();
+
+        try {
+            return database.getRange(from, to, limit);
+        } catch (Exception e) {
+            throw e;
+        } finally {
+            // releasing read lock
+            lock.readLock().unlock();
+        }
+    }
+
     @Override
     public void put(byte[] key, byte[] value) {
         // acquire write lock
@@ -29,11 +29,13 @@
 package org.aion.db.generic;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
 import org.aion.base.db.PersistenceMethod;
+import org.aion.base.util.ByteArrayWrapper;
 import org.aion.base.util.Hex;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
@@ -166,6 +168,16 @@ public class TimedDatabase implements IByteArrayKeyValueDatabase {
         return result;
     }
 
+    @Override
+    public Map<String, Long> getStatistics() {
+        long t1 = System.nanoTime();
+        Map<String, Long> result = database.getStatistics();
+        long t2 = System.nanoTime();
+
+        LOG.debug(database.toString() + " getStatistics() in " + (t2 - t1) + " ns.");
+        return result;
+    }
+
     // IKeyValueStore functionality
     // ------------------------------------------------------------------------------------
 
@@ -205,6 +217,42 @@ public class TimedDatabase implements IByteArrayKeyValueDatabase {
         return value;
     }
 
+    @Override
+    public Map<ByteArrayWrapper, byte[]> getAll(Collection<byte[]> keys) {
+        long t1 = System.nanoTime();
+        Map<ByteArrayWrapper, byte[]> values = database.getAll(keys);
+        long t2 = System.nanoTime();
+
+        LOG.debug(
+                database.toString()
+                        + " getAll(keys) in "
+                        + (t2 - t1)
+                        + " ns."
+                        + "\n\t\t\t\t\tkeys = "
+                        + (keys != null ? keys.size() : "null"));
+        return values;
+    }
+
+    @Override
+    public List<Map.Entry<byte[], byte[]>> getRange(byte[] from, byte[] to, int limit) {
+        long t1 = System.nanoTime();
+        List<Map.Entry<byte[], byte[]>> entries = database.getRange(from, to, limit);
+        long t2 = System.nanoTime();
+
+        LOG.debug(
+                database.toString()
+                        + " getRange(from, to, limit) in "
+                        + (t2 - t1)
+                        + " ns."
+                        + "\n\t\t\t\t\tfrom = "
+                        + (from != null ? Hex.toHexString(from) : "null")
+                        + " to = "
+                        + (to != null ? Hex.toHexString(to) : "null")
+                        + " entries = "
+                        + entries.size());
+        return entries;
+    }
+
     @Override
     public void put(byte[] key, byte[] value) {
         long t1 = System.nanoTime();
@@ -210,4 +210,84 @@ public abstract class AbstractDB implements IByteArrayKeyValueDatabase {
      * @return the value stored in the database for the give key.
      */
     protected abstract byte[] getInternal(byte[] k);
-}
+
+    @Override
+    public Map<ByteArrayWrapper, byte[]> getAll(Collection<byte[]> keys) {
+        check(keys);
+
+        check();
+
+        return getAllInternal(keys);
+    }
+
+    /**
+     * Database specific multi-get functionality, without locking required. By default the keys
+     * are retrieved one at a time, databases able to read them together overwrite this method.
+     *
+     * @param keys the keys for which the method must return the associated values
+     * @return the values stored in the database by key, without the keys that have no value
+     */
+    protected Map<ByteArrayWrapper, byte[]> getAllInternal(Collection<byte[]> keys) {
+        Map<ByteArrayWrapper, byte[]> values = new HashMap<>();
+        for (byte[] k : keys) {
+            byte[] v = getInternal(k);
+            if (v != null) {
+                values.put(ByteArrayWrapper.wrap(k), v);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public List<Map.Entry<byte[], byte[]>> getRange(byte[] from, byte[] to, int limit) {
+        check(from);
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The number of entries must be positive.");
+        }
+
+        check();
+
+        return getRangeInternal(from, to, limit);
+    }
+
+    /**
+     * Database specific range functionality, without locking required. By default the keys of the
+     * database are sorted to find the range, databases ordered by key overwrite this method to
+     * read the range directly.
+     *
+     * @param from the smallest key included in the range
+     * @param to the key ending the range, excluded, or {@code null} for no upper bound
+     * @param limit the maximum number of entries to return
+     * @return the entries of the range in ascending key order
+     */
+    protected List<Map.Entry<byte[], byte[]>> getRangeInternal(byte[] from, byte[] to, int limit) {
+        List<byte[]> keys = new ArrayList<>();
+        for (byte[] k : keys()) {
+            if (inRange(k, from, to)) {
+                keys.add(k);
+            }
+        }
+        keys.sort(Arrays::compareUnsigned);
+
+        List<Map.Entry<byte[], byte[]>> entries = new ArrayList<>();
+        for (byte[] k : keys) {
+            if (entries.size() == limit) {
+                break;
+            }
+            byte[] v = getInternal(k);
+            if (v != null) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(k, v));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Checks if the key is in the range [{@code from}, {@code to}) in the unsigned lexicographic
+     * order of the keys used by {@link #getRange(byte[], byte[], int)}.
+     */
+    public static boolean inRange(byte[] k, byte[] from, byte[] to) {
+        return Arrays.compareUnsigned(k, from) >= 0
+                && (to == null || Arrays.compareUnsigned(k, to) < 0);
+    }
+}
\ No newline at end of file
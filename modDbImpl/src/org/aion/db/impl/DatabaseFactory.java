@@ -62,6 +62,8 @@ public abstract class DatabaseFactory {
         public static final String DB_PATH = "db_path";
 
         public static final String CHECK_INTEGRITY = "check_integrity";
+        public static final String TRIE_CACHE_SIZE = "trie_cache_size";
+        public static final String TRIE_FLUSH_SIZE = "trie_flush_size";
 
         public static final String ENABLE_AUTO_COMMIT = "enable_auto_commit";
         public static final String ENABLE_DB_CACHE = "enable_db_cache";
@@ -79,6 +81,12 @@ public abstract class DatabaseFactory {
 
         public static final String WRITE_BUFFER_SIZE = "write_buffer_size";
         public static final String READ_BUFFER_SIZE = "read_buffer_size";
+
+        public static final String BLOOM_FILTER_BITS = "bloom_filter_bits";
+        public static final String PIN_FILTER_AND_INDEX = "pin_filter_and_index";
+        public static final String SHARED_ROW_CACHE_SIZE = "shared_row_cache_size";
+        public static final String ENABLE_WAL = "enable_wal";
+        public static final String ENABLE_DB_STATS = "enable_db_stats";
     }
 
     public static IByteArrayKeyValueDatabase connect(Properties info) {
@@ -200,7 +208,12 @@ public abstract class DatabaseFactory {
                                           getInt(info, Props.BLOCK_SIZE, RocksDBConstants.BLOCK_SIZE),
                                           getInt(info, Props.WRITE_BUFFER_SIZE, RocksDBConstants.WRITE_BUFFER_SIZE),
                                           getInt(info, Props.READ_BUFFER_SIZE, RocksDBConstants.READ_BUFFER_SIZE),
-                                          getInt(info, Props.DB_CACHE_SIZE, RocksDBConstants.CACHE_SIZE));
+                                          getInt(info, Props.DB_CACHE_SIZE, RocksDBConstants.CACHE_SIZE),
+                                          getInt(info, Props.BLOOM_FILTER_BITS, 0),
+                                          getBoolean(info, Props.PIN_FILTER_AND_INDEX),
+                                          getInt(info, Props.SHARED_ROW_CACHE_SIZE, 0),
+                                          Boolean.parseBoolean(info.getProperty(Props.ENABLE_WAL, "true")),
+                                          getBoolean(info, Props.ENABLE_DB_STATS));
             }
             case H2: {
                 return new H2MVMap(dbName, dbPath, enableDbCache, enableDbCompression);
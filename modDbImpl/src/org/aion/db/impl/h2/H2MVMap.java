@@ -36,14 +36,18 @@ package org.aion.db.impl.h2;
 
 import org.aion.base.util.ByteArrayWrapper;
 import org.aion.db.impl.AbstractDB;
+import org.h2.mvstore.Cursor;
 import org.h2.mvstore.FileStore;
 import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
 import org.h2.mvstore.MVStoreTool;
 
 import java.io.File;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -247,6 +251,23 @@ public class H2MVMap extends AbstractDB {
         return map.get(k);
     }
 
+    @Override
+    protected List<Entry<byte[], byte[]>> getRangeInternal(byte[] from, byte[] to, int limit) {
+        List<Entry<byte[], byte[]>> entries = new ArrayList<>();
+
+        // the map is ordered by the unsigned comparison of the keys
+        Cursor<byte[], byte[]> cursor = map.cursor(from);
+        while (cursor.hasNext() && entries.size() < limit) {
+            byte[] key = cursor.next();
+            if (to != null && !inRange(key, from, to)) {
+                break;
+            }
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(key, cursor.getValue()));
+        }
+
+        return entries;
+    }
+
     @Override
     public void put(byte[] k, byte[] v) {
         check(k);
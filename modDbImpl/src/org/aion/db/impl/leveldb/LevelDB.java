@@ -41,8 +41,11 @@ import org.iq80.leveldb.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -270,6 +273,45 @@ public class LevelDB extends AbstractDB {
         return db.get(k);
     }
 
+    /** Reads all the keys from a single snapshot of the database. */
+    @Override
+    protected Map<ByteArrayWrapper, byte[]> getAllInternal(Collection<byte[]> keys) {
+        Map<ByteArrayWrapper, byte[]> values = new HashMap<>();
+
+        try (Snapshot snapshot = db.getSnapshot()) {
+            ReadOptions options = new ReadOptions().snapshot(snapshot);
+            for (byte[] k : keys) {
+                byte[] v = db.get(k, options);
+                if (v != null) {
+                    values.put(ByteArrayWrapper.wrap(k), v);
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("Unable to release snapshot of " + this.toString() + ".", e);
+        }
+
+        return values;
+    }
+
+    @Override
+    protected List<Map.Entry<byte[], byte[]>> getRangeInternal(byte[] from, byte[] to, int limit) {
+        List<Map.Entry<byte[], byte[]>> entries = new ArrayList<>();
+
+        try (DBIterator itr = db.iterator()) {
+            for (itr.seek(from); itr.hasNext() && entries.size() < limit; ) {
+                Map.Entry<byte[], byte[]> entry = itr.next();
+                if (to != null && !inRange(entry.getKey(), from, to)) {
+                    break;
+                }
+                entries.add(entry);
+            }
+        } catch (Exception e) {
+            LOG.error("Unable to extract range from database " + this.toString() + ".", e);
+        }
+
+        return entries;
+    }
+
     @Override
     public void put(byte[] k, byte[] v) {
         check(k);
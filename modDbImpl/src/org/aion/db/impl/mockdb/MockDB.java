@@ -95,6 +95,21 @@ public class MockDB extends AbstractDB {
         return kv.get(ByteArrayWrapper.wrap(k));
     }
 
+    @Override
+    protected List<Map.Entry<byte[], byte[]>> getRangeInternal(byte[] from, byte[] to, int limit) {
+        List<Map.Entry<byte[], byte[]>> entries = new ArrayList<>();
+        for (Map.Entry<ByteArrayWrapper, byte[]> e : kv.entrySet()) {
+            byte[] key = e.getKey().getData();
+            if (inRange(key, from, to)) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(key, e.getValue()));
+            }
+        }
+
+        // the map is not ordered
+        entries.sort((e1, e2) -> Arrays.compareUnsigned(e1.getKey(), e2.getKey()));
+        return entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+    }
+
     @Override
     public void put(byte[] k, byte[] v) {
         check(k);
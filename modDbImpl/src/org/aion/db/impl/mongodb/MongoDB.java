@@ -1,6 +1,7 @@
 package org.aion.db.impl.mongodb;
 
 import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.in;
 
 import com.mongodb.ClientSessionOptions;
 import com.mongodb.ReadConcern;
@@ -295,6 +296,25 @@ public class MongoDB extends AbstractDB {
         }
     }
 
+    /** Reads all the keys with a single query. */
+    @Override
+    protected Map<ByteArrayWrapper, byte[]> getAllInternal(Collection<byte[]> keys) {
+        Map<ByteArrayWrapper, byte[]> values = new HashMap<>();
+        if (keys.isEmpty()) {
+            return values;
+        }
+
+        List<BsonBinary> ids = keys.stream().map(BsonBinary::new).collect(Collectors.toList());
+        for (BsonDocument document :
+                this.collection.find(this.clientSession, in(MongoConstants.ID_FIELD_NAME, ids))) {
+            values.put(
+                    ByteArrayWrapper.wrap(document.getBinary(MongoConstants.ID_FIELD_NAME).getData()),
+                    document.getBinary(MongoConstants.VALUE_FIELD_NAME).getData());
+        }
+
+        return values;
+    }
+
     @Override
     public void put(byte[] key, byte[] value) {
         check();
@@ -7,5 +7,10 @@ public class RocksDBConstants {
     public static int READ_BUFFER_SIZE = 64 * 1024 * 1024;
     public static int CACHE_SIZE = 128 * 1024 * 1024;
 
+    /** Bits per key of the bloom filters used by point-lookup heavy databases. */
+    public static int BLOOM_FILTER_BITS = 10;
+    /** Size of the row cache shared by all databases that enable it. */
+    public static int SHARED_ROW_CACHE_SIZE = 64 * 1024 * 1024;
+
     private RocksDBConstants() {}
 }
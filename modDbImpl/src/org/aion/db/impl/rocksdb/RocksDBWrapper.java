@@ -31,12 +31,55 @@ import java.util.*;
 
 public class RocksDBWrapper extends AbstractDB {
 
+    /** Tickers reported by {@link #getStatistics()} when statistics are enabled. */
+    private static final List<TickerType> REPORTED_TICKERS =
+            List.of(
+                    TickerType.BLOCK_CACHE_HIT,
+                    TickerType.BLOCK_CACHE_MISS,
+                    TickerType.BLOCK_CACHE_INDEX_MISS,
+                    TickerType.BLOCK_CACHE_FILTER_MISS,
+                    TickerType.BLOOM_FILTER_USEFUL,
+                    TickerType.MEMTABLE_HIT,
+                    TickerType.MEMTABLE_MISS,
+                    TickerType.GET_HIT_L0,
+                    TickerType.GET_HIT_L1,
+                    TickerType.GET_HIT_L2_AND_UP,
+                    TickerType.ROW_CACHE_HIT,
+                    TickerType.ROW_CACHE_MISS,
+                    TickerType.BYTES_READ,
+                    TickerType.BYTES_WRITTEN,
+                    TickerType.STALL_MICROS);
+
+    /** Properties reported by {@link #getStatistics()} for every open database. */
+    private static final List<String> REPORTED_PROPERTIES =
+            List.of(
+                    "rocksdb.estimate-num-keys",
+                    "rocksdb.cur-size-all-mem-tables",
+                    "rocksdb.estimate-table-readers-mem",
+                    "rocksdb.num-running-compactions");
+
+    // row cache shared by every database that enables it, released with the last one
+    private static LRUCache sharedRowCache;
+    private static int sharedRowCacheUsers;
+
     private RocksDB db;
     private final int maxOpenFiles;
     private final int blockSize;
     private final int writeBufferSize;
     private final int readBufferSize;
     private final int cacheSize;
+    private final int bloomFilterBits;
+    private final boolean pinFilterAndIndex;
+    private final int sharedRowCacheSize;
+    private final boolean enableWal;
+    private final boolean enableStatistics;
+
+    // native resources held while the database is open
+    private Options options;
+    private WriteOptions writeOptions;
+    private Filter filter;
+    private Statistics statistics;
+    private boolean usesSharedRowCache;
 
     public RocksDBWrapper(String name,
                           String path,
@@ -47,6 +90,34 @@ public class RocksDBWrapper extends AbstractDB {
                           int writeBufferSize,
                           int readBufferSize,
                           int cacheSize) {
+        this(name, path, enableDbCache, enableDbCompression, maxOpenFiles, blockSize,
+             writeBufferSize, readBufferSize, cacheSize, 0, false, 0, true, false);
+    }
+
+    /**
+     * @param bloomFilterBits bits per key of the table bloom filters, {@code 0} disables them
+     * @param pinFilterAndIndex keeps index and filter blocks in the block cache, pinning the
+     *     ones of level 0 files
+     * @param sharedRowCacheSize size of the row cache shared with the other databases that
+     *     enable it, {@code 0} disables it
+     * @param enableWal when {@code false} writes skip the write ahead log, to be used only for
+     *     data that can be rebuilt since the latest writes are lost on a crash
+     * @param enableStatistics collects the statistics returned by {@link #getStatistics()}
+     */
+    public RocksDBWrapper(String name,
+                          String path,
+                          boolean enableDbCache,
+                          boolean enableDbCompression,
+                          int maxOpenFiles,
+                          int blockSize,
+                          int writeBufferSize,
+                          int readBufferSize,
+                          int cacheSize,
+                          int bloomFilterBits,
+                          boolean pinFilterAndIndex,
+                          int sharedRowCacheSize,
+                          boolean enableWal,
+                          boolean enableStatistics) {
         super(name, path, enableDbCache, enableDbCompression);
 
         this.maxOpenFiles = maxOpenFiles;
@@ -54,6 +125,11 @@ public class RocksDBWrapper extends AbstractDB {
         this.writeBufferSize = writeBufferSize;
         this.readBufferSize = readBufferSize;
         this.cacheSize = cacheSize;
+        this.bloomFilterBits = bloomFilterBits;
+        this.pinFilterAndIndex = pinFilterAndIndex;
+        this.sharedRowCacheSize = sharedRowCacheSize;
+        this.enableWal = enableWal;
+        this.enableStatistics = enableStatistics;
 
         RocksDB.loadLibrary();
     }
@@ -75,6 +151,16 @@ public class RocksDBWrapper extends AbstractDB {
         options.setMaxOpenFiles(this.maxOpenFiles);
         options.setTableFormatConfig(setupBlockBasedTableConfig());
 
+        if (sharedRowCacheSize > 0) {
+            options.setRowCache(acquireSharedRowCache(sharedRowCacheSize));
+            usesSharedRowCache = true;
+        }
+
+        if (enableStatistics) {
+            statistics = new Statistics();
+            options.setStatistics(statistics);
+        }
+
         return options;
     }
 
@@ -83,9 +169,86 @@ public class RocksDBWrapper extends AbstractDB {
         bbtc.setBlockSize(this.blockSize);
         bbtc.setBlockCacheSize(this.cacheSize);
 
+        if (bloomFilterBits > 0) {
+            filter = new BloomFilter(bloomFilterBits, false);
+            bbtc.setFilter(filter);
+        }
+
+        if (pinFilterAndIndex) {
+            bbtc.setCacheIndexAndFilterBlocks(true);
+            bbtc.setPinL0FilterAndIndexBlocksInCache(true);
+        }
+
         return bbtc;
     }
 
+    private static synchronized LRUCache acquireSharedRowCache(int size) {
+        if (sharedRowCache == null) {
+            sharedRowCache = new LRUCache(size);
+        }
+        sharedRowCacheUsers++;
+        return sharedRowCache;
+    }
+
+    private static synchronized void releaseSharedRowCache() {
+        if (--sharedRowCacheUsers == 0) {
+            sharedRowCache.close();
+            sharedRowCache = null;
+        }
+    }
+
+    /** Releases the native option objects, used on close and when the open fails. */
+    private void closeOptions() {
+        if (writeOptions != null) {
+            writeOptions.close();
+            writeOptions = null;
+        }
+        if (options != null) {
+            options.close();
+            options = null;
+        }
+        if (filter != null) {
+            filter.close();
+            filter = null;
+        }
+        if (statistics != null) {
+            statistics.close();
+            statistics = null;
+        }
+        if (usesSharedRowCache) {
+            releaseSharedRowCache();
+            usesSharedRowCache = false;
+        }
+    }
+
+    /**
+     * @return the RocksDB statistics tickers when enabled, followed by a few memory and size
+     *     estimates; empty when the database is closed
+     */
+    @Override
+    public Map<String, Long> getStatistics() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+
+        if (!isOpen()) {
+            return stats;
+        }
+
+        if (statistics != null) {
+            for (TickerType ticker : REPORTED_TICKERS) {
+                stats.put(ticker.name().toLowerCase(), statistics.getTickerCount(ticker));
+            }
+        }
+
+        for (String property : REPORTED_PROPERTIES) {
+            try {
+                stats.put(property.substring("rocksdb.".length()), db.getLongProperty(property));
+            } catch (RocksDBException e) {
+                LOG.debug("Unable to read property " + property + " of " + this.toString() + ".", e);
+            }
+        }
+
+        return stats;
+    }
 
     // IDatabase Functionality
     @Override
@@ -107,7 +270,8 @@ public class RocksDBWrapper extends AbstractDB {
             }
         }
 
-        Options options = setupRocksDbOptions();
+        options = setupRocksDbOptions();
+        writeOptions = new WriteOptions().setDisableWAL(!enableWal);
 
         try {
             db = RocksDB.open(options, f.getAbsolutePath());
@@ -131,6 +295,7 @@ public class RocksDBWrapper extends AbstractDB {
     public void close() {
         // do nothing if already closed
         if (db == null) {
+            closeOptions();
             return;
         }
 
@@ -140,6 +305,8 @@ public class RocksDBWrapper extends AbstractDB {
         // attempt to close the database
         db.close();
         db = null;
+
+        closeOptions();
     }
 
     @Override
@@ -236,6 +403,41 @@ public class RocksDBWrapper extends AbstractDB {
         return null;
     }
 
+    /** Reads the keys with a single native multi-get. */
+    @Override
+    protected Map<ByteArrayWrapper, byte[]> getAllInternal(Collection<byte[]> keys) {
+        Map<ByteArrayWrapper, byte[]> values = new HashMap<>();
+
+        try {
+            for (Map.Entry<byte[], byte[]> e : db.multiGet(new ArrayList<>(keys)).entrySet()) {
+                values.put(ByteArrayWrapper.wrap(e.getKey()), e.getValue());
+            }
+        } catch (RocksDBException e) {
+            LOG.error("Unable to get " + keys.size() + " keys. " + e);
+        }
+
+        return values;
+    }
+
+    @Override
+    protected List<Map.Entry<byte[], byte[]>> getRangeInternal(byte[] from, byte[] to, int limit) {
+        List<Map.Entry<byte[], byte[]>> entries = new ArrayList<>();
+
+        try (RocksIterator itr = db.newIterator()) {
+            for (itr.seek(from); itr.isValid() && entries.size() < limit; itr.next()) {
+                byte[] key = itr.key();
+                if (to != null && !inRange(key, from, to)) {
+                    break;
+                }
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(key, itr.value()));
+            }
+        } catch (Exception e) {
+            LOG.error("Unable to extract range from database " + this.toString() + ".", e);
+        }
+
+        return entries;
+    }
+
     // AbstractDB functionality
 
     @Override
@@ -246,9 +448,9 @@ public class RocksDBWrapper extends AbstractDB {
 
         try {
             if (v == null) {
-                db.delete(k);
+                db.delete(writeOptions, k);
             } else {
-                db.put(k, v);
+                db.put(writeOptions, k, v);
             }
         } catch (RocksDBException e) {
             LOG.error("Unable to put / delete key " + Arrays.toString(k) + ". " + e);
@@ -261,7 +463,7 @@ public class RocksDBWrapper extends AbstractDB {
 
         check();
         try {
-            db.delete(k);
+            db.delete(writeOptions, k);
         } catch (RocksDBException e) {
             LOG.error("Unable to delete key " + Arrays.toString(k) + ". " + e);
         }
@@ -299,7 +501,7 @@ public class RocksDBWrapper extends AbstractDB {
     public void commitBatch() {
         if (batch != null) {
             try {
-                db.write(new WriteOptions(), batch);
+                db.write(writeOptions, batch);
             } catch (RocksDBException e) {
                 LOG.error("Unable to execute batch put/update operation on " + this.toString() + ".", e);
             }
@@ -329,7 +531,7 @@ public class RocksDBWrapper extends AbstractDB {
             }
 
             // bulk atomic update
-            db.write(new WriteOptions(), batch);
+            db.write(writeOptions, batch);
         } catch (RocksDBException e) {
             LOG.error("Unable to execute batch put/update operation on " + this.toString() + ".", e);
         }
@@ -348,7 +550,7 @@ public class RocksDBWrapper extends AbstractDB {
             }
 
             // bulk atomic update
-            db.write(new WriteOptions(), batch);
+            db.write(writeOptions, batch);
         } catch (RocksDBException e) {
             LOG.error("Unable to execute batch delete operation on " + this.toString() + ".", e);
         }
@@ -372,7 +574,7 @@ public class RocksDBWrapper extends AbstractDB {
             }
 
             // bulk automatic update
-            db.write(new WriteOptions(), batch);
+            db.write(writeOptions, batch);
 
             success = true;
         } catch (RocksDBException e) {
@@ -36,12 +36,16 @@ package org.aion.db.impl;
 
 import com.google.common.truth.Truth;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.db.IByteArrayKeyValueStore;
 import org.aion.base.db.PersistenceMethod;
+import org.aion.base.util.ByteArrayWrapper;
 import org.aion.db.generic.DatabaseWithCache;
 import org.aion.db.generic.LockedDatabase;
 import org.aion.db.impl.h2.H2MVMap;
 import org.aion.db.impl.leveldb.LevelDB;
 import org.aion.db.impl.mockdb.MockDB;
+import org.aion.db.impl.rocksdb.RocksDBConstants;
+import org.aion.db.impl.rocksdb.RocksDBWrapper;
 import org.aion.db.impl.mongodb.MongoDB;
 import org.aion.db.utils.FileUtils;
 import org.aion.db.utils.MongoTestRunner;
@@ -55,7 +59,9 @@ import java.io.File;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -139,6 +145,22 @@ public class DriverBaseTest {
                 { "LevelDB+dbCache+compression", new boolean[] { false, false, false },
                         LevelDB.class.getDeclaredConstructor(String.class, String.class, boolean.class, boolean.class),
                         new Object[] { dbNamePrefix + DatabaseTestUtils.getNext(), dbPath, true, true } },
+                // RocksDB
+                { "RocksDB", new boolean[] { false, false, false },
+                        RocksDBWrapper.class.getDeclaredConstructor(String.class, String.class, boolean.class, boolean.class,
+                                int.class, int.class, int.class, int.class, int.class),
+                        new Object[] { dbNamePrefix + DatabaseTestUtils.getNext(), dbPath, false, false,
+                                RocksDBConstants.MAX_OPEN_FILES, RocksDBConstants.BLOCK_SIZE, RocksDBConstants.WRITE_BUFFER_SIZE,
+                                RocksDBConstants.READ_BUFFER_SIZE, RocksDBConstants.CACHE_SIZE } },
+                // RocksDB w. bloom filters, shared row cache, no WAL and statistics
+                { "RocksDB+profile", new boolean[] { false, false, false },
+                        RocksDBWrapper.class.getDeclaredConstructor(String.class, String.class, boolean.class, boolean.class,
+                                int.class, int.class, int.class, int.class, int.class,
+                                int.class, boolean.class, int.class, boolean.class, boolean.class),
+                        new Object[] { dbNamePrefix + DatabaseTestUtils.getNext(), dbPath, false, false,
+                                RocksDBConstants.MAX_OPEN_FILES, RocksDBConstants.BLOCK_SIZE, RocksDBConstants.WRITE_BUFFER_SIZE,
+                                RocksDBConstants.READ_BUFFER_SIZE, RocksDBConstants.CACHE_SIZE,
+                                RocksDBConstants.BLOOM_FILTER_BITS, true, RocksDBConstants.SHARED_ROW_CACHE_SIZE, false, true } },
                 // MockDB
                 { "MockDB", new boolean[] { false, false, false }, MockDB.class.getDeclaredConstructor(String.class),
                         new Object[] { dbNamePrefix } },
@@ -691,6 +713,74 @@ public class DriverBaseTest {
         assertThat(keys.size()).isEqualTo(0);
     }
 
+    @Test
+    public void testGetAll() {
+        db.put(k1, v1);
+        db.put(k2, v2);
+
+        Map<ByteArrayWrapper, byte[]> values = db.getAll(Arrays.asList(k1, k2, k3));
+        assertThat(db.isLocked()).isFalse();
+        assertThat(values.size()).isEqualTo(2);
+        assertThat(values.get(ByteArrayWrapper.wrap(k1))).isEqualTo(v1);
+        assertThat(values.get(ByteArrayWrapper.wrap(k2))).isEqualTo(v2);
+        assertThat(values.containsKey(ByteArrayWrapper.wrap(k3))).isFalse();
+
+        // checking after delete
+        db.delete(k1);
+
+        values = db.getAll(Arrays.asList(k1, k2));
+        assertThat(values.size()).isEqualTo(1);
+        assertThat(values.get(ByteArrayWrapper.wrap(k2))).isEqualTo(v2);
+
+        assertThat(db.getAll(Collections.emptyList())).isEmpty();
+    }
+
+    @Test
+    public void testGetRange() {
+        byte[][] keys = {
+            {0x01}, {0x01, 0x00}, {0x01, 0x7f}, {0x01, (byte) 0x80}, {0x01, (byte) 0xff}, {0x02}
+        };
+        Map<byte[], byte[]> ops = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            ops.put(keys[i], new byte[] {(byte) i});
+        }
+        db.putBatch(ops);
+
+        // keys are ordered as unsigned bytes
+        List<Map.Entry<byte[], byte[]>> range = db.getRange(new byte[] {0x01}, null, 10);
+        assertThat(db.isLocked()).isFalse();
+        assertThat(range.size()).isEqualTo(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            assertThat(range.get(i).getKey()).isEqualTo(keys[i]);
+            assertThat(range.get(i).getValue()).isEqualTo(new byte[] {(byte) i});
+        }
+
+        // bounded by the end key and the limit
+        range = db.getRange(new byte[] {0x01, 0x00}, new byte[] {0x01, (byte) 0xff}, 10);
+        assertThat(range.size()).isEqualTo(3);
+        assertThat(range.get(2).getKey()).isEqualTo(keys[3]);
+
+        range = db.getRange(new byte[] {0x01, 0x00}, null, 2);
+        assertThat(range.size()).isEqualTo(2);
+        assertThat(range.get(1).getKey()).isEqualTo(keys[2]);
+
+        // continuing after the last key
+        range = db.getRange(IByteArrayKeyValueStore.nextKey(range.get(1).getKey()), null, 2);
+        assertThat(range.get(0).getKey()).isEqualTo(keys[3]);
+
+        range = db.getByPrefix(new byte[] {0x01}, 10);
+        assertThat(range.size()).isEqualTo(keys.length - 1);
+
+        // checking after delete
+        db.delete(keys[1]);
+        range = db.getRange(new byte[] {0x01}, new byte[] {0x02}, 2);
+        assertThat(range.size()).isEqualTo(2);
+        assertThat(range.get(0).getKey()).isEqualTo(keys[0]);
+        assertThat(range.get(1).getKey()).isEqualTo(keys[2]);
+
+        assertThat(db.getRange(new byte[] {0x03}, null, 10)).isEmpty();
+    }
+
     @Test
     public void testIsEmpty() {
         assertThat(db.isEmpty()).isTrue();
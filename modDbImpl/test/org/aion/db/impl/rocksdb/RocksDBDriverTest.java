@@ -3,14 +3,19 @@ package org.aion.db.impl.rocksdb;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
 import org.aion.db.impl.DBVendor;
 import org.aion.db.impl.DatabaseFactory;
+import org.aion.db.utils.FileUtils;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.Map;
 import java.util.Properties;
 
 import static org.aion.db.impl.DatabaseFactory.Props;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class RocksDBDriverTest {
 
@@ -89,4 +94,48 @@ public class RocksDBDriverTest {
                            RocksDBConstants.CACHE_SIZE);
     }
 
+    private Properties profile(String name) {
+        Properties props = new Properties();
+        props.setProperty(Props.DB_TYPE, dbVendor);
+        props.setProperty(Props.DB_NAME, name);
+        props.setProperty(Props.DB_PATH, dbPath);
+        props.setProperty(Props.BLOOM_FILTER_BITS, String.valueOf(RocksDBConstants.BLOOM_FILTER_BITS));
+        props.setProperty(Props.PIN_FILTER_AND_INDEX, "true");
+        props.setProperty(Props.SHARED_ROW_CACHE_SIZE, String.valueOf(RocksDBConstants.SHARED_ROW_CACHE_SIZE));
+        props.setProperty(Props.ENABLE_WAL, "false");
+        props.setProperty(Props.ENABLE_DB_STATS, "true");
+        return props;
+    }
+
+    @Test
+    public void testProfileWithStatistics() {
+        IByteArrayKeyValueDatabase first = DatabaseFactory.connect(profile("profile1"));
+        IByteArrayKeyValueDatabase second = DatabaseFactory.connect(profile("profile2"));
+
+        try {
+            assertTrue(first.open());
+            assertTrue(second.open());
+
+            byte[] key = "key".getBytes();
+            byte[] value = "value".getBytes();
+            first.put(key, value);
+            second.put(key, value);
+            assertArrayEquals(value, first.get(key).get());
+            assertArrayEquals(value, second.get(key).get());
+
+            Map<String, Long> stats = first.getStatistics();
+            assertEquals(1L, (long) stats.get("memtable_hit"));
+            assertTrue(stats.containsKey("block_cache_miss"));
+            assertTrue(stats.containsKey("estimate-num-keys"));
+
+            // the shared row cache outlives the first database using it
+            first.close();
+            assertTrue(first.getStatistics().isEmpty());
+            assertArrayEquals(value, second.get(key).get());
+        } finally {
+            first.close();
+            second.close();
+            FileUtils.deleteRecursively(new File(dbPath));
+        }
+    }
 }
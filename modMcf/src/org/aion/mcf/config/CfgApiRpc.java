@@ -59,6 +59,7 @@ public final class CfgApiRpc {
         this.ioThreads = null;
         this.requestQueueSize = null; // null = unbounded queue size
         this.stuckThreadDetectorEnabled = true;
+        this.wsEnabled = false;
 
         this.ssl = new CfgSsl();
     }
@@ -77,6 +78,7 @@ public final class CfgApiRpc {
     private Integer ioThreads;
     private Integer requestQueueSize;
     private boolean stuckThreadDetectorEnabled;
+    private boolean wsEnabled;
 
     public void fromXML(final XMLStreamReader sr) throws XMLStreamException {
         // get the attributes
@@ -180,6 +182,15 @@ public final class CfgApiRpc {
                             }
                             break;
                         }
+                        case "ws-enabled": {
+                            try {
+                                wsEnabled = Boolean.parseBoolean(Cfg.readValue(sr));
+                            } catch (Exception e) {
+                                System.out.println("failed to read config node: aion.api.rpc.ws-enabled; using preset: " + wsEnabled);
+                                e.printStackTrace();
+                            }
+                            break;
+                        }
                         case "ssl":
                             this.ssl.fromXML(sr);
                             break;
@@ -259,6 +270,7 @@ public final class CfgApiRpc {
     public Integer getIoThreads() { return ioThreads; }
     public Integer getRequestQueueSize() { return requestQueueSize; }
     public boolean isStuckThreadDetectorEnabled() { return stuckThreadDetectorEnabled; }
+    public boolean isWsEnabled() { return wsEnabled; }
 
     /**
      * @implNote this should theoretically work, but should be tested for correctness by any future consumer
@@ -281,7 +293,8 @@ public final class CfgApiRpc {
                 Objects.equals(workerThreads, cfg.workerThreads) &&
                 Objects.equals(ioThreads, cfg.ioThreads) &&
                 Objects.equals(requestQueueSize, cfg.requestQueueSize) &&
-                stuckThreadDetectorEnabled == cfg.stuckThreadDetectorEnabled;
+                stuckThreadDetectorEnabled == cfg.stuckThreadDetectorEnabled &&
+                wsEnabled == cfg.wsEnabled;
     }
 
     /**
@@ -305,6 +318,7 @@ public final class CfgApiRpc {
             workerThreads,
             ioThreads,
             requestQueueSize,
-            stuckThreadDetectorEnabled);
+            stuckThreadDetectorEnabled,
+            wsEnabled);
     }
 }
\ No newline at end of file
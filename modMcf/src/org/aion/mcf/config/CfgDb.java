@@ -38,6 +38,7 @@ import javax.xml.stream.XMLStreamWriter;
 import com.google.common.base.Objects;
 import org.aion.base.util.Utils;
 import org.aion.db.impl.DBVendor;
+import org.aion.db.impl.rocksdb.RocksDBConstants;
 
 /** @author chris */
 public class CfgDb {
@@ -46,6 +47,7 @@ public class CfgDb {
         public static final String DEFAULT = "default";
 
         public static final String BLOCK = "block";
+        public static final String HEADER = "header";
         public static final String INDEX = "index";
 
         public static final String DETAILS = "details";
@@ -57,12 +59,16 @@ public class CfgDb {
 
         public static final String TX_CACHE = "pendingtxCache";
         public static final String TX_POOL = "pendingtxPool";
+
+        public static final String BLOOM_BITS = "bloombits";
     }
 
     private String path;
     private String vendor;
     private boolean compression;
     private boolean check_integrity;
+    private int trie_cache_size;
+    private int trie_flush_size;
     private CfgPrune prune;
     private PruneOption prune_option;
 
@@ -81,6 +87,8 @@ public class CfgDb {
         this.vendor = DBVendor.LEVELDB.toValue();
         this.compression = false;
         this.check_integrity = true;
+        this.trie_cache_size = DEFAULT_TRIE_CACHE_SIZE;
+        this.trie_flush_size = DEFAULT_TRIE_FLUSH_SIZE;
         this.prune = new CfgPrune(false);
         this.prune_option = PruneOption.FULL;
 
@@ -104,6 +112,12 @@ public class CfgDb {
                         case "check_integrity":
                             this.check_integrity = Boolean.parseBoolean(Cfg.readValue(sr));
                             break;
+                        case Props.TRIE_CACHE_SIZE:
+                            this.trie_cache_size = Integer.parseInt(Cfg.readValue(sr));
+                            break;
+                        case Props.TRIE_FLUSH_SIZE:
+                            this.trie_flush_size = Integer.parseInt(Cfg.readValue(sr));
+                            break;
                         case "state-storage":
                             setPrune(Cfg.readValue(sr));
                             break;
@@ -132,6 +146,14 @@ public class CfgDb {
                                 break;
                             }
                             // parameter considered only when expert==true
+                        case Names.HEADER:
+                            {
+                                CfgDbDetails dbConfig = new CfgDbDetails();
+                                dbConfig.fromXML(sr);
+                                this.specificConfig.put(Names.HEADER, dbConfig);
+                                break;
+                            }
+                            // parameter considered only when expert==true
                         case Names.INDEX:
                             {
                                 CfgDbDetails dbConfig = new CfgDbDetails();
@@ -187,6 +209,14 @@ public class CfgDb {
                                 this.specificConfig.put(Names.TX_CACHE, dbConfig);
                                 break;
                             }
+                            // parameter considered only when expert==true
+                        case Names.BLOOM_BITS:
+                            {
+                                CfgDbDetails dbConfig = new CfgDbDetails();
+                                dbConfig.fromXML(sr);
+                                this.specificConfig.put(Names.BLOOM_BITS, dbConfig);
+                                break;
+                            }
                         default:
                             Cfg.skipElement(sr);
                             break;
@@ -223,6 +253,22 @@ public class CfgDb {
             xmlWriter.writeCharacters(String.valueOf(this.check_integrity));
             xmlWriter.writeEndElement();
 
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "Megabytes of clean state trie nodes kept in memory; 0 clears them on every block.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement(Props.TRIE_CACHE_SIZE);
+            xmlWriter.writeCharacters(String.valueOf(this.trie_cache_size));
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "Megabytes of modified state trie nodes written per batch on block commit; 0 writes them in one batch.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement(Props.TRIE_FLUSH_SIZE);
+            xmlWriter.writeCharacters(String.valueOf(this.trie_flush_size));
+            xmlWriter.writeEndElement();
+
             xmlWriter.writeCharacters("\r\n\t\t");
             xmlWriter.writeComment(
                     "Data pruning behavior for the state database. Options: FULL, TOP, SPREAD.");
@@ -307,6 +353,11 @@ public class CfgDb {
     /** At what frequency block states are being archived. */
     public static final int SPREAD_PRUNE_ARCHIVE_RATE = 10000;
 
+    /** Megabytes of clean state trie nodes kept in memory. */
+    public static final int DEFAULT_TRIE_CACHE_SIZE = 64;
+    /** Megabytes of modified state trie nodes written per batch on commit. */
+    public static final int DEFAULT_TRIE_FLUSH_SIZE = 32;
+
     public enum PruneOption {
         FULL,
         TOP,
@@ -367,11 +418,13 @@ public class CfgDb {
 
             Properties props = propSet.get(Names.DEFAULT);
             props.setProperty(Props.CHECK_INTEGRITY, String.valueOf(this.check_integrity));
+            setTrieProperties(props);
         } else {
             Properties props = new Properties();
             props.setProperty(Props.DB_TYPE, this.vendor);
             props.setProperty(Props.ENABLE_DB_COMPRESSION, String.valueOf(this.compression));
             props.setProperty(Props.CHECK_INTEGRITY, String.valueOf(this.check_integrity));
+            setTrieProperties(props);
 
             props.setProperty(Props.ENABLE_DB_CACHE, "true");
             props.setProperty(Props.DB_CACHE_SIZE, String.valueOf(128 * (int) Utils.MEGA_BYTE));
@@ -387,11 +440,38 @@ public class CfgDb {
             props.setProperty(Props.READ_BUFFER_SIZE, String.valueOf(64 * (int) Utils.MEGA_BYTE));
 
             propSet.put(Names.DEFAULT, props);
+
+            // the state, storage and details databases are read mostly by key
+            for (String name : new String[] {Names.STATE, Names.STORAGE, Names.DETAILS}) {
+                Properties lookups = new Properties();
+                lookups.putAll(props);
+                lookups.setProperty(
+                        Props.BLOOM_FILTER_BITS, String.valueOf(RocksDBConstants.BLOOM_FILTER_BITS));
+                lookups.setProperty(Props.PIN_FILTER_AND_INDEX, "true");
+                lookups.setProperty(
+                        Props.SHARED_ROW_CACHE_SIZE,
+                        String.valueOf(RocksDBConstants.SHARED_ROW_CACHE_SIZE));
+                propSet.put(name, lookups);
+            }
+            propSet.get(Names.STATE).setProperty(Props.ENABLE_DB_STATS, "true");
+
+            // the bloom bits index is rebuilt from the blocks
+            Properties index = new Properties();
+            index.putAll(props);
+            index.setProperty(Props.ENABLE_WAL, "false");
+            propSet.put(Names.BLOOM_BITS, index);
         }
 
         return propSet;
     }
 
+    private void setTrieProperties(Properties props) {
+        props.setProperty(
+                Props.TRIE_CACHE_SIZE, String.valueOf(trie_cache_size * Utils.MEGA_BYTE));
+        props.setProperty(
+                Props.TRIE_FLUSH_SIZE, String.valueOf(trie_flush_size * Utils.MEGA_BYTE));
+    }
+
     public void setHeapCacheEnabled(boolean value) {
         // already disabled when expert==false
         if (expert) {
@@ -408,6 +488,8 @@ public class CfgDb {
         CfgDb cfgDb = (CfgDb) o;
         return compression == cfgDb.compression &&
                 check_integrity == cfgDb.check_integrity &&
+                trie_cache_size == cfgDb.trie_cache_size &&
+                trie_flush_size == cfgDb.trie_flush_size &&
                 expert == cfgDb.expert &&
                 Objects.equal(path, cfgDb.path) &&
                 Objects.equal(vendor, cfgDb.vendor) &&
@@ -418,6 +500,6 @@ public class CfgDb {
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(path, vendor, compression, check_integrity, prune, prune_option, expert, specificConfig);
+        return Objects.hashCode(path, vendor, compression, check_integrity, trie_cache_size, trie_flush_size, prune, prune_option, expert, specificConfig);
     }
 }
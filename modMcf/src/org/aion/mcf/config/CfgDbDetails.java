@@ -63,6 +63,12 @@ public class CfgDbDetails {
 
         // corresponds to DEFAULT_CACHE_SIZE
         this.cache_size = 128 * (int) Utils.MEGA_BYTE;
+
+        this.bloom_filter_bits = 0;
+        this.pin_filter_and_index = false;
+        this.shared_row_cache_size = 0;
+        this.enable_wal = true;
+        this.enable_db_stats = false;
     }
 
     public String vendor;
@@ -118,6 +124,44 @@ public class CfgDbDetails {
      */
     public int cache_size;
 
+    /**
+     * <p>Bits per key of the bloom filters, {@code 0} disables them. Filters let point lookups
+     * skip the files that do not contain the key.</p>
+     *
+     * <p>This parameter is specific to {@link org.aion.db.impl.rocksdb.RocksDBWrapper}</p>
+     */
+    public int bloom_filter_bits;
+
+    /**
+     * <p>Keeps the index and filter blocks in the block cache and pins the ones of level 0.</p>
+     *
+     * <p>This parameter is specific to {@link org.aion.db.impl.rocksdb.RocksDBWrapper}</p>
+     */
+    public boolean pin_filter_and_index;
+
+    /**
+     * <p>Size of the row cache shared by all databases setting it, {@code 0} disables it. The
+     * first database opened decides the size.</p>
+     *
+     * <p>This parameter is specific to {@link org.aion.db.impl.rocksdb.RocksDBWrapper}</p>
+     */
+    public int shared_row_cache_size;
+
+    /**
+     * <p>Disabling the write ahead log speeds up writes but loses the latest ones on a crash, so
+     * it should only be done for data that can be rebuilt.</p>
+     *
+     * <p>This parameter is specific to {@link org.aion.db.impl.rocksdb.RocksDBWrapper}</p>
+     */
+    public boolean enable_wal;
+
+    /**
+     * <p>Collects the statistics reported through {@code priv_dbStats}.</p>
+     *
+     * <p>This parameter is specific to {@link org.aion.db.impl.rocksdb.RocksDBWrapper}</p>
+     */
+    public boolean enable_db_stats;
+
     public void fromXML(final XMLStreamReader sr) throws XMLStreamException {
         loop:
         while (sr.hasNext()) {
@@ -163,6 +207,21 @@ public class CfgDbDetails {
                         case Props.DB_CACHE_SIZE:
                             this.cache_size = parseFileSizeSafe(Cfg.readValue(sr), this.cache_size);
                             break;
+                        case Props.BLOOM_FILTER_BITS:
+                            this.bloom_filter_bits = Math.max(0, Integer.parseInt(Cfg.readValue(sr)));
+                            break;
+                        case Props.PIN_FILTER_AND_INDEX:
+                            this.pin_filter_and_index = Boolean.parseBoolean(Cfg.readValue(sr));
+                            break;
+                        case Props.SHARED_ROW_CACHE_SIZE:
+                            this.shared_row_cache_size = parseFileSizeSafe(Cfg.readValue(sr), this.shared_row_cache_size);
+                            break;
+                        case Props.ENABLE_WAL:
+                            this.enable_wal = Boolean.parseBoolean(Cfg.readValue(sr));
+                            break;
+                        case Props.ENABLE_DB_STATS:
+                            this.enable_db_stats = Boolean.parseBoolean(Cfg.readValue(sr));
+                            break;
                         default:
                             Cfg.skipElement(sr);
                             break;
@@ -233,6 +292,31 @@ public class CfgDbDetails {
         xmlWriter.writeCharacters(String.valueOf(DEFAULT_CACHE_SIZE));
         xmlWriter.writeEndElement();
 
+        xmlWriter.writeCharacters("\r\n\t\t\t");
+        xmlWriter.writeStartElement(Props.BLOOM_FILTER_BITS);
+        xmlWriter.writeCharacters(String.valueOf(this.bloom_filter_bits));
+        xmlWriter.writeEndElement();
+
+        xmlWriter.writeCharacters("\r\n\t\t\t");
+        xmlWriter.writeStartElement(Props.PIN_FILTER_AND_INDEX);
+        xmlWriter.writeCharacters(String.valueOf(this.pin_filter_and_index));
+        xmlWriter.writeEndElement();
+
+        xmlWriter.writeCharacters("\r\n\t\t\t");
+        xmlWriter.writeStartElement(Props.SHARED_ROW_CACHE_SIZE);
+        xmlWriter.writeCharacters(String.valueOf(this.shared_row_cache_size));
+        xmlWriter.writeEndElement();
+
+        xmlWriter.writeCharacters("\r\n\t\t\t");
+        xmlWriter.writeStartElement(Props.ENABLE_WAL);
+        xmlWriter.writeCharacters(String.valueOf(this.enable_wal));
+        xmlWriter.writeEndElement();
+
+        xmlWriter.writeCharacters("\r\n\t\t\t");
+        xmlWriter.writeStartElement(Props.ENABLE_DB_STATS);
+        xmlWriter.writeCharacters(String.valueOf(this.enable_db_stats));
+        xmlWriter.writeEndElement();
+
         xmlWriter.writeCharacters("\r\n\t\t");
         xmlWriter.writeEndElement();
     }
@@ -255,6 +339,12 @@ public class CfgDbDetails {
         props.setProperty(Props.WRITE_BUFFER_SIZE, String.valueOf(this.write_buffer_size));
         props.setProperty(Props.READ_BUFFER_SIZE, String.valueOf(this.read_buffer_size));
 
+        props.setProperty(Props.BLOOM_FILTER_BITS, String.valueOf(this.bloom_filter_bits));
+        props.setProperty(Props.PIN_FILTER_AND_INDEX, String.valueOf(this.pin_filter_and_index));
+        props.setProperty(Props.SHARED_ROW_CACHE_SIZE, String.valueOf(this.shared_row_cache_size));
+        props.setProperty(Props.ENABLE_WAL, String.valueOf(this.enable_wal));
+        props.setProperty(Props.ENABLE_DB_STATS, String.valueOf(this.enable_db_stats));
+
         return props;
     }
 
@@ -273,12 +363,17 @@ public class CfgDbDetails {
                 write_buffer_size == that.write_buffer_size &&
                 read_buffer_size == that.read_buffer_size &&
                 cache_size == that.cache_size &&
+                bloom_filter_bits == that.bloom_filter_bits &&
+                pin_filter_and_index == that.pin_filter_and_index &&
+                shared_row_cache_size == that.shared_row_cache_size &&
+                enable_wal == that.enable_wal &&
+                enable_db_stats == that.enable_db_stats &&
                 Objects.equal(vendor, that.vendor) &&
                 Objects.equal(max_heap_cache_size, that.max_heap_cache_size);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(vendor, enable_db_cache, enable_db_compression, enable_auto_commit, enable_heap_cache, max_heap_cache_size, enable_heap_cache_stats, block_size, max_fd_open_alloc, write_buffer_size, read_buffer_size, cache_size);
+        return Objects.hashCode(vendor, enable_db_cache, enable_db_compression, enable_auto_commit, enable_heap_cache, max_heap_cache_size, enable_heap_cache_stats, block_size, max_fd_open_alloc, write_buffer_size, read_buffer_size, cache_size, bloom_filter_bits, pin_filter_and_index, shared_row_cache_size, enable_wal, enable_db_stats);
     }
 }
\ No newline at end of file
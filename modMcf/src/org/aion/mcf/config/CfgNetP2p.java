@@ -46,6 +46,7 @@ public final class CfgNetP2p {
         this.errorTolerance = 50;
         this.clusterNodeMode = false;
         this.syncOnlyMode = false;
+        this.selectorThreads = 1;
     }
 
     private String ip;
@@ -66,6 +67,8 @@ public final class CfgNetP2p {
 
     private int errorTolerance;
 
+    private int selectorThreads;
+
     public void fromXML(final XMLStreamReader sr) throws XMLStreamException {
         loop:
         while (sr.hasNext()) {
@@ -101,6 +104,9 @@ public final class CfgNetP2p {
                 case "err-tolerance":
                     this.errorTolerance = Integer.parseInt(Cfg.readValue(sr));
                     break;
+                case "selector-threads":
+                    this.selectorThreads = Math.max(1, Integer.parseInt(Cfg.readValue(sr)));
+                    break;
                 default:
                     // Cfg.skipElement(sr);
                     break;
@@ -194,6 +200,10 @@ public final class CfgNetP2p {
         return errorTolerance;
     }
 
+    public int getSelectorThreads() {
+        return selectorThreads;
+    }
+
     public boolean inClusterNodeMode() { return clusterNodeMode; }
 
     public boolean inSyncOnlyMode() {
@@ -213,11 +223,12 @@ public final class CfgNetP2p {
                 maxTempNodes == cfgNetP2p.maxTempNodes &&
                 maxActiveNodes == cfgNetP2p.maxActiveNodes &&
                 errorTolerance == cfgNetP2p.errorTolerance &&
+                selectorThreads == cfgNetP2p.selectorThreads &&
                 Objects.equal(ip, cfgNetP2p.ip);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(ip, port, discover, clusterNodeMode, bootlistSyncOnly, syncOnlyMode, maxTempNodes, maxActiveNodes, errorTolerance);
+        return Objects.hashCode(ip, port, discover, clusterNodeMode, bootlistSyncOnly, syncOnlyMode, maxTempNodes, maxActiveNodes, errorTolerance, selectorThreads);
     }
 }
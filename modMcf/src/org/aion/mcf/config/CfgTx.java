@@ -42,6 +42,7 @@ public class CfgTx {
         this.buffer = true;
         this.poolDump = false;
         this.poolBackup = false;
+        this.execThreads = 1;
     }
 
     private int cacheMax;
@@ -52,6 +53,8 @@ public class CfgTx {
 
     private boolean poolBackup;
 
+    private int execThreads;
+
     public void fromXML(final XMLStreamReader sr) throws XMLStreamException {
         loop:
         while (sr.hasNext()) {
@@ -77,6 +80,9 @@ public class CfgTx {
                     case "poolbackup":
                         this.poolBackup = Boolean.parseBoolean(Cfg.readValue(sr));
                         break;
+                    case "execthreads":
+                        this.execThreads = Math.max(1, Integer.parseInt(Cfg.readValue(sr)));
+                        break;
                 default:
                     Cfg.skipElement(sr);
                     break;
@@ -133,6 +139,11 @@ public class CfgTx {
         return poolBackup;
     }
 
+    /** The number of threads executing the transactions of an imported block, 1 to disable. */
+    public int getExecThreads() {
+        return execThreads;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -141,12 +152,13 @@ public class CfgTx {
         return cacheMax == cfgTx.cacheMax &&
                 buffer == cfgTx.buffer &&
                 poolDump == cfgTx.poolDump &&
-                poolBackup == cfgTx.poolBackup;
+                poolBackup == cfgTx.poolBackup &&
+                execThreads == cfgTx.execThreads;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(cacheMax, buffer, poolDump, poolBackup);
+        return Objects.hashCode(cacheMax, buffer, poolDump, poolBackup, execThreads);
     }
 }
 
@@ -35,6 +35,7 @@ import org.aion.base.db.IRepository;
 import org.aion.base.db.IRepositoryConfig;
 import org.aion.base.type.IBlockHeader;
 import org.aion.base.type.ITransaction;
+import org.aion.base.util.Utils;
 import org.aion.base.vm.IDataWord;
 import org.aion.db.impl.DatabaseFactory;
 import org.aion.log.AionLoggerFactory;
@@ -69,12 +70,14 @@ public abstract class AbstractRepository<
 
     protected static final String INDEX_DB = CfgDb.Names.INDEX;
     protected static final String BLOCK_DB = CfgDb.Names.BLOCK;
+    protected static final String HEADER_DB = CfgDb.Names.HEADER;
     protected static final String DETAILS_DB = CfgDb.Names.DETAILS;
     protected static final String STORAGE_DB = CfgDb.Names.STORAGE;
     protected static final String STATE_DB = CfgDb.Names.STATE;
     protected static final String STATE_ARCHIVE_DB = CfgDb.Names.STATE_ARCHIVE;
     protected static final String PENDING_TX_POOL_DB = CfgDb.Names.TX_POOL;
     protected static final String PENDING_TX_CACHE_DB = CfgDb.Names.TX_CACHE;
+    protected static final String BLOOM_BITS_DB = CfgDb.Names.BLOOM_BITS;
 
     // State trie.
     protected Trie worldState;
@@ -90,10 +93,12 @@ public abstract class AbstractRepository<
     protected IByteArrayKeyValueDatabase storageDatabase;
     protected IByteArrayKeyValueDatabase indexDatabase;
     protected IByteArrayKeyValueDatabase blockDatabase;
+    protected IByteArrayKeyValueDatabase headerDatabase;
     protected IByteArrayKeyValueDatabase stateDatabase;
     protected IByteArrayKeyValueDatabase stateArchiveDatabase;
     protected IByteArrayKeyValueDatabase txPoolDatabase;
     protected IByteArrayKeyValueDatabase pendingTxCacheDatabase;
+    protected IByteArrayKeyValueDatabase bloomBitsDatabase;
 
     protected Collection<IByteArrayKeyValueDatabase> databaseGroup;
 
@@ -118,6 +123,10 @@ public abstract class AbstractRepository<
 
     protected boolean checkIntegrity = true;
 
+    // State trie cache limits in bytes.
+    protected long trieCacheSize;
+    protected long trieFlushSize;
+
     /**
      * Initializes all necessary databases and caches.
      *
@@ -192,6 +201,20 @@ public abstract class AbstractRepository<
                             cfg.getDatabaseConfig(CfgDb.Names.DEFAULT)
                                     .getProperty(Props.CHECK_INTEGRITY));
 
+            Properties defaultProps = cfg.getDatabaseConfig(CfgDb.Names.DEFAULT);
+            trieCacheSize =
+                    Long.parseLong(
+                            defaultProps.getProperty(
+                                    Props.TRIE_CACHE_SIZE,
+                                    String.valueOf(
+                                            CfgDb.DEFAULT_TRIE_CACHE_SIZE * Utils.MEGA_BYTE)));
+            trieFlushSize =
+                    Long.parseLong(
+                            defaultProps.getProperty(
+                                    Props.TRIE_FLUSH_SIZE,
+                                    String.valueOf(
+                                            CfgDb.DEFAULT_TRIE_FLUSH_SIZE * Utils.MEGA_BYTE)));
+
             // getting state specific properties
             sharedProps = cfg.getDatabaseConfig(STATE_DB);
             // locking enabled for state when JournalPrune not used
@@ -241,6 +264,14 @@ public abstract class AbstractRepository<
             this.blockDatabase = connectAndOpen(sharedProps);
             databaseGroup.add(blockDatabase);
 
+            // getting header specific properties
+            sharedProps = cfg.getDatabaseConfig(HEADER_DB);
+            sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
+            sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
+            sharedProps.setProperty(Props.DB_NAME, HEADER_DB);
+            this.headerDatabase = connectAndOpen(sharedProps);
+            databaseGroup.add(headerDatabase);
+
             // getting pending tx pool specific properties
             sharedProps = cfg.getDatabaseConfig(PENDING_TX_POOL_DB);
             sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
@@ -257,6 +288,14 @@ public abstract class AbstractRepository<
             this.pendingTxCacheDatabase = connectAndOpen(sharedProps);
             databaseGroup.add(pendingTxCacheDatabase);
 
+            // getting bloom bits index specific properties
+            sharedProps = cfg.getDatabaseConfig(BLOOM_BITS_DB);
+            sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
+            sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
+            sharedProps.setProperty(Props.DB_NAME, BLOOM_BITS_DB);
+            this.bloomBitsDatabase = connectAndOpen(sharedProps);
+            databaseGroup.add(bloomBitsDatabase);
+
             // Setup the cache for transaction data source.
             this.detailsDS = new DetailsDataStore<>(detailsDatabase, storageDatabase, this.cfg);
 
@@ -275,7 +314,7 @@ public abstract class AbstractRepository<
                 databaseGroup.add(stateArchiveDatabase);
 
                 stateWithArchive = new ArchivedDataSource(stateDatabase, stateArchiveDatabase);
-                stateDSPrune = new JournalPruneDataSource(stateWithArchive);
+                stateDSPrune = new JournalPruneDataSource(stateWithArchive, true);
 
                 LOGGEN.info(
                         "Pruning and archiving ENABLED. Top block count set to {} and archive rate set to {}.",
@@ -284,7 +323,7 @@ public abstract class AbstractRepository<
             } else {
                 stateArchiveDatabase = null;
                 stateWithArchive = null;
-                stateDSPrune = new JournalPruneDataSource(stateDatabase);
+                stateDSPrune = new JournalPruneDataSource(stateDatabase, true);
 
                 if (pruneEnabled) {
                     LOGGEN.info("Pruning ENABLED. Top block count set to {}.", pruneBlockCount);
@@ -185,6 +185,15 @@ public class ContractDetailsCacheImpl extends AbstractContractDetails<IDataWord>
         }
     }
 
+    /**
+     * Returns the keys that were read or written through this cache.
+     *
+     * @return the accessed storage keys.
+     */
+    public Set<IDataWord> getStorageKeys() {
+        return Collections.unmodifiableSet(storage.keySet());
+    }
+
     /**
      * Get the address associated with this ContractDetailsCacheImpl.
      *
@@ -36,6 +36,8 @@ package org.aion.mcf.db;
 
 import static org.aion.base.util.ByteArrayWrapper.wrap;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.util.*;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
 import org.aion.base.db.IContractDetails;
@@ -48,16 +50,37 @@ import org.aion.base.vm.IDataWord;
 import org.aion.mcf.trie.JournalPruneDataSource;
 import org.aion.mcf.types.AbstractBlock;
 
-/** Detail data storage , */
+/**
+ * Detail data storage. The details only hold the code and storage root of a contract, its storage
+ * trie is kept in the storage database.
+ */
 public class DetailsDataStore<
         BLK extends AbstractBlock<BH, ? extends ITransaction>, BH extends IBlockHeader> {
 
+    /** Number of contracts whose decoded details are kept. */
+    private static final int DECODED_CACHE_SIZE = 1024;
+
     private JournalPruneDataSource storageDSPrune;
     private IRepositoryConfig repoConfig;
 
     private IByteArrayKeyValueDatabase detailsSrc;
     private IByteArrayKeyValueDatabase storageSrc;
-    private Set<ByteArrayWrapper> removes = new HashSet<>();
+
+    /**
+     * Decoded details by contract address, dropped whenever the contract is updated or removed.
+     * The entries are never handed out: readers get a snapshot of them at the storage root they ask
+     * for, so one decoding serves every root and no reader can change what another one sees.
+     */
+    private final Cache<ByteArrayWrapper, IContractDetails<IDataWord>> decoded =
+            CacheBuilder.newBuilder()
+                    .maximumSize(DECODED_CACHE_SIZE)
+                    .concurrencyLevel(Math.max(4, Runtime.getRuntime().availableProcessors()))
+                    .build();
+
+    /** Bumped on every update or removal, guarded by {@link #decodedLock}. */
+    private long generation;
+
+    private final Object decodedLock = new Object();
 
     public DetailsDataStore() {}
 
@@ -79,24 +102,48 @@ public class DetailsDataStore<
     }
 
     /**
-     * Fetches the ContractDetails from the cache, and if it doesn't exist, add to the remove set.
+     * Fetches the ContractDetails from the cache or the database.
      *
      * @param key
      * @return
      */
-    public synchronized IContractDetails<IDataWord> get(byte[] key) {
+    public IContractDetails<IDataWord> get(byte[] key) {
+        IContractDetails<IDataWord> details = getDecoded(key);
+        return details == null ? null : details.getSnapshotTo(details.getStorageHash());
+    }
 
+    /**
+     * Fetches the ContractDetails with the storage as of the given root.
+     *
+     * @implNote Reads do not lock the store. A decoding is only cached if no contract was updated
+     *     or removed while it ran, so a reader that saw the old details cannot cache them after the
+     *     update dropped them.
+     * @param key the contract address
+     * @param storageRoot the root of the storage trie to read
+     * @return the details, or {@code null} when the contract is not stored
+     */
+    public IContractDetails<IDataWord> get(byte[] key, byte[] storageRoot) {
+        IContractDetails<IDataWord> details = getDecoded(key);
+        return details == null ? null : details.getSnapshotTo(storageRoot);
+    }
+
+    private IContractDetails<IDataWord> getDecoded(byte[] key) {
         ByteArrayWrapper wrappedKey = wrap(key);
+
+        IContractDetails<IDataWord> cached = decoded.getIfPresent(wrappedKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        long readGeneration;
+        synchronized (decodedLock) {
+            readGeneration = generation;
+        }
+
         Optional<byte[]> rawDetails = detailsSrc.get(key);
 
         // If it doesn't exist in cache or database.
         if (!rawDetails.isPresent()) {
-
-            // Check to see if we have to remove it.
-            // If it isn't in removes set, we add it to removes set.
-            if (!removes.contains(wrappedKey)) {
-                removes.add(wrappedKey);
-            }
             return null;
         }
 
@@ -106,6 +153,11 @@ public class DetailsDataStore<
         detailsImpl.decode(rawDetails.get()); // We can safely get as we checked
         // if it is present.
 
+        synchronized (decodedLock) {
+            if (generation == readGeneration) {
+                decoded.put(wrappedKey, detailsImpl);
+            }
+        }
         return detailsImpl;
     }
 
@@ -114,71 +166,34 @@ public class DetailsDataStore<
         contractDetails.setAddress(key);
         ByteArrayWrapper wrappedKey = wrap(key.toBytes());
 
+        // The storage is written apart from the details.
+        contractDetails.setDataSource(storageDSPrune);
+
         // Put into cache.
         byte[] rawDetails = contractDetails == null ? null : contractDetails.getEncoded();
         detailsSrc.put(key.toBytes(), rawDetails);
 
         contractDetails.syncStorage();
-
-        // Remove from the remove set.
-        removes.remove(wrappedKey);
+        invalidate(wrappedKey);
     }
 
     public synchronized void remove(byte[] key) {
         ByteArrayWrapper wrappedKey = wrap(key);
         detailsSrc.put(key, null);
-
-        removes.add(wrappedKey);
-    }
-
-    public synchronized void flush() {
-        flushInternal();
+        invalidate(wrappedKey);
     }
 
-    private long flushInternal() {
-        long totalSize = 0;
-
-        syncLargeStorage();
-
-        // Get everything from the cache and calculate the size.
-        Set<byte[]> keysFromSource = detailsSrc.keys();
-        for (byte[] keyInSource : keysFromSource) {
-            // Fetch the value given the keys.
-            Optional<byte[]> valFromKey = detailsSrc.get(keyInSource);
-
-            // Add to total size given size of the value
-            totalSize += valFromKey.map(rawDetails -> rawDetails.length).orElse(0);
+    private void invalidate(ByteArrayWrapper key) {
+        synchronized (decodedLock) {
+            generation++;
+            decoded.invalidate(key);
         }
+    }
 
+    public synchronized void flush() {
         // Flushes both details and storage.
         detailsSrc.commit();
         storageSrc.commit();
-
-        return totalSize;
-    }
-
-    public void syncLargeStorage() {
-
-        Set<byte[]> keysFromSource = detailsSrc.keys();
-        for (byte[] keyInSource : keysFromSource) {
-
-            // Fetch the value given the keys.
-            Optional<byte[]> rawDetails = detailsSrc.get(keyInSource);
-
-            // If it is null, just continue
-            if (!rawDetails.isPresent()) {
-                continue;
-            }
-
-            // Decode the details.
-            IContractDetails<IDataWord> detailsImpl = repoConfig.contractDetailsImpl();
-            detailsImpl.setDataSource(storageDSPrune);
-            detailsImpl.decode(rawDetails.get()); // We can safely get as we
-            // checked if it is present.
-
-            // IContractDetails details = entry.getValue();
-            detailsImpl.syncStorage();
-        }
     }
 
     public JournalPruneDataSource getStorageDSPrune() {
@@ -45,6 +45,12 @@ public interface IBlockStoreBase<BLK extends IBlock<?, ?>, BH extends AbstractBl
 
     BLK getBlockByHash(byte[] hash);
 
+    /** Retrieves a header without loading the block body. */
+    BH getHeaderByHash(byte[] hash);
+
+    /** Retrieves a main chain header without loading the block body. */
+    BH getHeaderByNumber(long blockNumber);
+
     boolean isBlockExist(byte[] hash);
 
     List<byte[]> getListHashesEndWith(byte[] hash, long qty);
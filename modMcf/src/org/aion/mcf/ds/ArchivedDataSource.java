@@ -29,11 +29,13 @@
 package org.aion.mcf.ds;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
 import org.aion.base.db.IByteArrayKeyValueStore;
+import org.aion.base.util.ByteArrayWrapper;
 
 /**
  * A data source with archived data that must no be deleted.
@@ -64,6 +66,16 @@ public class ArchivedDataSource implements IByteArrayKeyValueStore {
         return data.get(key);
     }
 
+    @Override
+    public Map<ByteArrayWrapper, byte[]> getAll(Collection<byte[]> keys) {
+        return data.getAll(keys);
+    }
+
+    @Override
+    public List<Map.Entry<byte[], byte[]>> getRange(byte[] from, byte[] to, int limit) {
+        return data.getRange(from, to, limit);
+    }
+
     @Override
     public void put(byte[] key, byte[] value) {
         if (value != null) {
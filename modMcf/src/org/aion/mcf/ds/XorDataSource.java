@@ -57,6 +57,39 @@ public class XorDataSource implements IByteArrayKeyValueStore {
         return source.get(convertKey(key));
     }
 
+    @Override
+    public Map<ByteArrayWrapper, byte[]> getAll(Collection<byte[]> keys) {
+        List<byte[]> converted = new ArrayList<>(keys.size());
+        for (byte[] key : keys) {
+            converted.add(convertKey(key));
+        }
+
+        Map<ByteArrayWrapper, byte[]> ret = new HashMap<>();
+        for (Map.Entry<ByteArrayWrapper, byte[]> entry : source.getAll(converted).entrySet()) {
+            ret.put(ByteArrayWrapper.wrap(convertKey(entry.getKey().getData())), entry.getValue());
+        }
+        return ret;
+    }
+
+    /** The converted keys are not stored in the order of the original keys, so all are sorted. */
+    @Override
+    public List<Map.Entry<byte[], byte[]>> getRange(byte[] from, byte[] to, int limit) {
+        List<byte[]> keys = new ArrayList<>();
+        for (byte[] key : keys()) {
+            if (Arrays.compareUnsigned(key, from) >= 0
+                    && (to == null || Arrays.compareUnsigned(key, to) < 0)) {
+                keys.add(key);
+            }
+        }
+        keys.sort(Arrays::compareUnsigned);
+
+        List<Map.Entry<byte[], byte[]>> entries = new ArrayList<>();
+        for (byte[] key : keys.subList(0, Math.min(limit, keys.size()))) {
+            get(key).ifPresent(v -> entries.add(new AbstractMap.SimpleImmutableEntry<>(key, v)));
+        }
+        return entries;
+    }
+
     @Override
     public void put(byte[] key, byte[] value) {
         source.put(convertKey(key), value);
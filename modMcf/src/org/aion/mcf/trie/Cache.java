@@ -37,16 +37,20 @@ package org.aion.mcf.trie;
 import static org.aion.base.util.ByteArrayWrapper.wrap;
 import static org.aion.rlp.Value.fromRlpEncoded;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import org.aion.base.db.IByteArrayKeyValueStore;
 import org.aion.base.util.ByteArrayWrapper;
+import org.aion.base.util.ByteUtil;
 import org.aion.crypto.HashUtil;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
@@ -55,24 +59,70 @@ import org.slf4j.Logger;
 
 /**
  * Cache class
+ *
+ * <p>Keeps an estimate of the heap used by its nodes. When limits are set with {@link
+ * #setLimits(long, long)} the least recently used clean nodes are evicted once they take more than
+ * the cache size, and {@link #commit()} writes dirty nodes in batches of at most the flush size
+ * instead of building one batch for all of them. Without limits the cache grows until it is
+ * committed and cleared, as before.
+ *
+ * @implNote Dirty nodes only reach the data source on {@link #commit()}, which the repository calls
+ *     while flushing a block under its write lock, so a journaling data source records every node
+ *     against the block that produced it.
  */
 public class Cache {
 
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
 
+    /** Rough heap cost of a cached entry besides its encoding: map entry, key wrapper, node. */
+    private static final int NODE_OVERHEAD = 32 + 128;
+
+    /** Entries read per range query when moving to another data source. */
+    private static final int COPY_PAGE_SIZE = 4096;
+
     private IByteArrayKeyValueStore dataSource;
-    private Map<ByteArrayWrapper, Node> nodes = new LinkedHashMap<>();
+    // access ordered, the head holds the least recently used node
+    private Map<ByteArrayWrapper, Node> nodes = new LinkedHashMap<>(16, 0.75f, true);
+    private Set<ByteArrayWrapper> dirtyNodes = new LinkedHashSet<>();
     private Set<ByteArrayWrapper> removedNodes = new HashSet<>();
     private boolean isDirty;
 
+    // estimated heap used by clean and dirty nodes, guarded by this
+    private long cleanBytes;
+    private long dirtyBytes;
+
+    // limits in bytes, 0 disables
+    private long cacheSize;
+    private long flushSize;
+
+    // nanoseconds spent reading missing nodes from the data source, guarded by this
+    private long loadTime;
+
     public Cache(IByteArrayKeyValueStore dataSource) {
         this.dataSource = dataSource;
     }
 
+    /**
+     * Bounds the memory held by the cache.
+     *
+     * @param cacheSize bytes of clean nodes kept for reading, 0 for no bound
+     * @param flushSize bytes of dirty nodes written per batch on {@link #commit()}, 0 to write
+     *     them all in one batch
+     */
+    public synchronized void setLimits(long cacheSize, long flushSize) {
+        this.cacheSize = Math.max(0, cacheSize);
+        this.flushSize = Math.max(0, flushSize);
+        evict();
+    }
+
+    public synchronized boolean isBounded() {
+        return cacheSize > 0;
+    }
+
     public synchronized void markRemoved(byte[] key) {
         ByteArrayWrapper keyW = new ByteArrayWrapper(key);
         removedNodes.add(keyW);
-        nodes.remove(keyW);
+        removeNode(keyW);
     }
 
     /**
@@ -90,10 +140,9 @@ public class Cache {
         if (enc.length >= 32) {
             byte[] sha = HashUtil.h256(value.encode());
             ByteArrayWrapper key = wrap(sha);
-            this.nodes.put(key, new Node(value, true));
+            putNode(key, new Node(value, true));
             this.removedNodes.remove(key);
             this.isDirty = true;
-
             return sha;
         }
         return value;
@@ -108,11 +157,14 @@ public class Cache {
             return node.getValue();
         }
         if (this.dataSource != null) {
+            long start = System.nanoTime();
             Optional<byte[]> data = (this.dataSource == null) ? Optional.empty() : this.dataSource.get(key);
+            loadTime += System.nanoTime() - start;
             if (data.isPresent()) {
                 // dbhits++;
                 Value val = fromRlpEncoded(data.get());
-                nodes.put(wrappedKey, new Node(val, false));
+                putNode(wrappedKey, new Node(val, false));
+                evict();
                 return val;
             }
         }
@@ -120,9 +172,57 @@ public class Cache {
         return null;
     }
 
+    /**
+     * Adds the clean nodes of the other cache that are missing from this one. Nodes are addressed
+     * by their hash, so nodes read through any trie over the same data are valid here as well.
+     *
+     * @implNote The nodes are copied under the other cache's lock and added under this one's, so
+     *     the two locks are never held together.
+     */
+    public void putClean(Cache other) {
+        Map<ByteArrayWrapper, Value> clean = new LinkedHashMap<>();
+        synchronized (other) {
+            for (Map.Entry<ByteArrayWrapper, Node> entry : other.nodes.entrySet()) {
+                Node node = entry.getValue();
+                if (node != null && !node.isDirty()) {
+                    clean.put(entry.getKey(), node.getValue());
+                }
+            }
+        }
+
+        synchronized (this) {
+            for (Map.Entry<ByteArrayWrapper, Value> entry : clean.entrySet()) {
+                ByteArrayWrapper key = entry.getKey();
+                if (!nodes.containsKey(key) && !removedNodes.contains(key)) {
+                    putNode(key, new Node(entry.getValue(), false));
+                }
+            }
+            evict();
+        }
+    }
+
+    /** @return the nanoseconds spent reading nodes missing from the cache from the data source */
+    public synchronized long getLoadTime() {
+        return loadTime;
+    }
+
+    /**
+     * Checks the data source rather than the cache for clean nodes, since a bounded cache may still
+     * hold nodes that were pruned from it.
+     *
+     * @return {@code true} if the node is waiting to be written or is in the data source
+     */
+    public synchronized boolean isStored(byte[] key) {
+        Node node = nodes.get(wrap(key));
+        if (node != null && node.isDirty()) {
+            return true;
+        }
+        return dataSource == null ? node != null : dataSource.get(key).isPresent();
+    }
+
     public synchronized void delete(byte[] key) {
         ByteArrayWrapper wrappedKey = wrap(key);
-        this.nodes.remove(wrappedKey);
+        removeNode(wrappedKey);
 
         if (dataSource != null) {
             this.dataSource.delete(key);
@@ -138,31 +238,16 @@ public class Cache {
         if ((dataSource == null) || !this.isDirty) {
             // clear cache when flush requested
             if (flushCache) {
-                this.nodes.clear();
+                clear();
             }
             return;
         }
 
         // long start = System.nanoTime();
-        // int batchMemorySize = 0;
         Map<byte[], byte[]> batch = new HashMap<>();
-        for (ByteArrayWrapper nodeKey : this.nodes.keySet()) {
-            Node node = this.nodes.get(nodeKey);
-
-            if (node == null || node.isDirty()) {
-                byte[] value;
-                if (node != null) {
-                    node.setDirty(false);
-                    value = node.getValue().encode();
-                } else {
-                    value = null;
-                }
-
-                byte[] key = nodeKey.getData();
-
-                batch.put(key, value);
-                // batchMemorySize += length(key, value);
-            }
+        while (writeDirty(batch)) {
+            this.dataSource.putBatch(batch);
+            batch = new HashMap<>();
         }
         for (ByteArrayWrapper removedNode : removedNodes) {
             batch.put(removedNode.getData(), null);
@@ -171,19 +256,22 @@ public class Cache {
         this.dataSource.putBatch(batch);
         this.isDirty = false;
         if (flushCache) {
-            this.nodes.clear();
+            clear();
+        } else {
+            evict();
         }
         this.removedNodes.clear();
 
     }
 
     public synchronized void undo() {
-        Iterator<Map.Entry<ByteArrayWrapper, Node>> iter = this.nodes.entrySet().iterator();
-        while (iter.hasNext()) {
-            if (iter.next().getValue().isDirty()) {
-                iter.remove();
+        for (ByteArrayWrapper key : dirtyNodes) {
+            Node node = nodes.remove(key);
+            if (node != null) {
+                dirtyBytes -= sizeOf(key, node);
             }
         }
+        dirtyNodes.clear();
         this.isDirty = false;
     }
 
@@ -195,20 +283,29 @@ public class Cache {
         this.isDirty = isDirty;
     }
 
+    /**
+     * @implNote The map is access ordered, so look-ups while iterating over it must go through
+     *     its entries. Changes must go through the cache to keep its accounting right.
+     */
     public synchronized Map<ByteArrayWrapper, Node> getNodes() {
         return nodes;
     }
 
+    /** @return the estimated heap used by the cached nodes */
+    public synchronized long getMemorySize() {
+        return cleanBytes + dirtyBytes;
+    }
+
     public synchronized IByteArrayKeyValueStore getDb() {
         return dataSource;
     }
 
-    public String cacheDump() {
+    public synchronized String cacheDump() {
         StringBuffer cacheDump = new StringBuffer();
-        for (ByteArrayWrapper key : nodes.keySet()) {
-            Node node = nodes.get(key);
+        for (Map.Entry<ByteArrayWrapper, Node> entry : nodes.entrySet()) {
+            Node node = entry.getValue();
             if (node.getValue() != null) {
-                cacheDump.append(key.toString()).append(" : ").append(node.getValue().toString()).append("\n");
+                cacheDump.append(entry.getKey().toString()).append(" : ").append(node.getValue().toString()).append("\n");
             }
         }
 
@@ -222,18 +319,27 @@ public class Cache {
 
         Map<byte[], byte[]> rows = new HashMap<>();
         if (this.dataSource == null) {
-            for (ByteArrayWrapper key : nodes.keySet()) {
-                Node node = nodes.get(key);
+            for (Map.Entry<ByteArrayWrapper, Node> entry : nodes.entrySet()) {
+                Node node = entry.getValue();
                 if (node == null) {
-                    rows.put(key.getData(), null);
+                    rows.put(entry.getKey().getData(), null);
                 } else if (!node.isDirty()) {
-                    rows.put(key.getData(), node.getValue().encode());
+                    rows.put(entry.getKey().getData(), node.getValue().encode());
                 }
             }
         } else {
-            for (byte[] key : this.dataSource.keys()) {
-                rows.put(key, this.dataSource.get(key).get());
-            }
+            // copy the previous source page by page instead of one lookup per key
+            byte[] from = ByteUtil.EMPTY_BYTE_ARRAY;
+            List<Map.Entry<byte[], byte[]>> page;
+            do {
+                page = this.dataSource.getRange(from, null, COPY_PAGE_SIZE);
+                for (Map.Entry<byte[], byte[]> entry : page) {
+                    rows.put(entry.getKey(), entry.getValue());
+                }
+                if (!page.isEmpty()) {
+                    from = IByteArrayKeyValueStore.nextKey(page.get(page.size() - 1).getKey());
+                }
+            } while (page.size() == COPY_PAGE_SIZE);
 
             try {
                 this.dataSource.close();
@@ -249,4 +355,84 @@ public class Cache {
     public int getSize() {
         return nodes.size();
     }
+
+    /** Adds or replaces a node, keeping the memory accounting in step. */
+    synchronized void putNode(ByteArrayWrapper key, Node node) {
+        removeNode(key);
+        nodes.put(key, node);
+        if (node.isDirty()) {
+            dirtyNodes.add(key);
+            dirtyBytes += sizeOf(key, node);
+        } else {
+            cleanBytes += sizeOf(key, node);
+        }
+    }
+
+    private void removeNode(ByteArrayWrapper key) {
+        Node node = nodes.remove(key);
+        if (node != null) {
+            if (dirtyNodes.remove(key)) {
+                dirtyBytes -= sizeOf(key, node);
+            } else {
+                cleanBytes -= sizeOf(key, node);
+            }
+        }
+    }
+
+    private void clear() {
+        nodes.clear();
+        dirtyNodes.clear();
+        cleanBytes = 0;
+        dirtyBytes = 0;
+    }
+
+    /**
+     * Moves dirty nodes, oldest first, into the batch and marks them clean until the batch holds
+     * the flush size.
+     *
+     * @return {@code true} if the batch is full and dirty nodes are left
+     */
+    private boolean writeDirty(Map<byte[], byte[]> batch) {
+        long batchBytes = 0;
+        Iterator<ByteArrayWrapper> it = dirtyNodes.iterator();
+        while (it.hasNext()) {
+            if (flushSize > 0 && batchBytes >= flushSize) {
+                return true;
+            }
+            ByteArrayWrapper key = it.next();
+            it.remove();
+
+            Node node = nodes.get(key);
+            long size = sizeOf(key, node);
+            dirtyBytes -= size;
+            cleanBytes += size;
+            batchBytes += size;
+
+            node.setDirty(false);
+            batch.put(key.getData(), node.getValue().encode());
+        }
+        return false;
+    }
+
+    /** Drops least recently used clean nodes until they fit in a tenth below the cache size. */
+    private void evict() {
+        if (cacheSize == 0 || cleanBytes <= cacheSize) {
+            return;
+        }
+
+        long target = cacheSize - cacheSize / 10;
+        Iterator<Map.Entry<ByteArrayWrapper, Node>> it = nodes.entrySet().iterator();
+        while (cleanBytes > target && it.hasNext()) {
+            Map.Entry<ByteArrayWrapper, Node> entry = it.next();
+            if (!entry.getValue().isDirty()) {
+                it.remove();
+                cleanBytes -= sizeOf(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static long sizeOf(ByteArrayWrapper key, Node node) {
+        Value value = node.getValue();
+        return NODE_OVERHEAD + key.getData().length + (value == null ? 0 : value.encode().length);
+    }
 }
@@ -0,0 +1,108 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.mcf.trie;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import org.aion.base.util.ByteArrayWrapper;
+
+/** Reference counts held in a hash map of objects on the heap. */
+final class HeapRefCounts implements RefCounts {
+
+    private static class Ref {
+
+        boolean dbRef;
+        int journalRefs;
+
+        public Ref(boolean dbRef) {
+            this.dbRef = dbRef;
+        }
+
+        public int getTotRefs() {
+            return journalRefs + (dbRef ? 1 : 0);
+        }
+
+        @Override
+        public String toString() {
+            return "refs: " + String.valueOf(journalRefs) + " db: " + String.valueOf(dbRef);
+        }
+    }
+
+    private final Map<ByteArrayWrapper, Ref> refCount = new HashMap<>();
+
+    @Override
+    public void add(ByteArrayWrapper key, BooleanSupplier stored) {
+        Ref cnt = refCount.get(key);
+        if (cnt == null) {
+            cnt = new Ref(stored.getAsBoolean());
+            refCount.put(key, cnt);
+        }
+        cnt.journalRefs++;
+    }
+
+    @Override
+    public boolean contains(ByteArrayWrapper key) {
+        return refCount.containsKey(key);
+    }
+
+    @Override
+    public void commit(ByteArrayWrapper key) {
+        decRef(key).dbRef = true;
+    }
+
+    @Override
+    public boolean detach(ByteArrayWrapper key) {
+        Ref ref = refCount.get(key);
+        if (ref == null || ref.journalRefs == 0) {
+            return false;
+        }
+        ref.dbRef = false;
+        return true;
+    }
+
+    @Override
+    public boolean discard(ByteArrayWrapper key) {
+        return decRef(key).getTotRefs() == 0;
+    }
+
+    @Override
+    public int size() {
+        return refCount.size();
+    }
+
+    private Ref decRef(ByteArrayWrapper keyW) {
+        Ref cnt = refCount.get(keyW);
+        cnt.journalRefs -= 1;
+        if (cnt.journalRefs == 0) {
+            refCount.remove(keyW);
+        }
+        return cnt;
+    }
+}
@@ -61,30 +61,11 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
     private class Updates {
         ByteArrayWrapper blockHeader;
         long blockNumber;
-        Set<ByteArrayWrapper> insertedKeys = new HashSet<>();
-        Set<ByteArrayWrapper> deletedKeys = new HashSet<>();
+        Collection<ByteArrayWrapper> insertedKeys = new HashSet<>();
+        Collection<ByteArrayWrapper> deletedKeys = new HashSet<>();
     }
 
-    private static class Ref {
-
-        boolean dbRef;
-        int journalRefs;
-
-        public Ref(boolean dbRef) {
-            this.dbRef = dbRef;
-        }
-
-        public int getTotRefs() {
-            return journalRefs + (dbRef ? 1 : 0);
-        }
-
-        @Override
-        public String toString() {
-            return "refs: " + String.valueOf(journalRefs) + " db: " + String.valueOf(dbRef);
-        }
-    }
-
-    Map<ByteArrayWrapper, Ref> refCount = new HashMap<>();
+    private final RefCounts refCount;
 
     private IByteArrayKeyValueStore src;
     // block hash => updates
@@ -92,10 +73,21 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
     private Updates currentUpdates = new Updates();
     private AtomicBoolean enabled = new AtomicBoolean(false);
     private final boolean hasArchive;
+    private final boolean compact;
 
     public JournalPruneDataSource(IByteArrayKeyValueStore src) {
+        this(src, false);
+    }
+
+    /**
+     * @param compact keeps the reference counts off the heap and packs the keys of stored blocks
+     *     into byte arrays, for sources with many journaled keys such as the state database
+     */
+    public JournalPruneDataSource(IByteArrayKeyValueStore src, boolean compact) {
         this.src = src;
         this.hasArchive = src instanceof ArchivedDataSource;
+        this.compact = compact;
+        this.refCount = compact ? new OffHeapRefCounts() : new HeapRefCounts();
     }
 
     public void setPruneEnabled(boolean _enabled) {
@@ -184,11 +176,12 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
         try {
             Map<byte[], byte[]> insertsOnly = new HashMap<>();
             if (enabled.get()) {
+                Map<ByteArrayWrapper, byte[]> stored = getStoredUntracked(inputMap);
                 for (Map.Entry<byte[], byte[]> entry : inputMap.entrySet()) {
                     ByteArrayWrapper keyW = ByteArrayWrapper.wrap(entry.getKey());
                     if (entry.getValue() != null) {
                         currentUpdates.insertedKeys.add(keyW);
-                        incRef(keyW);
+                        refCount.add(keyW, () -> stored.containsKey(keyW));
                         insertsOnly.put(entry.getKey(), entry.getValue());
                     } else {
                         currentUpdates.deletedKeys.add(keyW);
@@ -213,22 +206,23 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
         }
     }
 
-    private void incRef(ByteArrayWrapper keyW) {
-        Ref cnt = refCount.get(keyW);
-        if (cnt == null) {
-            cnt = new Ref(src.get(keyW.getData()).isPresent());
-            refCount.put(keyW, cnt);
+    /**
+     * Looks up in a single multi-get which of the inserted keys not tracked yet are already
+     * stored, instead of querying the source for each key.
+     */
+    private Map<ByteArrayWrapper, byte[]> getStoredUntracked(Map<byte[], byte[]> inputMap) {
+        List<byte[]> untracked = new ArrayList<>();
+        for (Map.Entry<byte[], byte[]> entry : inputMap.entrySet()) {
+            if (entry.getValue() != null
+                    && !refCount.contains(ByteArrayWrapper.wrap(entry.getKey()))) {
+                untracked.add(entry.getKey());
+            }
         }
-        cnt.journalRefs++;
+        return untracked.isEmpty() ? Collections.emptyMap() : src.getAll(untracked);
     }
 
-    private Ref decRef(ByteArrayWrapper keyW) {
-        Ref cnt = refCount.get(keyW);
-        cnt.journalRefs -= 1;
-        if (cnt.journalRefs == 0) {
-            refCount.remove(keyW);
-        }
-        return cnt;
+    private void incRef(ByteArrayWrapper keyW) {
+        refCount.add(keyW, () -> src.get(keyW.getData()).isPresent());
     }
 
     public void storeBlockChanges(byte[] blockHash, long blockNumber) {
@@ -242,6 +236,10 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
             ByteArrayWrapper hash = ByteArrayWrapper.wrap(blockHash);
             currentUpdates.blockHeader = hash;
             currentUpdates.blockNumber = blockNumber;
+            if (compact) {
+                currentUpdates.insertedKeys = new PackedKeys(currentUpdates.insertedKeys);
+                currentUpdates.deletedKeys = new PackedKeys(currentUpdates.deletedKeys);
+            }
             blockUpdates.put(hash, currentUpdates);
             currentUpdates = new Updates();
         } finally {
@@ -261,16 +259,13 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
             Updates updates = blockUpdates.remove(blockHashW);
             if (updates != null) {
                 for (ByteArrayWrapper insertedKey : updates.insertedKeys) {
-                    decRef(insertedKey).dbRef = true;
+                    refCount.commit(insertedKey);
                 }
 
                 List<byte[]> batchRemove = new ArrayList<>();
                 for (ByteArrayWrapper key : updates.deletedKeys) {
-                    Ref ref = refCount.get(key);
-                    if (ref == null || ref.journalRefs == 0) {
+                    if (!refCount.detach(key)) {
                         batchRemove.add(key.getData());
-                    } else if (ref != null) {
-                        ref.dbRef = false;
                     }
                 }
                 src.deleteBatch(batchRemove);
@@ -294,16 +289,21 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
         Updates updates = blockUpdates.remove(blockHashW);
         List<byte[]> batchRemove = new ArrayList<>();
         for (ByteArrayWrapper insertedKey : updates.insertedKeys) {
-            Ref ref = decRef(insertedKey);
-            if (ref.getTotRefs() == 0) {
+            if (refCount.discard(insertedKey)) {
                 batchRemove.add(insertedKey.getData());
             }
         }
         src.deleteBatch(batchRemove);
     }
 
-    public Map<ByteArrayWrapper, Ref> getRefCount() {
-        return refCount;
+    /** @return the number of keys referenced by the journaled blocks */
+    public int getRefCountSize() {
+        lock.readLock().lock();
+        try {
+            return refCount.size();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public LinkedHashMap<ByteArrayWrapper, Updates> getBlockUpdates() {
@@ -340,6 +340,32 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
         }
     }
 
+    public Map<ByteArrayWrapper, byte[]> getAll(Collection<byte[]> keys) {
+        lock.readLock().lock();
+        try {
+            return src.getAll(keys);
+        } catch (Exception e) {
+            LOG.error("Could not get keys due to ", e);
+            throw e;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Map.Entry<byte[], byte[]>> getRange(byte[] from, byte[] to, int limit) {
+        lock.readLock().lock();
+        try {
+            return src.getRange(from, to, limit);
+        } catch (Exception e) {
+            LOG.error("Could not get range due to ", e);
+            throw e;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
     public Set<byte[]> keys() {
         lock.readLock().lock();
         try {
@@ -457,4 +483,64 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
             throw new IllegalArgumentException("The data store does not accept null keys.");
         }
     }
+
+    /**
+     * Read-only key collection stored as one byte array of length prefixed keys, used for blocks
+     * whose updates no longer change.
+     */
+    private static class PackedKeys extends AbstractCollection<ByteArrayWrapper> {
+
+        private final byte[] data;
+        private final int size;
+
+        PackedKeys(Collection<ByteArrayWrapper> keys) {
+            int length = 0;
+            for (ByteArrayWrapper key : keys) {
+                length += 1 + key.getData().length;
+            }
+
+            byte[] packed = new byte[length];
+            int pos = 0;
+            for (ByteArrayWrapper key : keys) {
+                byte[] k = key.getData();
+                if (k.length > 0xFF) {
+                    throw new IllegalArgumentException("Keys longer than 255 bytes can't be packed.");
+                }
+                packed[pos++] = (byte) k.length;
+                System.arraycopy(k, 0, packed, pos, k.length);
+                pos += k.length;
+            }
+
+            this.data = packed;
+            this.size = keys.size();
+        }
+
+        @Override
+        public Iterator<ByteArrayWrapper> iterator() {
+            return new Iterator<>() {
+                private int pos = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return pos < data.length;
+                }
+
+                @Override
+                public ByteArrayWrapper next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int length = data[pos++] & 0xFF;
+                    byte[] key = Arrays.copyOfRange(data, pos, pos + length);
+                    pos += length;
+                    return ByteArrayWrapper.wrap(key);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
 }
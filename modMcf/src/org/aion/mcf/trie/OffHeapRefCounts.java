@@ -0,0 +1,286 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.mcf.trie;
+
+import java.nio.ByteBuffer;
+import java.util.function.BooleanSupplier;
+import org.aion.base.util.ByteArrayWrapper;
+
+/**
+ * Reference counts held outside the heap in an open addressing table with linear probing. Each key
+ * takes one 40 byte slot: its length, the key padded to 32 bytes, the journal references and the
+ * database flag, against roughly 150 bytes of objects per key for {@link HeapRefCounts}. Keys
+ * longer than 32 bytes, which trie node hashes never are, are kept on the heap instead.
+ *
+ * <p>The table doubles when three quarters full and halves when below an eighth; entries are
+ * removed by shifting their successors back so no tombstones are left behind.
+ */
+final class OffHeapRefCounts implements RefCounts {
+
+    static final int MAX_KEY_LENGTH = 32;
+
+    private static final int SLOT_SIZE = 40;
+    private static final int KEY_OFFSET = 1;
+    private static final int REFS_OFFSET = KEY_OFFSET + MAX_KEY_LENGTH;
+    private static final int DB_OFFSET = REFS_OFFSET + 4;
+
+    private static final int MIN_CAPACITY = 1 << 10;
+    // keeps the table under the 2GB limit of a single buffer
+    private static final int MAX_CAPACITY = 1 << 25;
+
+    private ByteBuffer table;
+    private int capacity;
+    private int size;
+
+    private final HeapRefCounts overflow = new HeapRefCounts();
+
+    OffHeapRefCounts() {
+        this.table = allocate(MIN_CAPACITY);
+        this.capacity = MIN_CAPACITY;
+    }
+
+    @Override
+    public void add(ByteArrayWrapper key, BooleanSupplier stored) {
+        byte[] k = key.getData();
+        if (k.length == 0 || k.length > MAX_KEY_LENGTH) {
+            overflow.add(key, stored);
+            return;
+        }
+
+        long[] words = words(k);
+        int slot = find(words, k.length);
+        if (slot < 0) {
+            slot = ~slot;
+            int pos = slot * SLOT_SIZE;
+            table.put(pos, (byte) k.length);
+            for (int i = 0; i < words.length; i++) {
+                table.putLong(pos + KEY_OFFSET + i * Long.BYTES, words[i]);
+            }
+            table.putInt(pos + REFS_OFFSET, 0);
+            table.put(pos + DB_OFFSET, (byte) (stored.getAsBoolean() ? 1 : 0));
+            size++;
+        }
+        int pos = slot * SLOT_SIZE;
+        table.putInt(pos + REFS_OFFSET, table.getInt(pos + REFS_OFFSET) + 1);
+
+        if (size > capacity - capacity / 4) {
+            if (capacity == MAX_CAPACITY) {
+                throw new IllegalStateException("Reference count table is full.");
+            }
+            resize(capacity * 2);
+        }
+    }
+
+    @Override
+    public boolean contains(ByteArrayWrapper key) {
+        byte[] k = key.getData();
+        if (k.length == 0 || k.length > MAX_KEY_LENGTH) {
+            return overflow.contains(key);
+        }
+        return find(words(k), k.length) >= 0;
+    }
+
+    @Override
+    public void commit(ByteArrayWrapper key) {
+        byte[] k = key.getData();
+        if (k.length == 0 || k.length > MAX_KEY_LENGTH) {
+            overflow.commit(key);
+            return;
+        }
+
+        int pos = tracked(k) * SLOT_SIZE;
+        int refs = table.getInt(pos + REFS_OFFSET) - 1;
+        if (refs == 0) {
+            remove(pos / SLOT_SIZE);
+        } else {
+            table.putInt(pos + REFS_OFFSET, refs);
+            table.put(pos + DB_OFFSET, (byte) 1);
+        }
+    }
+
+    @Override
+    public boolean detach(ByteArrayWrapper key) {
+        byte[] k = key.getData();
+        if (k.length == 0 || k.length > MAX_KEY_LENGTH) {
+            return overflow.detach(key);
+        }
+
+        int slot = find(words(k), k.length);
+        if (slot < 0) {
+            return false;
+        }
+        table.put(slot * SLOT_SIZE + DB_OFFSET, (byte) 0);
+        return true;
+    }
+
+    @Override
+    public boolean discard(ByteArrayWrapper key) {
+        byte[] k = key.getData();
+        if (k.length == 0 || k.length > MAX_KEY_LENGTH) {
+            return overflow.discard(key);
+        }
+
+        int pos = tracked(k) * SLOT_SIZE;
+        int refs = table.getInt(pos + REFS_OFFSET) - 1;
+        if (refs == 0) {
+            boolean stored = table.get(pos + DB_OFFSET) != 0;
+            remove(pos / SLOT_SIZE);
+            return !stored;
+        }
+        table.putInt(pos + REFS_OFFSET, refs);
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size + overflow.size();
+    }
+
+    /** @return the bytes reserved outside the heap */
+    long memoryUsage() {
+        return (long) capacity * SLOT_SIZE;
+    }
+
+    private static ByteBuffer allocate(int slots) {
+        return ByteBuffer.allocateDirect(slots * SLOT_SIZE);
+    }
+
+    private int tracked(byte[] k) {
+        int slot = find(words(k), k.length);
+        if (slot < 0) {
+            throw new IllegalStateException("The key is not referenced by the journal.");
+        }
+        return slot;
+    }
+
+    /** @return the slot holding the key, or the complement of the empty slot ending its probe */
+    private int find(long[] words, int length) {
+        int mask = capacity - 1;
+        int slot = hash(words[0], length) & mask;
+        while (true) {
+            int pos = slot * SLOT_SIZE;
+            int len = table.get(pos);
+            if (len == 0) {
+                return ~slot;
+            }
+            if (len == length && keyEquals(pos, words)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean keyEquals(int pos, long[] words) {
+        for (int i = 0; i < words.length; i++) {
+            if (table.getLong(pos + KEY_OFFSET + i * Long.BYTES) != words[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** @return the key zero padded to 32 bytes as big endian words, the layout of a slot */
+    private static long[] words(byte[] k) {
+        long[] words = new long[MAX_KEY_LENGTH / Long.BYTES];
+        for (int i = 0; i < k.length; i++) {
+            words[i / Long.BYTES] |= (k[i] & 0xFFL) << (8 * (Long.BYTES - 1 - i % Long.BYTES));
+        }
+        return words;
+    }
+
+    /** Empties the slot, moving back the entries of the same probe run that follow it. */
+    private void remove(int slot) {
+        int mask = capacity - 1;
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (table.get(next * SLOT_SIZE) != 0) {
+            int home = slotHash(table, next * SLOT_SIZE) & mask;
+            // the entry may fill the hole unless its home lies after the hole in the run
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                copySlot(table, next, table, hole);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        clearSlot(hole);
+        size--;
+
+        if (capacity > MIN_CAPACITY && size < capacity / 8) {
+            resize(capacity / 2);
+        }
+    }
+
+    private void resize(int newCapacity) {
+        ByteBuffer old = table;
+        int oldCapacity = capacity;
+
+        table = allocate(newCapacity);
+        capacity = newCapacity;
+        int mask = newCapacity - 1;
+
+        for (int i = 0; i < oldCapacity; i++) {
+            int pos = i * SLOT_SIZE;
+            if (old.get(pos) != 0) {
+                int slot = slotHash(old, pos) & mask;
+                while (table.get(slot * SLOT_SIZE) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                copySlot(old, i, table, slot);
+            }
+        }
+    }
+
+    private void clearSlot(int slot) {
+        int pos = slot * SLOT_SIZE;
+        for (int i = 0; i < SLOT_SIZE; i += Long.BYTES) {
+            table.putLong(pos + i, 0L);
+        }
+    }
+
+    private static void copySlot(ByteBuffer from, int fromSlot, ByteBuffer to, int toSlot) {
+        int src = fromSlot * SLOT_SIZE;
+        int dst = toSlot * SLOT_SIZE;
+        for (int i = 0; i < SLOT_SIZE; i += Long.BYTES) {
+            to.putLong(dst + i, from.getLong(src + i));
+        }
+    }
+
+    private static int slotHash(ByteBuffer buf, int pos) {
+        return hash(buf.getLong(pos + KEY_OFFSET), buf.get(pos));
+    }
+
+    /**
+     * Keys are mostly hashes already, so their first eight bytes mixed with the length are enough
+     * to spread them.
+     */
+    private static int hash(long firstWord, int length) {
+        long h = (firstWord ^ length) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
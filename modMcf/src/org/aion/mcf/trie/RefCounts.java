@@ -0,0 +1,70 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.mcf.trie;
+
+import java.util.function.BooleanSupplier;
+import org.aion.base.util.ByteArrayWrapper;
+
+/**
+ * Reference counts kept by {@link JournalPruneDataSource} for the keys inserted by the blocks it
+ * still journals. Each key holds a number of journal references and a flag telling whether it
+ * was in the database before being journaled; it is dropped once no journal references are left.
+ */
+interface RefCounts {
+
+    /**
+     * Adds a journal reference.
+     *
+     * @param stored queried only when the key is not tracked yet
+     */
+    void add(ByteArrayWrapper key, BooleanSupplier stored);
+
+    /** @return {@code true} if the key is tracked */
+    boolean contains(ByteArrayWrapper key);
+
+    /** Drops a journal reference whose insert is now permanent in the database. */
+    void commit(ByteArrayWrapper key);
+
+    /**
+     * Clears the database flag of a key deleted by a pruned block.
+     *
+     * @return {@code false} if the key is not tracked, in which case it can be deleted
+     */
+    boolean detach(ByteArrayWrapper key);
+
+    /**
+     * Drops a journal reference whose block was rolled back.
+     *
+     * @return {@code true} if nothing references the key any more
+     */
+    boolean discard(ByteArrayWrapper key);
+
+    /** @return the number of tracked keys */
+    int size();
+}
@@ -150,6 +150,12 @@ public class TrieImpl implements Trie {
         return this;
     }
 
+    /** @see Cache#setLimits(long, long) */
+    public TrieImpl withCacheLimits(long cacheSize, long flushSize) {
+        this.cache.setLimits(cacheSize, flushSize);
+        return this;
+    }
+
     /** Retrieve a value from a key as String. */
     public byte[] get(String key) {
         return this.get(key.getBytes());
@@ -189,7 +195,7 @@ public class TrieImpl implements Trie {
 
     @Override
     public synchronized boolean isValidRoot(byte[] root) {
-        return !(this.getNode(root) == null);
+        return cache.isStored(root);
     }
 
     /** Delete a key/value pair from the trie. */
@@ -495,7 +501,9 @@ public class TrieImpl implements Trie {
     @Override
     public void sync() {
         synchronized (cache) {
-            boolean flushCache = !cache.isDirty() || cache.getSize() > MAX_SIZE;
+            // a bounded cache evicts on its own and keeps the hot nodes across syncs
+            boolean flushCache =
+                    !cache.isBounded() && (!cache.isDirty() || cache.getSize() > MAX_SIZE);
             sync(flushCache);
         }
     }
@@ -520,9 +528,8 @@ public class TrieImpl implements Trie {
     public TrieImpl copy() {
         synchronized (cache) {
             TrieImpl trie = new TrieImpl(this.cache.getDb(), this.root);
-            for (ByteArrayWrapper key : this.cache.getNodes().keySet()) {
-                Node node = this.cache.getNodes().get(key);
-                trie.cache.getNodes().put(key, node.copy());
+            for (Map.Entry<ByteArrayWrapper, Node> entry : this.cache.getNodes().entrySet()) {
+                trie.cache.putNode(entry.getKey(), entry.getValue().copy());
             }
             return trie;
         }
@@ -703,7 +710,7 @@ public class TrieImpl implements Trie {
 
                 Value value = Value.fromRlpEncoded(val);
                 System.arraycopy(keysElement.getRLPData(), i * 32, key, 0, 32);
-                cache.getNodes().put(wrap(key), new Node(value));
+                cache.putNode(wrap(key), new Node(value));
             }
 
             this.deserializeRoot(root.getRLPData());
@@ -718,9 +725,10 @@ public class TrieImpl implements Trie {
             int keysTotalSize = 0;
             int valsTotalSize = 0;
 
-            Set<ByteArrayWrapper> keys = map.keySet();
-            for (ByteArrayWrapper key : keys) {
-                Node node = map.get(key);
+            Set<Map.Entry<ByteArrayWrapper, Node>> entries = map.entrySet();
+            for (Map.Entry<ByteArrayWrapper, Node> entry : entries) {
+                ByteArrayWrapper key = entry.getKey();
+                Node node = entry.getValue();
                 if (node == null) {
                     continue;
                 }
@@ -786,8 +794,9 @@ public class TrieImpl implements Trie {
 
             int k_1 = 0;
             int k_2 = 0;
-            for (ByteArrayWrapper key : keys) {
-                Node node = map.get(key);
+            for (Map.Entry<ByteArrayWrapper, Node> entry : entries) {
+                ByteArrayWrapper key = entry.getKey();
+                Node node = entry.getValue();
                 if (node == null) {
                     continue;
                 }
@@ -0,0 +1,213 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.mcf.trie;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.base.util.ByteArrayWrapper.wrap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.crypto.HashUtil;
+import org.aion.db.impl.mockdb.MockDB;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CacheTest {
+
+    private IByteArrayKeyValueDatabase db;
+
+    @Before
+    public void open() {
+        db = new MockDB("CacheTest");
+        db.open();
+    }
+
+    private static byte[] key(int i) {
+        return HashUtil.h256(("key" + i).getBytes());
+    }
+
+    private static byte[] value(int i) {
+        return ("a value long enough to be stored as its own node " + i).getBytes();
+    }
+
+    private static List<byte[]> putNodes(Cache cache, int count) {
+        List<byte[]> hashes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            hashes.add((byte[]) cache.put(new Object[] {key(i), value(i)}));
+        }
+        return hashes;
+    }
+
+    @Test
+    public void testMemoryAccounting() {
+        Cache cache = new Cache(db);
+        assertThat(cache.getMemorySize()).isEqualTo(0L);
+
+        List<byte[]> hashes = putNodes(cache, 10);
+        long size = cache.getMemorySize();
+        assertThat(size).isGreaterThan(0L);
+
+        // same node again does not count twice
+        putNodes(cache, 10);
+        assertThat(cache.getMemorySize()).isEqualTo(size);
+
+        cache.markRemoved(hashes.get(0));
+        assertThat(cache.getMemorySize()).isLessThan(size);
+
+        cache.undo();
+        assertThat(cache.getMemorySize()).isEqualTo(0L);
+        assertThat(cache.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void testEvictsCleanNodes() {
+        Cache cache = new Cache(db);
+        List<byte[]> hashes = putNodes(cache, 1000);
+        long size = cache.getMemorySize();
+
+        cache.setLimits(size / 10, 0);
+        // dirty nodes are never evicted
+        assertThat(cache.getSize()).isEqualTo(1000);
+
+        cache.commit(false);
+        assertThat(cache.getMemorySize()).isAtMost(size / 10);
+        assertThat(cache.getSize()).isLessThan(1000);
+        assertThat(db.keys()).hasSize(1000);
+
+        // evicted nodes are read back from the database
+        for (int i = 0; i < hashes.size(); i++) {
+            assertThat(cache.get(hashes.get(i)).get(1).asBytes()).isEqualTo(value(i));
+        }
+        assertThat(cache.getMemorySize()).isAtMost(size / 10);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        Cache cache = new Cache(db);
+        List<byte[]> hashes = putNodes(cache, 100);
+        cache.commit(false);
+
+        // touch the oldest node so it becomes the most recent
+        cache.get(hashes.get(0));
+        cache.setLimits(cache.getMemorySize() / 2, 0);
+
+        assertThat(cache.getNodes()).containsKey(wrap(hashes.get(0)));
+        assertThat(cache.getNodes()).doesNotContainKey(wrap(hashes.get(1)));
+    }
+
+    @Test
+    public void testCommitWritesInBatches() {
+        List<Integer> batchSizes = new ArrayList<>();
+        MockDB countingDb =
+                new MockDB("counting") {
+                    @Override
+                    public void putBatch(Map<byte[], byte[]> inputMap) {
+                        batchSizes.add(inputMap.size());
+                        super.putBatch(inputMap);
+                    }
+                };
+        countingDb.open();
+
+        Cache cache = new Cache(countingDb);
+        cache.setLimits(0, 4096);
+
+        List<byte[]> hashes = putNodes(cache, 1000);
+
+        // nothing is written ahead of the commit
+        assertThat(countingDb.keys()).isEmpty();
+
+        cache.commit(false);
+        assertThat(countingDb.keys()).hasSize(hashes.size());
+        assertThat(batchSizes.size()).isGreaterThan(1);
+        for (int i = 0; i < hashes.size(); i++) {
+            assertThat(cache.get(hashes.get(i)).get(1).asBytes()).isEqualTo(value(i));
+        }
+    }
+
+    @Test
+    public void testPutCleanAddsMissingCleanNodes() {
+        Cache writer = new Cache(db);
+        List<byte[]> hashes = putNodes(writer, 10);
+        writer.commit(false);
+
+        // a reader loads the nodes from the database, the time spent is recorded
+        Cache reader = new Cache(db);
+        for (byte[] hash : hashes) {
+            reader.get(hash);
+        }
+        assertThat(reader.getLoadTime()).isGreaterThan(0L);
+        // a pending node of the reader is not handed over
+        byte[] pending = (byte[]) reader.put(new Object[] {key(10), value(10)});
+
+        Cache target = new Cache(db);
+        target.markRemoved(hashes.get(0));
+        target.putClean(reader);
+
+        assertThat(target.getNodes()).doesNotContainKey(wrap(hashes.get(0)));
+        assertThat(target.getNodes()).doesNotContainKey(wrap(pending));
+        assertThat(target.getSize()).isEqualTo(9);
+        assertThat(target.isDirty()).isFalse();
+
+        // reading the handed over nodes takes no loads
+        for (int i = 1; i < hashes.size(); i++) {
+            assertThat(target.get(hashes.get(i)).get(1).asBytes()).isEqualTo(value(i));
+        }
+        assertThat(target.getLoadTime()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testBoundedTrieMatchesUnbounded() {
+        MockDB plainDb = new MockDB("plain");
+        plainDb.open();
+        MockDB boundedDb = new MockDB("bounded");
+        boundedDb.open();
+
+        TrieImpl plain = new TrieImpl(plainDb);
+        TrieImpl bounded = new TrieImpl(boundedDb).withCacheLimits(4096, 4096);
+
+        for (int block = 0; block < 5; block++) {
+            for (int i = 0; i < 200; i++) {
+                byte[] k = key(block * 200 + i);
+                plain.update(k, value(i));
+                bounded.update(k, value(i));
+            }
+            plain.sync();
+            bounded.sync();
+            assertThat(bounded.getRootHash()).isEqualTo(plain.getRootHash());
+            assertThat(bounded.getCache().getMemorySize()).isAtMost(4096L);
+        }
+
+        TrieImpl reloaded = new TrieImpl(boundedDb, bounded.getRootHash());
+        for (int i = 0; i < 1000; i++) {
+            assertThat(reloaded.get(key(i))).isEqualTo(value(i % 200));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.mcf.trie;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+/**
+ * Compares the heap and off-heap journals: memory retained by the journaled blocks and the time
+ * taken to prune them.
+ */
+@Ignore
+public class JournalPruneDataSourceBenchmarkTest {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    private static final int BLOCKS = 2_000;
+    private static final int INSERTS_PER_BLOCK = 500;
+    private static final int DELETES_PER_BLOCK = 100;
+
+    @Test
+    public void benchmark() {
+        // the first rounds warm up the JIT
+        for (int i = 0; i < 3; i++) {
+            run("heap", false);
+            run("compact", true);
+        }
+    }
+
+    private static void run(String name, boolean compact) {
+        MockDB src = new MockDB("benchmark");
+        src.open();
+
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+
+        JournalPruneDataSource db = new JournalPruneDataSource(src, compact);
+        db.setPruneEnabled(true);
+
+        Random random = new Random(42);
+        byte[] blockHash = new byte[32];
+        for (int block = 0; block < BLOCKS; block++) {
+            Map<byte[], byte[]> batch = new HashMap<>();
+            for (int i = 0; i < INSERTS_PER_BLOCK; i++) {
+                byte[] key = new byte[32];
+                random.nextBytes(key);
+                batch.put(key, key);
+            }
+            for (int i = 0; i < DELETES_PER_BLOCK; i++) {
+                byte[] key = new byte[32];
+                random.nextBytes(key);
+                batch.put(key, null);
+            }
+            db.putBatch(batch);
+
+            blockHash[0] = (byte) block;
+            blockHash[1] = (byte) (block >> 8);
+            db.storeBlockChanges(blockHash.clone(), block);
+        }
+
+        long heap = usedHeap() - heapBefore;
+        long direct = usedDirect() - directBefore;
+
+        long start = System.nanoTime();
+        for (int block = 0; block < BLOCKS; block++) {
+            blockHash[0] = (byte) block;
+            blockHash[1] = (byte) (block >> 8);
+            db.prune(blockHash.clone(), block);
+        }
+        long pruneNanos = System.nanoTime() - start;
+
+        LOG.info(
+                "{} refs={} heap={} B direct={} B prune={} blocks/s",
+                name,
+                BLOCKS * INSERTS_PER_BLOCK,
+                heap,
+                direct,
+                BLOCKS * TimeUnit.SECONDS.toNanos(1) / pruneNanos);
+
+        src.close();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        try {
+            // direct buffers are released by a cleaner after the collection
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long usedDirect() {
+        for (BufferPoolMXBean pool :
+                ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+}
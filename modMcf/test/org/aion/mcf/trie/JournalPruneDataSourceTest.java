@@ -72,7 +72,11 @@ public class JournalPruneDataSourceTest {
     @Before
     public void open() {
         assertThat(source_db.open()).isTrue();
-        db = new JournalPruneDataSource(source_db);
+        db = createDataSource(source_db);
+    }
+
+    protected JournalPruneDataSource createDataSource(IByteArrayKeyValueDatabase src) {
+        return new JournalPruneDataSource(src);
     }
 
     @After
@@ -0,0 +1,139 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.mcf.trie;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.crypto.HashUtil;
+import org.junit.Test;
+
+public class OffHeapRefCountsTest {
+
+    private static ByteArrayWrapper key(int i) {
+        return ByteArrayWrapper.wrap(HashUtil.h256(("key" + i).getBytes()));
+    }
+
+    @Test
+    public void testReferenceLifecycle() {
+        OffHeapRefCounts refs = new OffHeapRefCounts();
+        ByteArrayWrapper k = key(0);
+
+        assertThat(refs.contains(k)).isFalse();
+        refs.add(k, () -> false);
+        refs.add(k, () -> true); // not asked again
+        assertThat(refs.size()).isEqualTo(1);
+        assertThat(refs.contains(k)).isTrue();
+
+        refs.commit(k);
+        assertThat(refs.detach(k)).isTrue();
+        assertThat(refs.discard(k)).isTrue();
+        assertThat(refs.size()).isEqualTo(0);
+        assertThat(refs.contains(k)).isFalse();
+        assertThat(refs.detach(k)).isFalse();
+
+        // the database flag survives the last journal reference
+        refs.add(k, () -> true);
+        assertThat(refs.discard(k)).isFalse();
+    }
+
+    @Test
+    public void testShortAndLongKeys() {
+        OffHeapRefCounts refs = new OffHeapRefCounts();
+        ByteArrayWrapper shortKey = ByteArrayWrapper.wrap("key1".getBytes());
+        ByteArrayWrapper longKey = ByteArrayWrapper.wrap(new byte[64]);
+
+        refs.add(shortKey, () -> false);
+        refs.add(longKey, () -> false);
+        assertThat(refs.size()).isEqualTo(2);
+        assertThat(refs.contains(shortKey)).isTrue();
+        assertThat(refs.contains(longKey)).isTrue();
+
+        assertThat(refs.discard(shortKey)).isTrue();
+        assertThat(refs.discard(longKey)).isTrue();
+        assertThat(refs.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testMatchesHeapCounts() {
+        OffHeapRefCounts offHeap = new OffHeapRefCounts();
+        HeapRefCounts heap = new HeapRefCounts();
+        Map<ByteArrayWrapper, Integer> journal = new HashMap<>();
+        List<ByteArrayWrapper> keys = new ArrayList<>();
+        Random random = new Random(7);
+
+        // enough keys to grow the table several times and shrink it back
+        for (int round = 0; round < 200_000; round++) {
+            int op = random.nextInt(4);
+            if (op < 2 || keys.isEmpty()) {
+                ByteArrayWrapper k = key(random.nextInt(50_000));
+                boolean stored = random.nextBoolean();
+                offHeap.add(k, () -> stored);
+                heap.add(k, () -> stored);
+                if (journal.merge(k, 1, Integer::sum) == 1) {
+                    keys.add(k);
+                }
+            } else {
+                int idx = random.nextInt(keys.size());
+                ByteArrayWrapper k = keys.get(idx);
+                if (op == 2) {
+                    offHeap.commit(k);
+                    heap.commit(k);
+                } else {
+                    assertThat(offHeap.discard(k)).isEqualTo(heap.discard(k));
+                }
+                if (journal.merge(k, -1, Integer::sum) == 0) {
+                    journal.remove(k);
+                    keys.set(idx, keys.get(keys.size() - 1));
+                    keys.remove(keys.size() - 1);
+                }
+            }
+
+            if (round % 1000 == 0) {
+                ByteArrayWrapper k = key(random.nextInt(50_000));
+                assertThat(offHeap.detach(k)).isEqualTo(heap.detach(k));
+            }
+            assertThat(offHeap.size()).isEqualTo(heap.size());
+        }
+
+        // drain everything
+        for (ByteArrayWrapper k : keys) {
+            for (int i = journal.get(k); i > 0; i--) {
+                assertThat(offHeap.discard(k)).isEqualTo(heap.discard(k));
+            }
+        }
+        assertThat(offHeap.size()).isEqualTo(0);
+        assertThat(heap.size()).isEqualTo(0);
+    }
+}
@@ -23,6 +23,8 @@
 
 package org.aion.p2p;
 
+import java.nio.ByteBuffer;
+
 /**
  * @author chris
  */
@@ -53,5 +55,28 @@ public abstract class Handler {
      */
     public abstract void receive(int _id, String _displayId, final byte[] _msg);
 
+    /**
+     * Called by the p2p layer with a read-only view of the message body, which is only valid
+     * for the duration of the call. Handlers able to decode from the buffer override this to
+     * skip the copy into an array.
+     *
+     * @param _id         int
+     * @param _displayId  String
+     * @param _msg        ByteBuffer
+     */
+    public void receive(int _id, String _displayId, final ByteBuffer _msg) {
+        receive(_id, _displayId, toArray(_msg));
+    }
+
+    /**
+     * @param _msg  ByteBuffer
+     * @return byte[] copy of the remaining bytes, the buffer's position is not changed
+     */
+    protected static byte[] toArray(final ByteBuffer _msg) {
+        byte[] msg = new byte[_msg.remaining()];
+        _msg.duplicate().get(msg);
+        return msg;
+    }
+
     public void shutDown() {}
 }
\ No newline at end of file
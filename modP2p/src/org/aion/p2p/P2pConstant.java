@@ -48,5 +48,11 @@ public class P2pConstant {
     // write queue timeout
     WRITE_MSG_TIMEOUT = 5000,
 
+    // per peer outbound bytes above which tx broadcasts are dropped.
+    WRITE_QUEUE_SOFT_LIMIT = 8 * 1024 * 1024,
+
+    // per peer outbound bytes above which all but p2p control msgs are dropped.
+    WRITE_QUEUE_HARD_LIMIT = 128 * 1024 * 1024,
+
     BACKWARD_SYNC_STEP = 128;
 }
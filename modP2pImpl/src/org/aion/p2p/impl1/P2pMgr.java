@@ -28,7 +28,6 @@ import java.io.InputStreamReader;
 import java.net.InetSocketAddress;
 import java.net.SocketException;
 import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
@@ -64,6 +63,8 @@ import org.aion.p2p.impl.zero.msg.ReqHandshake1;
 import org.aion.p2p.impl.zero.msg.ResHandshake1;
 import org.aion.p2p.impl1.tasks.MsgIn;
 import org.aion.p2p.impl1.tasks.MsgOut;
+import org.aion.p2p.impl1.tasks.BufferPool;
+import org.aion.p2p.impl1.tasks.SelectorPool;
 import org.aion.p2p.impl1.tasks.TaskClear;
 import org.aion.p2p.impl1.tasks.TaskConnectPeers;
 import org.aion.p2p.impl1.tasks.TaskInbound;
@@ -81,6 +82,7 @@ public final class P2pMgr implements IP2pMgr {
     private static final int PERIOD_REQUEST_ACTIVE_NODES = 1000;
     private static final int PERIOD_UPNP_PORT_MAPPING = 3600000;
     private static final int TIMEOUT_MSG_READ = 10000;
+    private static final long SELECTOR_SHUTDOWN_WAIT = 2000L;
 
     // TODO: need refactor by passing the parameter in the later version to P2pMgr.
     public static int txBroadCastRoute =
@@ -99,9 +101,12 @@ public final class P2pMgr implements IP2pMgr {
     private final AtomicBoolean start = new AtomicBoolean(true);
 
     private ServerSocketChannel tcpServer;
-    private Selector selector;
+    private SelectorPool selectorPool;
+    private final List<Thread> inboundThreads = new ArrayList<>();
+    private final BufferPool bufferPool = new BufferPool();
     private ScheduledExecutorService scheduledWorkers;
     private int errTolerance;
+    private int selectorThreads;
     private BlockingQueue<MsgOut> sendMsgQue = new LinkedBlockingQueue<>();
     private BlockingQueue<MsgIn> receiveMsgQue = new LinkedBlockingQueue<>();
 
@@ -137,6 +142,27 @@ public final class P2pMgr implements IP2pMgr {
         final int _maxActiveNodes,
         final boolean _bootlistSyncOnly,
         final int _errorTolerance) {
+        this(_netId, _revision, _nodeId, _ip, _port, _bootNodes, _upnpEnable, _maxTempNodes,
+            _maxActiveNodes, _bootlistSyncOnly, _errorTolerance, 1);
+    }
+
+    /**
+     * @param _selectorThreads int number of selectors the channels are sharded over, each one
+     *     with its own inbound thread
+     */
+    public P2pMgr(
+        final int _netId,
+        final String _revision,
+        final String _nodeId,
+        final String _ip,
+        final int _port,
+        final String[] _bootNodes,
+        final boolean _upnpEnable,
+        final int _maxTempNodes,
+        final int _maxActiveNodes,
+        final boolean _bootlistSyncOnly,
+        final int _errorTolerance,
+        final int _selectorThreads) {
 
         this.selfNetId = _netId;
         this.selfRevision = _revision;
@@ -150,6 +176,7 @@ public final class P2pMgr implements IP2pMgr {
         this.maxActiveNodes = _maxActiveNodes;
         this.syncSeedsOnly = _bootlistSyncOnly;
         this.errTolerance = _errorTolerance;
+        this.selectorThreads = Math.max(1, _selectorThreads);
 
         nodeMgr = new NodeMgr(this, _maxActiveNodes, _maxTempNodes, p2pLOG);
 
@@ -172,7 +199,7 @@ public final class P2pMgr implements IP2pMgr {
     @Override
     public void run() {
         try {
-            selector = Selector.open();
+            selectorPool = new SelectorPool(this.selectorThreads);
 
             scheduledWorkers = new ScheduledThreadPoolExecutor(2);
 
@@ -180,11 +207,14 @@ public final class P2pMgr implements IP2pMgr {
             tcpServer.configureBlocking(false);
             tcpServer.socket().setReuseAddress(true);
             tcpServer.socket().bind(new InetSocketAddress(Node.ipBytesToStr(selfIp), selfPort));
-            tcpServer.register(selector, SelectionKey.OP_ACCEPT);
+            tcpServer.register(selectorPool.get(0), SelectionKey.OP_ACCEPT);
 
-            Thread thrdIn = new Thread(getInboundInstance(), "p2p-in");
-            thrdIn.setPriority(Thread.NORM_PRIORITY);
-            thrdIn.start();
+            for (int i = 0; i < selectorPool.size(); i++) {
+                Thread thrdIn = new Thread(getInboundInstance(i), "p2p-in-" + i);
+                thrdIn.setPriority(Thread.NORM_PRIORITY);
+                thrdIn.start();
+                inboundThreads.add(thrdIn);
+            }
 
             if (p2pLOG.isDebugEnabled()) {
                 this.handlers.forEach(
@@ -282,6 +312,20 @@ public final class P2pMgr implements IP2pMgr {
     public void shutdown() {
         start.set(false);
         scheduledWorkers.shutdownNow();
+        if (selectorPool != null) {
+            selectorPool.wakeupAll();
+
+            // let the inbound loops observe the shutdown before their selectors go away
+            for (Thread thrdIn : inboundThreads) {
+                try {
+                    thrdIn.join(SELECTOR_SHUTDOWN_WAIT);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            selectorPool.close();
+        }
 
         for (List<Handler> hdrs : handlers.values()) {
             hdrs.forEach(Handler::shutDown);
@@ -320,9 +364,10 @@ public final class P2pMgr implements IP2pMgr {
         }
 
         if (_sc != null) {
-            SelectionKey sk = _sc.keyFor(selector);
+            SelectionKey sk = selectorPool == null ? null : selectorPool.keyFor(_sc);
             if (sk != null) {
                 sk.cancel();
+                selectorPool.releaseChannel(sk, bufferPool);
             }
 
             try {
@@ -430,17 +475,19 @@ public final class P2pMgr implements IP2pMgr {
     }
 
 
-    private TaskInbound getInboundInstance() {
+    private TaskInbound getInboundInstance(int _selectorIdx) {
         return new TaskInbound(
             this,
-            this.selector,
+            this.selectorPool,
+            _selectorIdx,
             this.start,
             this.nodeMgr,
             this.tcpServer,
             this.handlers,
             this.sendMsgQue,
             cachedResHandshake1,
-            this.receiveMsgQue);
+            this.receiveMsgQue,
+            this.bufferPool);
     }
 
     private TaskSend getSendInstance(int i) {
@@ -450,7 +497,7 @@ public final class P2pMgr implements IP2pMgr {
             this.sendMsgQue,
             this.start,
             this.nodeMgr,
-            this.selector);
+            this.selectorPool);
     }
 
     private TaskReceive getReceiveInstance() {
@@ -465,7 +512,9 @@ public final class P2pMgr implements IP2pMgr {
             this.nodeMgr,
             this.selfShortId,
             this.sendMsgQue,
-            this.receiveMsgQue);
+            this.receiveMsgQue,
+            this.selectorPool,
+            this.bufferPool);
     }
 
     private TaskClear getClearInstance() {
@@ -478,7 +527,7 @@ public final class P2pMgr implements IP2pMgr {
             this.start,
             this.nodeMgr,
             this.maxActiveNodes,
-            this.selector,
+            this.selectorPool,
             this.sendMsgQue,
             cachedReqHandshake1);
     }
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.p2p.impl1.tasks;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-classed pool of direct buffers for inbound message bodies. Classes are powers of two from
+ * {@link #MIN_CLASS} to {@link #MAX_CLASS}; bodies above the largest class get a plain heap
+ * buffer which is left to the GC.
+ *
+ * <p>Buffers can be acquired and released from any thread.
+ */
+public class BufferPool {
+
+    static final int MIN_CLASS_SHIFT = 10;
+    static final int MAX_CLASS_SHIFT = 22;
+
+    // 1 KB
+    static final int MIN_CLASS = 1 << MIN_CLASS_SHIFT;
+    // 4 MB
+    static final int MAX_CLASS = 1 << MAX_CLASS_SHIFT;
+
+    // bytes kept per class, at least two buffers are kept of every class
+    private static final int RETAIN_BYTES = 8 * 1024 * 1024;
+
+    private final Queue<ByteBuffer>[] free;
+    private final AtomicInteger[] freeCnt;
+    private final int[] maxFree;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong unpooled = new AtomicLong();
+
+    public BufferPool() {
+        this(RETAIN_BYTES);
+    }
+
+    @SuppressWarnings("unchecked")
+    BufferPool(int _retainBytes) {
+        int classes = MAX_CLASS_SHIFT - MIN_CLASS_SHIFT + 1;
+        this.free = new Queue[classes];
+        this.freeCnt = new AtomicInteger[classes];
+        this.maxFree = new int[classes];
+        for (int i = 0; i < classes; i++) {
+            this.free[i] = new ConcurrentLinkedQueue<>();
+            this.freeCnt[i] = new AtomicInteger();
+            this.maxFree[i] = Math.max(2, _retainBytes >>> (MIN_CLASS_SHIFT + i));
+        }
+    }
+
+    /**
+     * @param _len int
+     * @return int index of the smallest class holding _len bytes, -1 if there is none
+     */
+    static int classOf(int _len) {
+        if (_len > MAX_CLASS) {
+            return -1;
+        }
+        if (_len <= MIN_CLASS) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(_len - 1) - MIN_CLASS_SHIFT;
+    }
+
+    /**
+     * @param _len int bytes needed
+     * @return ByteBuffer cleared buffer with its limit set to _len
+     */
+    ByteBuffer acquire(int _len) {
+        int idx = classOf(_len);
+        if (idx < 0) {
+            this.unpooled.incrementAndGet();
+            return ByteBuffer.allocate(_len);
+        }
+
+        ByteBuffer buf = this.free[idx].poll();
+        if (buf != null) {
+            this.freeCnt[idx].decrementAndGet();
+            this.hits.incrementAndGet();
+        } else {
+            this.misses.incrementAndGet();
+            buf = ByteBuffer.allocateDirect(MIN_CLASS << idx);
+        }
+
+        buf.clear().limit(_len);
+        return buf;
+    }
+
+    /**
+     * Hands a buffer from {@link #acquire} back; the caller must not touch it afterwards,
+     * including any slice or duplicate of it.
+     *
+     * @param _buf ByteBuffer
+     */
+    void release(final ByteBuffer _buf) {
+        if (_buf == null || !_buf.isDirect()) {
+            return;
+        }
+
+        int idx = classOf(_buf.capacity());
+        if (idx < 0 || (MIN_CLASS << idx) != _buf.capacity()) {
+            return;
+        }
+
+        if (this.freeCnt[idx].incrementAndGet() <= this.maxFree[idx]) {
+            this.free[idx].offer(_buf);
+        } else {
+            this.freeCnt[idx].decrementAndGet();
+        }
+    }
+
+    long getHits() {
+        return this.hits.get();
+    }
+
+    long getMisses() {
+        return this.misses.get();
+    }
+
+    long getUnpooled() {
+        return this.unpooled.get();
+    }
+
+    /**
+     * Hit/miss counts since the previous call and the bytes currently held.
+     *
+     * @return String
+     */
+    String dumpStats() {
+        long retained = 0;
+        for (int i = 0; i < this.freeCnt.length; i++) {
+            retained += (long) this.freeCnt[i].get() * (MIN_CLASS << i);
+        }
+        return String.format("buffer-pool hits=%d misses=%d unpooled=%d retained=%dKB",
+            this.hits.getAndSet(0), this.misses.getAndSet(0), this.unpooled.getAndSet(0),
+            retained / 1024);
+    }
+}
@@ -25,30 +25,38 @@ package org.aion.p2p.impl1.tasks;
 
 import static org.aion.p2p.impl1.P2pMgr.p2pLOG;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import org.aion.p2p.Header;
+import org.aion.p2p.impl1.P2pException;
 
 /**
  * @author chris
  */
 class ChannelBuffer {
 
-    byte[] body = null;
+    private static final ByteBuffer EMPTY_BODY = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
     Lock lock = new ReentrantLock();
     private Header header = null;
-    // buffer for buffer remaining after NIO select read.
-    private byte[] remainBuffer;
-    private int buffRemain = 0;
+    // frame being decoded, only touched by the inbound loop owning the channel.
+    private final ByteBuffer headBuf = ByteBuffer.allocate(Header.LEN);
+    private ByteBuffer bodyBuf = null;
     private int nodeIdHash;
     private String displayId;
-    private byte[] bsHead = new byte[Header.LEN];
     private AtomicBoolean closed = new AtomicBoolean(false);
 
+    final OutboundQueue outbound = new OutboundQueue();
+    // OP_WRITE registered, the selector loop flushes once the socket drains.
+    private volatile boolean writeBlocked = false;
+
     private Map<Integer, RouteStatus> routes = new HashMap<>();
 
     ChannelBuffer() {
@@ -79,14 +87,40 @@ class ChannelBuffer {
 
     void setClosed() {
         this.closed.set(true);
+        this.outbound.clear();
     }
 
-    int getBuffRemain() {
-        return buffRemain;
+    boolean isWriteBlocked() {
+        return writeBlocked;
     }
 
-    void setBuffRemain(int buffRemain) {
-        this.buffRemain = buffRemain;
+    /**
+     * Writes the outbound queue to the channel without blocking. Whoever holds the lock writes
+     * on behalf of everybody else and re-checks the queue after unlocking; if the socket buffer
+     * is full, OP_WRITE is registered and the selector loop calls this again when it drains.
+     *
+     * @param _sk SelectionKey key of the channel
+     */
+    void flush(final SelectionKey _sk) throws IOException {
+        do {
+            if (!lock.tryLock()) {
+                return;
+            }
+
+            try {
+                writeBlocked = !outbound.writeTo((SocketChannel) _sk.channel());
+
+                int ops = _sk.interestOps();
+                if (writeBlocked && (ops & SelectionKey.OP_WRITE) == 0) {
+                    _sk.interestOps(ops | SelectionKey.OP_WRITE);
+                    _sk.selector().wakeup();
+                } else if (!writeBlocked && (ops & SelectionKey.OP_WRITE) != 0) {
+                    _sk.interestOps(ops & ~SelectionKey.OP_WRITE);
+                }
+            } finally {
+                lock.unlock();
+            }
+        } while (!writeBlocked && !outbound.isEmpty());
     }
 
     /**
@@ -124,53 +158,82 @@ class ChannelBuffer {
         return routes.get(_route);
     }
 
-    void readHead(ByteBuffer buf) {
-        if (buf.array().length < bsHead.length) {
-            if (p2pLOG.isDebugEnabled()) {
-                p2pLOG
-                    .debug("ChannelBuffer readHead short buffer size");
+    /**
+     * Moves the bytes of the current frame from the read buffer into the header and the pooled
+     * body buffer. Only the body is copied, and only once; partial frames stay in this buffer
+     * until the next read.
+     *
+     * @param _src ByteBuffer bytes read from the channel, position is advanced
+     * @param _pool BufferPool pool the body buffer is taken from
+     * @return boolean true once a frame is complete, see {@link #takeBody()}
+     * @throws P2pException if the header is invalid, the stream can't be resynced
+     */
+    boolean decode(final ByteBuffer _src, final BufferPool _pool) throws P2pException {
+        if (header == null) {
+            transfer(_src, headBuf);
+            if (headBuf.hasRemaining()) {
+                return false;
             }
-            return;
-        }
 
-        buf.get(bsHead);
-        try {
-            header = Header.decode(bsHead);
-        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
-            if (p2pLOG.isDebugEnabled()) {
-                p2pLOG
-                    .debug("ChannelBuffer readHead exception. {}", e.toString());
+            try {
+                header = Header.decode(headBuf.array());
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new P2pException("invalid-header " + e.getMessage());
+            } finally {
+                headBuf.clear();
             }
+
+            bodyBuf = header.getLen() == 0 ? EMPTY_BODY : _pool.acquire(header.getLen());
         }
+
+        transfer(_src, bodyBuf);
+        return !bodyBuf.hasRemaining();
     }
 
-    void readBody(ByteBuffer buf) {
-        if (isHeaderNotCompleted()) {
-            if (p2pLOG.isDebugEnabled()) {
-                p2pLOG
-                    .debug("ChannelBuffer readBody no header.");
-            }
-            return;
+    /**
+     * Hands over the body of the frame completed by {@link #decode}; the caller releases it to
+     * the pool once done. The header stays readable until {@link #refreshHeader()}.
+     *
+     * @return ByteBuffer body, positioned at its first byte
+     */
+    ByteBuffer takeBody() {
+        ByteBuffer body = bodyBuf;
+        bodyBuf = null;
+        if (body == EMPTY_BODY) {
+            return body.duplicate();
         }
+        body.flip();
+        return body;
+    }
 
-        if (buf.array().length < header.getLen()) {
-            if (p2pLOG.isDebugEnabled()) {
-                p2pLOG
-                    .debug("ChannelBuffer readBody short buffer size.");
-            }
+    private static void transfer(final ByteBuffer _src, final ByteBuffer _dst) {
+        int n = Math.min(_src.remaining(), _dst.remaining());
+        if (n == 0) {
             return;
         }
 
-        body = new byte[header.getLen()];
-        buf.get(body);
+        ByteBuffer part = _src.duplicate();
+        part.limit(part.position() + n);
+        _dst.put(part);
+        _src.position(_src.position() + n);
     }
 
-    void refreshHeader() {
+    /**
+     * Returns the body buffer of a half-read frame to the pool, once the channel is dropped. Runs
+     * on the inbound loop owning the channel, like {@link #decode}.
+     *
+     * @param _pool BufferPool pool the body buffer was taken from
+     */
+    void releaseBody(final BufferPool _pool) {
+        if (bodyBuf != null && bodyBuf != EMPTY_BODY) {
+            _pool.release(bodyBuf);
+        }
+        bodyBuf = null;
         header = null;
     }
 
-    void refreshBody() {
-        body = null;
+    void refreshHeader() {
+        header = null;
     }
 
     /**
@@ -180,21 +243,6 @@ class ChannelBuffer {
         return header == null;
     }
 
-    /**
-     * @return boolean
-     */
-    boolean isBodyNotCompleted() {
-        return header == null || body == null || body.length != header.getLen();
-    }
-
-    byte[] getRemainBuffer() {
-        return remainBuffer;
-    }
-
-    void setRemainBuffer(byte[] remainBuffer) {
-        this.remainBuffer = remainBuffer;
-    }
-
     public Header getHeader() {
         return header;
     }
@@ -23,14 +23,18 @@
 
 package org.aion.p2p.impl1.tasks;
 
+import java.nio.ByteBuffer;
+
 /**
- * An incoming message.
+ * An incoming message. The body may live in a pooled buffer, which is handed back by {@link
+ * #release()} once every handler has seen it.
  */
 public class MsgIn {
     private final int nodeId;
     private final String displayId;
     private final int route;
-    private final byte[] msg;
+    private final ByteBuffer body;
+    private final BufferPool pool;
 
     /**
      * Constructs an incoming message.
@@ -41,10 +45,25 @@ public class MsgIn {
      * @param msg The message.
      */
     MsgIn(final int nodeId, final String displayId, final int route, final byte[] msg) {
+        this(nodeId, displayId, route, ByteBuffer.wrap(msg), null);
+    }
+
+    /**
+     * Constructs an incoming message around a decoded frame body.
+     *
+     * @param nodeId The node id.
+     * @param displayId The display id.
+     * @param route The route.
+     * @param body The body, from its position to its limit.
+     * @param pool The pool the body goes back to, null if it is not pooled.
+     */
+    MsgIn(final int nodeId, final String displayId, final int route, final ByteBuffer body,
+        final BufferPool pool) {
         this.nodeId = nodeId;
         this.displayId = displayId;
         this.route = route;
-        this.msg = msg;
+        this.body = body;
+        this.pool = pool;
     }
 
     public int getNodeId() {
@@ -59,7 +78,26 @@ public class MsgIn {
         return this.route;
     }
 
+    /**
+     * @return ByteBuffer read-only view of the body, valid until {@link #release()}
+     */
+    ByteBuffer getBody() {
+        return this.body.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return byte[] copy of the body
+     */
     public byte[] getMsg() {
-        return this.msg;
+        ByteBuffer b = this.body.duplicate();
+        byte[] msg = new byte[b.remaining()];
+        b.get(msg);
+        return msg;
+    }
+
+    void release() {
+        if (this.pool != null) {
+            this.pool.release(this.body);
+        }
     }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.p2p.impl1.tasks;
+
+import static org.aion.p2p.impl1.P2pMgr.txBroadCastRoute;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Header;
+import org.aion.p2p.P2pConstant;
+
+/**
+ * Per peer queue of encoded messages waiting for the socket. Header and body are queued as
+ * separate buffers and written with gathering writes, so several small messages go out in a
+ * single system call and nothing is copied into an intermediate frame.
+ *
+ * <p>Producers only append; {@link #writeTo} must be called by one thread at a time (see
+ * {@link ChannelBuffer#flush}).
+ */
+class OutboundQueue {
+
+    // buffers handed to a single gathering write
+    static final int MAX_GATHER = 64;
+
+    private final ArrayDeque<ByteBuffer> buffers = new ArrayDeque<>();
+    private final int softLimit;
+    private final int hardLimit;
+    private long pendingBytes;
+    private long dropped;
+
+    OutboundQueue() {
+        this(P2pConstant.WRITE_QUEUE_SOFT_LIMIT, P2pConstant.WRITE_QUEUE_HARD_LIMIT);
+    }
+
+    OutboundQueue(int _softLimit, int _hardLimit) {
+        this.softLimit = _softLimit;
+        this.hardLimit = _hardLimit;
+    }
+
+    /**
+     * Queues a message unless the drop policy of its route says otherwise: p2p control msgs are
+     * always queued, tx broadcasts are dropped above the soft limit and everything else above
+     * the hard limit. A message is never dropped when the queue is empty.
+     *
+     * @param _h Header encoded header, len already set
+     * @param _head ByteBuffer encoded header
+     * @param _body ByteBuffer encoded body, may be null
+     * @return boolean false if the message was dropped
+     */
+    synchronized boolean offer(final Header _h, final ByteBuffer _head, final ByteBuffer _body) {
+        int len = _head.remaining() + (_body == null ? 0 : _body.remaining());
+
+        if (this.pendingBytes > 0 && _h.getCtrl() != Ctrl.NET) {
+            int limit = _h.getRoute() == txBroadCastRoute ? this.softLimit : this.hardLimit;
+            if (this.pendingBytes + len > limit) {
+                this.dropped++;
+                return false;
+            }
+        }
+
+        this.buffers.addLast(_head);
+        if (_body != null && _body.hasRemaining()) {
+            this.buffers.addLast(_body);
+        }
+        this.pendingBytes += len;
+        return true;
+    }
+
+    /**
+     * Writes queued buffers until the queue is drained or the channel does not take more.
+     *
+     * @param _ch GatheringByteChannel non-blocking channel
+     * @return boolean true if the queue was drained, false if the channel is full
+     */
+    boolean writeTo(final GatheringByteChannel _ch) throws IOException {
+        ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+        while (true) {
+            int cnt = 0;
+            long expected = 0;
+            synchronized (this) {
+                Iterator<ByteBuffer> it = this.buffers.iterator();
+                while (it.hasNext() && cnt < MAX_GATHER) {
+                    ByteBuffer b = it.next();
+                    gather[cnt++] = b;
+                    expected += b.remaining();
+                }
+            }
+
+            if (cnt == 0) {
+                return true;
+            }
+
+            long written = _ch.write(gather, 0, cnt);
+
+            synchronized (this) {
+                this.pendingBytes -= written;
+                while (!this.buffers.isEmpty() && !this.buffers.peekFirst().hasRemaining()) {
+                    this.buffers.pollFirst();
+                }
+            }
+
+            if (written < expected) {
+                return false;
+            }
+        }
+    }
+
+    synchronized boolean isEmpty() {
+        return this.buffers.isEmpty();
+    }
+
+    synchronized long getPendingBytes() {
+        return this.pendingBytes;
+    }
+
+    synchronized long getDropped() {
+        return this.dropped;
+    }
+
+    synchronized void clear() {
+        this.buffers.clear();
+        this.pendingBytes = 0;
+    }
+}
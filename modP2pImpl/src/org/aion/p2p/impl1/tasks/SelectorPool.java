@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.p2p.impl1.tasks;
+
+import static org.aion.p2p.impl1.P2pMgr.p2pLOG;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed set of selectors, each one driven by its own {@link TaskInbound} thread. Channels are
+ * sharded over the selectors round-robin; a channel is only ever registered by the thread that
+ * owns its selector, so the loops can block in {@link Selector#select(long)} and are woken up
+ * when there is registration work for them.
+ */
+public class SelectorPool {
+
+    // upper bound of a blocking select, so the loops still observe shutdown if a wakeup is lost
+    private static final long SELECT_TIMEOUT = 1000L;
+
+    private final Selector[] selectors;
+    private final Shard[] shards;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param _size int number of selectors (and inbound threads)
+     */
+    public SelectorPool(int _size) throws IOException {
+        this(openSelectors(_size));
+    }
+
+    SelectorPool(final Selector... _selectors) {
+        if (_selectors == null || _selectors.length == 0) {
+            throw new IllegalArgumentException("selector pool needs at least one selector");
+        }
+
+        this.selectors = _selectors;
+        this.shards = new Shard[_selectors.length];
+        for (int i = 0; i < _selectors.length; i++) {
+            this.shards[i] = new Shard();
+        }
+    }
+
+    private static Selector[] openSelectors(int _size) throws IOException {
+        Selector[] selectors = new Selector[Math.max(1, _size)];
+        for (int i = 0; i < selectors.length; i++) {
+            selectors[i] = Selector.open();
+        }
+        return selectors;
+    }
+
+    public int size() {
+        return this.selectors.length;
+    }
+
+    public Selector get(int _idx) {
+        return this.selectors[_idx];
+    }
+
+    /**
+     * @param _channel SelectableChannel
+     * @return SelectionKey the key of the channel on whichever selector owns it, or null
+     */
+    public SelectionKey keyFor(final SelectableChannel _channel) {
+        for (Selector selector : this.selectors) {
+            SelectionKey sk = _channel.keyFor(selector);
+            if (sk != null) {
+                return sk;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Wakes up every loop blocked in select, used on shutdown.
+     */
+    public void wakeupAll() {
+        for (int i = 0; i < this.selectors.length; i++) {
+            wakeup(i);
+        }
+    }
+
+    public void close() {
+        for (Selector selector : this.selectors) {
+            try {
+                selector.close();
+            } catch (IOException e) {
+                p2pLOG.debug("selector-close-exception {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Registers the channel for reads on the next selector. The registration itself is run by
+     * the owning inbound loop; callers that need the key before going on (e.g. to queue a
+     * handshake) should wait on the returned future.
+     *
+     * @param _channel SocketChannel non-blocking channel
+     * @param _cb ChannelBuffer attachment
+     * @return CompletableFuture completed with the key once registered
+     */
+    CompletableFuture<SelectionKey> register(final SocketChannel _channel, final ChannelBuffer _cb) {
+        int idx = Math.floorMod(this.next.getAndIncrement(), this.selectors.length);
+        Shard shard = this.shards[idx];
+        CompletableFuture<SelectionKey> future = new CompletableFuture<>();
+        Selector selector = this.selectors[idx];
+
+        Runnable task = () -> {
+            try {
+                future.complete(_channel.register(selector, SelectionKey.OP_READ, _cb));
+            } catch (ClosedChannelException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        };
+
+        if (Thread.currentThread() == shard.loopThread) {
+            task.run();
+        } else {
+            shard.tasks.offer(task);
+            wakeup(idx);
+        }
+        return future;
+    }
+
+    /**
+     * Runs the task on the loop owning the selector, right away if called from it, otherwise
+     * after the loop is done with its current iteration.
+     *
+     * @param _selector Selector one of the pool's selectors
+     * @param _task Runnable
+     */
+    void execute(final Selector _selector, final Runnable _task) {
+        for (int i = 0; i < this.selectors.length; i++) {
+            if (this.selectors[i] == _selector) {
+                Shard shard = this.shards[i];
+                if (Thread.currentThread() == shard.loopThread) {
+                    _task.run();
+                } else {
+                    shard.tasks.offer(_task);
+                    wakeup(i);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gives the pooled body buffer of a half-read frame back once the channel of the key is
+     * dropped. The release runs on the loop owning the channel, so it can't race a decode.
+     *
+     * @param _sk SelectionKey key of the dropped channel
+     * @param _pool BufferPool pool the body buffers are taken from
+     */
+    public void releaseChannel(final SelectionKey _sk, final BufferPool _pool) {
+        Object attachment = _sk.attachment();
+        if (attachment instanceof ChannelBuffer) {
+            execute(_sk.selector(), () -> ((ChannelBuffer) attachment).releaseBody(_pool));
+        }
+    }
+
+    /**
+     * Blocks until keys are selected, a wakeup is issued or the select timeout elapses.
+     *
+     * @param _idx int index of the calling loop
+     * @return int number of keys selected
+     */
+    int select(int _idx) throws IOException {
+        Shard shard = this.shards[_idx];
+        shard.loopThread = Thread.currentThread();
+        shard.wakenUp.set(false);
+
+        // tasks queued before the flag reset did not wake the selector, don't block on them.
+        if (!shard.tasks.isEmpty()) {
+            return this.selectors[_idx].selectNow();
+        }
+        return this.selectors[_idx].select(SELECT_TIMEOUT);
+    }
+
+    void runPendingTasks(int _idx) {
+        Queue<Runnable> tasks = this.shards[_idx].tasks;
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                p2pLOG.debug("selector-task-exception {}", e.toString());
+            }
+        }
+    }
+
+    /**
+     * @param _idx int index of the loop
+     * @param _keys int keys processed in this iteration
+     * @param _nanos long time spent processing the iteration
+     */
+    void recordLoop(int _idx, int _keys, long _nanos) {
+        Shard shard = this.shards[_idx];
+        shard.loops.incrementAndGet();
+        shard.keys.addAndGet(_keys);
+        shard.busyNanos.addAndGet(_nanos);
+        shard.maxNanos.accumulateAndGet(_nanos, Math::max);
+    }
+
+    private void wakeup(int _idx) {
+        if (this.shards[_idx].wakenUp.compareAndSet(false, true)) {
+            this.selectors[_idx].wakeup();
+        }
+    }
+
+    /**
+     * Loop latency per selector since the previous call.
+     *
+     * @return String
+     */
+    String dumpLoopStats() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < this.shards.length; i++) {
+            Shard shard = this.shards[i];
+            long loops = shard.loops.getAndSet(0);
+            long keys = shard.keys.getAndSet(0);
+            long busy = shard.busyNanos.getAndSet(0);
+            long max = shard.maxNanos.getAndSet(0);
+            sb.append(String.format("selector[%d] loops=%d keys=%d avg-loop=%dus max-loop=%dus",
+                i, loops, keys, loops == 0 ? 0 : busy / loops / 1000, max / 1000));
+            if (i < this.shards.length - 1) {
+                sb.append("\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static final class Shard {
+
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean wakenUp = new AtomicBoolean();
+        private volatile Thread loopThread;
+
+        private final AtomicLong loops = new AtomicLong();
+        private final AtomicLong keys = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+    }
+}
@@ -27,10 +27,9 @@ import static org.aion.p2p.impl1.P2pMgr.p2pLOG;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.p2p.INode;
 import org.aion.p2p.INodeMgr;
@@ -42,13 +41,14 @@ public class TaskConnectPeers implements Runnable {
 
     private static final int PERIOD_CONNECT_OUTBOUND = 1000;
     private static final int TIMEOUT_OUTBOUND_CONNECT = 10000;
+    private static final int TIMEOUT_REGISTER = 1000;
 
     private final INodeMgr nodeMgr;
     private final int maxActiveNodes;
     private final IP2pMgr mgr;
     private final AtomicBoolean start;
     private final BlockingQueue<MsgOut> sendMsgQue;
-    private final Selector selector;
+    private final SelectorPool selectorPool;
     private final ReqHandshake1 cachedReqHS;
 
     public TaskConnectPeers(
@@ -56,7 +56,7 @@ public class TaskConnectPeers implements Runnable {
         final AtomicBoolean _start,
         final INodeMgr _nodeMgr,
         final int _maxActiveNodes,
-        final Selector _selector,
+        final SelectorPool _selectorPool,
         final BlockingQueue<MsgOut> _sendMsgQue,
         final ReqHandshake1 _cachedReqHS) {
 
@@ -64,7 +64,7 @@ public class TaskConnectPeers implements Runnable {
         this.nodeMgr = _nodeMgr;
         this.maxActiveNodes = _maxActiveNodes;
         this.mgr = _mgr;
-        this.selector = _selector;
+        this.selectorPool = _selectorPool;
         this.sendMsgQue = _sendMsgQue;
         this.cachedReqHS = _cachedReqHS;
     }
@@ -117,11 +117,12 @@ public class TaskConnectPeers implements Runnable {
                         }
 
                         channel.configureBlocking(false);
-                        SelectionKey sk = channel.register(this.selector, SelectionKey.OP_READ);
                         ChannelBuffer rb = new ChannelBuffer();
                         rb.setDisplayId(node.getIdShort());
                         rb.setNodeIdHash(nodeIdHash);
-                        sk.attach(rb);
+                        // the handshake below is written through the key, wait for it.
+                        this.selectorPool.register(channel, rb)
+                            .get(TIMEOUT_REGISTER, TimeUnit.MILLISECONDS);
 
                         node.refreshTimestamp();
                         node.setChannel(channel);
@@ -31,7 +31,6 @@ import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.Arrays;
@@ -57,10 +56,22 @@ import org.aion.p2p.impl.zero.msg.ResHandshake1;
 import org.aion.p2p.impl1.P2pException;
 import org.aion.p2p.impl1.P2pMgr.Dest;
 
+/**
+ * Inbound loop of one selector of the {@link SelectorPool}. The loop blocks in select until
+ * keys are ready, so an idle node does not burn a core polling its channels.
+ */
 public class TaskInbound implements Runnable {
 
+    // direct, so reads don't go through the jdk's temporary buffer; frames are copied out of it.
+    private static final int READ_BUF_SIZE = 256 * 1024;
+
+    // reads of one channel per select pass, so a busy peer can't starve the others on the
+    // selector. The key stays ready while data is left and is read again on the next pass.
+    static final int MAX_READS_PER_PASS = 4;
+
     private final IP2pMgr mgr;
-    private final Selector selector;
+    private final SelectorPool selectorPool;
+    private final int selectorIdx;
     private final INodeMgr nodeMgr;
     private final Map<Integer, List<Handler>> handlers;
     private final AtomicBoolean start;
@@ -68,20 +79,24 @@ public class TaskInbound implements Runnable {
     private final BlockingQueue<MsgOut> sendMsgQue;
     private final ResHandshake1 cachedResHandshake1;
     private final BlockingQueue<MsgIn> receiveMsgQue;
+    private final BufferPool bufferPool;
 
     public TaskInbound(
         final IP2pMgr _mgr,
-        final Selector _selector,
+        final SelectorPool _selectorPool,
+        final int _selectorIdx,
         final AtomicBoolean _start,
         final INodeMgr _nodeMgr,
         final ServerSocketChannel _tcpServer,
         final Map<Integer, List<Handler>> _handlers,
         final BlockingQueue<MsgOut> _sendMsgQue,
         final ResHandshake1 _cachedResHandshake1,
-        final BlockingQueue<MsgIn> _receiveMsgQue) {
+        final BlockingQueue<MsgIn> _receiveMsgQue,
+        final BufferPool _bufferPool) {
 
         this.mgr = _mgr;
-        this.selector = _selector;
+        this.selectorPool = _selectorPool;
+        this.selectorIdx = _selectorIdx;
         this.start = _start;
         this.nodeMgr = _nodeMgr;
         this.tcpServer = _tcpServer;
@@ -89,67 +104,79 @@ public class TaskInbound implements Runnable {
         this.sendMsgQue = _sendMsgQue;
         this.cachedResHandshake1 = _cachedResHandshake1;
         this.receiveMsgQue = _receiveMsgQue;
+        this.bufferPool = _bufferPool;
     }
 
     @Override
     public void run() {
 
-        // readBuffer buffer pre-alloc. @ max_body_size
-        ByteBuffer readBuf = ByteBuffer.allocate(P2pConstant.MAX_BODY_SIZE);
+        ByteBuffer readBuf = ByteBuffer.allocateDirect(READ_BUF_SIZE);
 
         while (start.get()) {
+            int num;
             try {
-                if (this.selector.selectNow() == 0) {
-                    Thread.sleep(0, 1);
-                    continue;
-                }
+                num = this.selectorPool.select(this.selectorIdx);
             } catch (IOException | ClosedSelectorException e) {
                 p2pLOG.debug("inbound-select-exception", e);
                 continue;
-            } catch (InterruptedException e) {
-                p2pLOG.error("inbound thread sleep exception ", e);
-                return;
             }
 
-            try {
-                Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
-                while (keys.hasNext()) {
-                    ChannelBuffer cb = null;
-                    SelectionKey key = null;
-                    try {
-                        key = keys.next();
-                        if (!key.isValid()) {
-                            continue;
-                        }
+            long t0 = System.nanoTime();
+            if (num > 0) {
+                processSelectedKeys(readBuf);
+            }
+            this.selectorPool.runPendingTasks(this.selectorIdx);
+            this.selectorPool.recordLoop(this.selectorIdx, num, System.nanoTime() - t0);
+        }
 
-                        if (key.isAcceptable()) {
-                            accept();
-                        }
+        p2pLOG.info("p2p-pi shutdown");
+    }
 
-                        if (key.isReadable()) {
-                            cb = (ChannelBuffer) key.attachment();
-                            if (cb == null) {
-                                p2pLOG.error("inbound exception={}", new P2pException("attachment is null").getMessage());
-                                continue;
-                            }
-                            readBuffer(key, cb, readBuf);
+    private void processSelectedKeys(final ByteBuffer _readBuf) {
+        try {
+            Iterator<SelectionKey> keys = this.selectorPool.get(this.selectorIdx).selectedKeys()
+                .iterator();
+            while (keys.hasNext()) {
+                ChannelBuffer cb = null;
+                SelectionKey key = null;
+                try {
+                    key = keys.next();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    if (key.isAcceptable()) {
+                        accept();
+                    }
+
+                    if (key.isReadable()) {
+                        cb = (ChannelBuffer) key.attachment();
+                        if (cb == null) {
+                            p2pLOG.error("inbound exception={}", new P2pException("attachment is null").getMessage());
+                            continue;
                         }
-                    } catch (Exception e) {
-                        this.mgr.closeSocket(key != null ? (SocketChannel) key.channel() : null,
-                            (cb != null ? cb.getDisplayId() : null) + "-read-msg-exception " + e.toString());
+                        readBuffer(key, cb, _readBuf);
+                    }
+
+                    if (key.isValid() && key.isWritable()) {
+                        cb = (ChannelBuffer) key.attachment();
                         if (cb != null) {
-                            cb.setClosed();
+                            cb.flush(key);
                         }
-                    } finally {
-                        keys.remove();
                     }
+                } catch (Exception e) {
+                    this.mgr.closeSocket(key != null ? (SocketChannel) key.channel() : null,
+                        (cb != null ? cb.getDisplayId() : null) + "-read-msg-exception " + e.toString());
+                    if (cb != null) {
+                        cb.setClosed();
+                    }
+                } finally {
+                    keys.remove();
                 }
-            } catch (ClosedSelectorException ex) {
-                p2pLOG.error("inbound ClosedSelectorException={}", ex.toString());
             }
+        } catch (ClosedSelectorException ex) {
+            p2pLOG.error("inbound ClosedSelectorException={}", ex.toString());
         }
-
-        p2pLOG.info("p2p-pi shutdown");
     }
 
     private void accept() throws Exception {
@@ -189,8 +216,8 @@ public class TaskInbound implements Runnable {
             }
 
             node.setChannel(channel);
-            SelectionKey sk = channel.register(this.selector, SelectionKey.OP_READ);
-            sk.attach(new ChannelBuffer());
+            // the first read is the peer's handshake, no need to wait for the registration.
+            this.selectorPool.register(channel, new ChannelBuffer());
             this.nodeMgr.addInboundNode(node);
 
             if (p2pLOG.isDebugEnabled()) {
@@ -199,129 +226,33 @@ public class TaskInbound implements Runnable {
         }
     }
 
-    private int readHeader(final ChannelBuffer _cb,
-        final ByteBuffer _readBuf, int cnt) {
-
-        if (cnt < Header.LEN) {
-            return cnt;
-        }
-
-        int origPos = _readBuf.position();
-
-        int startP = origPos - cnt;
-
-        _readBuf.position(startP);
-
-        _cb.readHead(_readBuf);
-
-        _readBuf.position(origPos);
-
-        return cnt - Header.LEN;
-    }
-
-    private int readBody(final ChannelBuffer _cb, ByteBuffer _readBuf, int _cnt) {
-
-        int bodyLen = _cb.getHeader().getLen();
-
-        // some msg have nobody.
-        if (bodyLen == 0) {
-            _cb.body = new byte[0];
-            return _cnt;
-        }
-
-        if (_cnt < bodyLen) {
-            return _cnt;
-        }
-
-        int origPos = _readBuf.position();
-        int startP = origPos - _cnt;
-        _readBuf.position(startP);
-        _cb.readBody(_readBuf);
-        _readBuf.position(origPos);
-        return _cnt - bodyLen;
-    }
-
     private void readBuffer(final SelectionKey _sk, final ChannelBuffer _cb,
         final ByteBuffer _readBuf) throws Exception {
 
-        _readBuf.rewind();
-
         SocketChannel sc = (SocketChannel) _sk.channel();
 
         int r;
-        int cnt = 0;
+        int reads = 0;
         do {
+            _readBuf.clear();
             r = sc.read(_readBuf);
-            cnt += r;
-        } while (r > 0);
-
-        if (cnt < 1) {
-            return;
-        }
-
-        int remainBufAll = _cb.getBuffRemain() + cnt;
-        ByteBuffer bufferAll = calBuffer(_cb, _readBuf, cnt);
-
-        do {
-            r = readMsg(_sk, bufferAll, remainBufAll);
-            if (remainBufAll == r) {
-                break;
-            } else {
-                remainBufAll = r;
+            if (r < 0) {
+                throw new P2pException("end-of-stream");
             }
-        } while (r > 0);
-
-        _cb.setBuffRemain(r);
-
-        if (r != 0) {
-            // there are no perfect cycling buffer in jdk
-            // yet.
-            // simply just buff move for now.
-            // @TODO: looking for more efficient way.
-
-            int currPos = bufferAll.position();
-            _cb.setRemainBuffer(new byte[r]);
-            bufferAll.position(currPos - r);
-            bufferAll.get(_cb.getRemainBuffer());
-
-        }
-
-        _readBuf.rewind();
-    }
 
-    private int readMsg(SelectionKey _sk, ByteBuffer _readBuf, int _cnt) throws IOException {
-        ChannelBuffer cb = (ChannelBuffer) _sk.attachment();
-        if (cb == null) {
-            throw new P2pException("attachment is null");
-        }
-
-        int readCnt;
-        if (cb.isHeaderNotCompleted()) {
-            readCnt = readHeader(cb, _readBuf, _cnt);
-        } else {
-            readCnt = _cnt;
-        }
-
-        if (cb.isBodyNotCompleted()) {
-            readCnt = readBody(cb, _readBuf, readCnt);
-        }
-
-        if (cb.isBodyNotCompleted()) {
-            return readCnt;
-        }
-
-        handleMsg(_sk, cb);
-
-        return readCnt;
+            _readBuf.flip();
+            while (_readBuf.hasRemaining() && _cb.decode(_readBuf, this.bufferPool)) {
+                handleMsg(_sk, _cb);
+            }
+        } while (r > 0 && ++reads < MAX_READS_PER_PASS);
     }
 
     private void handleMsg(SelectionKey _sk, ChannelBuffer _cb) {
 
         Header h = _cb.getHeader();
-        byte[] bodyBytes = _cb.body;
+        ByteBuffer body = _cb.takeBody();
 
         _cb.refreshHeader();
-        _cb.refreshBody();
 
         boolean underRC = _cb.shouldRoute(h.getRoute(),
             ((h.getRoute() == txBroadCastRoute) ? P2pConstant.READ_MAX_RATE_TXBC
@@ -332,6 +263,7 @@ public class TaskInbound implements Runnable {
                 p2pLOG.debug("over-called-route={}-{}-{} calls={} node={}", h.getVer(), h.getCtrl(),
                     h.getAction(), _cb.getRouteCount(h.getRoute()).count, _cb.getDisplayId());
             }
+            this.bufferPool.release(body);
             return;
         }
 
@@ -339,6 +271,10 @@ public class TaskInbound implements Runnable {
             case Ver.V0:
                 switch (h.getCtrl()) {
                     case Ctrl.NET:
+                        // p2p msgs are small and decoded right here.
+                        byte[] bodyBytes = new byte[body.remaining()];
+                        body.get(bodyBytes);
+                        this.bufferPool.release(body);
                         try {
                             handleP2pMsg(_sk, h.getAction(), bodyBytes);
                         } catch (Exception ex) {
@@ -353,16 +289,18 @@ public class TaskInbound implements Runnable {
                                 p2pLOG.debug("unregistered-route={}-{}-{} node={}", h.getVer(),
                                     h.getCtrl(), h.getAction(), _cb.getDisplayId());
                             }
+                            this.bufferPool.release(body);
                             return;
                         }
 
-                        handleKernelMsg(_cb.getNodeIdHash(), h.getRoute(), bodyBytes);
+                        handleKernelMsg(_cb.getNodeIdHash(), h.getRoute(), body);
                         break;
                     default:
                         if (p2pLOG.isDebugEnabled()) {
                             p2pLOG.debug("invalid-route={}-{}-{} node={}", h.getVer(), h.getCtrl(),
                                 h.getAction(), _cb.getDisplayId());
                         }
+                        this.bufferPool.release(body);
                         break;
                 }
                 break;
@@ -370,27 +308,11 @@ public class TaskInbound implements Runnable {
                 if (p2pLOG.isDebugEnabled()) {
                     p2pLOG.debug("unhandled-ver={} node={}", h.getVer(), _cb.getDisplayId());
                 }
-
+                this.bufferPool.release(body);
                 break;
         }
     }
 
-    private ByteBuffer calBuffer(ChannelBuffer _cb, ByteBuffer _readBuf, int _cnt) {
-        ByteBuffer r;
-        if (_cb.getBuffRemain() != 0) {
-            byte[] alreadyRead = new byte[_cnt];
-            _readBuf.position(0);
-            _readBuf.get(alreadyRead);
-            r = ByteBuffer.allocate(_cb.getBuffRemain() + _cnt);
-            r.put(_cb.getRemainBuffer());
-            r.put(alreadyRead);
-        } else {
-            r = _readBuf;
-        }
-
-        return r;
-    }
-
     /**
      * @param _sk SelectionKey
      * @param _act ACT
@@ -547,16 +469,20 @@ public class TaskInbound implements Runnable {
     /**
      * @param _nodeIdHash int
      * @param _route int
-     * @param _msgBytes byte[]
+     * @param _body ByteBuffer pooled body, released by TaskReceive once handled
      */
-    private void handleKernelMsg(int _nodeIdHash, int _route, final byte[] _msgBytes) {
+    private void handleKernelMsg(int _nodeIdHash, int _route, final ByteBuffer _body) {
         INode node = nodeMgr.getActiveNode(_nodeIdHash);
         if (node != null) {
             int nodeIdHash = node.getIdHash();
             String nodeDisplayId = node.getIdShort();
             node.refreshTimestamp();
-            this.receiveMsgQue.offer(new MsgIn(nodeIdHash, nodeDisplayId, _route, _msgBytes));
+            if (!this.receiveMsgQue.offer(
+                new MsgIn(nodeIdHash, nodeDisplayId, _route, _body, this.bufferPool))) {
+                this.bufferPool.release(_body);
+            }
         } else {
+            this.bufferPool.release(_body);
             p2pLOG.debug("handleKernelMsg can't find hash{}", _nodeIdHash);
         }
     }
@@ -50,22 +50,26 @@ public class TaskReceive implements Runnable {
             try {
                 MsgIn mi = this.receiveMsgQue.take();
 
-                List<Handler> hs = this.handlers.get(mi.getRoute());
-                if (hs == null) {
-                    continue;
-                }
-                for (Handler hlr : hs) {
-                    if (hlr == null) {
+                try {
+                    List<Handler> hs = this.handlers.get(mi.getRoute());
+                    if (hs == null) {
                         continue;
                     }
+                    for (Handler hlr : hs) {
+                        if (hlr == null) {
+                            continue;
+                        }
 
-                    try {
-                        hlr.receive(mi.getNodeId(), mi.getDisplayId(), mi.getMsg());
-                    } catch (Exception e) {
-                        if (p2pLOG.isDebugEnabled()) {
-                            p2pLOG.debug("TaskReceive exception {}", e.getMessage());
+                        try {
+                            hlr.receive(mi.getNodeId(), mi.getDisplayId(), mi.getBody());
+                        } catch (Exception e) {
+                            if (p2pLOG.isDebugEnabled()) {
+                                p2pLOG.debug("TaskReceive exception {}", e.getMessage());
+                            }
                         }
                     }
+                } finally {
+                    mi.release();
                 }
             } catch (InterruptedException e) {
                 p2pLOG.error("TaskReceive interrupted {}", e.getMessage());
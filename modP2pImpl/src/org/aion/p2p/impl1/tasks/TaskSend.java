@@ -25,7 +25,6 @@ package org.aion.p2p.impl1.tasks;
 import static org.aion.p2p.impl1.P2pMgr.p2pLOG;
 
 import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -48,7 +47,7 @@ public class TaskSend implements Runnable {
     private final AtomicBoolean start;
     private final BlockingQueue<MsgOut> sendMsgQue;
     private final INodeMgr nodeMgr;
-    private final Selector selector;
+    private final SelectorPool selectorPool;
     private final int lane;
 
     private static ThreadPoolExecutor tpe;
@@ -59,14 +58,14 @@ public class TaskSend implements Runnable {
         final BlockingQueue<MsgOut> _sendMsgQue,
         final AtomicBoolean _start,
         final INodeMgr _nodeMgr,
-        final Selector _selector) {
+        final SelectorPool _selectorPool) {
 
         this.mgr = _mgr;
         this.lane = _lane;
         this.sendMsgQue = _sendMsgQue;
         this.start = _start;
         this.nodeMgr = _nodeMgr;
-        this.selector = _selector;
+        this.selectorPool = _selectorPool;
 
         if (tpe == null) {
             tpe = new ThreadPoolExecutor(TOTAL_LANE
@@ -113,13 +112,13 @@ public class TaskSend implements Runnable {
                 }
 
                 if (node != null) {
-                    SelectionKey sk = node.getChannel().keyFor(selector);
+                    SelectionKey sk = this.selectorPool.keyFor(node.getChannel());
                     if (sk != null) {
                         Object attachment = sk.attachment();
                         if (attachment != null) {
                             tpe.execute(new TaskWrite(
                                 node.getIdShort(),
-                                node.getChannel(),
+                                sk,
                                 mo.getMsg(),
                                 (ChannelBuffer) attachment,
                                 this.mgr));
@@ -34,15 +34,21 @@ public class TaskStatus implements Runnable {
     private final String selfShortId;
     private final BlockingQueue<MsgOut> sendMsgQue;
     private final BlockingQueue<MsgIn> receiveMsgQue;
+    private final SelectorPool selectorPool;
+    private final BufferPool bufferPool;
 
     public TaskStatus(final INodeMgr _nodeMgr,
         final String _selfShortId,
         final BlockingQueue<MsgOut> _sendMsgQue,
-        final BlockingQueue<MsgIn> _receiveMsgQue) {
+        final BlockingQueue<MsgIn> _receiveMsgQue,
+        final SelectorPool _selectorPool,
+        final BufferPool _bufferPool) {
         this.nodeMgr = _nodeMgr;
         this.selfShortId = _selfShortId;
         this.sendMsgQue = _sendMsgQue;
         this.receiveMsgQue = _receiveMsgQue;
+        this.selectorPool = _selectorPool;
+        this.bufferPool = _bufferPool;
     }
 
     @Override
@@ -54,6 +60,8 @@ public class TaskStatus implements Runnable {
             p2pLOG.debug(status);
             p2pLOG.debug("recv queue[{}] send queue[{}]", this.receiveMsgQue.size(),
                 this.sendMsgQue.size());
+            p2pLOG.debug(this.selectorPool.dumpLoopStats());
+            p2pLOG.debug(this.bufferPool.dumpStats());
         } else if (p2pLOG.isInfoEnabled()) {
             p2pLOG.info(status);
         }
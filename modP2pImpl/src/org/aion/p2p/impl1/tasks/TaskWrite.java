@@ -27,30 +27,33 @@ import static org.aion.p2p.impl1.P2pMgr.p2pLOG;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
-import java.nio.channels.SocketChannel;
+import java.nio.channels.SelectionKey;
 import org.aion.p2p.Header;
 import org.aion.p2p.IP2pMgr;
 import org.aion.p2p.Msg;
 
 /**
+ * Queues a message on the peer's outbound queue and flushes it without blocking; a peer with a
+ * full socket buffer no longer holds up the send lane.
+ *
  * @author chris
  */
 public class TaskWrite implements Runnable {
 
     private final String nodeShortId;
-    private final SocketChannel sc;
+    private final SelectionKey sk;
     private final Msg msg;
     private final ChannelBuffer channelBuffer;
     private final IP2pMgr p2pMgr;
 
     TaskWrite(
         final String _nodeShortId,
-        final SocketChannel _sc,
+        final SelectionKey _sk,
         final Msg _msg,
         final ChannelBuffer _cb,
         final IP2pMgr _p2pMgr) {
         this.nodeShortId = _nodeShortId;
-        this.sc = _sc;
+        this.sk = _sk;
         this.msg = _msg;
         this.channelBuffer = _cb;
         this.p2pMgr = _p2pMgr;
@@ -58,17 +61,13 @@ public class TaskWrite implements Runnable {
 
     @Override
     public void run() {
-        // reset allocated buffer and clear messages if the channel is closed
+        // the read state belongs to the inbound loop, only drop the peer here
         if (channelBuffer.isClosed()) {
-            channelBuffer.refreshHeader();
-            channelBuffer.refreshBody();
             p2pMgr.dropActive(channelBuffer.getNodeIdHash(), "close-already");
             return;
         }
 
         try {
-            channelBuffer.lock.lock();
-
             /*
              * @warning header set len (body len) before header encode
              */
@@ -78,45 +77,41 @@ public class TaskWrite implements Runnable {
             h.setLen(bodyLen);
             byte[] headerBytes = h.encode();
 
-
             if (p2pLOG.isTraceEnabled()) {
                 p2pLOG.trace("write id:{} {}-{}-{}", nodeShortId, h.getVer(), h.getCtrl(), h.getAction());
             }
 
-            ByteBuffer buf = ByteBuffer.allocate(headerBytes.length + bodyLen);
-            buf.put(headerBytes);
-            if (bodyBytes != null) {
-                buf.put(bodyBytes);
-            }
-            buf.flip();
-
-            try {
-                while (buf.hasRemaining()) {
-                    // @Attention:  very important sleep , otherwise when NIO write buffer full,
-                    // without sleep will hangup this thread.
-                    Thread.sleep(0, 1);
-                    sc.write(buf);
-                }
-            } catch (ClosedChannelException ex1) {
+            if (!channelBuffer.outbound.offer(h, ByteBuffer.wrap(headerBytes),
+                bodyBytes == null ? null : ByteBuffer.wrap(bodyBytes))) {
                 if (p2pLOG.isDebugEnabled()) {
-                    p2pLOG.debug("closed-channel-exception node={}", this.nodeShortId);
+                    p2pLOG.debug("write-queue-full drop {}-{}-{} node={} pending={}", h.getVer(),
+                        h.getCtrl(), h.getAction(), this.nodeShortId,
+                        channelBuffer.outbound.getPendingBytes());
                 }
+                return;
+            }
 
-                channelBuffer.setClosed();
-            } catch (IOException ex2) {
-                if (p2pLOG.isDebugEnabled()) {
-                    p2pLOG.debug("write-msg-io-exception node={} err={}", this.nodeShortId,
-                        ex2.getMessage());
-                }
+            // the selector loop takes over once OP_WRITE fires.
+            if (!channelBuffer.isWriteBlocked()) {
+                channelBuffer.flush(sk);
+            }
+        } catch (ClosedChannelException ex1) {
+            if (p2pLOG.isDebugEnabled()) {
+                p2pLOG.debug("closed-channel-exception node={}", this.nodeShortId);
+            }
 
-                if (ex2.getMessage().equals("Broken pipe")) {
-                    channelBuffer.setClosed();
-                }
+            channelBuffer.setClosed();
+        } catch (IOException ex2) {
+            if (p2pLOG.isDebugEnabled()) {
+                p2pLOG.debug("write-msg-io-exception node={} err={}", this.nodeShortId,
+                    ex2.getMessage());
+            }
+
+            if ("Broken pipe".equals(ex2.getMessage())) {
+                channelBuffer.setClosed();
             }
         } catch (Exception e) {
             p2pLOG.error("TaskWrite exception {}", e.getMessage());
-        } finally {
-            channelBuffer.lock.unlock();
         }
     }
 }
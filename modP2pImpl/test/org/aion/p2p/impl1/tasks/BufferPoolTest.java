@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *      This file is part of the aion network project.
+ *
+ *      The aion network project is free software: you can redistribute it
+ *      and/or modify it under the terms of the GNU General Public License
+ *      as published by the Free Software Foundation, either version 3 of
+ *      the License, or any later version.
+ *
+ *      The aion network project is distributed in the hope that it will
+ *      be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *      warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *      See the GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with the aion network project source files.
+ *      If not, see <https://www.gnu.org/licenses/>.
+ *
+ *  Contributors:
+ *      Aion foundation.
+ */
+
+
+package org.aion.p2p.impl1.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+public class BufferPoolTest {
+
+    @Test
+    public void testClassOf() {
+        assertEquals(0, BufferPool.classOf(0));
+        assertEquals(0, BufferPool.classOf(BufferPool.MIN_CLASS));
+        assertEquals(1, BufferPool.classOf(BufferPool.MIN_CLASS + 1));
+        assertEquals(1, BufferPool.classOf(BufferPool.MIN_CLASS * 2));
+        assertEquals(BufferPool.MAX_CLASS_SHIFT - BufferPool.MIN_CLASS_SHIFT,
+            BufferPool.classOf(BufferPool.MAX_CLASS));
+        assertEquals(-1, BufferPool.classOf(BufferPool.MAX_CLASS + 1));
+    }
+
+    @Test
+    public void testAcquireRelease() {
+        BufferPool pool = new BufferPool();
+
+        ByteBuffer b = pool.acquire(1500);
+        assertTrue(b.isDirect());
+        assertEquals(2048, b.capacity());
+        assertEquals(0, b.position());
+        assertEquals(1500, b.limit());
+        assertEquals(1, pool.getMisses());
+
+        b.put((byte) 1).flip();
+        pool.release(b);
+
+        ByteBuffer b2 = pool.acquire(1100);
+        assertSame(b, b2);
+        assertEquals(0, b2.position());
+        assertEquals(1100, b2.limit());
+        assertEquals(1, pool.getHits());
+    }
+
+    @Test
+    public void testUnpooled() {
+        BufferPool pool = new BufferPool();
+
+        ByteBuffer b = pool.acquire(BufferPool.MAX_CLASS + 1);
+        assertFalse(b.isDirect());
+        assertEquals(BufferPool.MAX_CLASS + 1, b.limit());
+        assertEquals(1, pool.getUnpooled());
+
+        // not taken back
+        pool.release(b);
+        pool.acquire(BufferPool.MAX_CLASS + 1);
+        assertEquals(0, pool.getHits());
+        assertEquals(2, pool.getUnpooled());
+    }
+
+    @Test
+    public void testRetainLimit() {
+        // two buffers per class at most
+        BufferPool pool = new BufferPool(0);
+
+        ByteBuffer[] bs = new ByteBuffer[3];
+        for (int i = 0; i < bs.length; i++) {
+            bs[i] = pool.acquire(10);
+        }
+        for (ByteBuffer b : bs) {
+            pool.release(b);
+        }
+        for (int i = 0; i < bs.length; i++) {
+            pool.acquire(10);
+        }
+
+        assertEquals(2, pool.getHits());
+        assertEquals(4, pool.getMisses());
+    }
+}
@@ -31,8 +31,11 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
@@ -40,6 +43,8 @@ import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.log.LogLevel;
 import org.aion.p2p.Header;
+import org.aion.p2p.P2pConstant;
+import org.aion.p2p.impl1.P2pException;
 import org.aion.p2p.impl1.tasks.ChannelBuffer.RouteStatus;
 import org.junit.Before;
 import org.junit.Test;
@@ -54,8 +59,6 @@ public class ChannelBufferTest {
     @Mock
     private Header header;
 
-    private Header expectHeader;
-
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
@@ -68,23 +71,11 @@ public class ChannelBufferTest {
         r = new Random();
     }
 
-    private ByteBuffer genBuffer() {
-        ByteBuffer buffer = ByteBuffer.allocate(r.nextInt(LEN << 1));
-        int len = buffer.remaining() - LEN;
-        expectHeader = Header.decode(genHeader(len < 0 ? 0 : len));
-        //expectHeader.setLen(r.nextInt(P2pConstant.MAX_BODY_SIZE));
-
-        buffer.put(expectHeader.encode(), 0, len < 0 ? buffer.remaining() : LEN);
-        byte[] rByte = new byte[expectHeader.getLen()];
-        r.nextBytes(rByte);
-        buffer.put(rByte, 0, buffer.remaining() >= rByte.length ? rByte.length : buffer.remaining()).flip();
-
-        return buffer;
-    }
-
-    private byte[] genHeader(int len) {
-        when(header.getRoute()).thenReturn(r.nextInt());
-        return ByteBuffer.allocate(LEN).putInt(header.getRoute()).putInt(len).array();
+    private byte[] genFrame(int len, byte[] body) {
+        when(header.getRoute()).thenReturn(r.nextInt() & 0xffffff);
+        r.nextBytes(body);
+        return ByteBuffer.allocate(LEN + len).putInt(header.getRoute()).putInt(len).put(body)
+            .array();
     }
 
     @Test
@@ -109,66 +100,86 @@ public class ChannelBufferTest {
     }
 
     @Test
-    public void testRefreshBody() {
-        cb.body = UUID.randomUUID().toString().getBytes();
-        cb.refreshBody();
-        assertNull(cb.body);
+    public void TestHeaderNotCompleted() {
+        assertTrue(cb.isHeaderNotCompleted());
+        cb.setHeader(header);
+        assertFalse(cb.isHeaderNotCompleted());
     }
 
     @Test
-    public void testReadHead() {
-        for (int i=0 ; i<100 ; i++) {
-            cb.refreshHeader();
-            ByteBuffer bb = genBuffer();
-            cb.readHead(bb);
-            if (bb.array().length >= LEN) {
-                assertArrayEquals(expectHeader.encode(), cb.getHeader().encode());
-            } else {
-                assertNull(cb.getHeader());
+    public void testDecodeChunked() throws Exception {
+        BufferPool pool = new BufferPool();
+        List<byte[]> bodies = new ArrayList<>();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int i = 0; i < 100; i++) {
+            byte[] body = new byte[r.nextInt(5000)];
+            stream.write(genFrame(body.length, body));
+            bodies.add(body);
+        }
+
+        // feed the stream in random pieces, frames straddle the reads
+        byte[] all = stream.toByteArray();
+        List<byte[]> decoded = new ArrayList<>();
+        int pos = 0;
+        while (pos < all.length) {
+            int n = Math.min(all.length - pos, 1 + r.nextInt(3 * LEN));
+            ByteBuffer src = ByteBuffer.wrap(all, pos, n);
+            while (src.hasRemaining() && cb.decode(src, pool)) {
+                ByteBuffer body = cb.takeBody();
+                assertEquals(cb.getHeader().getLen(), body.remaining());
+                byte[] bs = new byte[body.remaining()];
+                body.get(bs);
+                decoded.add(bs);
+                cb.refreshHeader();
+                pool.release(body);
             }
+            pos += n;
         }
-    }
 
-    @Test
-    public void TestHeaderNotCompleted() {
+        assertEquals(bodies.size(), decoded.size());
+        for (int i = 0; i < bodies.size(); i++) {
+            assertArrayEquals(bodies.get(i), decoded.get(i));
+        }
         assertTrue(cb.isHeaderNotCompleted());
-        cb.setHeader(header);
-        assertFalse(cb.isHeaderNotCompleted());
+        assertTrue(pool.getHits() > 0);
     }
 
     @Test
-    public void TestBodyNotCompleted() {
-        when(header.getLen()).thenReturn(UUID.randomUUID().toString().getBytes().length);
-        assertTrue(cb.isBodyNotCompleted());
-        cb.setHeader(header);
-        assertTrue(cb.isBodyNotCompleted());
-        cb.body = UUID.randomUUID().toString().getBytes();
-        assertFalse(cb.isBodyNotCompleted());
+    public void testDecodeEmptyBody() throws Exception {
+        ByteBuffer src = ByteBuffer.wrap(genFrame(0, new byte[0]));
+        assertTrue(cb.decode(src, new BufferPool()));
+        assertFalse(src.hasRemaining());
+        assertEquals(0, cb.takeBody().remaining());
     }
 
     @Test
-    public void testReadBody() {
-        for (int i=0 ; i<100 ; i++) {
-            cb.refreshHeader();
-            cb.refreshBody();
-            ByteBuffer bb = genBuffer();
-            cb.readHead(bb);
-            if (bb.array().length >= LEN) {
-                assertArrayEquals(expectHeader.encode(), cb.getHeader().encode());
-                cb.readBody(bb);
-                assertNotNull(cb.body);
-                assertEquals(cb.getHeader().getLen(), cb.body.length);
-            } else {
-                assertNull(cb.getHeader());
-            }
-        }
+    public void testDecodePartialHeader() throws Exception {
+        ByteBuffer src = ByteBuffer.wrap(genFrame(10, new byte[10]), 0, LEN - 1);
+        assertFalse(cb.decode(src, new BufferPool()));
+        assertTrue(cb.isHeaderNotCompleted());
+        assertFalse(src.hasRemaining());
     }
 
     @Test
-    public void testReadBodyNotCompleted() {
-        ByteBuffer bb = genBuffer();
-        cb.readBody(bb);
-        assertNull(cb.body);
+    public void testReleaseHalfReadBody() throws Exception {
+        BufferPool pool = new BufferPool();
+        ByteBuffer src = ByteBuffer.wrap(genFrame(2000, new byte[2000]), 0, LEN + 100);
+        assertFalse(cb.decode(src, pool));
+        assertEquals(1, pool.getMisses());
+
+        // the channel is dropped mid-frame, its body buffer goes back to the pool
+        cb.releaseBody(pool);
+        assertTrue(cb.isHeaderNotCompleted());
+
+        pool.acquire(2000);
+        assertEquals(1, pool.getHits());
+    }
+
+    @Test(expected = P2pException.class)
+    public void testDecodeInvalidHeader() throws Exception {
+        ByteBuffer src = ByteBuffer.allocate(LEN).putInt(1).putInt(P2pConstant.MAX_BODY_SIZE + 1);
+        src.flip();
+        cb.decode(src, new BufferPool());
     }
 
     @Test
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *      This file is part of the aion network project.
+ *
+ *      The aion network project is free software: you can redistribute it
+ *      and/or modify it under the terms of the GNU General Public License
+ *      as published by the Free Software Foundation, either version 3 of
+ *      the License, or any later version.
+ *
+ *      The aion network project is distributed in the hope that it will
+ *      be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *      warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *      See the GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with the aion network project source files.
+ *      If not, see <https://www.gnu.org/licenses/>.
+ *
+ *  Contributors:
+ *      Aion foundation.
+ */
+
+package org.aion.p2p.impl1.tasks;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.HashMap;
+import java.util.Map;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.log.LogLevel;
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Header;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OutboundQueueTest {
+
+    private OutboundQueue queue;
+
+    @Before
+    public void setup() {
+        Map<String, String> logMap = new HashMap<>();
+        logMap.put(LogEnum.P2P.name(), LogLevel.TRACE.name());
+        AionLoggerFactory.init(logMap);
+
+        queue = new OutboundQueue(100, 200);
+    }
+
+    private static Header header(byte _ctrl, byte _action, int _len) {
+        return Header.decode(ByteBuffer.allocate(Header.LEN).putShort((short) 0).put(_ctrl)
+            .put(_action).putInt(_len).array());
+    }
+
+    private boolean offer(byte _ctrl, byte _action, int _bodyLen) {
+        Header h = header(_ctrl, _action, _bodyLen);
+        return queue.offer(h, ByteBuffer.wrap(h.encode()), ByteBuffer.allocate(_bodyLen));
+    }
+
+    /**
+     * Accepts at most {@code cap} bytes per write call and records what it got.
+     */
+    private static class FakeChannel implements GatheringByteChannel {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int cap;
+        int calls;
+
+        FakeChannel(int _cap) {
+            this.cap = _cap;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            calls++;
+            long n = 0;
+            for (int i = offset; i < offset + length && n < cap; i++) {
+                while (srcs[i].hasRemaining() && n < cap) {
+                    out.write(srcs[i].get());
+                    n++;
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            return (int) write(new ByteBuffer[]{src}, 0, 1);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void testFirstMessageNeverDropped() {
+        assertTrue(offer(Ctrl.SYNC, (byte) 6, 500));
+        assertEquals(508, queue.getPendingBytes());
+        assertEquals(0, queue.getDropped());
+    }
+
+    @Test
+    public void testTxBroadcastDroppedAboveSoftLimit() {
+        assertTrue(offer(Ctrl.SYNC, (byte) 6, 50));
+        assertFalse(offer(Ctrl.SYNC, (byte) 6, 50));
+        assertEquals(1, queue.getDropped());
+
+        // other sync msgs are held to the hard limit only
+        assertTrue(offer(Ctrl.SYNC, (byte) 1, 50));
+        assertEquals(116, queue.getPendingBytes());
+    }
+
+    @Test
+    public void testHardLimit() {
+        assertTrue(offer(Ctrl.SYNC, (byte) 1, 150));
+        assertFalse(offer(Ctrl.SYNC, (byte) 1, 50));
+
+        // p2p control msgs are never dropped
+        assertTrue(offer(Ctrl.NET, (byte) 1, 50));
+        assertEquals(1, queue.getDropped());
+        assertEquals(216, queue.getPendingBytes());
+    }
+
+    @Test
+    public void testGatheringDrain() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(offer(Ctrl.SYNC, (byte) i, 10));
+        }
+
+        FakeChannel ch = new FakeChannel(Integer.MAX_VALUE);
+        assertTrue(queue.writeTo(ch));
+        assertEquals(1, ch.calls);
+        assertEquals(54, ch.out.size());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.getPendingBytes());
+
+        // frames go out in order, header first
+        byte[] written = ch.out.toByteArray();
+        byte[] h1 = new byte[Header.LEN];
+        System.arraycopy(written, 18, h1, 0, Header.LEN);
+        assertArrayEquals(header(Ctrl.SYNC, (byte) 1, 10).encode(), h1);
+    }
+
+    @Test
+    public void testPartialWrite() throws Exception {
+        assertTrue(offer(Ctrl.SYNC, (byte) 1, 20));
+        assertTrue(offer(Ctrl.SYNC, (byte) 2, 20));
+
+        FakeChannel ch = new FakeChannel(30);
+        assertFalse(queue.writeTo(ch));
+        assertFalse(queue.isEmpty());
+        assertEquals(26, queue.getPendingBytes());
+
+        ch.cap = Integer.MAX_VALUE;
+        assertTrue(queue.writeTo(ch));
+        assertEquals(56, ch.out.size());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testClear() {
+        assertTrue(offer(Ctrl.SYNC, (byte) 1, 20));
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.getPendingBytes());
+    }
+}
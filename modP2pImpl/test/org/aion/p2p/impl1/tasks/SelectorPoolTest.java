@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *      This file is part of the aion network project.
+ *
+ *      The aion network project is free software: you can redistribute it
+ *      and/or modify it under the terms of the GNU General Public License
+ *      as published by the Free Software Foundation, either version 3 of
+ *      the License, or any later version.
+ *
+ *      The aion network project is distributed in the hope that it will
+ *      be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *      warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *      See the GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with the aion network project source files.
+ *      If not, see <https://www.gnu.org/licenses/>.
+ *
+ *  Contributors:
+ *      Aion foundation.
+ */
+
+package org.aion.p2p.impl1.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.log.LogLevel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SelectorPoolTest {
+
+    private SelectorPool pool;
+
+    @Before
+    public void setup() throws IOException {
+        Map<String, String> logMap = new HashMap<>();
+        logMap.put(LogEnum.P2P.name(), LogLevel.TRACE.name());
+        AionLoggerFactory.init(logMap);
+
+        pool = new SelectorPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+    }
+
+    private Thread startLoop(int idx, AtomicBoolean run) {
+        Thread t = new Thread(() -> {
+            while (run.get()) {
+                try {
+                    int num = pool.select(idx);
+                    pool.runPendingTasks(idx);
+                    pool.recordLoop(idx, num, 1000L);
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        t.start();
+        return t;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyPool() {
+        new SelectorPool();
+    }
+
+    @Test
+    public void testSize() throws IOException {
+        assertEquals(2, pool.size());
+
+        SelectorPool p = new SelectorPool(0);
+        assertEquals(1, p.size());
+        p.close();
+    }
+
+    @Test
+    public void testRegisterShardsRoundRobin() throws Exception {
+        AtomicBoolean run = new AtomicBoolean(true);
+        Thread t0 = startLoop(0, run);
+        Thread t1 = startLoop(1, run);
+
+        SocketChannel ch0 = SocketChannel.open();
+        ch0.configureBlocking(false);
+        SocketChannel ch1 = SocketChannel.open();
+        ch1.configureBlocking(false);
+
+        // the loops are blocked in select, registration has to wake them up.
+        Thread.sleep(50);
+        ChannelBuffer cb0 = new ChannelBuffer();
+        SelectionKey sk0 = pool.register(ch0, cb0).get(500, TimeUnit.MILLISECONDS);
+        SelectionKey sk1 = pool.register(ch1, new ChannelBuffer()).get(500, TimeUnit.MILLISECONDS);
+
+        assertNotSame(sk0.selector(), sk1.selector());
+        assertSame(sk0, pool.keyFor(ch0));
+        assertSame(sk1, pool.keyFor(ch1));
+        assertSame(cb0, sk0.attachment());
+        assertEquals(SelectionKey.OP_READ, sk0.interestOps());
+
+        run.set(false);
+        pool.wakeupAll();
+        t0.join(500);
+        t1.join(500);
+        assertFalse(t0.isAlive());
+        assertFalse(t1.isAlive());
+
+        ch0.close();
+        ch1.close();
+    }
+
+    @Test
+    public void testRegisterWithoutLoop() throws IOException {
+        SocketChannel ch = SocketChannel.open();
+        ch.configureBlocking(false);
+
+        CompletableFuture<SelectionKey> f = pool.register(ch, new ChannelBuffer());
+        assertFalse(f.isDone());
+        assertNull(pool.keyFor(ch));
+
+        // pending tasks are run by the owning loop.
+        pool.runPendingTasks(0);
+        assertTrue(f.isDone());
+        assertTrue(pool.keyFor(ch) != null);
+
+        ch.close();
+    }
+
+    @Test
+    public void testRegisterClosedChannel() throws IOException {
+        SocketChannel ch = SocketChannel.open();
+        ch.configureBlocking(false);
+        ch.close();
+
+        CompletableFuture<SelectionKey> f = pool.register(ch, new ChannelBuffer());
+        pool.runPendingTasks(0);
+        assertTrue(f.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testSelectReturnsOnPendingTask() throws IOException {
+        SocketChannel ch = SocketChannel.open();
+        ch.configureBlocking(false);
+
+        pool.register(ch, new ChannelBuffer());
+
+        long t0 = System.currentTimeMillis();
+        assertEquals(0, pool.select(0));
+        assertTrue(System.currentTimeMillis() - t0 < 500);
+
+        ch.close();
+    }
+
+    @Test
+    public void testDumpLoopStats() {
+        pool.recordLoop(0, 3, 4000L);
+        pool.recordLoop(0, 1, 2000L);
+
+        String stats = pool.dumpLoopStats();
+        assertTrue(stats.contains("selector[0] loops=2 keys=4 avg-loop=3us max-loop=4us"));
+        assertTrue(stats.contains("selector[1] loops=0 keys=0 avg-loop=0us max-loop=0us"));
+
+        // counters are reset on each dump
+        assertTrue(pool.dumpLoopStats().contains("selector[0] loops=0"));
+    }
+}
@@ -172,7 +172,7 @@ public class TaskConnectPeersTest {
     @Test
     public void testRun() throws InterruptedException {
         AtomicBoolean atb = new AtomicBoolean(true);
-        TaskConnectPeers tcp = new TaskConnectPeers(p2pMgr, atb, nodeMgr, 128, selector, sendMsgQue,
+        TaskConnectPeers tcp = new TaskConnectPeers(p2pMgr, atb, nodeMgr, 128, new SelectorPool(selector), sendMsgQue,
             rhs);
         assertNotNull(tcp);
 
@@ -188,7 +188,7 @@ public class TaskConnectPeersTest {
     @Test
     public void testRun1() throws InterruptedException {
         AtomicBoolean atb = new AtomicBoolean(true);
-        TaskConnectPeers tcp = new TaskConnectPeers(p2pMgr, atb, nodeMgr, 128, selector, sendMsgQue,
+        TaskConnectPeers tcp = new TaskConnectPeers(p2pMgr, atb, nodeMgr, 128, new SelectorPool(selector), sendMsgQue,
             rhs);
         assertNotNull(tcp);
 
@@ -227,7 +227,7 @@ public class TaskConnectPeersTest {
     @Test
     public void testRunException() throws InterruptedException {
         AtomicBoolean atb = new AtomicBoolean(true);
-        TaskConnectPeers tcp = new TaskConnectPeers(p2pMgr, atb, nodeMgr, 128, selector, sendMsgQue,
+        TaskConnectPeers tcp = new TaskConnectPeers(p2pMgr, atb, nodeMgr, 128, new SelectorPool(selector), sendMsgQue,
             rhs);
         assertNotNull(tcp);
 
@@ -264,7 +264,7 @@ public class TaskConnectPeersTest {
     @Test
     public void testRunException2() throws InterruptedException {
         AtomicBoolean atb = new AtomicBoolean(true);
-        TaskConnectPeers tcp = new TaskConnectPeers(p2pMgr, atb, nodeMgr, 128, selector, sendMsgQue,
+        TaskConnectPeers tcp = new TaskConnectPeers(p2pMgr, atb, nodeMgr, 128, new SelectorPool(selector), sendMsgQue,
             rhs);
         assertNotNull(tcp);
 
@@ -27,8 +27,11 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
@@ -178,10 +181,11 @@ public class TaskInboundTest {
     @Test
     public void testRun() throws InterruptedException {
         AtomicBoolean atb = new AtomicBoolean(true);
-        TaskInbound ti = new TaskInbound(p2pMgr, selector, atb, nodeMgr, ssc, hldrMap, msgOutQue, rhs1, msgInQue);
+        TaskInbound ti = new TaskInbound(p2pMgr, new SelectorPool(selector), 0, atb, nodeMgr, ssc, hldrMap, msgOutQue, rhs1, msgInQue,
+            new BufferPool());
         assertNotNull(ti);
 
-        when(selector.selectNow()).thenReturn(0);
+        when(selector.select(anyLong())).thenReturn(0);
 
         Thread t = new Thread(ti);
         t.start();
@@ -195,10 +199,11 @@ public class TaskInboundTest {
     @Test
     public void testRunException() throws InterruptedException {
         AtomicBoolean atb = new AtomicBoolean(true);
-        TaskInbound ti = new TaskInbound(p2pMgr, selector, atb, nodeMgr, ssc, hldrMap, msgOutQue, rhs1, msgInQue);
+        TaskInbound ti = new TaskInbound(p2pMgr, new SelectorPool(selector), 0, atb, nodeMgr, ssc, hldrMap, msgOutQue, rhs1, msgInQue,
+            new BufferPool());
         assertNotNull(ti);
 
-        doThrow(ClosedSelectorException.class).when(selector).selectNow();
+        doThrow(ClosedSelectorException.class).when(selector).select(anyLong());
 
         Thread t = new Thread(ti);
         t.start();
@@ -213,11 +218,11 @@ public class TaskInboundTest {
     @Test
     public void testRunClosedSelectorException() throws InterruptedException {
         AtomicBoolean atb = new AtomicBoolean(true);
-        TaskInbound ti = new TaskInbound(p2pMgr, selector, atb, nodeMgr, ssc, hldrMap, msgOutQue,
-            rhs1, msgInQue);
+        TaskInbound ti = new TaskInbound(p2pMgr, new SelectorPool(selector), 0, atb, nodeMgr, ssc, hldrMap, msgOutQue,
+            rhs1, msgInQue, new BufferPool());
         assertNotNull(ti);
 
-        when(selector.selectNow()).thenReturn(1);
+        when(selector.select(anyLong())).thenReturn(1);
         when(selector.selectedKeys()).thenThrow(ClosedSelectorException.class);
 
         Thread t = new Thread(ti);
@@ -232,8 +237,8 @@ public class TaskInboundTest {
     @Test
     public void testRun2() throws InterruptedException {
         AtomicBoolean atb = new AtomicBoolean(true);
-        TaskInbound ti = new TaskInbound(p2pMgr, selector, atb, nodeMgr, ssc, hldrMap, msgOutQue,
-            rhs1, msgInQue);
+        TaskInbound ti = new TaskInbound(p2pMgr, new SelectorPool(selector), 0, atb, nodeMgr, ssc, hldrMap, msgOutQue,
+            rhs1, msgInQue, new BufferPool());
         assertNotNull(ti);
 
         when(sk.isValid()).thenReturn(false);
@@ -250,7 +255,7 @@ public class TaskInboundTest {
 
         when(sk3.attachment()).thenReturn(cb);
 
-        when(selector.selectNow()).thenReturn(1);
+        when(selector.select(anyLong())).thenReturn(1);
 
         Set<SelectionKey> ss = new LinkedHashSet<>();
         ss.add(sk);
@@ -270,8 +275,8 @@ public class TaskInboundTest {
     @Test
     public void testAccept() throws InterruptedException, IOException {
         AtomicBoolean atb = new AtomicBoolean(true);
-        TaskInbound ti = new TaskInbound(p2pMgr, selector, atb, nodeMgr, ssc, hldrMap, msgOutQue,
-            rhs1, msgInQue);
+        TaskInbound ti = new TaskInbound(p2pMgr, new SelectorPool(selector), 0, atb, nodeMgr, ssc, hldrMap, msgOutQue,
+            rhs1, msgInQue, new BufferPool());
         assertNotNull(ti);
 
         when(sk2.isValid()).thenReturn(true);
@@ -285,7 +290,7 @@ public class TaskInboundTest {
         when(p2pMgr.isSyncSeedsOnly()).thenReturn(true);
         when(nodeMgr.isSeedIp(anyString())).thenReturn(true);
 
-        when(selector.selectNow()).thenReturn(1);
+        when(selector.select(anyLong())).thenReturn(1);
 
         Set<SelectionKey> ss = new LinkedHashSet<>();
         ss.add(sk2);
@@ -303,8 +308,8 @@ public class TaskInboundTest {
     @Test
     public void testAccept2() throws InterruptedException, IOException {
         AtomicBoolean atb = new AtomicBoolean(true);
-        TaskInbound ti = new TaskInbound(p2pMgr, selector, atb, nodeMgr, ssc, hldrMap, msgOutQue,
-            rhs1, msgInQue);
+        TaskInbound ti = new TaskInbound(p2pMgr, new SelectorPool(selector), 0, atb, nodeMgr, ssc, hldrMap, msgOutQue,
+            rhs1, msgInQue, new BufferPool());
         assertNotNull(ti);
 
         when(sk2.isValid()).thenReturn(true);
@@ -319,7 +324,7 @@ public class TaskInboundTest {
         when(nodeMgr.isSeedIp(anyString())).thenReturn(false);
         when(p2pMgr.getOutGoingIP()).thenReturn("0.0.0.0");
 
-        when(selector.selectNow()).thenReturn(1);
+        when(selector.select(anyLong())).thenReturn(1);
 
         Set<SelectionKey> ss = new LinkedHashSet<>();
         ss.add(sk2);
@@ -337,8 +342,8 @@ public class TaskInboundTest {
     @Test
     public void testAccept3() throws InterruptedException, IOException {
         AtomicBoolean atb = new AtomicBoolean(true);
-        TaskInbound ti = new TaskInbound(p2pMgr, selector, atb, nodeMgr, ssc, hldrMap, msgOutQue,
-            rhs1, msgInQue);
+        TaskInbound ti = new TaskInbound(p2pMgr, new SelectorPool(selector), 0, atb, nodeMgr, ssc, hldrMap, msgOutQue,
+            rhs1, msgInQue, new BufferPool());
         assertNotNull(ti);
 
         when(sk.isValid()).thenReturn(true);
@@ -359,7 +364,7 @@ public class TaskInboundTest {
         when(sc.register(any(), anyInt())).thenReturn(sk);
 
 
-        when(selector.selectNow()).thenReturn(1);
+        when(selector.select(anyLong())).thenReturn(1);
 
         Set<SelectionKey> ss = new LinkedHashSet<>();
         ss.add(sk);
@@ -377,8 +382,8 @@ public class TaskInboundTest {
     @Test
     public void testReadBuffer() throws InterruptedException, IOException {
         AtomicBoolean atb = new AtomicBoolean(true);
-        TaskInbound ti = new TaskInbound(p2pMgr, selector, atb, nodeMgr, ssc, hldrMap, msgOutQue,
-            rhs1, msgInQue);
+        TaskInbound ti = new TaskInbound(p2pMgr, new SelectorPool(selector), 0, atb, nodeMgr, ssc, hldrMap, msgOutQue,
+            rhs1, msgInQue, new BufferPool());
         assertNotNull(ti);
 
         // settings for readBuffer
@@ -389,7 +394,7 @@ public class TaskInboundTest {
         when(sk.isValid()).thenReturn(true);
         when(sk.isReadable()).thenReturn(true);
         when(sk.attachment()).thenReturn(cb);
-        when(selector.selectNow()).thenReturn(1);
+        when(selector.select(anyLong())).thenReturn(1);
 
         Set<SelectionKey> ss = new LinkedHashSet<>();
         ss.add(sk);
@@ -408,22 +413,19 @@ public class TaskInboundTest {
     @Test
     public void testReadBuffer2() throws InterruptedException, IOException {
         AtomicBoolean atb = new AtomicBoolean(true);
-        TaskInbound ti = new TaskInbound(p2pMgr, selector, atb, nodeMgr, ssc, hldrMap, msgOutQue,
-            rhs1, msgInQue);
+        TaskInbound ti = new TaskInbound(p2pMgr, new SelectorPool(selector), 0, atb, nodeMgr, ssc, hldrMap, msgOutQue,
+            rhs1, msgInQue, new BufferPool());
         assertNotNull(ti);
 
         // settings for readBuffer
         when(sk.channel()).thenReturn(sc);
         when(sc.read(any(ByteBuffer.class))).thenReturn(1).thenReturn(0);
 
-        //settings for calBuffer
-        //when(cb.buffRemain).thenReturn(1);
-
         // settings for run
         when(sk.isValid()).thenReturn(true);
         when(sk.isReadable()).thenReturn(true);
         when(sk.attachment()).thenReturn(cb);
-        when(selector.selectNow()).thenReturn(1);
+        when(selector.select(anyLong())).thenReturn(1);
 
         Set<SelectionKey> ss = new LinkedHashSet<>();
         ss.add(sk);
@@ -444,23 +446,17 @@ public class TaskInboundTest {
     @Test
     public void testReadBuffer3() throws InterruptedException, IOException {
         AtomicBoolean atb = new AtomicBoolean(true);
-        TaskInbound ti = new TaskInbound(p2pMgr, selector, atb, nodeMgr, ssc, hldrMap, msgOutQue,
-            rhs1, msgInQue);
+        TaskInbound ti = new TaskInbound(p2pMgr, new SelectorPool(selector), 0, atb, nodeMgr, ssc, hldrMap, msgOutQue,
+            rhs1, msgInQue, new BufferPool());
         assertNotNull(ti);
 
         // settings for readBuffer
         when(sk.channel()).thenReturn(sc);
         int read = r.nextInt(10000);
-        int remain = r.nextInt(10000);
         when(sc.read(any(ByteBuffer.class))).thenReturn(read).thenReturn(0);
 
-        //settings for calBuffer
-        when(cb.getBuffRemain()).thenReturn(remain);
-        when(cb.getRemainBuffer()).thenReturn(new byte[remain]);
-
         //settings for readMsg
         when(cb.isHeaderNotCompleted()).thenReturn(true);
-        when(cb.isBodyNotCompleted()).thenReturn(true);
 
         //settings for readBody
         when(cb.getHeader()).thenReturn(hdr);
@@ -470,7 +466,7 @@ public class TaskInboundTest {
         when(sk.isValid()).thenReturn(true);
         when(sk.isReadable()).thenReturn(true);
         when(sk.attachment()).thenReturn(cb);
-        when(selector.selectNow()).thenReturn(1);
+        when(selector.select(anyLong())).thenReturn(1);
 
         Set<SelectionKey> ss = new LinkedHashSet<>();
         ss.add(sk);
@@ -486,4 +482,33 @@ public class TaskInboundTest {
         Thread.sleep(100);
         assertEquals("TERMINATED", t.getState().toString());
     }
+
+    @Test
+    public void testReadCappedPerPass() throws InterruptedException, IOException {
+        AtomicBoolean atb = new AtomicBoolean(true);
+        TaskInbound ti = new TaskInbound(p2pMgr, new SelectorPool(selector), 0, atb, nodeMgr, ssc, hldrMap, msgOutQue,
+            rhs1, msgInQue, new BufferPool());
+
+        // a peer that always has more to read
+        when(sk.channel()).thenReturn(sc);
+        when(sc.read(any(ByteBuffer.class))).thenReturn(1);
+
+        when(sk.isValid()).thenReturn(true);
+        when(sk.isReadable()).thenReturn(true);
+        when(sk.attachment()).thenReturn(cb);
+        when(selector.select(anyLong())).thenReturn(1).thenReturn(0);
+
+        Set<SelectionKey> ss = new LinkedHashSet<>();
+        ss.add(sk);
+        when(selector.selectedKeys()).thenReturn(ss);
+
+        Thread t = new Thread(ti);
+        t.start();
+        Thread.sleep(100);
+        atb.set(false);
+        t.join(1000);
+
+        // the selector moves on after a bounded number of reads
+        verify(sc, times(TaskInbound.MAX_READS_PER_PASS)).read(any(ByteBuffer.class));
+    }
 }
@@ -31,6 +31,7 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -132,7 +133,7 @@ public class TaskRecvTest {
         hdlr.add(h);
 
         when(handler.get(route)).thenReturn(hdlr);
-        doThrow(new Exception("test exception!")).when(h).receive(anyInt(), anyString(), any());
+        doThrow(new Exception("test exception!")).when(h).receive(anyInt(), anyString(), any(ByteBuffer.class));
 
         atb.set(false);
         Thread.sleep(30);
@@ -29,6 +29,7 @@ import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
@@ -36,6 +37,7 @@ import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.log.LogLevel;
 import org.aion.p2p.INodeMgr;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -52,9 +54,12 @@ public class TaskStatusTest {
     @Mock
     private INodeMgr nodeMgr;
 
+    private SelectorPool selectorPool;
+
     @Before
-    public void setup() {
+    public void setup() throws IOException {
         MockitoAnnotations.initMocks(this);
+        selectorPool = new SelectorPool(1);
 
         Map<String, String> logMap = new HashMap<>();
         logMap.put(LogEnum.P2P.name(), LogLevel.DEBUG.name());
@@ -65,7 +70,8 @@ public class TaskStatusTest {
     @Test
     public void testRun() throws InterruptedException {
 
-        TaskStatus ts = new TaskStatus(nodeMgr, "1", msgOutQue, msgInQue);
+        TaskStatus ts = new TaskStatus(nodeMgr, "1", msgOutQue, msgInQue, selectorPool,
+            new BufferPool());
         assertNotNull(ts);
         when(nodeMgr.dumpNodeInfo(anyString(), anyBoolean())).thenReturn("get Status");
 
@@ -76,4 +82,9 @@ public class TaskStatusTest {
         Thread.sleep(30);
         assertEquals("TERMINATED", t.getState().toString());
     }
+
+    @After
+    public void tearDown() {
+        selectorPool.close();
+    }
 }
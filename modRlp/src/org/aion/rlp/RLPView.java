@@ -0,0 +1,278 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.rlp;
+
+import static org.aion.rlp.RLP.OFFSET_LONG_ITEM;
+import static org.aion.rlp.RLP.OFFSET_LONG_LIST;
+import static org.aion.rlp.RLP.OFFSET_SHORT_ITEM;
+import static org.aion.rlp.RLP.OFFSET_SHORT_LIST;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.aion.base.util.Hex;
+
+/**
+ * A read-only view of one RLP encoded element inside a byte array or a {@link ByteBuffer}.
+ *
+ * <p>Unlike {@link RLP#decode2(byte[])}, which copies every element into a tree of {@link RLPList}
+ * and {@link RLPItem} objects up front, the view only reads the element's prefix. The offsets of
+ * the children of a list are indexed the first time they are accessed and values are copied out of
+ * the underlying array only when asked for, so unused fields of a message cost nothing.
+ *
+ * <p>The view does not copy the array or buffer it is given, which must therefore not be modified
+ * or released while the view is in use.
+ */
+public final class RLPView {
+
+    private final ByteBuffer data;
+
+    /** Position of the element's prefix. */
+    private final int offset;
+
+    private final int payloadOffset;
+    private final int payloadLength;
+    private final boolean list;
+
+    /** Children of a list, created on first access. */
+    private RLPView[] elements;
+
+    private RLPView(ByteBuffer data, int offset, int limit) {
+        this.data = data;
+        this.offset = offset;
+
+        if (offset >= limit) {
+            throw wrongEncoding(data, offset, limit);
+        }
+
+        int prefix = data.get(offset) & 0xFF;
+        int lengthOfLength = 0;
+        int length;
+
+        if (prefix < OFFSET_SHORT_ITEM) {
+            // single byte item
+            this.list = false;
+            this.payloadOffset = offset;
+            this.payloadLength = 1;
+            return;
+        } else if (prefix <= OFFSET_LONG_ITEM) {
+            this.list = false;
+            length = prefix - OFFSET_SHORT_ITEM;
+        } else if (prefix < OFFSET_SHORT_LIST) {
+            this.list = false;
+            lengthOfLength = prefix - OFFSET_LONG_ITEM;
+            length = readLength(data, offset, lengthOfLength, limit);
+        } else if (prefix <= OFFSET_LONG_LIST) {
+            this.list = true;
+            length = prefix - OFFSET_SHORT_LIST;
+        } else {
+            this.list = true;
+            lengthOfLength = prefix - OFFSET_LONG_LIST;
+            length = readLength(data, offset, lengthOfLength, limit);
+        }
+
+        this.payloadOffset = offset + 1 + lengthOfLength;
+        this.payloadLength = length;
+
+        if (length < 0 || payloadOffset > limit || length > limit - payloadOffset) {
+            throw wrongEncoding(data, offset, limit);
+        }
+    }
+
+    private static int readLength(ByteBuffer data, int offset, int lengthOfLength, int limit) {
+        if (lengthOfLength > Integer.BYTES || offset + lengthOfLength >= limit) {
+            throw wrongEncoding(data, offset, limit);
+        }
+
+        int length = 0;
+        for (int i = 1; i <= lengthOfLength; i++) {
+            length = (length << 8) | (data.get(offset + i) & 0xFF);
+        }
+        return length;
+    }
+
+    private static RuntimeException wrongEncoding(ByteBuffer data, int offset, int limit) {
+        return new RuntimeException(
+                "RLP wrong encoding ("
+                        + Hex.toHexString(copy(data, offset, Math.max(offset, limit)))
+                        + ")");
+    }
+
+    private static byte[] copy(ByteBuffer data, int from, int to) {
+        byte[] copy = new byte[to - from];
+        if (data.hasArray()) {
+            System.arraycopy(data.array(), data.arrayOffset() + from, copy, 0, copy.length);
+        } else {
+            ByteBuffer b = data.duplicate();
+            b.position(from);
+            b.get(copy);
+        }
+        return copy;
+    }
+
+    /**
+     * Creates a view of the first element encoded in the given array.
+     *
+     * @param data RLP encoded data
+     * @return the view of the element starting at the first byte
+     * @throws RuntimeException when the data is empty or the element does not fit in it
+     */
+    public static RLPView wrap(byte[] data) {
+        return wrap(data, 0);
+    }
+
+    /**
+     * Creates a view of the element encoded at the given position.
+     *
+     * @param data RLP encoded data
+     * @param offset position of the element's prefix
+     * @return the view of the element
+     * @throws RuntimeException when the element does not fit in the data
+     */
+    public static RLPView wrap(byte[] data, int offset) {
+        if (data == null) {
+            throw new NullPointerException("RLP data can't be null");
+        }
+        return new RLPView(ByteBuffer.wrap(data), offset, data.length);
+    }
+
+    /**
+     * Creates a view of the element encoded at the buffer's position, which must end before its
+     * limit. The buffer's position and limit are not changed.
+     *
+     * @param data RLP encoded data
+     * @return the view of the element
+     * @throws RuntimeException when the element does not fit in the buffer
+     */
+    public static RLPView wrap(ByteBuffer data) {
+        if (data == null) {
+            throw new NullPointerException("RLP data can't be null");
+        }
+        return new RLPView(data.duplicate(), data.position(), data.limit());
+    }
+
+    public boolean isList() {
+        return list;
+    }
+
+    /** @return the number of elements in the list */
+    public int size() {
+        return elements().length;
+    }
+
+    /**
+     * @param index position of the element in this list
+     * @return the view of the element
+     */
+    public RLPView get(int index) {
+        return elements()[index];
+    }
+
+    /**
+     * @param index position of the element in this list
+     * @return the view of the element, which must itself be a list
+     */
+    public RLPView getList(int index) {
+        RLPView element = get(index);
+        if (!element.list) {
+            throw new RuntimeException("RLP element " + index + " is not a list");
+        }
+        return element;
+    }
+
+    private RLPView[] elements() {
+        if (!list) {
+            throw new RuntimeException("RLP element is not a list");
+        }
+
+        if (elements == null) {
+            int limit = payloadOffset + payloadLength;
+            RLPView[] found = new RLPView[4];
+            int count = 0;
+
+            int pos = payloadOffset;
+            while (pos < limit) {
+                RLPView element = new RLPView(data, pos, limit);
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count << 1);
+                }
+                found[count++] = element;
+                pos = element.payloadOffset + element.payloadLength;
+            }
+            elements = count == found.length ? found : Arrays.copyOf(found, count);
+        }
+        return elements;
+    }
+
+    /**
+     * Returns the data the same way as {@link RLPElement#getRLPData()} would for the element
+     * decoded by {@link RLP#decode2(byte[])}: the payload of an item or the full encoding of a
+     * list. The returned array is a copy.
+     */
+    public byte[] getRLPData() {
+        return list ? getEncoded() : copy(data, payloadOffset, payloadOffset + payloadLength);
+    }
+
+    /** @return a copy of the element's encoding, including its prefix */
+    public byte[] getEncoded() {
+        return copy(data, offset, payloadOffset + payloadLength);
+    }
+
+    /** @return the length of the element's encoding, including its prefix */
+    public int getEncodedLength() {
+        return payloadOffset + payloadLength - offset;
+    }
+
+    /** @return the length of an item's payload */
+    public int getLength() {
+        return payloadLength;
+    }
+
+    /**
+     * Reads an item as an unsigned big-endian number, keeping the lowest 64 bits like {@code new
+     * BigInteger(1, getRLPData()).longValue()} without copying the payload.
+     */
+    public long asLong() {
+        long value = 0;
+        for (int i = payloadOffset; i < payloadOffset + payloadLength; i++) {
+            value = (value << 8) | (data.get(i) & 0xFF);
+        }
+        return value;
+    }
+
+    /** Reads an item as an unsigned big-endian number. */
+    public BigInteger asBigInteger() {
+        if (payloadLength == 0) {
+            return BigInteger.ZERO;
+        }
+        return data.hasArray()
+                ? new BigInteger(1, data.array(), data.arrayOffset() + payloadOffset, payloadLength)
+                : new BigInteger(1, copy(data, payloadOffset, payloadOffset + payloadLength));
+    }
+}
@@ -0,0 +1,224 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.rlp;
+
+import static org.aion.rlp.RLP.OFFSET_SHORT_ITEM;
+import static org.aion.rlp.RLP.OFFSET_SHORT_LIST;
+import static org.aion.rlp.RLP.SIZE_THRESHOLD;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Writes RLP encoded elements one after the other into a single growing buffer.
+ *
+ * <p>The encoding of each value is written in place, so composing a list does not allocate an
+ * array per element and another one per nested list the way {@link RLP#encodeElement(byte[])} and
+ * {@link RLP#encodeList(byte[]...)} do. Each list reserves one byte for its prefix when started;
+ * only lists whose payload turns out to be 56 bytes or longer are shifted to make room for the
+ * longer prefix. A writer can be reused after {@link #reset()} but is not thread-safe.
+ *
+ * <p>The output is byte for byte the same as the one of the matching {@link RLP} methods.
+ */
+public final class RLPWriter {
+
+    private byte[] buffer;
+    private int position;
+
+    /** Prefix positions of the lists that are still open. */
+    private int[] lists = new int[8];
+
+    private int depth;
+
+    public RLPWriter() {
+        this(256);
+    }
+
+    /** @param capacity the expected size of the output */
+    public RLPWriter(int capacity) {
+        this.buffer = new byte[Math.max(capacity, 16)];
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + extra));
+        }
+    }
+
+    private static int bytesOf(int length) {
+        return Integer.BYTES - Integer.numberOfLeadingZeros(length) / Byte.SIZE;
+    }
+
+    /** Writes the prefix of an element with the given payload length. */
+    private void writeHeader(int length, int offset) {
+        if (length < SIZE_THRESHOLD) {
+            buffer[position++] = (byte) (offset + length);
+        } else {
+            int byteNum = bytesOf(length);
+            buffer[position++] = (byte) (offset + SIZE_THRESHOLD - 1 + byteNum);
+            for (int i = byteNum - 1; i >= 0; i--) {
+                buffer[position++] = (byte) (length >>> (8 * i));
+            }
+        }
+    }
+
+    /** Same as {@link RLP#encodeElement(byte[])}. */
+    public RLPWriter writeElement(byte[] data) {
+        if (data == null || data.length == 0) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) OFFSET_SHORT_ITEM;
+        } else if (data.length == 1 && (data[0] & 0xFF) < OFFSET_SHORT_ITEM) {
+            ensureCapacity(1);
+            buffer[position++] = data[0];
+        } else {
+            ensureCapacity(1 + Integer.BYTES + data.length);
+            writeHeader(data.length, OFFSET_SHORT_ITEM);
+            System.arraycopy(data, 0, buffer, position, data.length);
+            position += data.length;
+        }
+        return this;
+    }
+
+    /** Same as {@link RLP#encodeByte(byte)}. */
+    public RLPWriter writeByte(byte value) {
+        return writeUnsigned(value & 0xFF, 1);
+    }
+
+    /** Same as {@link RLP#encodeInt(int)}. */
+    public RLPWriter writeInt(int value) {
+        return writeUnsigned(value & 0xFFFFFFFFL, Integer.BYTES);
+    }
+
+    /**
+     * Same as {@link RLP#encodeLong(long)}, which uses the minimal encoding for values of up to 32
+     * bits and always eight bytes for larger ones.
+     */
+    public RLPWriter writeLong(long value) {
+        return (value & 0xFFFFFFFFL) == value
+                ? writeUnsigned(value, Integer.BYTES)
+                : writeUnsigned(value, Long.BYTES, Long.BYTES);
+    }
+
+    /**
+     * Writes a non-negative number in its minimal encoding, the same as {@link
+     * RLP#encodeBigInteger(BigInteger)} of the value.
+     */
+    public RLPWriter writeUnsignedLong(long value) {
+        return writeUnsigned(value, Long.BYTES);
+    }
+
+    /** Same as {@link RLP#encodeBigInteger(BigInteger)}. */
+    public RLPWriter writeBigInteger(BigInteger value) {
+        if (value.signum() == 0) {
+            return writeUnsigned(0, 1);
+        }
+        return writeElement(Utils.asUnsignedByteArray(value));
+    }
+
+    private RLPWriter writeUnsigned(long value, int maxBytes) {
+        int size = Long.BYTES - Long.numberOfLeadingZeros(value) / Byte.SIZE;
+        return writeUnsigned(value, Math.min(size, maxBytes), maxBytes);
+    }
+
+    private RLPWriter writeUnsigned(long value, int size, int maxBytes) {
+        ensureCapacity(1 + maxBytes);
+        if (size == 0) {
+            buffer[position++] = (byte) OFFSET_SHORT_ITEM;
+        } else if (size == 1 && (value & 0xFF) < OFFSET_SHORT_ITEM) {
+            buffer[position++] = (byte) value;
+        } else {
+            buffer[position++] = (byte) (OFFSET_SHORT_ITEM + size);
+            for (int i = size - 1; i >= 0; i--) {
+                buffer[position++] = (byte) (value >>> (8 * i));
+            }
+        }
+        return this;
+    }
+
+    /** Copies an element that is already RLP encoded, such as the encoding of a nested object. */
+    public RLPWriter writeEncoded(byte[] encoded) {
+        ensureCapacity(encoded.length);
+        System.arraycopy(encoded, 0, buffer, position, encoded.length);
+        position += encoded.length;
+        return this;
+    }
+
+    /** Starts a list, whose elements are all the ones written until the matching {@link #endList()}. */
+    public RLPWriter startList() {
+        if (depth == lists.length) {
+            lists = Arrays.copyOf(lists, depth << 1);
+        }
+        lists[depth++] = position;
+
+        ensureCapacity(1);
+        position++;
+        return this;
+    }
+
+    /** Ends the last started list, writing its prefix. */
+    public RLPWriter endList() {
+        if (depth == 0) {
+            throw new IllegalStateException("No list was started.");
+        }
+        int start = lists[--depth];
+        int length = position - start - 1;
+
+        if (length < SIZE_THRESHOLD) {
+            buffer[start] = (byte) (OFFSET_SHORT_LIST + length);
+        } else {
+            int byteNum = bytesOf(length);
+            ensureCapacity(byteNum);
+            System.arraycopy(buffer, start + 1, buffer, start + 1 + byteNum, length);
+            int end = position + byteNum;
+            position = start;
+            writeHeader(length, OFFSET_SHORT_LIST);
+            position = end;
+        }
+        return this;
+    }
+
+    /** @return the number of bytes written so far */
+    public int size() {
+        return position;
+    }
+
+    /** @return a copy of everything written, which must not leave a list open */
+    public byte[] toByteArray() {
+        if (depth != 0) {
+            throw new IllegalStateException("Not all lists were ended.");
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /** Discards everything written, keeping the buffer for reuse. */
+    public void reset() {
+        position = 0;
+        depth = 0;
+    }
+}
@@ -0,0 +1,167 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.rlp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import org.aion.base.util.ByteUtil;
+import org.junit.Test;
+
+public class RLPViewTest {
+
+    private static final byte[] LONG_DATA = new byte[300];
+
+    static {
+        new Random(7).nextBytes(LONG_DATA);
+    }
+
+    /** A nested list mixing every kind of prefix. */
+    private static byte[] sample() {
+        return RLP.encodeList(
+                RLP.encodeElement(null),
+                RLP.encodeByte((byte) 0x05),
+                RLP.encodeByte((byte) 0x90),
+                RLP.encodeLong(1_000_000_000_000L),
+                RLP.encodeElement(LONG_DATA),
+                RLP.encodeList(),
+                RLP.encodeList(RLP.encodeString("dog"), RLP.encodeList(RLP.encodeInt(1024))),
+                RLP.encodeList(RLP.encodeElement(LONG_DATA), RLP.encodeElement(LONG_DATA)));
+    }
+
+    private static void assertSame(RLPView view, RLPElement element) {
+        assertThat(view.getRLPData()).isEqualTo(element.getRLPData());
+        assertThat(view.isList()).isEqualTo(element instanceof RLPList);
+
+        if (element instanceof RLPList) {
+            RLPList list = (RLPList) element;
+            assertThat(view.size()).isEqualTo(list.size());
+            for (int i = 0; i < list.size(); i++) {
+                assertSame(view.get(i), list.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testSameAsDecode2() {
+        byte[] encoded = sample();
+        assertSame(RLPView.wrap(encoded), RLP.decode2(encoded).get(0));
+    }
+
+    @Test
+    public void testNumbers() {
+        RLPView view = RLPView.wrap(sample());
+
+        assertThat(view.get(0).asLong()).isEqualTo(0L);
+        assertThat(view.get(1).asLong()).isEqualTo(5L);
+        assertThat(view.get(2).asLong()).isEqualTo(0x90L);
+        assertThat(view.get(3).asLong()).isEqualTo(1_000_000_000_000L);
+        assertThat(view.get(3).asBigInteger()).isEqualTo(BigInteger.valueOf(1_000_000_000_000L));
+        assertThat(view.get(0).asBigInteger()).isEqualTo(BigInteger.ZERO);
+        assertThat(view.get(6).get(1).get(0).asLong()).isEqualTo(1024L);
+    }
+
+    @Test
+    public void testEncoded() {
+        byte[] encoded = sample();
+        RLPView view = RLPView.wrap(encoded);
+
+        assertThat(view.getEncoded()).isEqualTo(encoded);
+        assertThat(view.getEncodedLength()).isEqualTo(encoded.length);
+        assertThat(view.get(4).getLength()).isEqualTo(LONG_DATA.length);
+        assertThat(view.get(7).getEncoded())
+                .isEqualTo(RLP.encodeList(RLP.encodeElement(LONG_DATA), RLP.encodeElement(LONG_DATA)));
+    }
+
+    @Test
+    public void testWrapAtOffset() {
+        byte[] first = RLP.encodeString("cat");
+        byte[] second = RLP.encodeList(RLP.encodeString("dog"));
+        byte[] both = ByteUtil.merge(first, second);
+
+        RLPView view = RLPView.wrap(both, first.length);
+        assertThat(view.isList()).isTrue();
+        assertThat(view.get(0).getRLPData()).isEqualTo("dog".getBytes());
+    }
+
+    @Test
+    public void testWrapDirectBuffer() {
+        byte[] encoded = sample();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(encoded.length + 8);
+        buffer.position(3);
+        buffer.put(encoded);
+        buffer.flip().position(3);
+        ByteBuffer readOnly = buffer.asReadOnlyBuffer();
+
+        RLPView view = RLPView.wrap(readOnly);
+        assertSame(view, RLP.decode2(encoded).get(0));
+        assertThat(view.getEncoded()).isEqualTo(encoded);
+        assertThat(view.get(3).asBigInteger()).isEqualTo(BigInteger.valueOf(1_000_000_000_000L));
+
+        // the buffer is left as it was
+        assertThat(readOnly.position()).isEqualTo(3);
+        assertThat(readOnly.limit()).isEqualTo(3 + encoded.length);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testTruncatedBuffer() {
+        byte[] encoded = RLP.encodeElement(LONG_DATA);
+        RLPView.wrap(ByteBuffer.wrap(encoded, 0, encoded.length - 1));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testTruncatedItem() {
+        byte[] encoded = RLP.encodeElement(LONG_DATA);
+        RLPView.wrap(Arrays.copyOf(encoded, encoded.length - 1));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testTruncatedElementInList() {
+        // the list claims two bytes, but its only element claims three
+        RLPView.wrap(new byte[] {(byte) 0xc2, (byte) 0x83, 0x01, 0x02, 0x03}).size();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testEmpty() {
+        RLPView.wrap(ByteUtil.EMPTY_BYTE_ARRAY);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testItemIsNotList() {
+        RLPView.wrap(RLP.encodeString("dog")).get(0);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testGetList() {
+        RLPView.wrap(sample()).getList(1);
+    }
+}
@@ -0,0 +1,123 @@
+/* ******************************************************************************
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ ******************************************************************************/
+package org.aion.rlp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.Test;
+
+public class RLPWriterTest {
+
+    private static final long[] NUMBERS = {
+        0L, 1L, 0x7fL, 0x80L, 0xffL, 0x100L, 0xffffL, 0x10000L, 0xffffffL, 0x1000000L,
+        Integer.MAX_VALUE, 0xffffffffL, 0x100000000L, Long.MAX_VALUE, -1L
+    };
+
+    @Test
+    public void testNumbers() {
+        for (long number : NUMBERS) {
+            assertThat(new RLPWriter().writeLong(number).toByteArray())
+                    .isEqualTo(RLP.encodeLong(number));
+            assertThat(new RLPWriter().writeInt((int) number).toByteArray())
+                    .isEqualTo(RLP.encodeInt((int) number));
+            assertThat(new RLPWriter().writeByte((byte) number).toByteArray())
+                    .isEqualTo(RLP.encodeByte((byte) number));
+            if (number >= 0) {
+                assertThat(new RLPWriter().writeUnsignedLong(number).toByteArray())
+                        .isEqualTo(RLP.encodeBigInteger(BigInteger.valueOf(number)));
+            }
+        }
+        BigInteger big = BigInteger.ONE.shiftLeft(200).add(BigInteger.TEN);
+        assertThat(new RLPWriter().writeBigInteger(big).toByteArray())
+                .isEqualTo(RLP.encodeBigInteger(big));
+        assertThat(new RLPWriter().writeBigInteger(BigInteger.ZERO).toByteArray())
+                .isEqualTo(RLP.encodeBigInteger(BigInteger.ZERO));
+    }
+
+    @Test
+    public void testElements() {
+        Random random = new Random(11);
+        for (int length : new int[] {0, 1, 2, 55, 56, 255, 256, 70000}) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            assertThat(new RLPWriter(1).writeElement(data).toByteArray())
+                    .isEqualTo(RLP.encodeElement(data));
+        }
+        assertThat(new RLPWriter().writeElement(null).toByteArray())
+                .isEqualTo(RLP.encodeElement(null));
+        assertThat(new RLPWriter().writeElement(new byte[] {0}).toByteArray())
+                .isEqualTo(RLP.encodeElement(new byte[] {0}));
+    }
+
+    @Test
+    public void testNestedLists() {
+        byte[] blob = new byte[1000];
+        new Random(13).nextBytes(blob);
+
+        byte[] expected =
+                RLP.encodeList(
+                        RLP.encodeList(),
+                        RLP.encodeList(RLP.encodeElement(blob), RLP.encodeLong(42)),
+                        RLP.encodeList(RLP.encodeList(RLP.encodeString("dog"))),
+                        RLP.encodeElement(new byte[60]));
+
+        RLPWriter writer = new RLPWriter(8);
+        writer.startList();
+        writer.startList().endList();
+        writer.startList().writeElement(blob).writeLong(42).endList();
+        writer.startList().startList().writeElement("dog".getBytes()).endList().endList();
+        writer.writeElement(new byte[60]);
+        writer.endList();
+
+        assertThat(writer.toByteArray()).isEqualTo(expected);
+    }
+
+    @Test
+    public void testReuse() {
+        RLPWriter writer = new RLPWriter();
+        writer.startList().writeElement(new byte[100]).endList();
+        writer.reset();
+
+        byte[] encoded = RLP.encodeList(RLP.encodeString("cat"));
+        assertThat(writer.writeEncoded(encoded).toByteArray()).isEqualTo(encoded);
+        assertThat(writer.size()).isEqualTo(encoded.length);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnendedList() {
+        new RLPWriter().startList().toByteArray();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnstartedList() {
+        new RLPWriter().endList();
+    }
+}
@@ -38,6 +38,7 @@ import java.util.AbstractMap.SimpleEntry;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -70,6 +71,13 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
      */
     // TODO : should limit size
     private final Map<ByteArrayWrapper, TXState> mainMap = new ConcurrentHashMap<>();
+    /**
+     * unsorted : Queue<ByteArrayWrapper>
+     *
+     * @ByteArrayWrapper hash of a transaction added since the last sort, so sorting only visits
+     * the new transactions
+     */
+    private final Queue<ByteArrayWrapper> unsorted = new ConcurrentLinkedQueue<>();
     /**
      * timeView : SortedMap<Long, LinkedHashSet<ByteArrayWrapper>>
      *
@@ -88,6 +96,14 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
      */
     private final SortedMap<BigInteger, Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>> feeView = Collections
             .synchronizedSortedMap(new TreeMap<>(Collections.reverseOrder()));
+    /**
+     * candidates : NavigableSet<TxDependList<ByteArrayWrapper>>
+     *
+     * @TxDependList<ByteArrayWrapper> the lists of the feeView, by descending fee, then by the
+     * timestamp of their first transaction, then by the order they were first put in
+     */
+    private final NavigableSet<TxDependList<ByteArrayWrapper>> candidates = new TreeSet<>(CANDIDATE_ORDER);
+    private final AtomicLong candidateSeq = new AtomicLong();
     /**
      * accountView : Map<ByteArrayWrapper, AccountState>
      *
@@ -105,9 +121,26 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
     private final List<TX> outDated = new ArrayList<>();
 
     private final Map<Address, BigInteger> bestNonce = new ConcurrentHashMap<>();
+    /**
+     * dirtyAcc : Set<Address>
+     *
+     * @Address account whose transactions changed since its pool states were last updated
+     */
+    private final Set<Address> dirtyAcc = ConcurrentHashMap.newKeySet();
+    /**
+     * unindexedAcc : Set<Address>
+     *
+     * @Address account whose pool states changed since they were last put in the feeView
+     */
+    private final Set<Address> unindexedAcc = ConcurrentHashMap.newKeySet();
 
     protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
+    /** The order candidate lists are picked for a block in. */
+    protected static final Comparator<TxDependList<?>> CANDIDATE_ORDER = Comparator
+            .comparing((TxDependList<?> l) -> l.getFee(), Comparator.reverseOrder())
+            .thenComparingLong(TxDependList::getTimeStamp).thenComparingLong(TxDependList::getSeq);
+
     public abstract List<TX> add(List<TX> txl);
 
     public abstract TX add(TX tx);
@@ -122,10 +155,32 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
         return this.mainMap;
     }
 
+    /** Puts new transactions into the main map, to be sorted into the views on the next sort. */
+    protected void addToMainMap(Map<ByteArrayWrapper, TXState> txs) {
+        this.mainMap.putAll(txs);
+        this.unsorted.addAll(txs.keySet());
+    }
+
     protected SortedMap<BigInteger, Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>> getFeeView() {
         return this.feeView;
     }
 
+    protected NavigableSet<TxDependList<ByteArrayWrapper>> getCandidates() {
+        return this.candidates;
+    }
+
+    /**
+     * Called when a list is put in or taken out of the candidates, so a selection made over them
+     * can be brought up to date from that list on.
+     */
+    protected void candidateChanged(TxDependList<ByteArrayWrapper> txl) {}
+
+    /** Marks the transactions of the account as changed, to be sorted again on the next sort. */
+    protected void setDirty(Address acc) {
+        getAccView(acc).setDirty();
+        this.dirtyAcc.add(acc);
+    }
+
     protected AccountState getAccView(Address acc) {
 
         this.accountView.computeIfAbsent(acc, k -> new AccountState());
@@ -157,30 +212,43 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
 
     public void clear() {
         this.mainMap.clear();
+        this.unsorted.clear();
         this.timeView.clear();
         this.feeView.clear();
         this.accountView.clear();
         this.poolStateView.clear();
         this.outDated.clear();
+        this.candidates.clear();
+        this.dirtyAcc.clear();
+        this.unindexedAcc.clear();
     }
 
     protected void sortTxn() {
 
+        List<ByteArrayWrapper> added = new ArrayList<>();
+        for (ByteArrayWrapper bw; (bw = this.unsorted.poll()) != null; ) {
+            added.add(bw);
+        }
+
+        if (added.isEmpty()) {
+            return;
+        }
+
         Map<Address, Map<BigInteger, SimpleEntry<ByteArrayWrapper, BigInteger>>> accMap = new ConcurrentHashMap<>();
         SortedMap<Long, LinkedHashSet<ByteArrayWrapper>> timeMap = Collections.synchronizedSortedMap(new TreeMap<>());
 
         Map<ITransaction, Long> updatedTx = new HashMap<>();
-        this.mainMap.entrySet().parallelStream().forEach(e -> {
+        added.parallelStream().forEach(bw -> {
 
-            TXState ts = e.getValue();
-            if (ts.sorted()) {
+            TXState ts = this.mainMap.get(bw);
+            if (ts == null || ts.sorted()) {
                 return;
             }
 
             ITransaction tx = ts.getTx();
 
             // Gen temp timeMap
-            long timestamp = tx.getTimeStampBI().longValue() / multiplyM;
+            long timestamp = ts.getTimeStamp() / multiplyM;
 
             Map<BigInteger, SimpleEntry<ByteArrayWrapper, BigInteger>> nonceMap;
             ITransaction replacedTx = null;
@@ -195,11 +263,11 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                 BigInteger nonce = tx.getNonceBI();
 
                 BigInteger nrgCharge = BigInteger.valueOf(tx.getNrgPrice())
-                        .multiply(BigInteger.valueOf(tx.getNrgConsume()));
+                        .multiply(BigInteger.valueOf(ts.getNrgConsume()));
 
                 if (LOG.isTraceEnabled()) {
                     LOG.trace("AbstractTxPool.sortTxn Put tx into nonceMap: nonce:[{}] ts:[{}] nrgCharge:[{}]", nonce,
-                            ByteUtils.toHexString(e.getKey().getData()), nrgCharge.toString());
+                            ByteUtils.toHexString(bw.getData()), nrgCharge.toString());
                 }
 
                 // considering same nonce tx, only put the latest tx.
@@ -209,14 +277,14 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                                 .compareTo(tx.getTimeStampBI()) < 1) {
                             replacedTx = this.mainMap.get(nonceMap.get(nonce).getKey()).getTx();
                             updatedTx.put(replacedTx, timestamp);
-                            nonceMap.put(nonce, new SimpleEntry<>(e.getKey(), nrgCharge));
+                            nonceMap.put(nonce, new SimpleEntry<>(bw, nrgCharge));
 
                         }
                     } catch (Exception ex) {
                         LOG.error("AbsTxPool.sortTxn {} [{}]", ex.toString(), tx.toString());
                     }
                 } else {
-                    nonceMap.put(nonce, new SimpleEntry<>(e.getKey(), nrgCharge));
+                    nonceMap.put(nonce, new SimpleEntry<>(bw, nrgCharge));
                 }
 
                 if (LOG.isTraceEnabled()) {
@@ -235,7 +303,7 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                     lhs = new LinkedHashSet<>();
                 }
 
-                lhs.add(e.getKey());
+                lhs.add(bw);
 
                 if (LOG.isTraceEnabled()) {
                     LOG.trace("AbstractTxPool.sortTxn Put txHash into timeMap: ts:[{}] size:[{}]", timestamp,
@@ -283,6 +351,7 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                 this.accountView.computeIfAbsent(e.getKey(), k -> new AccountState());
                 this.accountView.get(e.getKey()).updateMap(e.getValue());
                 lock.writeLock().unlock();
+                this.dirtyAcc.add(e.getKey());
             });
 
             updateAccPoolState();
@@ -294,20 +363,21 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
         return this.timeView;
     }
 
+    /** Updates the pool states of the accounts changed since the last update. */
     protected void updateAccPoolState() {
 
-        // iterate tx by account
+        // iterate tx by changed account
         List<Address> clearAddr = new ArrayList<>();
-        for (Entry<Address, AccountState> e : this.accountView.entrySet()) {
-            AccountState as = e.getValue();
-            if (as.isDirty()) {
+        for (Address addr : drain(this.dirtyAcc)) {
+            AccountState as = this.accountView.get(addr);
+            if (as != null && as.isDirty()) {
 
                 if (as.getMap().isEmpty()) {
-                    this.poolStateView.remove(e.getKey());
-                    clearAddr.add(e.getKey());
+                    this.poolStateView.remove(addr);
+                    clearAddr.add(addr);
                 } else {
                     // checking AccountState given by account
-                    List<PoolState> psl = this.poolStateView.get(e.getKey());
+                    List<PoolState> psl = this.poolStateView.get(addr);
                     if (psl == null) {
                         psl = new LinkedList<>();
                     }
@@ -335,21 +405,13 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                                 txNonceStart = txNonceStart.add(BigInteger.valueOf(seqTxCountMax));
                             } else {
                                 // remove old poolState in the feeMap
-                                if (this.feeView.get(ps.getFee()) != null) {
-
-                                    if (e.getValue().getMap().get(ps.firstNonce) != null) {
-                                        this.feeView.get(ps.getFee())
-                                                .remove(e.getValue().getMap().get(ps.firstNonce).getKey());
-                                    }
+                                if (as.getMap().get(ps.firstNonce) != null) {
+                                    removeFeeList(ps.getFee(), as.getMap().get(ps.firstNonce).getKey());
 
                                     if (LOG.isTraceEnabled()) {
                                         LOG.trace("AbstractTxPool.updateAccPoolState remove fn [{}]",
                                                 ps.firstNonce.toString());
                                     }
-
-                                    if (this.feeView.get(ps.getFee()).isEmpty()) {
-                                        this.feeView.remove(ps.getFee());
-                                    }
                                 }
                             }
                         }
@@ -410,13 +472,14 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                         if (LOG.isTraceEnabled()) {
                             LOG.trace(
                                     "AbstractTxPool.updateAccPoolState case3 - nonce:[{}] totalFee:[{}] cnt:[{}] bw:[{}]",
-                                    txNonceStart, totalFee.toString(), cnt, e.getKey().toString());
+                                    txNonceStart, totalFee.toString(), cnt, addr.toString());
                         }
 
                         newPoolState.add(new PoolState(txNonceStart, totalFee.divide(BigInteger.valueOf(cnt)), cnt));
                     }
 
-                    this.poolStateView.put(e.getKey(), newPoolState);
+                    this.poolStateView.put(addr, newPoolState);
+                    this.unindexedAcc.add(addr);
 
                     if (LOG.isTraceEnabled()) {
                         this.poolStateView.forEach((k, v) -> v.forEach(l -> {
@@ -454,31 +517,37 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
         return true;
     }
 
+    /** Puts the pool states updated since the last call in the feeView. */
     protected void updateFeeMap() {
-        for (Entry<Address, List<PoolState>> e : this.poolStateView.entrySet()) {
+        for (Address addr : drain(this.unindexedAcc)) {
+            List<PoolState> psl = this.poolStateView.get(addr);
+            if (psl == null) {
+                continue;
+            }
+
             ByteArrayWrapper dependTx = null;
-            for (PoolState ps : e.getValue()) {
+            for (PoolState ps : psl) {
 
                 if (LOG.isTraceEnabled()) {
-                    LOG.trace("updateFeeMap addr[{}] inFp[{}] fn[{}] cb[{}] fee[{}]", e.getKey().toString(),
+                    LOG.trace("updateFeeMap addr[{}] inFp[{}] fn[{}] cb[{}] fee[{}]", addr.toString(),
                             ps.isInFeePool(), ps.getFirstNonce().toString(), ps.getCombo(), ps.getFee().toString());
                 }
 
                 if (ps.isInFeePool()) {
-                    dependTx = this.accountView.get(e.getKey()).getMap().get(ps.getFirstNonce()).getKey();
+                    dependTx = this.accountView.get(addr).getMap().get(ps.getFirstNonce()).getKey();
                     if (LOG.isTraceEnabled()) {
                         LOG.trace("updateFeeMap isInFeePool [{}]", dependTx.toString());
                     }
                 } else {
 
                     TxDependList<ByteArrayWrapper> txl = new TxDependList<>();
-                    BigInteger timestamp = BigInteger.ZERO;
+                    long timestamp = 0;
                     for (BigInteger i = ps.firstNonce;
                          i.compareTo(ps.firstNonce.add(BigInteger.valueOf(ps.combo))) < 0; i = i.add(BigInteger.ONE)) {
 
-                        ByteArrayWrapper bw = this.accountView.get(e.getKey()).getMap().get(i).getKey();
+                        ByteArrayWrapper bw = this.accountView.get(addr).getMap().get(i).getKey();
                         if (i.equals(ps.firstNonce)) {
-                            timestamp = this.mainMap.get(bw).getTx().getTimeStampBI();
+                            timestamp = this.mainMap.get(bw).getTimeStamp();
                         }
 
                         txl.addTx(bw);
@@ -487,34 +556,98 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                     if (!txl.isEmpty()) {
                         txl.setDependTx(dependTx);
                         dependTx = txl.getTxList().get(0);
-                        txl.setAddress(e.getKey());
+                        txl.setAddress(addr);
                         txl.setTimeStamp(timestamp);
+                        txl.setFee(ps.fee);
                     }
 
-                    if (this.feeView.get(ps.fee) == null) {
-                        Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> set = new LinkedHashMap<>();
-                        set.put(txl.getTxList().get(0), txl);
+                    if (LOG.isTraceEnabled()) {
+                        LOG.trace("updateFeeMap feeView put fee[{}]", ps.fee);
+                    }
 
-                        if (LOG.isTraceEnabled()) {
-                            LOG.trace("updateFeeMap new feeView put fee[{}]", ps.fee);
-                        }
+                    putFeeList(ps.fee, txl);
+                    ps.setInFeePool();
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts the list in the feeView and the candidates. A list equal to the one it replaces is
+     * dropped, so the candidates only change where the pool did.
+     */
+    private void putFeeList(BigInteger fee, TxDependList<ByteArrayWrapper> txl) {
+        Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> lists = this.feeView
+                .computeIfAbsent(fee, k -> new LinkedHashMap<>());
+        ByteArrayWrapper first = txl.getTxList().get(0);
+
+        TxDependList<ByteArrayWrapper> previous = lists.get(first);
+        if (previous != null) {
+            if (previous.getTimeStamp() == txl.getTimeStamp() && previous.getTxList().equals(txl.getTxList())
+                    && Objects.equals(previous.getDependTx(), txl.getDependTx())) {
+                return;
+            }
 
-                        this.feeView.put(ps.fee, set);
-                    } else {
+            this.candidates.remove(previous);
+            candidateChanged(previous);
+            txl.setSeq(previous.getSeq());
+        } else {
+            txl.setSeq(this.candidateSeq.getAndIncrement());
+        }
 
-                        if (LOG.isTraceEnabled()) {
-                            LOG.trace("updateFeeMap update feeView put fee[{}]", ps.fee);
-                        }
+        lists.put(first, txl);
+        this.candidates.add(txl);
+        candidateChanged(txl);
+    }
 
-                        this.feeView.get(ps.fee).put(txl.getTxList().get(0), txl);
-                    }
+    /** Takes the list starting with the given transaction out of the feeView and the candidates. */
+    protected void removeFeeList(BigInteger fee, ByteArrayWrapper first) {
+        Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> lists = this.feeView.get(fee);
+        if (lists == null) {
+            return;
+        }
 
-                    ps.setInFeePool();
+        TxDependList<ByteArrayWrapper> txl = lists.remove(first);
+        if (txl != null) {
+            this.candidates.remove(txl);
+            candidateChanged(txl);
+        }
+
+        if (lists.isEmpty()) {
+            this.feeView.remove(fee);
+        }
+    }
+
+    /** Takes the lists of the account out of the given fees of the feeView and the candidates. */
+    protected void removeFeeLists(Address addr, Collection<BigInteger> fees) {
+        for (BigInteger fee : fees) {
+            Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> lists = this.feeView.get(fee);
+            if (lists == null) {
+                continue;
+            }
+
+            Iterator<TxDependList<ByteArrayWrapper>> it = lists.values().iterator();
+            while (it.hasNext()) {
+                TxDependList<ByteArrayWrapper> txl = it.next();
+                if (txl.getAddress().equals(addr)) {
+                    it.remove();
+                    this.candidates.remove(txl);
+                    candidateChanged(txl);
                 }
             }
+
+            if (lists.isEmpty()) {
+                this.feeView.remove(fee);
+            }
         }
     }
 
+    private static List<Address> drain(Set<Address> accounts) {
+        List<Address> drained = new ArrayList<>(accounts);
+        accounts.removeAll(drained);
+        return drained;
+    }
+
     protected void setBestNonce(Address addr, BigInteger bn) {
         if (addr == null || bn == null) {
             throw new NullPointerException();
@@ -541,15 +674,33 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
     protected class TXState {
         private boolean sorted = false;
         private TX tx;
+        // read for every selected transaction, cached so the selection does not re-encode
+        private final int encodedSize;
+        private final long timestamp;
 
         public TXState(TX tx) {
             this.tx = tx;
+            this.encodedSize = tx.getEncoded().length;
+            this.timestamp = tx.getTimeStampBI().longValue();
         }
 
         public TX getTx() {
             return this.tx;
         }
 
+        public int getEncodedSize() {
+            return this.encodedSize;
+        }
+
+        /** The energy of the last execution, which changes when the pending state runs it again. */
+        public long getNrgConsume() {
+            return this.tx.getNrgConsume();
+        }
+
+        public long getTimeStamp() {
+            return this.timestamp;
+        }
+
         boolean sorted() {
             return this.sorted;
         }
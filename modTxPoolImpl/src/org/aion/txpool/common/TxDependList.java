@@ -34,7 +34,9 @@ public class TxDependList<BW> {
     private final List<BW> txList;
     private BW dependTx;
     private Address address;
-    private BigInteger timeStamp;
+    private long timeStamp;
+    private BigInteger fee;
+    private long seq;
 
     public TxDependList() {
         txList = new ArrayList<>();
@@ -72,15 +74,31 @@ public class TxDependList<BW> {
         return txList.isEmpty();
     }
 
-    public BigInteger getTimeStamp() {
+    public long getTimeStamp() {
         return timeStamp;
     }
 
-    public void setTimeStamp(BigInteger timeStamp) {
+    public void setTimeStamp(long timeStamp) {
         this.timeStamp = timeStamp;
     }
 
+    public BigInteger getFee() {
+        return fee;
+    }
+
+    public void setFee(BigInteger fee) {
+        this.fee = fee;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
     public int compare(TxDependList<BW> td) {
-        return timeStamp.compareTo(td.timeStamp);
+        return Long.compare(timeStamp, td.timeStamp);
     }
 }
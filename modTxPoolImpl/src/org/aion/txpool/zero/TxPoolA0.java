@@ -36,12 +36,27 @@ import org.spongycastle.pqc.math.linearalgebra.ByteUtils;
 
 import java.math.BigInteger;
 import java.util.*;
-import java.util.Map.Entry;
 import java.util.stream.Collectors;
 
 @SuppressWarnings("unchecked") public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX>
         implements ITxPool<TX> {
 
+    /**
+     * The block template, the transactions the last snapshot selected. It is patched rather than
+     * selected again: the selection only runs again from the first candidate list that changed
+     * since, so a template costs about the size of a block, not of the pool.
+     */
+    private final List<Pick> template = new ArrayList<>();
+    /** The candidate lists the template was selected from, in the order they were visited. */
+    private final List<Visit> visited = new ArrayList<>();
+    /** The transaction the template stopped at for the block limits, {@code null} if none. */
+    private Pick overflow = null;
+    /** The first candidate list changed since the template was selected, {@code null} if none. */
+    private TxDependList<ByteArrayWrapper> firstChange = null;
+    private boolean templateStale = false;
+    private int templateSize = 0;
+    private long templateNrg = 0;
+
     public TxPoolA0() {
         super();
     }
@@ -120,7 +135,12 @@ import java.util.stream.Collectors;
         return nl.parallelStream().sorted(Collections.reverseOrder()).collect(Collectors.toList());
     }
 
-    @Override public List<TX> add(List<TX> txl) {
+    /**
+     * Adds the transactions to the pool. Only the transaction and nonce maps are updated here,
+     * the fee and time indexes are sorted on the next snapshot, so concurrent callers only hold
+     * the pool briefly.
+     */
+    @Override public synchronized List<TX> add(List<TX> txl) {
 
         List<TX> newPendingTx = new ArrayList<>();
         Map<ByteArrayWrapper, TXState> mainMap = new HashMap<>();
@@ -171,7 +191,7 @@ import java.util.stream.Collectors;
             setBestNonce(tx.getFrom(), txNonce);
         }
 
-        this.getMainMap().putAll(mainMap);
+        this.addToMainMap(mainMap);
 
         if (LOG.isTraceEnabled()) {
             LOG.trace("new add tx! np[{}] tx[{}]", newPendingTx.size(), txl.size());
@@ -188,7 +208,7 @@ import java.util.stream.Collectors;
         return this.getOutdatedListImpl();
     }
 
-    @Override public List<TX> remove(Map<Address, BigInteger> accNonce) {
+    @Override public synchronized List<TX> remove(Map<Address, BigInteger> accNonce) {
 
         List<ByteArrayWrapper> bwList = new ArrayList<>();
         for (Map.Entry<Address, BigInteger> en1 : accNonce.entrySet()) {
@@ -208,24 +228,13 @@ import java.util.stream.Collectors;
             }
             lock.writeLock().unlock();
 
-            Set<BigInteger> fee = Collections.synchronizedSet(new HashSet<>());
+            Set<BigInteger> fee = new HashSet<>();
             if (this.getPoolStateView(en1.getKey()) != null) {
-                this.getPoolStateView(en1.getKey()).parallelStream().forEach(ps -> fee.add(ps.getFee()));
+                this.getPoolStateView(en1.getKey()).forEach(ps -> fee.add(ps.getFee()));
             }
 
-            fee.parallelStream().forEach(bi -> {
-                if (this.getFeeView().get(bi) != null) {
-                    this.getFeeView().get(bi).entrySet().removeIf(
-                            byteArrayWrapperTxDependListEntry -> byteArrayWrapperTxDependListEntry.getValue()
-                                    .getAddress().equals(en1.getKey()));
-
-                    if (this.getFeeView().get(bi).isEmpty()) {
-                        this.getFeeView().remove(bi);
-                    }
-                }
-            });
-
-            as.setDirty();
+            removeFeeLists(en1.getKey(), fee);
+            setDirty(en1.getKey());
         }
 
         List<TX> removedTxl = Collections.synchronizedList(new ArrayList<>());
@@ -263,7 +272,7 @@ import java.util.stream.Collectors;
         return removedTxl;
     }
 
-    @Override @Deprecated public List<TX> remove(List<TX> txs) {
+    @Override @Deprecated public synchronized List<TX> remove(List<TX> txs) {
 
         List<TX> removedTxl = Collections.synchronizedList(new ArrayList<>());
         Set<Address> checkedAddress = Collections.synchronizedSet(new HashSet<>());
@@ -298,25 +307,14 @@ import java.util.stream.Collectors;
 
             // remove the all transactions belong to the given address in the feeView
             Address address = tx.getFrom();
-            Set<BigInteger> fee = Collections.synchronizedSet(new HashSet<>());
+            Set<BigInteger> fee = new HashSet<>();
             if (!checkedAddress.contains(address)) {
 
                 if (this.getPoolStateView(tx.getFrom()) != null) {
-                    this.getPoolStateView(tx.getFrom()).parallelStream().forEach(ps -> fee.add(ps.getFee()));
+                    this.getPoolStateView(tx.getFrom()).forEach(ps -> fee.add(ps.getFee()));
                 }
 
-                fee.parallelStream().forEach(bi -> {
-                    if (this.getFeeView().get(bi) != null) {
-                        this.getFeeView().get(bi).entrySet().removeIf(
-                                byteArrayWrapperTxDependListEntry -> byteArrayWrapperTxDependListEntry.getValue()
-                                        .getAddress().equals(address));
-
-                        if (this.getFeeView().get(bi).isEmpty()) {
-                            this.getFeeView().remove(bi);
-                        }
-                    }
-                });
-
+                removeFeeLists(address, fee);
                 checkedAddress.add(address);
             }
 
@@ -326,7 +324,7 @@ import java.util.stream.Collectors;
             as.getMap().remove(tx.getNonceBI());
             lock.writeLock().unlock();
 
-            as.setDirty();
+            setDirty(tx.getFrom());
         }
 
         this.updateAccPoolState();
@@ -347,7 +345,8 @@ import java.util.stream.Collectors;
         return this.getMainMap().size();
     }
 
-    @Override public void updateBlkNrgLimit(long nrg) {
+    @Override public synchronized void updateBlkNrgLimit(long nrg) {
+        long previous = blkNrgLimit.get();
         if (nrg < BLK_NRG_MIN) {
             blkNrgLimit.set(BLK_NRG_MIN);
         } else if (nrg > BLK_NRG_MAX) {
@@ -356,12 +355,16 @@ import java.util.stream.Collectors;
             blkNrgLimit.set(nrg);
         }
 
+        if (blkNrgLimit.get() != previous) {
+            templateStale = true;
+        }
+
         if (LOG.isDebugEnabled()) {
             LOG.debug("TxPoolA0.updateBlkNrgLimit nrg[{}] blkNrgLimit[{}]", nrg, blkNrgLimit.get());
         }
     }
 
-    @Override public TX getPoolTx(Address from, BigInteger txNonce) {
+    @Override public synchronized TX getPoolTx(Address from, BigInteger txNonce) {
         if (from == null || txNonce == null) {
             LOG.error("TxPoolA0.getPoolTx null args");
             return null;
@@ -378,152 +381,255 @@ import java.util.stream.Collectors;
         }
     }
 
+    /**
+     * Returns a copy of every pooled transaction. Only the references are gathered while holding
+     * the pool, the copies are made after it is released.
+     */
     @Override public List<TX> snapshotAll() {
 
-        sortTxn();
-        removeTimeoutTxn();
+        List<TX> txs = new ArrayList<>();
+        int poolSize;
+        synchronized (this) {
+            sortTxn();
+            removeTimeoutTxn();
+
+            for (Map.Entry<Address, AccountState> as : this.getFullAcc().entrySet()) {
+                for (Map.Entry<ByteArrayWrapper, BigInteger> txMap : as.getValue().getMap().values()) {
+                    if (this.getMainMap().get(txMap.getKey()) == null) {
+                        LOG.error("can't find the tx in the mainMap");
+                        continue;
+                    }
 
-        List<TX> rtn = new ArrayList<>();
-        for (Map.Entry<Address, AccountState> as : this.getFullAcc().entrySet()) {
-            for (Map.Entry<ByteArrayWrapper, BigInteger> txMap : as.getValue().getMap().values()) {
-                if (this.getMainMap().get(txMap.getKey()) == null) {
-                    LOG.error("can't find the tx in the mainMap");
-                    continue;
+                    txs.add(this.getMainMap().get(txMap.getKey()).getTx());
                 }
-
-                rtn.add((TX) this.getMainMap().get(txMap.getKey()).getTx().clone());
             }
+            poolSize = getMainMap().size();
+        }
+
+        List<TX> rtn = new ArrayList<>(txs.size());
+        for (TX tx : txs) {
+            rtn.add((TX) tx.clone());
         }
 
         if (LOG.isInfoEnabled()) {
-            LOG.info("TxPoolA0.snapshot All return [{}] TX, poolSize[{}]", rtn.size(), getMainMap().size());
+            LOG.info("TxPoolA0.snapshot All return [{}] TX, poolSize[{}]", rtn.size(), poolSize);
         }
 
-        if (rtn.size() != getMainMap().size()) {
+        if (rtn.size() != poolSize) {
             LOG.error("size does not match!");
         }
 
         return rtn;
     }
 
-    public List<TX> snapshot() {
+    @Override public synchronized void clear() {
+        super.clear();
+        templateStale = true;
+    }
+
+    public synchronized List<TX> snapshot() {
 
         sortTxn();
         removeTimeoutTxn();
+        updateTemplate();
+
+        List<TX> rtn = new ArrayList<>(template.size());
+        for (Pick pick : template) {
+            rtn.add(pick.tx);
+        }
+
+        if (LOG.isInfoEnabled()) {
+            LOG.info("TxPoolA0.snapshot return [{}] TX, poolSize[{}]", rtn.size(), getMainMap().size());
+        }
+
+        return rtn;
+    }
+
+    @Override protected void candidateChanged(TxDependList<ByteArrayWrapper> txl) {
+        if (firstChange == null || CANDIDATE_ORDER.compare(txl, firstChange) < 0) {
+            firstChange = txl;
+        }
+    }
+
+    /**
+     * Brings the template up to date. The template only depends on the candidate lists visited
+     * before the first change, and on the energy of the transactions picked from them, so it is
+     * cut back to the first changed list or transaction and selected again from there.
+     */
+    private void updateTemplate() {
+        boolean resume = templateStale;
+        int cut = templateStale ? 0 : visited.size();
+
+        if (firstChange != null && (overflow == null
+                || CANDIDATE_ORDER.compare(firstChange, visited.get(visited.size() - 1).list) <= 0)) {
+            resume = true;
+            cut = Math.min(cut, firstVisitFrom(firstChange));
+        }
 
-        int cnt_txSz = 0;
-        long cnt_nrg = 0;
-        List<TX> rtn = new ArrayList<>();
+        for (Pick pick : template) {
+            if (pick.nrg != pick.state.getNrgConsume()) {
+                resume = true;
+                cut = Math.min(cut, pick.visit);
+                break;
+            }
+        }
+        if (overflow != null && overflow.nrg != overflow.state.getNrgConsume()) {
+            resume = true;
+            cut = Math.min(cut, overflow.visit);
+        }
+
+        templateStale = false;
+        firstChange = null;
+        if (!resume) {
+            return;
+        }
+
+        int picked = cut < visited.size() ? visited.get(cut).from : template.size();
+        template.subList(picked, template.size()).clear();
+        visited.subList(cut, visited.size()).clear();
+        overflow = null;
+
+        // the state of the selection once the kept lists were visited
+        templateSize = 0;
+        templateNrg = 0;
         Set<ByteArrayWrapper> snapshotSet = new HashSet<>();
-        Map<ByteArrayWrapper, Entry<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>> nonPickedTx = new HashMap<>();
-        for (Entry<BigInteger, Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>> e : this.getFeeView()
-                .entrySet()) {
+        for (Pick pick : template) {
+            templateSize += pick.state.getEncodedSize();
+            templateNrg += pick.nrg;
+            if (pick.first != null) {
+                snapshotSet.add(pick.first);
+            }
+        }
+
+        Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> nonPickedTx = new HashMap<>();
+        for (Visit visit : visited) {
+            if (visit.deferred) {
+                nonPickedTx.put(visit.list.getDependTx(), visit.list);
+            }
+        }
+
+        selectTemplate(visited.isEmpty() ? getCandidates()
+                : getCandidates().tailSet(visited.get(visited.size() - 1).list, false), snapshotSet, nonPickedTx);
+    }
+
+    /** The index of the first visited list ordered at or after the given list. */
+    private int firstVisitFrom(TxDependList<ByteArrayWrapper> txl) {
+        int lo = 0;
+        int hi = visited.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (CANDIDATE_ORDER.compare(visited.get(mid).list, txl) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        return lo;
+    }
+
+    /**
+     * Selects the transactions of a block, by descending fee and then by time. A transaction
+     * list is only picked after the list holding the lower nonces of the same account.
+     */
+    private void selectTemplate(Set<TxDependList<ByteArrayWrapper>> candidates, Set<ByteArrayWrapper> snapshotSet,
+            Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> nonPickedTx) {
+
+        for (TxDependList<ByteArrayWrapper> txl : candidates) {
 
             if (LOG.isTraceEnabled()) {
-                LOG.trace("snapshot  fee[{}]", e.getKey().toString());
+                LOG.trace("snapshot  fee[{}]", txl.getFee().toString());
             }
 
-            SortedMap<BigInteger, Entry<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>> timeTxDep = Collections
-                    .synchronizedSortedMap(new TreeMap<>());
-            for (Entry<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> pair : e.getValue().entrySet()) {
-                BigInteger ts = pair.getValue().getTimeStamp();
-                while (timeTxDep.get(ts.add(BigInteger.ONE)) != null) {
-                    ts = ts.add(BigInteger.ONE);
+            int visit = visited.size();
+            // Check the small nonce tx must been picked before put the high nonce tx
+            ByteArrayWrapper dependTx = txl.getDependTx();
+            if (dependTx == null || snapshotSet.contains(dependTx)) {
+                visited.add(new Visit(txl, false, template.size()));
+                if (!pick(txl, visit, snapshotSet)) {
+                    return;
                 }
-                timeTxDep.put(ts, pair);
-            }
 
-            for (Entry<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> pair : timeTxDep.values()) {
-                // Check the small nonce tx must been picked before put the high nonce tx
-                ByteArrayWrapper dependTx = pair.getValue().getDependTx();
-                if (dependTx == null || snapshotSet.contains(dependTx)) {
-                    boolean firstTx = true;
-                    for (ByteArrayWrapper bw : pair.getValue().getTxList()) {
-                        ITransaction itx = this.getMainMap().get(bw).getTx();
-
-                        cnt_txSz += itx.getEncoded().length;
-                        cnt_nrg += itx.getNrgConsume();
-                        if (LOG.isTraceEnabled()) {
-                            LOG.trace("from:[{}] nonce:[{}] txSize: txSize[{}] nrgConsume[{}]",
-                                    itx.getFrom().toString(), itx.getNonceBI().toString(), itx.getEncoded().length,
-                                    itx.getNrgConsume());
-                        }
-
-                        if (cnt_txSz < blkSizeLimit && cnt_nrg < blkNrgLimit.get()) {
-                            try {
-                                rtn.add((TX) itx.clone());
-                                if (firstTx) {
-                                    snapshotSet.add(bw);
-                                    firstTx = false;
-                                }
-                            } catch (Exception ex) {
-                                if (LOG.isErrorEnabled()) {
-                                    LOG.error("TxPoolA0.snapshot  exception[{}], return [{}] TX", ex.toString(),
-                                            rtn.size());
-                                }
-                                return rtn;
-                            }
-                        } else {
-                            if (LOG.isDebugEnabled()) {
-                                LOG.debug("Reach blockLimit: txSize[{}], nrgConsume[{}], tx#[{}]", cnt_txSz, cnt_nrg,
-                                        rtn.size());
-                            }
-
-                            return rtn;
-                        }
+                ByteArrayWrapper ancestor = txl.getTxList().get(0);
+                while (nonPickedTx.get(ancestor) != null) {
+                    if (!pick(nonPickedTx.get(ancestor), visit, snapshotSet)) {
+                        return;
                     }
 
-                    ByteArrayWrapper ancestor = pair.getKey();
-                    while (nonPickedTx.get(ancestor) != null) {
-                        firstTx = true;
-                        for (ByteArrayWrapper bw : nonPickedTx.get(ancestor).getValue().getTxList()) {
-                            ITransaction itx = this.getMainMap().get(bw).getTx();
-
-                            cnt_txSz += itx.getEncoded().length;
-                            cnt_nrg += itx.getNrgConsume();
-                            if (LOG.isTraceEnabled()) {
-                                LOG.trace("from:[{}] nonce:[{}] txSize: txSize[{}] nrgConsume[{}]",
-                                        itx.getFrom().toString(), itx.getNonceBI().toString(), itx.getEncoded().length,
-                                        itx.getNrgConsume());
-                            }
-
-                            if (cnt_txSz < blkSizeLimit && cnt_nrg < blkNrgLimit.get()) {
-                                try {
-                                    rtn.add((TX) itx.clone());
-                                    if (firstTx) {
-                                        snapshotSet.add(bw);
-                                        firstTx = false;
-                                    }
-                                } catch (Exception ex) {
-                                    if (LOG.isErrorEnabled()) {
-                                        LOG.error("TxPoolA0.snapshot  exception[{}], return [{}] TX", ex.toString(),
-                                                rtn.size());
-                                    }
-                                    return rtn;
-                                }
-                            } else {
-                                if (LOG.isInfoEnabled()) {
-                                    LOG.info("TxPoolA0.snapshot return Tx[{}] TxSize[{}] Nrg[{}] Pool[{}]", rtn.size(), cnt_txSz, cnt_nrg, getMainMap().size());
-                                }
-
-                                return rtn;
-                            }
-                        }
-
-                        ancestor = nonPickedTx.get(ancestor).getKey();
-                    }
-                } else {
-                    // one low fee small nonce tx has been picked,and then search from this map.
-                    nonPickedTx.put(pair.getValue().getDependTx(), pair);
+                    ancestor = nonPickedTx.get(ancestor).getTxList().get(0);
                 }
+            } else {
+                // one low fee small nonce tx has been picked,and then search from this map.
+                visited.add(new Visit(txl, true, template.size()));
+                nonPickedTx.put(dependTx, txl);
             }
         }
+    }
 
-        if (LOG.isInfoEnabled()) {
-            LOG.info("TxPoolA0.snapshot return [{}] TX, poolSize[{}]", rtn.size(), getMainMap().size());
+    /** Adds the transactions of the list to the template, false once the block is full. */
+    private boolean pick(TxDependList<ByteArrayWrapper> txl, int visit, Set<ByteArrayWrapper> snapshotSet) {
+        boolean firstTx = true;
+        for (ByteArrayWrapper bw : txl.getTxList()) {
+            TXState ts = this.getMainMap().get(bw);
+            long nrg = ts.getNrgConsume();
+
+            if (LOG.isTraceEnabled()) {
+                ITransaction itx = ts.getTx();
+                LOG.trace("from:[{}] nonce:[{}] txSize: txSize[{}] nrgConsume[{}]", itx.getFrom().toString(),
+                        itx.getNonceBI().toString(), ts.getEncodedSize(), nrg);
+            }
+
+            if (templateSize + ts.getEncodedSize() < blkSizeLimit && templateNrg + nrg < blkNrgLimit.get()) {
+                template.add(new Pick(ts, (TX) ts.getTx().clone(), nrg, visit, firstTx ? bw : null));
+                templateSize += ts.getEncodedSize();
+                templateNrg += nrg;
+                if (firstTx) {
+                    snapshotSet.add(bw);
+                    firstTx = false;
+                }
+            } else {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Reach blockLimit: txSize[{}], nrgConsume[{}], tx#[{}]", templateSize + ts.getEncodedSize(),
+                            templateNrg + nrg, template.size());
+                }
+
+                overflow = new Pick(ts, null, nrg, visit, null);
+                return false;
+            }
         }
 
-        return rtn;
+        return true;
+    }
+
+    /** A transaction of the template, with the energy it was counted with. */
+    private class Pick {
+        private final TXState state;
+        private final TX tx;
+        private final long nrg;
+        private final int visit;
+        /** The hash of the transaction if it is the first of its list. */
+        private final ByteArrayWrapper first;
+
+        private Pick(TXState state, TX tx, long nrg, int visit, ByteArrayWrapper first) {
+            this.state = state;
+            this.tx = tx;
+            this.nrg = nrg;
+            this.visit = visit;
+            this.first = first;
+        }
+    }
+
+    /** A candidate list visited by the selection, and where its transactions start in the template. */
+    private static class Visit {
+        private final TxDependList<ByteArrayWrapper> list;
+        private final boolean deferred;
+        private final int from;
+
+        private Visit(TxDependList<ByteArrayWrapper> list, boolean deferred, int from) {
+            this.list = list;
+            this.deferred = deferred;
+            this.from = from;
+        }
     }
 
     @Override public String getVersion() {
@@ -537,15 +643,17 @@ import java.util.stream.Collectors;
     private void removeTimeoutTxn() {
 
         long ts = TimeInstant.now().toEpochSec() - txn_timeout;
-        List<TX> txl = Collections.synchronizedList(new ArrayList<>());
+        List<TX> txl = new ArrayList<>();
 
-        this.getTimeView().entrySet().parallelStream().forEach(e -> {
-            if (e.getKey() < ts) {
-                for (ByteArrayWrapper bw : e.getValue()) {
+        // the time view is sorted, only the expired timestamps are visited
+        SortedMap<Long, LinkedHashSet<ByteArrayWrapper>> timeView = this.getTimeView();
+        synchronized (timeView) {
+            for (LinkedHashSet<ByteArrayWrapper> hashes : timeView.headMap(ts).values()) {
+                for (ByteArrayWrapper bw : hashes) {
                     txl.add(this.getMainMap().get(bw).getTx());
                 }
             }
-        });
+        }
 
         if (txl.isEmpty()) {
             return;
@@ -1143,6 +1143,108 @@ public class TxnPoolTest {
         }
     }
 
+    @Test
+    public void snapshotTemplate() {
+        Properties config = new Properties();
+        config.put("tx-timeout", "100");
+
+        TxPoolA0<ITransaction> tp = new TxPoolA0<>(config);
+
+        List<ITransaction> txnl = new ArrayList<>();
+        Address acc = Address.wrap(key.get(0).getAddress());
+        for (int i = 0; i < 11; i++) {
+            ITransaction txn = new AionTransaction(BigInteger.valueOf(i).toByteArray(), acc,
+                    Address.wrap("0000000000000000000000000000000000000000000000000000000000000001"),
+                    ByteUtils.fromHexString("1"), ByteUtils.fromHexString("1"), 10000L, 1L);
+            ((AionTransaction) txn).sign(key.get(0));
+            txn.setNrgConsume(100_000L);
+            txnl.add(txn);
+        }
+
+        tp.add(txnl.subList(0, 10));
+        List<ITransaction> first = tp.snapshot();
+        assertEquals(10, first.size());
+
+        // the unchanged pool hands out the same template
+        List<ITransaction> second = tp.snapshot();
+        assertEquals(first, second);
+
+        // a new tx is part of the next template
+        tp.add(txnl.get(10));
+        List<ITransaction> third = tp.snapshot();
+        assertEquals(11, third.size());
+        assertTrue(Arrays.equals(txnl.get(10).getHash(), third.get(10).getHash()));
+
+        // so is a lower block energy limit
+        tp.updateBlkNrgLimit(1_000_000L);
+        assertEquals(9, tp.snapshot().size());
+
+        tp.remove(txnl.subList(0, 1));
+        List<ITransaction> fourth = tp.snapshot();
+        assertEquals(9, fourth.size());
+        assertTrue(Arrays.equals(txnl.get(1).getHash(), fourth.get(0).getHash()));
+    }
+
+    @Test
+    public void snapshotTemplatePatched() {
+        Properties config = new Properties();
+        config.put("tx-timeout", "100");
+
+        TxPoolA0<ITransaction> tp = new TxPoolA0<>(config);
+        tp.updateBlkNrgLimit(1_000_000L);
+
+        Random r = new Random(7);
+        Map<Address, List<ITransaction>> pooled = new HashMap<>();
+        int[] nextNonce = new int[key.size()];
+
+        for (int round = 0; round < 50; round++) {
+            List<ITransaction> txnl = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                int k = r.nextInt(key.size());
+                Address acc = Address.wrap(key.get(k).getAddress());
+                AionTransaction txn = new AionTransaction(BigInteger.valueOf(nextNonce[k]++).toByteArray(), acc,
+                        Address.wrap("0000000000000000000000000000000000000000000000000000000000000001"),
+                        ByteUtils.fromHexString("1"), ByteUtils.fromHexString("1"), 100_000L,
+                        10_000_000_000L + r.nextInt(1000));
+                txn.sign(key.get(k));
+                txn.setNrgConsume(21_000L + r.nextInt(30_000));
+                pooled.computeIfAbsent(acc, a -> new ArrayList<>()).add(txn);
+                txnl.add(txn);
+            }
+            tp.add(txnl);
+            tp.snapshot();
+
+            // a block takes the lowest nonces of an account
+            Address acc = Address.wrap(key.get(r.nextInt(key.size())).getAddress());
+            List<ITransaction> accTxs = pooled.getOrDefault(acc, new ArrayList<>());
+            if (!accTxs.isEmpty()) {
+                int taken = 1 + r.nextInt(accTxs.size());
+                tp.remove(Collections.singletonMap(acc, accTxs.get(taken - 1).getNonceBI().add(BigInteger.ONE)));
+                accTxs.subList(0, taken).clear();
+            }
+
+            // the pending state executes a tx of the template again
+            List<ITransaction> template = tp.snapshot();
+            if (!template.isEmpty()) {
+                byte[] hash = template.get(r.nextInt(template.size())).getHash();
+                for (List<ITransaction> txs : pooled.values()) {
+                    txs.stream().filter(tx -> Arrays.equals(hash, tx.getHash()))
+                            .forEach(tx -> tx.setNrgConsume(21_000L + r.nextInt(300_000)));
+                }
+            }
+
+            List<String> actual = new ArrayList<>();
+            tp.snapshot().forEach(tx -> actual.add(ByteUtils.toHexString(tx.getHash())));
+
+            // a changed block limit selects the template again from the start
+            tp.updateBlkNrgLimit(2_000_000L);
+            tp.updateBlkNrgLimit(1_000_000L);
+            List<String> expected = new ArrayList<>();
+            tp.snapshot().forEach(tx -> expected.add(ByteUtils.toHexString(tx.getHash())));
+            assertEquals(expected, actual);
+        }
+    }
+
     @Test
     public void testSnapshotAll() {
         ECKeyFac.setType(ECKeyFac.ECKeyType.ED25519);
@@ -47,6 +47,8 @@ public abstract class AbstractExecutor {
     protected IExecutionResult exeResult;
     private long blockRemainingNrg;
     private boolean askNonce = true;
+    private boolean payFee = true;
+    private boolean exclusive = true;
 
     public AbstractExecutor(IRepository _repo, boolean _localCall, long _blkRemainingNrg,
         Logger _logger) {
@@ -58,38 +60,46 @@ public abstract class AbstractExecutor {
     }
 
     protected ITxExecSummary execute(ITransaction tx, long contextNrgLmit) {
+        if (!exclusive) {
+            return run(tx, contextNrgLmit);
+        }
+
         synchronized (lock) {
-            // prepare, preliminary check
-            if (prepare(tx, contextNrgLmit)) {
-
-                if (!isLocalCall) {
-                    IRepositoryCache track = repo.startTracking();
-                    // increase nonce
-                    if (askNonce) {
-                        track.incrementNonce(tx.getFrom());
-                    }
-
-                    // charge nrg cost
-                    // Note: if the tx is a inpool tx, it will temp charge more balance for the account
-                    // once the block info been updated. the balance in pendingPool will correct.
-                    BigInteger nrgLimit = BigInteger.valueOf(tx.getNrg());
-                    BigInteger nrgPrice = BigInteger.valueOf(tx.getNrgPrice());
-                    BigInteger txNrgCost = nrgLimit.multiply(nrgPrice);
-                    track.addBalance(tx.getFrom(), txNrgCost.negate());
-                    track.flush();
-                }
+            return run(tx, contextNrgLmit);
+        }
+    }
 
-                // run the logic
-                if (tx.isContractCreation()) {
-                    create();
-                } else {
-                    call();
+    private ITxExecSummary run(ITransaction tx, long contextNrgLmit) {
+        // prepare, preliminary check
+        if (prepare(tx, contextNrgLmit)) {
+
+            if (!isLocalCall) {
+                IRepositoryCache track = repo.startTracking();
+                // increase nonce
+                if (askNonce) {
+                    track.incrementNonce(tx.getFrom());
                 }
+
+                // charge nrg cost
+                // Note: if the tx is a inpool tx, it will temp charge more balance for the account
+                // once the block info been updated. the balance in pendingPool will correct.
+                BigInteger nrgLimit = BigInteger.valueOf(tx.getNrg());
+                BigInteger nrgPrice = BigInteger.valueOf(tx.getNrgPrice());
+                BigInteger txNrgCost = nrgLimit.multiply(nrgPrice);
+                track.addBalance(tx.getFrom(), txNrgCost.negate());
+                track.flush();
             }
 
-            // finalize
-            return finish();
+            // run the logic
+            if (tx.isContractCreation()) {
+                create();
+            } else {
+                call();
+            }
         }
+
+        // finalize
+        return finish();
     }
 
     /**
@@ -171,6 +181,22 @@ public abstract class AbstractExecutor {
         this.askNonce = false;
     }
 
+    /**
+     * Tells the executor to leave the fee out of the coinbase balance, for callers that transfer it
+     * themselves.
+     */
+    public void setBypassFee() {
+        this.payFee = false;
+    }
+
+    /**
+     * Lets the executor run alongside others. Only the parts running a virtual machine or a
+     * precompiled contract, which are not thread-safe, are then kept under the global lock.
+     */
+    public void setConcurrent() {
+        this.exclusive = false;
+    }
+
     /**
      * Returns the energy remaining after the transaction was executed. Prior to execution this
      * method simply returns the energy limit for the transaction.
@@ -220,7 +246,7 @@ public abstract class AbstractExecutor {
      * If the repository qualifies for an update then it is updated as follows:
      *   1. The transaction sender is refunded for whatever outstanding energy was not consumed.
      *   2. The transaction energy consumption amount is set accordingly.
-     *   3. The fee is transferred to the coinbase account.
+     *   3. The fee is transferred to the coinbase account, unless bypassed.
      *   4. All accounts marked for deletion (given that the transaction was successful) are deleted.
      *
      * @param summary The transaction summary.
@@ -242,7 +268,9 @@ public abstract class AbstractExecutor {
             tx.setNrgConsume(getNrgUsed(tx.getNrg()));
 
             // Transfer fees to miner
-            track.addBalance(coinbase, summary.getFee());
+            if (payFee) {
+                track.addBalance(coinbase, summary.getFee());
+            }
 
             if (exeResult.getCode() == ResultCode.SUCCESS.toInt()) {
                 // Delete accounts
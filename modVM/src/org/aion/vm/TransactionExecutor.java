@@ -159,15 +159,22 @@ public class TransactionExecutor extends AbstractExecutor {
      * Prepares contract call.
      */
     protected void call() {
-        IPrecompiledContract pc = this.provider.getPrecompiledContract(this.ctx, this.repoTrack);
-        if (pc != null) {
-            exeResult = pc.execute(tx.getData(), ctx.nrgLimit());
-        } else {
+        IPrecompiledContract pc;
+        synchronized (lock) {
+            pc = this.provider.getPrecompiledContract(this.ctx, this.repoTrack);
+            if (pc != null) {
+                exeResult = pc.execute(tx.getData(), ctx.nrgLimit());
+            }
+        }
+
+        if (pc == null) {
             // execute code
             byte[] code = repoTrack.getCode(tx.getTo());
             if (!ArrayUtils.isEmpty(code)) {
-                VirtualMachine fvm = this.provider.getVM();
-                exeResult = fvm.run(code, ctx, repoTrack);
+                synchronized (lock) {
+                    VirtualMachine fvm = this.provider.getVM();
+                    exeResult = fvm.run(code, ctx, repoTrack);
+                }
             }
         }
 
@@ -193,8 +200,10 @@ public class TransactionExecutor extends AbstractExecutor {
 
         // execute contract deployer
         if (!ArrayUtils.isEmpty(tx.getData())) {
-            VirtualMachine fvm = this.provider.getVM();
-            exeResult = fvm.run(tx.getData(), ctx, repoTrack);
+            synchronized (lock) {
+                VirtualMachine fvm = this.provider.getVM();
+                exeResult = fvm.run(tx.getData(), ctx, repoTrack);
+            }
 
             if (exeResult.getCode() == ResultCode.SUCCESS.toInt()) {
                 repoTrack.saveCode(contractAddress, exeResult.getOutput());